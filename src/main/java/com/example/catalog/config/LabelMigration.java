@@ -0,0 +1,60 @@
+package com.example.catalog.config;
+
+import com.example.catalog.domain.entities.Label;
+import com.example.catalog.services.TaskLabelService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+// Las etiquetas se guardaban como colección de textos en task_labels. Al arrancar, si esa tabla
+// aún tiene filas, se pasan al diccionario (labels + task_label_links), se vacía y se recalculan
+// los contadores por usuario. En las siguientes ejecuciones solo cuesta un COUNT.
+@Component
+public class LabelMigration implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(LabelMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TaskLabelService taskLabelService;
+    private final TransactionTemplate transactionTemplate;
+
+    public LabelMigration(JdbcTemplate jdbcTemplate, TaskLabelService taskLabelService, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.taskLabelService = taskLabelService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Integer legacyRows;
+        try {
+            legacyRows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM task_labels", Integer.class);
+        } catch (DataAccessException e) {
+            return; // base de datos creada sin la tabla antigua
+        }
+        if (legacyRows == null || legacyRows == 0) return;
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Long, List<String>> labelsByTask = new HashMap<>();
+            jdbcTemplate.query("SELECT task_id, labels FROM task_labels", row -> {
+                labelsByTask.computeIfAbsent(row.getLong("task_id"), id -> new ArrayList<>()).add(row.getString("labels"));
+            });
+            Map<String, Label> dictionary = taskLabelService.resolve(labelsByTask.values().stream().flatMap(List::stream).toList());
+            List<Object[]> links = new ArrayList<>();
+            labelsByTask.forEach((taskId, names) -> TaskLabelService.labelsFor(names, dictionary)
+                    .forEach(label -> links.add(new Object[]{taskId, label.getId(), taskId, label.getId()})));
+            jdbcTemplate.batchUpdate("INSERT INTO task_label_links (task_id, label_id) SELECT ?, ? "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM task_label_links WHERE task_id = ? AND label_id = ?)", links);
+            jdbcTemplate.update("DELETE FROM task_labels");
+            taskLabelService.rebuildCounts();
+            logger.info("Migrated {} task labels into the label dictionary ({} distinct labels)", legacyRows, dictionary.size());
+        });
+    }
+}
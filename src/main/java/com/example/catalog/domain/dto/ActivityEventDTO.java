@@ -0,0 +1,14 @@
+package com.example.catalog.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Aviso efímero del canal SSE: type = task | group, action = created | updated | unassigned | deleted
+@Getter
+@AllArgsConstructor
+public class ActivityEventDTO {
+    private String type;
+    private String action;
+    private Long id;
+    private String name;
+}
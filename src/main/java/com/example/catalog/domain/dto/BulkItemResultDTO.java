@@ -0,0 +1,22 @@
+package com.example.catalog.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Resultado de un elemento de una operación masiva; index es su posición en la petición
+@Getter
+@AllArgsConstructor
+public class BulkItemResultDTO {
+    private int index;
+    private Long id;
+    private boolean success;
+    private String error;
+
+    public static BulkItemResultDTO ok(int index, Long id) {
+        return new BulkItemResultDTO(index, id, true, null);
+    }
+
+    public static BulkItemResultDTO failed(int index, Long id, String error) {
+        return new BulkItemResultDTO(index, id, false, error);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.catalog.domain.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class BulkResultDTO {
+    private final int succeeded;
+    private final int failed;
+    private final List<BulkItemResultDTO> items;
+
+    public BulkResultDTO(List<BulkItemResultDTO> items) {
+        this.items = items;
+        this.succeeded = (int) items.stream().filter(BulkItemResultDTO::isSuccess).count();
+        this.failed = items.size() - succeeded;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.catalog.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Tareas de un rango agrupadas por día; solo aparecen los días con tareas. truncated indica que
+// el rango tenía más tareas de las que se devuelven.
+@Getter
+@AllArgsConstructor
+public class CalendarDTO {
+    private LocalDate from;
+    private LocalDate to;
+    private int total;
+    private boolean truncated;
+    private List<CalendarDayDTO> days;
+}
@@ -0,0 +1,14 @@
+package com.example.catalog.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class CalendarDayDTO {
+    private LocalDate date;
+    private List<CalendarEntryDTO> tasks;
+}
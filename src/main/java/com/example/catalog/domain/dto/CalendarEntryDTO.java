@@ -0,0 +1,25 @@
+package com.example.catalog.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+// Tarea reducida para el calendario y la agenda: sin descripción, asignado ni imagen
+@Getter
+@AllArgsConstructor
+public class CalendarEntryDTO {
+    private Long id;
+    private String title;
+    private LocalDate date;
+    private LocalTime time;
+    private Boolean status;
+    private List<String> labels;
+
+    // Proyección JPQL (TaskRepository.CALENDAR_VIEW)
+    public CalendarEntryDTO(Long id, String title, LocalDate date, LocalTime time, Boolean status, String labels) {
+        this(id, title, date, time, status, ListAggregates.toStrings(labels));
+    }
+}
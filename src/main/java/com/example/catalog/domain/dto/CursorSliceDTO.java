@@ -0,0 +1,24 @@
+package com.example.catalog.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Página por cursor: sin total ni count(*); nextCursor es null en la última página
+@Getter
+@AllArgsConstructor
+public class CursorSliceDTO<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+
+    public static <E, T> CursorSliceDTO<T> of(Slice<E> slice, Function<E, T> mapper, Function<E, String> cursorOf) {
+        List<E> rows = slice.getContent();
+        String nextCursor = slice.hasNext() && !rows.isEmpty() ? cursorOf.apply(rows.get(rows.size() - 1)) : null;
+        return new CursorSliceDTO<>(rows.stream().map(mapper).toList(), rows.size(), slice.hasNext(), nextCursor);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.catalog.domain.dto;
+
+import java.util.regex.Pattern;
+
+// URLs de las imágenes en las respuestas. Los ficheros del almacén se guardan bajo la clave de su
+// SHA-256 (último tramo de la ruta), así que la versión sale de la propia ruta: con ?v=<sha256>
+// FileResponseWriter sirve la imagen como inmutable y, al cambiarla, cambia la URL. Las rutas
+// anteriores al almacén no llevan hash y se sirven sin versión (el cliente revalida).
+public final class FileUrls {
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+
+    private FileUrls() {
+    }
+
+    public static String versioned(String url, String path) {
+        if (path == null || path.isBlank()) return null;
+        String version = version(path);
+        return version != null ? url + "?v=" + version : url;
+    }
+
+    // Hash que lleva la ruta en su último tramo, o null si es anterior al almacén
+    public static String version(String path) {
+        String name = path.substring(Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\')) + 1);
+        return SHA256.matcher(name).matches() ? name : null;
+    }
+}
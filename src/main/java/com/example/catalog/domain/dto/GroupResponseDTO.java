@@ -1,7 +1,5 @@
 package com.example.catalog.domain.dto;
 
-import com.example.catalog.domain.entities.User;
-import jakarta.persistence.Column;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
@@ -13,7 +11,16 @@ public class GroupResponseDTO {
     private Long id;
     private String name;
     private String description;
-    private User adminUser;
-    private List<User> users;
+    private UserSummaryDTO adminUser;
+    private List<Long> userIds;
     private String image;
+
+    // Proyección JPQL (GroupRepository.GROUP_VIEW): administrador aplanado e ids de miembros agregados
+    public GroupResponseDTO(Long id, String name, String description, Long adminId, String adminName, String adminEmail, String userIds, String image) {
+        this(id, name, description, adminId == null ? null : new UserSummaryDTO(adminId, adminName, adminEmail), ListAggregates.toIds(userIds), image);
+    }
+
+    public String getImageUrl() {
+        return FileUrls.versioned("/api/v1/groups/" + id + "/avatar", image);
+    }
 }
@@ -0,0 +1,11 @@
+package com.example.catalog.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class LabelCountDTO {
+    private String name;
+    private long count;
+}
@@ -0,0 +1,28 @@
+package com.example.catalog.domain.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Colecciones agregadas en la base de datos con listagg (string_agg en PostgreSQL) para que una
+// página de resultados sea una sola consulta. El separador es un carácter de control que no
+// aparece en etiquetas ni identificadores.
+public final class ListAggregates {
+    public static final String SEPARATOR = "\u001f";
+
+    private ListAggregates() {
+    }
+
+    public static List<String> toStrings(String aggregated) {
+        if (aggregated == null || aggregated.isEmpty()) return new ArrayList<>();
+        return new ArrayList<>(List.of(aggregated.split(SEPARATOR, -1)));
+    }
+
+    public static List<Long> toIds(String aggregated) {
+        List<Long> ids = new ArrayList<>();
+        if (aggregated == null || aggregated.isEmpty()) return ids;
+        for (String id : aggregated.split(SEPARATOR)) {
+            ids.add(Long.valueOf(id));
+        }
+        return ids;
+    }
+}
@@ -17,4 +17,6 @@ public class NotificationRequestDTO {
     private String message;
     private Date createdAt;
     private String userEmail;
+    // Opcional: reintentos con la misma clave devuelven la notificación ya creada
+    private String dedupeKey;
 }
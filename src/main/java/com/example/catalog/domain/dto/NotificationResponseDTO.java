@@ -14,4 +14,5 @@ public class NotificationResponseDTO {
     private String message;
     private Date createdAt;
     private String userEmail;
+    private boolean read;
 }
@@ -0,0 +1,14 @@
+package com.example.catalog.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class SearchHitDTO {
+    private String type;
+    private Long id;
+    private String title;
+    private String description;
+    private float score;
+}
@@ -0,0 +1,15 @@
+package com.example.catalog.domain.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Elemento de PUT /api/v1/tasks/bulk: los mismos campos que una actualización individual más el id
+@Getter
+@Setter
+@NoArgsConstructor
+public class TaskBulkUpdateDTO extends TaskRequestDTO {
+    @NotNull(message = "el id de la tarea es obligatorio")
+    private Long id;
+}
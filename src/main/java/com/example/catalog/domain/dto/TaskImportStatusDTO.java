@@ -0,0 +1,27 @@
+package com.example.catalog.domain.dto;
+
+import com.example.catalog.domain.enums.ImportStatus;
+import com.example.catalog.domain.enums.TaskFileFormat;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+
+// Progreso de una importación: processed = imported + rejected. errors guarda solo los primeros rechazos.
+@Getter
+@AllArgsConstructor
+public class TaskImportStatusDTO {
+    private String id;
+    private String fileName;
+    private TaskFileFormat format;
+    private ImportStatus status;
+    private long processed;
+    private long imported;
+    private long rejected;
+    private double rowsPerSecond;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String message;
+    private List<String> errors;
+}
@@ -1,6 +1,5 @@
 package com.example.catalog.domain.dto;
 
-import com.example.catalog.domain.entities.User;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
@@ -16,8 +15,18 @@ public class TaskResponseDTO {
     private String description;
     private LocalDate date;
     private LocalTime time;
-    private User assigmentFor;
+    private UserSummaryDTO assigmentFor;
     private Boolean status;
     private List<String> labels;
     private String image;
+
+    // Proyección JPQL (TaskRepository.TASK_VIEW): asignado aplanado y etiquetas ya agregadas
+    public TaskResponseDTO(Long id, String title, String description, LocalDate date, LocalTime time,
+                           Long userId, String userName, String userEmail, Boolean status, String labels, String image) {
+        this(id, title, description, date, time, new UserSummaryDTO(userId, userName, userEmail), status, ListAggregates.toStrings(labels), image);
+    }
+
+    public String getImageUrl() {
+        return FileUrls.versioned("/api/v1/tasks/" + id + "/avatar", image);
+    }
 }
@@ -1,6 +1,5 @@
 package com.example.catalog.domain.dto;
 
-import com.example.catalog.domain.entities.Task;
 import com.example.catalog.domain.enums.Rol;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -16,9 +15,18 @@ public class UserResponseDTO {
     private String username;
     private String phoneNumber;
     private String email;
-    private String password;
     private List<Long> tasksIds;
     private Rol rol;
     private String avatar;
     private List<Long> groupIds;
+
+    // Proyección JPQL (UserRepository.USER_VIEW): ids de tareas y grupos ya agregados
+    public UserResponseDTO(Long id, String name, String surnames, String username, String phoneNumber, String email,
+                           String tasksIds, Rol rol, String avatar, String groupIds) {
+        this(id, name, surnames, username, phoneNumber, email, ListAggregates.toIds(tasksIds), rol, avatar, ListAggregates.toIds(groupIds));
+    }
+
+    public String getAvatarUrl() {
+        return FileUrls.versioned("/api/v1/users/" + id + "/avatar", avatar);
+    }
 }
@@ -0,0 +1,13 @@
+package com.example.catalog.domain.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Datos mínimos de un usuario referenciado desde otra respuesta (asignado, administrador...)
+@Getter
+@AllArgsConstructor
+public class UserSummaryDTO {
+    private Long id;
+    private String name;
+    private String email;
+}
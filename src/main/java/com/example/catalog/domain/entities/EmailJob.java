@@ -0,0 +1,47 @@
+package com.example.catalog.domain.entities;
+
+import com.example.catalog.domain.enums.EmailJobStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// Fila del outbox de correos: se escribe en la misma transaccion que el cambio de negocio
+// y la envia EmailOutboxDispatcher en segundo plano despues del commit.
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "email_jobs", indexes = @Index(name = "idx_email_jobs_status_next_attempt", columnList = "status, next_attempt_at"))
+public class EmailJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    private Long id;
+    @Column(nullable = false)
+    private String recipient;
+    @Column(nullable = false)
+    private String subject;
+    @Column(name = "template_name")
+    private String templateName;
+    @Column(columnDefinition = "TEXT")
+    private String model;
+    @Column(name = "fallback_text", columnDefinition = "TEXT")
+    private String fallbackText;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private EmailJobStatus status;
+    @Column(nullable = false)
+    private int attempts;
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+    @Column(name = "locked_at")
+    private Instant lockedAt;
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+    @Column(name = "sent_at")
+    private Instant sentAt;
+}
@@ -13,7 +13,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "groups")
+@Table(name = "groups", indexes = @Index(name = "idx_groups_image", columnList = "image"))
 public class Group {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE)
@@ -0,0 +1,20 @@
+package com.example.catalog.domain.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Diccionario de etiquetas: cada nombre se guarda una sola vez y las tareas lo referencian por id
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "labels")
+public class Label {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    private Long id;
+    @Column(nullable = false, unique = true)
+    private String name;
+}
@@ -2,6 +2,7 @@ package com.example.catalog.domain.entities;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.Instant;
 import java.util.Date;
@@ -12,15 +13,31 @@ import java.util.Date;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "notifications")
+@Table(name = "notifications",
+        indexes = {
+                @Index(name = "idx_notifications_user_email_id", columnList = "user_email, id"),
+                @Index(name = "idx_notifications_user_email_stream_seq", columnList = "user_email, stream_seq")
+        },
+        uniqueConstraints = @UniqueConstraint(name = "uk_notifications_user_email_dedupe_key", columnNames = {"user_email", "dedupe_key"}))
 public class Notification {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Secuencia (no IDENTITY) para que Hibernate pueda agrupar los INSERT en lotes JDBC
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
     private String title;
     private String message;
     private Date createdAt;
     @Column(name = "user_email", nullable = false)
     private String userEmail;
+    @Column(name = "is_read", nullable = false)
+    @ColumnDefault("false")
+    private boolean read;
+    // Clave de idempotencia por usuario (ver NotificationService.create); null en filas antiguas
+    @Column(name = "dedupe_key", length = 128)
+    private String dedupeKey;
+    // Orden de commit entre las notificaciones del usuario (ver NotificationCounterService.addCreated);
+    // null en filas antiguas
+    @Column(name = "stream_seq")
+    private Long streamSeq;
 }
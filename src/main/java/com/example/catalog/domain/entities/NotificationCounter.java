@@ -0,0 +1,26 @@
+package com.example.catalog.domain.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+
+// Notificaciones sin leer de cada usuario. Se mantiene de forma incremental al crear notificaciones
+// y al marcarlas como leídas (NotificationCounterService) para servir el contador sin contar filas.
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "notification_counters")
+public class NotificationCounter {
+    @Id
+    @Column(name = "user_email")
+    private String userEmail;
+    @Column(name = "unread_count", nullable = false)
+    private long unreadCount;
+    // Última posición asignada a una notificación del usuario (Notification.streamSeq)
+    @Column(name = "last_seq", nullable = false)
+    @ColumnDefault("0")
+    private long lastSeq;
+}
@@ -0,0 +1,37 @@
+package com.example.catalog.domain.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// Metadatos de un fichero subido, guardados al subirlo: el hash del contenido es el ETag y el
+// tipo MIME ya validado evita sondear el disco en cada descarga. Las miniaturas apuntan a su
+// original con variantOf; touchedAt es la última subida del mismo contenido (ver BlobGarbageCollector).
+// thumbnailFailedAt marca los originales de los que no se pudieron generar miniaturas.
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "stored_files", indexes = @Index(name = "idx_stored_files_variant_of", columnList = "variant_of"))
+public class StoredFile {
+    @Id
+    @Column(length = 1024)
+    private String path;
+    @Column(nullable = false, length = 64)
+    private String sha256;
+    @Column(name = "content_type", nullable = false)
+    private String contentType;
+    @Column(nullable = false)
+    private long size;
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+    @Column(name = "touched_at")
+    private Instant touchedAt;
+    @Column(name = "variant_of", length = 1024)
+    private String variantOf;
+    @Column(name = "thumbnail_failed_at")
+    private Instant thumbnailFailedAt;
+}
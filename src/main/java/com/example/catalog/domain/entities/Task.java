@@ -7,7 +7,7 @@ import lombok.*;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.util.List;
+import java.util.Set;
 
 @Entity
 @Getter
@@ -15,7 +15,12 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "tasks")
+// (user_id, date, time, id): calendario por rango y agenda por clave de un usuario;
+// image: referencias a ficheros para el recolector de blobs
+@Table(name = "tasks", indexes = {
+        @Index(name = "idx_tasks_user_date_time", columnList = "user_id, date, time, id"),
+        @Index(name = "idx_tasks_image", columnList = "image")
+})
 public class Task {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE)
@@ -34,9 +39,14 @@ public class Task {
     private User assigmentFor;
     @Column(nullable = false)
     private Boolean status;
-    @Column (nullable = false)
-    @ElementCollection
-    private List<String> labels;
+    // Clave primaria (task_id, label_id) para las etiquetas de una tarea e índice (label_id, task_id)
+    // para los filtros por etiqueta
+    @ManyToMany
+    @JoinTable(name = "task_label_links",
+            joinColumns = @JoinColumn(name = "task_id"),
+            inverseJoinColumns = @JoinColumn(name = "label_id"),
+            indexes = @Index(name = "idx_task_label_links_label_task", columnList = "label_id, task_id"))
+    private Set<Label> labels;
     @Column(nullable = true)
     private String image;
 }
\ No newline at end of file
@@ -15,7 +15,7 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "idx_users_avatar", columnList = "avatar"))
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE)
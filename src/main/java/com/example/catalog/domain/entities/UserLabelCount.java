@@ -0,0 +1,28 @@
+package com.example.catalog.domain.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Número de tareas de un usuario con cada etiqueta. Se mantiene de forma incremental en cada
+// escritura de tareas (TaskLabelService) para servir la nube de etiquetas sin recorrer las tareas.
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "user_label_counts")
+public class UserLabelCount {
+    @EmbeddedId
+    private UserLabelCountId id;
+    @MapsId("userId")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+    @MapsId("labelId")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "label_id")
+    private Label label;
+    @Column(name = "task_count", nullable = false)
+    private long taskCount;
+}
@@ -0,0 +1,22 @@
+package com.example.catalog.domain.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Embeddable
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class UserLabelCountId implements Serializable {
+    @Column(name = "user_id")
+    private Long userId;
+    @Column(name = "label_id")
+    private Long labelId;
+}
@@ -0,0 +1,8 @@
+package com.example.catalog.domain.enums;
+
+public enum EmailJobStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    DEAD,
+}
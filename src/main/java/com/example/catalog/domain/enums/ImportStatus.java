@@ -0,0 +1,7 @@
+package com.example.catalog.domain.enums;
+
+public enum ImportStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,45 @@
+package com.example.catalog.domain.enums;
+
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+// Formatos de fichero de la exportación e importación de tareas
+public enum TaskFileFormat {
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+    CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "csv");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    TaskFileFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    // Formato a partir del Content-Type de una importación (se ignoran parámetros como charset)
+    public static TaskFileFormat of(MediaType contentType) {
+        for (TaskFileFormat format : values()) {
+            if (contentType != null && format.mediaType.isCompatibleWith(contentType)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Formato de fichero no soportado: " + contentType + " (application/x-ndjson, text/csv)");
+    }
+
+    public static TaskFileFormat parse(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Formato de fichero no soportado: " + value + " (ndjson, csv)");
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.catalog.mappers;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.StringJoiner;
+
+// Cursores opacos para la paginación por clave (keyset): cada clave de ordenación se codifica en
+// base64url y se unen con '.', así el cliente no depende de su formato.
+public class CursorMapper {
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    public static String encode(Object... keys) {
+        StringJoiner joiner = new StringJoiner(".");
+        for (Object key : keys) {
+            joiner.add(Base64.getUrlEncoder().withoutPadding().encodeToString(String.valueOf(key).getBytes(StandardCharsets.UTF_8)));
+        }
+        return joiner.toString();
+    }
+
+    // null o vacío = primera página
+    public static String[] decode(String cursor, int expectedKeys) {
+        if (cursor == null || cursor.isBlank()) return null;
+        String[] parts = cursor.split("\\.", -1);
+        if (parts.length != expectedKeys) throw new IllegalArgumentException("Cursor inválido");
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                parts[i] = new String(Base64.getUrlDecoder().decode(parts[i]), StandardCharsets.UTF_8);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+        return parts;
+    }
+
+    // Id de una clave ya decodificada; un valor manipulado se rechaza como el resto del cursor
+    public static Long parseId(String key) {
+        try {
+            return Long.valueOf(key);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+
+    // Sin ordenación: cada consulta de búsqueda por clave ya fija su ORDER BY
+    public static Pageable limit(int size) {
+        return PageRequest.ofSize(Math.max(1, Math.min(size, MAX_SIZE)));
+    }
+}
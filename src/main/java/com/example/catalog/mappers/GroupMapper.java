@@ -3,6 +3,9 @@ package com.example.catalog.mappers;
 import com.example.catalog.domain.dto.GroupRequestDTO;
 import com.example.catalog.domain.dto.GroupResponseDTO;
 import com.example.catalog.domain.entities.Group;
+import com.example.catalog.domain.entities.User;
+
+import java.util.List;
 
 public class GroupMapper {
     public static Group toEntity(GroupRequestDTO dto) {
@@ -20,8 +23,8 @@ public class GroupMapper {
                 group.getId(),
                 group.getName(),
                 group.getDescription(),
-                group.getAdminUser(),
-                group.getUsers(),
+                TaskMapper.toSummary(group.getAdminUser()),
+                group.getUsers() == null ? List.of() : group.getUsers().stream().map(User::getId).toList(),
                 group.getImage()
         );
     }
@@ -21,7 +21,8 @@ public class NotificationMapper {
                 notification.getTitle(),
                 notification.getMessage(),
                 notification.getCreatedAt(),
-                notification.getUserEmail()
+                notification.getUserEmail(),
+                notification.isRead()
         );
     }
 }
@@ -0,0 +1,164 @@
+package com.example.catalog.mappers;
+
+import com.example.catalog.domain.dto.TaskRequestDTO;
+import com.example.catalog.domain.dto.TaskResponseDTO;
+import com.example.catalog.domain.dto.UserSummaryDTO;
+import com.example.catalog.domain.entities.User;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+// Formato CSV (RFC 4180) de las tareas exportadas e importadas. Las etiquetas van en una sola columna
+// separadas por '|'. Al importar las columnas se localizan por la cabecera, así que un fichero
+// exportado se puede volver a importar tal cual (id y assigneeName se ignoran).
+public class TaskCsvMapper {
+    public static final String LABEL_SEPARATOR = "|";
+    public static final int MAX_RECORD_LENGTH = 64 * 1024;
+    public static final List<String> COLUMNS = List.of("id", "title", "description", "date", "time",
+            "assigneeId", "assigneeName", "assigneeEmail", "status", "labels", "image");
+
+    public static void writeHeader(Writer out) throws IOException {
+        out.write(String.join(",", COLUMNS));
+        out.write("\r\n");
+    }
+
+    public static void writeRow(Writer out, TaskResponseDTO task) throws IOException {
+        UserSummaryDTO user = task.getAssigmentFor();
+        writeField(out, task.getId());
+        writeField(out, task.getTitle());
+        writeField(out, task.getDescription());
+        writeField(out, task.getDate());
+        writeField(out, task.getTime());
+        writeField(out, user != null ? user.getId() : null);
+        writeField(out, user != null ? user.getName() : null);
+        writeField(out, user != null ? user.getEmail() : null);
+        writeField(out, task.getStatus());
+        writeField(out, task.getLabels() != null ? String.join(LABEL_SEPARATOR, task.getLabels()) : null);
+        out.write(escape(task.getImage()));
+        out.write("\r\n");
+    }
+
+    private static void writeField(Writer out, Object value) throws IOException {
+        out.write(escape(value != null ? value.toString() : null));
+        out.write(',');
+    }
+
+    static String escape(String value) {
+        if (value == null) return "";
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        return quote ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+
+    // Lee un registro completo (un campo entre comillas puede ocupar varias líneas); null al final del fichero.
+    public static List<String> readRecord(BufferedReader in) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean read = false;
+        int length = 0;
+        int c;
+        while ((c = in.read()) != -1) {
+            read = true;
+            if (++length > MAX_RECORD_LENGTH) {
+                throw new IllegalArgumentException("Registro CSV de más de " + MAX_RECORD_LENGTH + " caracteres");
+            }
+            if (quoted) {
+                if (c != '"') {
+                    field.append((char) c);
+                    continue;
+                }
+                in.mark(1);
+                if (in.read() == '"') {
+                    field.append('"');
+                } else {
+                    in.reset();
+                    quoted = false;
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (!read) return null;
+        if (quoted) throw new IllegalArgumentException("Comillas sin cerrar al final del fichero CSV");
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // Posición de cada columna conocida según la cabecera
+    public static Map<String, Integer> columnIndex(List<String> header) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim();
+            if (i == 0 && name.startsWith("\uFEFF")) name = name.substring(1);
+            if (COLUMNS.contains(name)) index.put(name, i);
+        }
+        for (String required : List.of("title", "date", "time")) {
+            if (!index.containsKey(required)) {
+                throw new IllegalArgumentException("Falta la columna " + required + " en la cabecera CSV");
+            }
+        }
+        if (!index.containsKey("assigneeId") && !index.containsKey("assigneeEmail")) {
+            throw new IllegalArgumentException("Falta la columna assigneeId o assigneeEmail en la cabecera CSV");
+        }
+        return index;
+    }
+
+    // Las celdas vacías se convierten en null para que las valide TaskRequestDTO
+    public static TaskRequestDTO toRequest(Map<String, Integer> index, List<String> record) {
+        TaskRequestDTO dto = new TaskRequestDTO();
+        dto.setTitle(field(index, record, "title"));
+        dto.setDescription(field(index, record, "description"));
+        String date = field(index, record, "date");
+        String time = field(index, record, "time");
+        try {
+            dto.setDate(date != null ? LocalDate.parse(date) : null);
+            dto.setTime(time != null ? LocalTime.parse(time) : null);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Fecha u hora inválida: " + date + " " + time);
+        }
+        String assigneeId = field(index, record, "assigneeId");
+        String assigneeEmail = field(index, record, "assigneeEmail");
+        if (assigneeId != null || assigneeEmail != null) {
+            try {
+                dto.setAssigmentFor(User.builder().id(assigneeId != null ? Long.valueOf(assigneeId) : null).email(assigneeEmail).build());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("assigneeId inválido: " + assigneeId);
+            }
+        }
+        String status = field(index, record, "status");
+        if (status != null) {
+            if (!status.equalsIgnoreCase("true") && !status.equalsIgnoreCase("false")) {
+                throw new IllegalArgumentException("status debe ser true o false: " + status);
+            }
+            dto.setStatus(Boolean.valueOf(status));
+        }
+        String labels = field(index, record, "labels");
+        dto.setLabels(labels != null ? new ArrayList<>(List.of(labels.split("\\" + LABEL_SEPARATOR))) : null);
+        dto.setImage(field(index, record, "image"));
+        return dto;
+    }
+
+    private static String field(Map<String, Integer> index, List<String> record, String column) {
+        Integer position = index.get(column);
+        if (position == null || position >= record.size()) return null;
+        String value = record.get(position);
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -2,7 +2,15 @@ package com.example.catalog.mappers;
 
 import com.example.catalog.domain.dto.TaskRequestDTO;
 import com.example.catalog.domain.dto.TaskResponseDTO;
+import com.example.catalog.domain.dto.UserSummaryDTO;
+import com.example.catalog.domain.entities.Label;
 import com.example.catalog.domain.entities.Task;
+import com.example.catalog.domain.entities.User;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public class TaskMapper {
     public static Task toEntity(TaskRequestDTO dto) {
@@ -13,7 +21,7 @@ public class TaskMapper {
         task.setTime(dto.getTime());
         task.setAssigmentFor(dto.getAssigmentFor());
         task.setStatus(dto.getStatus());
-        task.setLabels(dto.getLabels());
+        // las etiquetas se resuelven contra el diccionario en TaskLabelService
         task.setImage(dto.getImage());
         return task;
     }
@@ -25,10 +33,18 @@ public class TaskMapper {
                task.getDescription(),
                task.getDate(),
                task.getTime(),
-               task.getAssigmentFor(),
+               toSummary(task.getAssigmentFor()),
                task.getStatus(),
-               task.getLabels(),
+               labelNames(task.getLabels()),
                task.getImage()
        );
     }
+
+    public static List<String> labelNames(Collection<Label> labels) {
+        return labels == null ? new ArrayList<>() : labels.stream().map(Label::getName).sorted().collect(Collectors.toList());
+    }
+
+    public static UserSummaryDTO toSummary(User user) {
+        return user == null ? null : new UserSummaryDTO(user.getId(), user.getName(), user.getEmail());
+    }
 }
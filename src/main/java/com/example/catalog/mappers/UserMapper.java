@@ -6,6 +6,8 @@ import com.example.catalog.domain.entities.Group;
 import com.example.catalog.domain.entities.Task;
 import com.example.catalog.domain.entities.User;
 
+import java.util.List;
+
 public class UserMapper {
     public static User toEntity(UserRequestDTO dto) {
         User user = new User();
@@ -30,11 +32,10 @@ public class UserMapper {
                 user.getUsername(),
                 user.getPhoneNumber(),
                 user.getEmail(),
-                user.getPassword(),
-                user.getTasks().stream().map(Task::getId).toList(),
+                user.getTasks() == null ? List.of() : user.getTasks().stream().map(Task::getId).toList(),
                 user.getRol(),
                 user.getAvatar(),
-                user.getGroups().stream().map(Group::getId).toList()
+                user.getGroups() == null ? List.of() : user.getGroups().stream().map(Group::getId).toList()
         );
     }
 }
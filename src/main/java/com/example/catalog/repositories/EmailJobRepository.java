@@ -0,0 +1,27 @@
+package com.example.catalog.repositories;
+
+import com.example.catalog.domain.entities.EmailJob;
+import com.example.catalog.domain.enums.EmailJobStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface EmailJobRepository extends JpaRepository<EmailJob, Long> {
+
+    // SKIP LOCKED (-2): varias instancias pueden reclamar lotes distintos sin bloquearse entre si.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT j FROM EmailJob j WHERE j.status = :status AND j.nextAttemptAt <= :now ORDER BY j.id")
+    List<EmailJob> lockDueJobs(@Param("status") EmailJobStatus status, @Param("now") Instant now, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE EmailJob j SET j.status = :to, j.lockedAt = null WHERE j.status = :from AND j.lockedAt < :before")
+    int releaseStaleJobs(@Param("from") EmailJobStatus from, @Param("to") EmailJobStatus to, @Param("before") Instant before);
+
+    long countByStatus(EmailJobStatus status);
+}
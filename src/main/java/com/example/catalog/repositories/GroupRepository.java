@@ -1,15 +1,31 @@
 package com.example.catalog.repositories;
 
+import com.example.catalog.domain.dto.GroupResponseDTO;
+import com.example.catalog.domain.dto.ListAggregates;
 import com.example.catalog.domain.entities.Group;
 import com.example.catalog.domain.entities.Task;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Optional;
+import java.util.stream.Stream;
+
 public interface GroupRepository extends JpaRepository<Group, Long> {
+    // Respuesta plana en una sola consulta: administrador aplanado e ids de miembros agregados
+    String GROUP_VIEW = "SELECT new com.example.catalog.domain.dto.GroupResponseDTO(g.id, g.name, g.description, a.id, a.name, a.email, "
+            + "(SELECT listagg(cast(m.id as String), '" + ListAggregates.SEPARATOR + "') WITHIN GROUP (ORDER BY m.id) FROM g.users m), g.image) "
+            + "FROM Group g LEFT JOIN g.adminUser a ";
+    // Administrador o miembro; EXISTS evita el JOIN + DISTINCT sobre la tabla group_user
+    String ADMIN_OR_MEMBER = "WHERE (a.email = :email OR EXISTS (SELECT 1 FROM g.users m WHERE m.email = :email)) ";
+
     Group getGroupById(Long id);
 
     Group getGroupByName(String name);
@@ -22,4 +38,32 @@ public interface GroupRepository extends JpaRepository<Group, Long> {
     // Se usa DISTINCT para evitar duplicados si coincide en ambas condiciones.
     @Query("SELECT DISTINCT g FROM Group g LEFT JOIN g.users u WHERE g.adminUser.email = :email OR u.email = :email")
     Page<Group> findByAdminOrMemberEmail(@Param("email") String email, Pageable pageable);
+
+    @Query(value = GROUP_VIEW, countQuery = "SELECT count(g) FROM Group g")
+    Page<GroupResponseDTO> findAllViews(Pageable pageable);
+
+    @Query(value = GROUP_VIEW + ADMIN_OR_MEMBER, countQuery = "SELECT count(g) FROM Group g LEFT JOIN g.adminUser a " + ADMIN_OR_MEMBER)
+    Page<GroupResponseDTO> findViewsByAdminOrMemberEmail(@Param("email") String email, Pageable pageable);
+
+    @Query(GROUP_VIEW + "WHERE g.id = :id")
+    Optional<GroupResponseDTO> findViewById(@Param("id") Long id);
+
+    @Query(GROUP_VIEW + "WHERE g.name = :name")
+    Optional<GroupResponseDTO> findViewByName(@Param("name") String name);
+
+    // Paginación por clave (name, id) de los grupos del usuario
+    @Query(GROUP_VIEW + ADMIN_OR_MEMBER + "ORDER BY g.name, g.id")
+    Slice<GroupResponseDTO> scrollByAdminOrMemberEmailFirst(@Param("email") String email, Pageable pageable);
+
+    @Query(GROUP_VIEW + ADMIN_OR_MEMBER + "AND (g.name, g.id) > (:name, :id) ORDER BY g.name, g.id")
+    Slice<GroupResponseDTO> scrollByAdminOrMemberEmailAfter(@Param("email") String email, @Param("name") String name, @Param("id") Long id, Pageable pageable);
+
+    // Recorrido completo para reconstruir el índice de búsqueda
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query(GROUP_VIEW + "ORDER BY g.id")
+    Stream<GroupResponseDTO> streamAllViews();
 }
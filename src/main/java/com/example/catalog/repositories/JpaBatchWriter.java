@@ -0,0 +1,40 @@
+package com.example.catalog.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+// Inserta muchas entidades nuevas en lotes JDBC: persist + flush/clear cada hibernate.jdbc.batch_size
+// filas, así el contexto de persistencia no crece con el volumen y cada flush sale como un lote.
+// Las entidades quedan desasociadas (detached) al terminar cada lote.
+@Component
+public class JpaBatchWriter {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final int batchSize;
+
+    public JpaBatchWriter(@Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public <T> List<T> persistAll(List<T> entities) {
+        for (int i = 0; i < entities.size(); i++) {
+            entityManager.persist(entities.get(i));
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return entities;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.catalog.repositories;
+
+import com.example.catalog.domain.entities.Label;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface LabelRepository extends JpaRepository<Label, Long> {
+    List<Label> findByNameIn(Collection<String> names);
+}
@@ -0,0 +1,29 @@
+package com.example.catalog.repositories;
+
+import com.example.catalog.domain.entities.NotificationCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface NotificationCounterRepository extends JpaRepository<NotificationCounter, String> {
+
+    @Query("SELECT c.unreadCount FROM NotificationCounter c WHERE c.userEmail = :email")
+    Optional<Long> findUnreadCount(@Param("email") String email);
+
+    // Suma atómica en la base de datos: no hay lectura previa que pueda quedar obsoleta
+    @Modifying
+    @Query("UPDATE NotificationCounter c SET c.unreadCount = c.unreadCount + :delta WHERE c.userEmail = :email")
+    int increment(@Param("email") String email, @Param("delta") long delta);
+
+    // Cuenta una notificación nueva y le reserva la siguiente posición; la fila queda bloqueada
+    // hasta el commit, así que las posiciones de un usuario siguen el orden de commit
+    @Modifying
+    @Query("UPDATE NotificationCounter c SET c.unreadCount = c.unreadCount + 1, c.lastSeq = c.lastSeq + 1 WHERE c.userEmail = :email")
+    int incrementForNew(@Param("email") String email);
+
+    @Query("SELECT c.lastSeq FROM NotificationCounter c WHERE c.userEmail = :email")
+    Optional<Long> findLastSeq(@Param("email") String email);
+}
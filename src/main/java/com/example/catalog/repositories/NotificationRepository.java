@@ -5,14 +5,44 @@ import com.example.catalog.domain.entities.Notification;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Range;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
     List<Notification> findAllByOrderByCreatedAtDesc();
 
-    boolean existsByTitle(String title);
+    Optional<Notification> findByUserEmailAndDedupeKey(String userEmail, String dedupeKey);
 
     Page<Notification> findByUserEmail(String userEmail, Pageable pageable);
+
+    // Paginación por clave: más recientes primero (id descendente)
+    Slice<Notification> findByUserEmailOrderByIdDesc(String userEmail, Pageable pageable);
+
+    Slice<Notification> findByUserEmailAndIdLessThanOrderByIdDesc(String userEmail, Long id, Pageable pageable);
+
+    // Reenvío del canal SSE a partir de Last-Event-ID, en orden de commit (ver Notification.streamSeq)
+    @Query("SELECT n.streamSeq FROM Notification n WHERE n.id = :id AND n.userEmail = :email")
+    Optional<Long> findStreamSeq(@Param("email") String email, @Param("id") Long id);
+
+    List<Notification> findByUserEmailAndStreamSeqGreaterThanOrderByStreamSeqAsc(String userEmail, Long streamSeq, Pageable pageable);
+
+    // Para Last-Event-ID de filas anteriores a stream_seq (más antiguas primero)
+    List<Notification> findByUserEmailAndIdGreaterThanOrderByIdAsc(String userEmail, Long id, Pageable pageable);
+
+    // Solo para inicializar el contador de un usuario (NotificationCounterService), no por petición
+    long countByUserEmailAndReadFalse(String userEmail);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.read = true WHERE n.userEmail = :email AND n.id <= :id AND n.read = false")
+    int markReadUpTo(@Param("email") String email, @Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.read = true WHERE n.userEmail = :email AND n.read = false")
+    int markAllRead(@Param("email") String email);
 }
@@ -0,0 +1,52 @@
+package com.example.catalog.repositories;
+
+import com.example.catalog.domain.entities.StoredFile;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface StoredFileRepository extends JpaRepository<StoredFile, String> {
+    // Referencias a un fichero desde users.avatar, tasks.image y groups.image (todas indexadas)
+    String UNREFERENCED = "NOT EXISTS (SELECT 1 FROM User u WHERE u.avatar = f.path) "
+            + "AND NOT EXISTS (SELECT 1 FROM Task t WHERE t.image = f.path) "
+            + "AND NOT EXISTS (SELECT 1 FROM Group g WHERE g.image = f.path) ";
+
+    // Candidatos a borrar: originales del almacén sin referencias ni subidas desde cutoff
+    @Query("SELECT f.path FROM StoredFile f WHERE f.variantOf IS NULL AND f.path LIKE concat(:prefix, '%') "
+            + "AND coalesce(f.touchedAt, f.createdAt) < :cutoff AND " + UNREFERENCED + "ORDER BY f.path")
+    List<String> findUnreferencedPaths(@Param("prefix") String prefix, @Param("cutoff") Instant cutoff, Pageable limit);
+
+    @Query("SELECT (SELECT count(u) FROM User u WHERE u.avatar = :path) + (SELECT count(t) FROM Task t WHERE t.image = :path) "
+            + "+ (SELECT count(g) FROM Group g WHERE g.image = :path) FROM StoredFile f WHERE f.path = :path")
+    Long countReferences(@Param("path") String path);
+
+    List<StoredFile> findByVariantOf(String variantOf);
+
+    // SELECT ... FOR UPDATE: compartido por todas las instancias, a diferencia de un cerrojo en memoria
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM StoredFile f WHERE f.path = :path")
+    Optional<StoredFile> findForUpdate(@Param("path") String path);
+
+    @Modifying
+    @Query("UPDATE StoredFile f SET f.touchedAt = :now WHERE f.path = :path")
+    int touch(@Param("path") String path, @Param("now") Instant now);
+
+    // Se llama desde los hilos de miniaturas, fuera de cualquier transacción
+    @Transactional
+    @Modifying
+    @Query("UPDATE StoredFile f SET f.thumbnailFailedAt = :now WHERE f.path = :path")
+    int markThumbnailFailed(@Param("path") String path, @Param("now") Instant now);
+
+    @Modifying
+    @Query("DELETE FROM StoredFile f WHERE f.path = :path OR f.variantOf = :path")
+    int deleteWithVariants(@Param("path") String path);
+}
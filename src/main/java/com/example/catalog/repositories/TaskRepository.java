@@ -1,14 +1,34 @@
 package com.example.catalog.repositories;
 
+import com.example.catalog.domain.dto.CalendarEntryDTO;
+import com.example.catalog.domain.dto.ListAggregates;
+import com.example.catalog.domain.dto.TaskResponseDTO;
 import com.example.catalog.domain.entities.Task;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface TaskRepository extends JpaRepository<Task, Long> {
+    // Respuesta plana en una sola consulta: columnas de la tarea, id/nombre/email del asignado y
+    // etiquetas agregadas en la base de datos (sin cargar User.tasks ni User.groups)
+    String TASK_VIEW = "SELECT new com.example.catalog.domain.dto.TaskResponseDTO(t.id, t.title, t.description, t.date, t.time, u.id, u.name, u.email, t.status, "
+            + "(SELECT listagg(l.name, '" + ListAggregates.SEPARATOR + "') WITHIN GROUP (ORDER BY l.name) FROM t.labels l), t.image) "
+            + "FROM Task t JOIN t.assigmentFor u ";
+
     List<Task> findByStatus(boolean status);
 
     Task getTaskById(Long id);
@@ -17,7 +37,89 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
 
     boolean existsByTitle(String title);
 
+    // Comprobación de duplicados de una petición en lote con una sola consulta
+    @Query("SELECT t.title FROM Task t WHERE t.title IN :titles")
+    Set<String> findExistingTitles(@Param("titles") Collection<String> titles);
+
     Page<Task> findByAssigmentForEmail(String assigmentFor, Pageable pageable);
 
     Optional<Object> findTaskByTitle(String title);
-}
\ No newline at end of file
+
+    @Query(value = TASK_VIEW, countQuery = "SELECT count(t) FROM Task t")
+    Page<TaskResponseDTO> findAllViews(Pageable pageable);
+
+    @Query(value = TASK_VIEW + "WHERE u.email = :email", countQuery = "SELECT count(t) FROM Task t WHERE t.assigmentFor.email = :email")
+    Page<TaskResponseDTO> findViewsByUserEmail(@Param("email") String email, Pageable pageable);
+
+    @Query(TASK_VIEW + "WHERE t.id = :id")
+    Optional<TaskResponseDTO> findViewById(@Param("id") Long id);
+
+    @Query(TASK_VIEW + "WHERE t.title = :title")
+    List<TaskResponseDTO> findViewsByTitle(@Param("title") String title);
+
+    // Búsqueda por etiquetas: cada parámetro opcional (null) desactiva su filtro
+    String SEARCH_FILTERS = "(:email IS NULL OR u.email = :email) AND (:from IS NULL OR t.date >= :from) AND (:to IS NULL OR t.date <= :to) ";
+    String ANY_LABEL = "EXISTS (SELECT 1 FROM t.labels l WHERE l.name IN :labels) AND ";
+    // Las tareas con todas las etiquetas salen del índice (label_id, task_id) agrupando por tarea
+    String ALL_LABELS = "t.id IN (SELECT k.id FROM Task k JOIN k.labels l WHERE l.name IN :labels GROUP BY k.id HAVING COUNT(l) = :labelCount) AND ";
+    String SEARCH_COUNT = "SELECT count(t) FROM Task t JOIN t.assigmentFor u WHERE ";
+    String SEARCH_ORDER = "ORDER BY t.date, t.time, t.id";
+
+    @Query(value = TASK_VIEW + "WHERE " + SEARCH_FILTERS + SEARCH_ORDER, countQuery = SEARCH_COUNT + SEARCH_FILTERS)
+    Page<TaskResponseDTO> search(@Param("email") String email, @Param("from") LocalDate from, @Param("to") LocalDate to, Pageable pageable);
+
+    @Query(value = TASK_VIEW + "WHERE " + ANY_LABEL + SEARCH_FILTERS + SEARCH_ORDER, countQuery = SEARCH_COUNT + ANY_LABEL + SEARCH_FILTERS)
+    Page<TaskResponseDTO> searchAnyLabel(@Param("labels") Collection<String> labels, @Param("email") String email,
+                                         @Param("from") LocalDate from, @Param("to") LocalDate to, Pageable pageable);
+
+    @Query(value = TASK_VIEW + "WHERE " + ALL_LABELS + SEARCH_FILTERS + SEARCH_ORDER, countQuery = SEARCH_COUNT + ALL_LABELS + SEARCH_FILTERS)
+    Page<TaskResponseDTO> searchAllLabels(@Param("labels") Collection<String> labels, @Param("labelCount") long labelCount, @Param("email") String email,
+                                          @Param("from") LocalDate from, @Param("to") LocalDate to, Pageable pageable);
+
+    // Exportación: cursor de solo avance que trae EXPORT_FETCH_SIZE filas por viaje. Hay que
+    // consumirlo dentro de una transacción (en PostgreSQL el fetch size solo aplica sin autocommit)
+    // y cerrarlo al terminar.
+    String EXPORT_FETCH_SIZE = "500";
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query(TASK_VIEW + "WHERE u.email = :email ORDER BY t.date, t.time, t.id")
+    Stream<TaskResponseDTO> streamViewsByUserEmail(@Param("email") String email);
+
+    // Recorrido completo para reconstruir el índice de búsqueda
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query(TASK_VIEW + "ORDER BY t.id")
+    Stream<TaskResponseDTO> streamAllViews();
+
+    // Paginación por clave (date, time, id): sin OFFSET ni count(*)
+    @Query(TASK_VIEW + "ORDER BY t.date, t.time, t.id")
+    Slice<TaskResponseDTO> scrollFirst(Pageable pageable);
+
+    @Query(TASK_VIEW + "WHERE (t.date, t.time, t.id) > (:date, :time, :id) ORDER BY t.date, t.time, t.id")
+    Slice<TaskResponseDTO> scrollAfter(@Param("date") LocalDate date, @Param("time") LocalTime time, @Param("id") Long id, Pageable pageable);
+
+    @Query(TASK_VIEW + "WHERE u.email = :email ORDER BY t.date, t.time, t.id")
+    Slice<TaskResponseDTO> scrollByUserEmailFirst(@Param("email") String email, Pageable pageable);
+
+    @Query(TASK_VIEW + "WHERE u.email = :email AND (t.date, t.time, t.id) > (:date, :time, :id) ORDER BY t.date, t.time, t.id")
+    Slice<TaskResponseDTO> scrollByUserEmailAfter(@Param("email") String email, @Param("date") LocalDate date, @Param("time") LocalTime time, @Param("id") Long id, Pageable pageable);
+
+    // Calendario y agenda de un usuario: filtran por la columna user_id (sin JOIN) y recorren el
+    // índice (user_id, date, time, id) en orden, así que no hay ordenación en memoria
+    String CALENDAR_VIEW = "SELECT new com.example.catalog.domain.dto.CalendarEntryDTO(t.id, t.title, t.date, t.time, t.status, "
+            + "(SELECT listagg(l.name, '" + ListAggregates.SEPARATOR + "') WITHIN GROUP (ORDER BY l.name) FROM t.labels l)) "
+            + "FROM Task t WHERE t.assigmentFor.id = :userId ";
+
+    @Query(CALENDAR_VIEW + "AND t.date BETWEEN :from AND :to ORDER BY t.date, t.time, t.id")
+    List<CalendarEntryDTO> findCalendar(@Param("userId") Long userId, @Param("from") LocalDate from, @Param("to") LocalDate to, Pageable limit);
+
+    @Query(CALENDAR_VIEW + "AND (t.date, t.time, t.id) > (:date, :time, :id) ORDER BY t.date, t.time, t.id")
+    Slice<CalendarEntryDTO> findAgendaAfter(@Param("userId") Long userId, @Param("date") LocalDate date, @Param("time") LocalTime time, @Param("id") Long id, Pageable pageable);
+}
@@ -0,0 +1,46 @@
+package com.example.catalog.repositories;
+
+import com.example.catalog.domain.dto.LabelCountDTO;
+import com.example.catalog.domain.entities.UserLabelCount;
+import com.example.catalog.domain.entities.UserLabelCountId;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface UserLabelCountRepository extends JpaRepository<UserLabelCount, UserLabelCountId> {
+
+    @Query("SELECT new com.example.catalog.domain.dto.LabelCountDTO(l.name, c.taskCount) FROM UserLabelCount c JOIN c.label l "
+            + "WHERE c.user.email = :email AND c.taskCount > 0 ORDER BY c.taskCount DESC, l.name")
+    List<LabelCountDTO> findCountsByUserEmail(@Param("email") String email);
+
+    // Suma atómica en la base de datos: no hay lectura previa que pueda quedar obsoleta
+    @Modifying
+    @Query("UPDATE UserLabelCount c SET c.taskCount = c.taskCount + :delta WHERE c.id.userId = :userId AND c.id.labelId IN :labelIds")
+    int increment(@Param("userId") Long userId, @Param("labelIds") Collection<Long> labelIds, @Param("delta") long delta);
+
+    // SELECT ... FOR UPDATE: hasta el commit nadie puede restar ni borrar estos pares
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c.id.labelId FROM UserLabelCount c WHERE c.id.userId = :userId AND c.id.labelId IN :labelIds")
+    List<Long> lockLabelIds(@Param("userId") Long userId, @Param("labelIds") Collection<Long> labelIds);
+
+    @Modifying
+    @Query("DELETE FROM UserLabelCount c WHERE c.id.userId IN :userIds AND c.taskCount <= 0")
+    int deleteEmpty(@Param("userIds") Collection<Long> userIds);
+
+    @Modifying
+    @Query(value = "DELETE FROM user_label_counts", nativeQuery = true)
+    void deleteAllCounts();
+
+    // Recalcula todos los contadores desde task_label_links (migración y reparación)
+    @Modifying
+    @Query(value = "INSERT INTO user_label_counts (user_id, label_id, task_count) "
+            + "SELECT t.user_id, k.label_id, COUNT(*) FROM tasks t JOIN task_label_links k ON k.task_id = t.id GROUP BY t.user_id, k.label_id",
+            nativeQuery = true)
+    int rebuildCounts();
+}
@@ -1,11 +1,28 @@
 package com.example.catalog.repositories;
 
+import com.example.catalog.domain.dto.ListAggregates;
+import com.example.catalog.domain.dto.UserResponseDTO;
 import com.example.catalog.domain.entities.User;
+import com.example.catalog.segurity.user.UserPrincipal;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+    // Respuesta plana en una sola consulta, sin contraseña y con los ids de tareas y grupos
+    // agregados en la base de datos en lugar de recorrer User.tasks y User.groups
+    String USER_VIEW = "SELECT new com.example.catalog.domain.dto.UserResponseDTO(u.id, u.name, u.surnames, u.username, u.phoneNumber, u.email, "
+            + "(SELECT listagg(cast(t.id as String), '" + ListAggregates.SEPARATOR + "') WITHIN GROUP (ORDER BY t.id) FROM Task t WHERE t.assigmentFor = u), u.rol, u.avatar, "
+            + "(SELECT listagg(cast(g.id as String), '" + ListAggregates.SEPARATOR + "') WITHIN GROUP (ORDER BY g.id) FROM u.groups g)) "
+            + "FROM User u ";
+
     User getUserByUsername(String username);
 
     boolean existsByUsername(String username);
@@ -20,7 +37,32 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByEmail(String email);
 
+    List<User> findByEmailIn(Collection<String> emails);
+
     Optional<User> findByUsername(String username);
 
     boolean existsByEmailAndIdNot(String email, Long id);
+
+    @Query(value = USER_VIEW, countQuery = "SELECT count(u) FROM User u")
+    Page<UserResponseDTO> findAllViews(Pageable pageable);
+
+    @Query(USER_VIEW + "WHERE u.id = :id")
+    Optional<UserResponseDTO> findViewById(@Param("id") Long id);
+
+    @Query(USER_VIEW + "WHERE u.username = :username")
+    Optional<UserResponseDTO> findViewByUsername(@Param("username") String username);
+
+    @Query(USER_VIEW + "WHERE u.email = :email")
+    Optional<UserResponseDTO> findViewByEmail(@Param("email") String email);
+
+    // Paginación por clave (username, id)
+    @Query(USER_VIEW + "ORDER BY u.username, u.id")
+    Slice<UserResponseDTO> scrollFirst(Pageable pageable);
+
+    @Query(USER_VIEW + "WHERE (u.username, u.id) > (:username, :id) ORDER BY u.username, u.id")
+    Slice<UserResponseDTO> scrollAfter(@Param("username") String username, @Param("id") Long id, Pageable pageable);
+
+    // Solo las columnas que necesita el filtro JWT, sin cargar la entidad ni sus relaciones
+    @Query("SELECT new com.example.catalog.segurity.user.UserPrincipal(u.id, u.email, u.rol, u.password) FROM User u WHERE u.email = :email")
+    Optional<UserPrincipal> findPrincipalByEmail(@Param("email") String email);
 }
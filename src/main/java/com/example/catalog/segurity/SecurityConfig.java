@@ -2,6 +2,7 @@ package com.example.catalog.segurity;
 
 import com.example.catalog.segurity.jwt.JwtRequestFilter;
 import com.example.catalog.segurity.user.CustomUserDetailsService;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -58,6 +59,8 @@ public class SecurityConfig {
                 .cors(Customizer.withDefaults())
                 //.cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .authorizeHttpRequests(auth -> auth
+                        // el despacho ASYNC solo completa una respuesta en streaming ya autorizada
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/v1/auth/authenticate", "/api/v1/auth/register", "/api/v1/auth/logout", "/api/v1/auth/password/**").permitAll()
                         .requestMatchers("/api/v1/users/email-exists/**", "/api/v1/users/username-exists/**").permitAll()
                         .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html", "/swagger-ui/index.html").permitAll()
@@ -65,6 +68,7 @@ public class SecurityConfig {
                         .requestMatchers("/api/v1/tasks/**").hasAnyRole("USUARIO")
                         .requestMatchers("/api/v1/users/**").hasAnyRole("USUARIO")
                         .requestMatchers("/api/v1/notifications/**").hasAnyRole("USUARIO")
+                        .requestMatchers("/api/v1/search/**").hasAnyRole("USUARIO")
                         .anyRequest().authenticated()
                 )
                 .httpBasic(Customizer.withDefaults())
@@ -1,14 +1,16 @@
 package com.example.catalog.segurity.jwt;
 
-import com.example.catalog.segurity.user.CustomUserDetailsService;
+import com.example.catalog.segurity.user.PrincipalCache;
+import com.example.catalog.segurity.user.UserPrincipal;
 import com.example.catalog.services.TokenBlacklistService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -18,33 +20,32 @@ import java.io.IOException;
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
 
-    private final CustomUserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
     private final TokenBlacklistService tokenBlacklistService;
     private final JwtUtil jwtUtil;
+    // Con true se confía en los claims firmados (id, rol) y el filtro no toca la base de datos;
+    // a cambio, un cambio de rol, un borrado o un cambio de contraseña no revocan los tokens ya
+    // emitidos hasta que caducan (el logout sí, por la lista negra).
+    private final boolean trustTokenClaims;
 
-    public JwtRequestFilter(CustomUserDetailsService userDetailsService, TokenBlacklistService tokenBlacklistService, JwtUtil jwtUtil) {
-        this.userDetailsService = userDetailsService;
+    public JwtRequestFilter(PrincipalCache principalCache, TokenBlacklistService tokenBlacklistService, JwtUtil jwtUtil,
+                            @Value("${app.security.trust-token-claims:false}") boolean trustTokenClaims) {
+        this.principalCache = principalCache;
         this.tokenBlacklistService = tokenBlacklistService;
         this.jwtUtil = jwtUtil;
+        this.trustTokenClaims = trustTokenClaims;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
 
-        String username = null;
         String jwt = null;
 
         // Buscar el token JWT en el encabezado Authorization
         final String authorizationHeader = request.getHeader("Authorization");
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
             jwt = authorizationHeader.substring(7);
-
-            if (tokenBlacklistService.isTokenBlacklisted(jwt)) {
-                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-                limpiarCookie(response);
-                return;
-            }
         } else
             // Buscar el token JWT en las cookies
             if (request.getCookies() != null) {
@@ -57,17 +58,38 @@ public class JwtRequestFilter extends OncePerRequestFilter {
             }
 
 
-        // Validar y autenticar el token si se obtuvo
-        if (jwt != null) {
-            username = jwtUtil.extractUsername(jwt);
+        if (jwt == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        // Un único parseo y verificación de firma por petición (los claims quedan cacheados en JwtUtil)
+        Claims claims;
+        try {
+            claims = jwtUtil.parseAndValidate(jwt);
+        } catch (IllegalArgumentException e) {
+            // token inválido o caducado: la petición sigue como anónima
+            chain.doFilter(request, response);
+            return;
+        }
+
+        // Rechazar tokens revocados, vengan del encabezado o de la cookie
+        if (tokenBlacklistService.isRevoked(jwtUtil.extractTokenId(claims, jwt))) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            limpiarCookie(response);
+            return;
         }
 
+        String username = claims.getSubject();
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            UserPrincipal fromToken = trustTokenClaims ? UserPrincipal.fromClaims(claims) : null;
+            UserPrincipal principal = fromToken != null ? fromToken : principalCache.get(username);
+            // el pv de un principal sacado del token es el del propio token: no se comprueba
+            boolean passwordCurrent = fromToken != null || (principal != null && principal.acceptsPasswordVersion(claims));
 
-            if (jwtUtil.validateToken(jwt, userDetails)) {
+            if (principal != null && passwordCurrent && jwtUtil.validateToken(claims, principal)) {
                 var authentication = new org.springframework.security.authentication.UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
+                        principal, null, principal.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }
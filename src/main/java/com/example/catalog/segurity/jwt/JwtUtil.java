@@ -1,14 +1,23 @@
 package com.example.catalog.segurity.jwt;
 
+import com.example.catalog.segurity.user.CustomUserDetails;
+import com.example.catalog.segurity.user.UserPrincipal;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Component
@@ -16,6 +25,43 @@ public class JwtUtil {
 
     private final Key key = Keys.secretKeyFor(SignatureAlgorithm.HS256); // Clave generada automáticamente
     private final long jwtExpiration = 1000 * 60 * 60 * 10L; // 10 horas
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(key).build(); // se construye una sola vez
+    // Claims ya verificados por token: cada entrada caduca cuando caduca el propio token
+    private final Cache<String, Claims> verifiedClaims;
+
+    public JwtUtil() {
+        this(10_000);
+    }
+
+    @Autowired
+    public JwtUtil(@Value("${app.jwt.claims-cache.max-size:10000}") long claimsCacheSize) {
+        this.verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(claimsCacheSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String token, Claims claims, long currentTime) {
+                        long millis = claims.getExpiration() == null ? 0 : claims.getExpiration().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    // Verifica firma y expiración una sola vez por token y devuelve los claims.
+    // Lanza IllegalArgumentException si el token no es válido o ha caducado.
+    public Claims parseAndValidate(String token) {
+        return extractAllClaims(token);
+    }
 
     // Extraer el nombre de usuario del token
     public String extractUsername(String token) {
@@ -26,6 +72,15 @@ public class JwtUtil {
         return extractAllClaims(token).get("id", Long.class);
     }
 
+    // Identificador del token para la blacklist: el jti o, en tokens antiguos sin jti, un hash del token
+    public String extractTokenId(String token) {
+        return extractTokenId(extractAllClaims(token), token);
+    }
+
+    public String extractTokenId(Claims claims, String token) {
+        return claims.getId() != null ? claims.getId() : hash(token);
+    }
+
     // Extraer la fecha de expiración del token
     public Date extractExpiration(String token) {
         return extractClaim(token, Claims::getExpiration);
@@ -39,25 +94,28 @@ public class JwtUtil {
 
     // Extraer todos los claims del token
     private Claims extractAllClaims(String token) {
+        Claims cached = verifiedClaims.getIfPresent(token);
+        if (cached != null) {
+            return cached;
+        }
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(key) // Configurar la clave de firma
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            verifiedClaims.put(token, claims);
+            return claims;
         } catch (JwtException e) {
             throw new IllegalArgumentException("Token inválido o expirado");
         }
     }
 
-    // Verificar si el token está expirado
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
     // Generar un token JWT
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
+        // id, rol y versión de contraseña firmados: permiten validar sin consultar la base de datos
+        if (userDetails instanceof CustomUserDetails details) {
+            claims.put(UserPrincipal.CLAIM_ID, details.getId());
+            if (details.getRol() != null) claims.put(UserPrincipal.CLAIM_ROL, details.getRol().name());
+            claims.put(UserPrincipal.CLAIM_PASSWORD_VERSION, details.getPasswordVersion());
+        }
         return createToken(claims, userDetails.getUsername());
     }
 
@@ -66,6 +124,7 @@ public class JwtUtil {
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
                 .signWith(key, SignatureAlgorithm.HS256) // Especificar clave y algoritmo
@@ -74,7 +133,22 @@ public class JwtUtil {
 
     // Validar el token JWT
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return validateToken(extractAllClaims(token), userDetails);
+    }
+
+    public Boolean validateToken(Claims claims, UserDetails userDetails) {
+        return claims.getSubject() != null
+                && claims.getSubject().equals(userDetails.getUsername())
+                && claims.getExpiration().after(new Date());
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] digest = md.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
     }
 }
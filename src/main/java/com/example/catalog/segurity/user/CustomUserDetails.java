@@ -2,6 +2,7 @@ package com.example.catalog.segurity.user;
 
 import com.example.catalog.domain.dto.UserResponseDTO;
 import com.example.catalog.domain.entities.User;
+import com.example.catalog.domain.enums.Rol;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -21,6 +22,14 @@ public class CustomUserDetails implements UserDetails {
         return user.getId();
     }
 
+    public Rol getRol() {
+        return user.getRol();
+    }
+
+    public int getPasswordVersion() {
+        return UserPrincipal.passwordVersion(user.getPassword());
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
        /*return user.getRoles().stream()
@@ -0,0 +1,71 @@
+package com.example.catalog.segurity.user;
+
+import com.example.catalog.repositories.UserRepository;
+import com.example.catalog.web.exceptions.ResourceNotFoundException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+// Principales resueltos por email, con tamaño y TTL acotados. Evita consultar (y materializar la
+// entidad User con sus tareas) en cada petición autenticada. Los cambios de usuario, contraseña o
+// borrado lo invalidan; el TTL cubre los cambios hechos desde otras instancias.
+@Component
+public class PrincipalCache {
+
+    private final UserRepository userRepository;
+    private final Cache<String, UserPrincipal> principals;
+
+    public PrincipalCache(UserRepository userRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.security.principal-cache.max-size:10000}") long maxSize,
+                          @Value("${app.security.principal-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "jwt.principals");
+    }
+
+    // null si el usuario ya no existe (no se cachea el fallo)
+    public UserPrincipal get(String email) {
+        return principals.get(email, key -> userRepository.findPrincipalByEmail(key).orElse(null));
+    }
+
+    // Principal del usuario autenticado sea cual sea el mecanismo: el filtro JWT ya deja un
+    // UserPrincipal, httpBasic deja CustomUserDetails y se resuelve por email (authentication.getName()).
+    public UserPrincipal current(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal;
+        }
+        UserPrincipal principal = get(authentication.getName());
+        if (principal == null) {
+            throw new ResourceNotFoundException("Usuario no autenticado.");
+        }
+        return principal;
+    }
+
+    // Invalida ya y, si hay transacción, otra vez tras el commit para que ninguna petición
+    // concurrente vuelva a cachear los datos anteriores.
+    public void invalidate(String email) {
+        if (email == null) return;
+        principals.invalidate(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    principals.invalidate(email);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.catalog.segurity.user;
+
+import com.example.catalog.domain.enums.Rol;
+import io.jsonwebtoken.Claims;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+// Instantánea inmutable del usuario autenticado: solo lo que necesita el filtro JWT, sin la
+// contraseña ni el grafo de tareas/grupos de la entidad User.
+public record UserPrincipal(Long id, String email, Rol rol, int passwordVersion) implements UserDetails {
+
+    public static final String CLAIM_ID = "id";
+    public static final String CLAIM_ROL = "rol";
+    public static final String CLAIM_PASSWORD_VERSION = "pv";
+
+    // Usado por la proyección JPQL de UserRepository.findPrincipalByEmail
+    public UserPrincipal(Long id, String email, Rol rol, String encodedPassword) {
+        this(id, email, rol, passwordVersion(encodedPassword));
+    }
+
+    // Huella del hash de la contraseña: cambia con cada cambio de contraseña sin guardar nada más
+    public static int passwordVersion(String encodedPassword) {
+        return encodedPassword == null ? 0 : encodedPassword.hashCode();
+    }
+
+    // Construye el principal a partir de los claims firmados; null si el token no los trae (tokens antiguos)
+    public static UserPrincipal fromClaims(Claims claims) {
+        Long id = claims.get(CLAIM_ID, Long.class);
+        String rol = claims.get(CLAIM_ROL, String.class);
+        Integer passwordVersion = claims.get(CLAIM_PASSWORD_VERSION, Integer.class);
+        if (id == null || rol == null || claims.getSubject() == null) {
+            return null;
+        }
+        return new UserPrincipal(id, claims.getSubject(), Rol.valueOf(rol), passwordVersion == null ? 0 : passwordVersion);
+    }
+
+    // Los tokens emitidos antes de un cambio de contraseña dejan de ser válidos. Solo tiene sentido
+    // con el principal cargado de la base de datos, no con el construido desde el propio token.
+    public boolean acceptsPasswordVersion(Claims claims) {
+        Integer tokenVersion = claims.get(CLAIM_PASSWORD_VERSION, Integer.class);
+        return tokenVersion == null || tokenVersion == passwordVersion;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return rol == null ? List.of() : List.of(new SimpleGrantedAuthority("ROLE_" + rol.name()));
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+}
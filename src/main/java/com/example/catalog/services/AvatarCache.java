@@ -0,0 +1,128 @@
+package com.example.catalog.services;
+
+import com.example.catalog.domain.entities.StoredFile;
+import com.example.catalog.services.storage.BlobStore;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+// Avatares más pedidos en memoria: metadatos + bytes en un ByteBuffer directo (fuera del heap),
+// indexados por propietario y tamaño. Caffeine acota por bytes y desaloja con W-TinyLFU, así que
+// los avatares de administradores y miembros activos se quedan y los de una sola visita no
+// desplazan a nadie. guardarAvatar invalida la entrada; el TTL cubre los cambios hechos por otras
+// vías (actualizaciones de DTO, importaciones) y desde otras instancias.
+@Component
+public class AvatarCache {
+    public static final String USER = "user";
+    public static final String GROUP = "group";
+    public static final String TASK = "task";
+
+    // coste fijo aproximado de la entrada (clave, StoredFile, nodo de Caffeine)
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private final ThumbnailService thumbnailService;
+    private final BlobStore blobStore;
+    private final long maxEntryBytes;
+    private final Cache<Key, Avatar> avatars;
+
+    public AvatarCache(ThumbnailService thumbnailService,
+                       BlobStore blobStore,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.files.avatar-cache.max-bytes:67108864}") long maxBytes,
+                       @Value("${app.files.avatar-cache.max-entry-bytes:524288}") long maxEntryBytes,
+                       @Value("${app.files.avatar-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.thumbnailService = thumbnailService;
+        this.blobStore = blobStore;
+        this.maxEntryBytes = maxEntryBytes;
+        this.avatars = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, Avatar avatar) -> ENTRY_OVERHEAD + (avatar.body() == null ? 0 : avatar.body().capacity()))
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        // cache.gets{result=hit|miss}, cache.evictions... con cache=files.avatars
+        CaffeineCacheMetrics.monitor(meterRegistry, avatars, "files.avatars");
+        Gauge.builder("files.avatars.resident", avatars, AvatarCache::residentBytes)
+                .description("Bytes held by the avatar cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("files.avatars.hit.ratio", avatars, cache -> cache.stats().hitRate())
+                .description("Avatar cache hit ratio since startup")
+                .register(meterRegistry);
+    }
+
+    // Devuelve el avatar desde memoria o lo resuelve con loader. Solo se cachea lo que se puede servir
+    // tal cual en la siguiente petición: si se pidió una miniatura que aún no existe y loader devuelve
+    // el original, se sirve sin cachear para no ocultar la miniatura cuando esté lista.
+    public Avatar get(String owner, Long id, Integer size, Supplier<StoredFile> loader) {
+        Key key = new Key(owner, id, thumbnailService.resolveSize(size));
+        Avatar cached = avatars.getIfPresent(key);
+        if (cached != null) return cached;
+        StoredFile file = loader.get();
+        if (file.getSize() > maxEntryBytes || (key.size() != null && file.getVariantOf() == null)) {
+            return new Avatar(file, null);
+        }
+        // con un almacén remoto solo se cachean los metadatos: los bytes se sirven desde el bucket
+        Avatar avatar = new Avatar(file, blobStore.localPath(file.getPath()).map(AvatarCache::read).orElse(null));
+        avatars.put(key, avatar);
+        return avatar;
+    }
+
+    // Invalida ya y otra vez al terminar la transacción, para que ninguna petición concurrente vuelva
+    // a cachear el avatar anterior antes del commit.
+    public void invalidate(String owner, Long id) {
+        evict(owner, id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(owner, id);
+                }
+            });
+        }
+    }
+
+    private void evict(String owner, Long id) {
+        avatars.asMap().keySet().removeIf(key -> key.owner().equals(owner) && key.id().equals(id));
+    }
+
+    // cleanUp aplica antes las escrituras pendientes de Caffeine para que el valor sea exacto
+    private static double residentBytes(Cache<Key, Avatar> cache) {
+        cache.cleanUp();
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+    }
+
+    private static ByteBuffer read(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer body = ByteBuffer.allocateDirect(Math.toIntExact(channel.size()));
+            while (body.hasRemaining() && channel.read(body) >= 0) {
+                // lee hasta llenar el buffer
+            }
+            return body.flip().asReadOnlyBuffer();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al leer el fichero: " + path, e);
+        }
+    }
+
+    // Contenido a servir: body es null si hay que leerlo del almacén
+    public record Avatar(StoredFile file, ByteBuffer body) {
+    }
+
+    record Key(String owner, Long id, Integer size) {
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.catalog.services;
+
+import com.example.catalog.repositories.StoredFileRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+// Borra los blobs que ya no referencia ningún users.avatar, tasks.image ni groups.image. El número
+// de referencias se cuenta en la base de datos al recolectar en vez de mantener un contador en cada
+// escritura: esas columnas también cambian por actualizaciones de DTO, lotes e importaciones. El
+// margen (grace) evita borrar una subida cuya entidad aún no ha hecho commit.
+@Component
+public class BlobGarbageCollector {
+    private static final Logger logger = LoggerFactory.getLogger(BlobGarbageCollector.class);
+
+    private final StoredFileRepository storedFileRepository;
+    private final FileService fileService;
+    private final Duration grace;
+    private final int batchSize;
+    private final Counter collected;
+
+    public BlobGarbageCollector(StoredFileRepository storedFileRepository,
+                                FileService fileService,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.files.gc.grace-minutes:60}") long graceMinutes,
+                                @Value("${app.files.gc.batch-size:500}") int batchSize) {
+        this.storedFileRepository = storedFileRepository;
+        this.fileService = fileService;
+        this.grace = Duration.ofMinutes(graceMinutes);
+        this.batchSize = batchSize;
+        this.collected = Counter.builder("files.blobs.collected")
+                .description("Unreferenced blobs deleted by the garbage collector")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.files.gc.interval-ms:3600000}", initialDelayString = "${app.files.gc.initial-delay-ms:300000}")
+    public void scheduledCollect() {
+        try {
+            collect();
+        } catch (RuntimeException e) {
+            logger.error("Blob garbage collection failed: {}", e.getMessage());
+        }
+    }
+
+    public int collect() {
+        Instant cutoff = Instant.now().minus(grace);
+        int deleted = 0;
+        while (true) {
+            List<String> candidates = storedFileRepository.findUnreferencedPaths(fileService.getBlobPrefix(), cutoff, PageRequest.ofSize(batchSize));
+            int batchDeleted = 0;
+            for (String path : candidates) {
+                if (fileService.borrarSiHuerfano(path, cutoff)) batchDeleted++;
+            }
+            deleted += batchDeleted;
+            // lote incompleto o sin progreso (todos se han vuelto a referenciar): no queda nada más
+            if (candidates.size() < batchSize || batchDeleted == 0) break;
+        }
+        if (deleted > 0) {
+            collected.increment(deleted);
+            logger.info("Blob garbage collector deleted {} unreferenced blobs", deleted);
+        }
+        return deleted;
+    }
+}
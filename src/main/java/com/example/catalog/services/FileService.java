@@ -1,57 +1,278 @@
 package com.example.catalog.services;
 
+import com.example.catalog.domain.entities.StoredFile;
+import com.example.catalog.repositories.StoredFileRepository;
+import com.example.catalog.services.storage.BlobStore;
+import com.example.catalog.web.exceptions.ResourceNotFoundException;
+import com.example.catalog.web.exceptions.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLConnection;
 import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.concurrent.Semaphore;
 
+// Almacén de ficheros direccionado por contenido: cada subida se guarda una sola vez bajo la clave
+// de su SHA-256 en el BlobStore configurado (disco local o S3), sin importar si es de un usuario,
+// una tarea o un grupo. La subida se copia a un temporal calculando el hash y se publica; si el
+// contenido ya existía se reutiliza. Los blobs que nadie referencia los borra BlobGarbageCollector.
 @Service
 public class FileService {
+    private static final Logger logger = LoggerFactory.getLogger(FileService.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int SNIFF_BYTES = 12;
+    private static final long BUSY_RETRY_AFTER_SECONDS = 2;
 
-    private final Path basePath = Paths.get("uploads/usuario");
+    private final BlobStore blobStore;
+    private final StoredFileRepository storedFileRepository;
+    private final ThumbnailService thumbnailService;
+    private final TransactionTemplate newTransaction;
+    private final Counter deduplicated;
+    private final Counter rejectedUploads;
+    private final Semaphore uploadPermits;
+    private final long maxUploadBytes;
 
-    public FileService() throws IOException {
-        Files.createDirectories(basePath);
+    public FileService(StoredFileRepository storedFileRepository,
+                       ThumbnailService thumbnailService,
+                       BlobStore blobStore,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.files.max-upload-bytes:5242880}") long maxUploadBytes,
+                       @Value("${app.files.upload.max-concurrent:16}") int maxConcurrentUploads) {
+        this.storedFileRepository = storedFileRepository;
+        this.thumbnailService = thumbnailService;
+        this.blobStore = blobStore;
+        this.maxUploadBytes = maxUploadBytes;
+        this.uploadPermits = new Semaphore(maxConcurrentUploads);
+        // los metadatos se confirman aunque la transacción del llamante falle: el blob ya está guardado
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.deduplicated = Counter.builder("files.blobs.deduplicated")
+                .description("Uploads whose content was already stored")
+                .register(meterRegistry);
+        this.rejectedUploads = Counter.builder("files.uploads.rejected")
+                .description("Uploads refused because too many were in progress")
+                .register(meterRegistry);
+        Gauge.builder("files.uploads.active", uploadPermits, permits -> maxConcurrentUploads - permits.availablePermits())
+                .description("Uploads currently being streamed")
+                .register(meterRegistry);
     }
 
-    public String guardarFichero(Long usuarioId, MultipartFile fichero) throws IOException {
-        validarTipoDeFichero(fichero);
-        validarTamanoFichero(fichero);
-        String originalFilename = fichero.getOriginalFilename();
-        String filename = (originalFilename == null || originalFilename.isBlank()) ? "archivo_por_defecto" : originalFilename;
-        Path userDir = basePath.resolve(String.valueOf(usuarioId));
-        Files.createDirectories(userDir);
-        Path rutaFichero = userDir.resolve(filename);
-        Files.copy(fichero.getInputStream(), rutaFichero, StandardCopyOption.REPLACE_EXISTING);
-        return rutaFichero.toString();
+    public String guardarFichero(MultipartFile fichero) throws IOException {
+        try (InputStream in = fichero.getInputStream()) {
+            return guardarFichero(in);
+        }
     }
 
-    public Resource cargarFichero(String ruta) {
+    // Sube el contenido de in leyendo de BUFFER_SIZE en BUFFER_SIZE: el tipo se deduce de los
+    // primeros bytes, el límite de tamaño se aplica mientras se copia y el hash se calcula a la vez,
+    // así que la memoria por subida no depende del tamaño del fichero. Como mucho max-concurrent
+    // subidas a la vez; el resto recibe 503 con Retry-After.
+    public String guardarFichero(InputStream in) throws IOException {
+        if (!uploadPermits.tryAcquire()) {
+            rejectedUploads.increment();
+            throw new ServiceBusyException("Hay demasiadas subidas en curso, inténtalo más tarde", BUSY_RETRY_AFTER_SECONDS);
+        }
+        Path temp = null;
         try {
-            Path ficheroPath = Paths.get(ruta);
-            if (!Files.exists(ficheroPath)) {
-                throw new NoSuchFileException("El fichero no existe: " + ruta);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int head = in.readNBytes(buffer, 0, SNIFF_BYTES);
+            String contentType = detectarTipo(buffer, head);
+            temp = blobStore.createTempFile("upload");
+            MessageDigest digest = sha256();
+            long size = head;
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                digest.update(buffer, 0, head);
+                out.write(buffer, 0, head);
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    size += read;
+                    if (size > maxUploadBytes) {
+                        throw new IllegalArgumentException("El fichero es demasiado grande. Tamaño máximo permitido: " + (maxUploadBytes / 1024) + " KB.");
+                    }
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
             }
-            return new UrlResource(ficheroPath.toUri());
+            String sha = HexFormat.of().formatHex(digest.digest());
+            String ruta = blobStore.key(sha);
+            // Primero la fila y después el blob: si el recolector de otra instancia lo está borrando,
+            // registrar espera a que termine y aquí ya no existe (ver borrarSiHuerfano)
+            StoredFile file = registrar(ruta, sha, contentType, size);
+            boolean stored = !blobStore.exists(ruta);
+            if (stored) {
+                blobStore.put(ruta, temp, contentType);
+                thumbnailService.generateAsync(file);
+            } else {
+                deduplicated.increment();
+            }
+            return ruta;
+        } finally {
+            uploadPermits.release();
+            if (temp != null) Files.deleteIfExists(temp);
+        }
+    }
+
+    // Tipo real a partir de la firma del fichero; el Content-Type del cliente no se usa
+    static String detectarTipo(byte[] head, int length) {
+        if (startsWith(head, length, 0, 0xFF, 0xD8, 0xFF)) return "image/jpeg";
+        if (startsWith(head, length, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) return "image/png";
+        if (startsWith(head, length, 0, 'G', 'I', 'F', '8', '7', 'a') || startsWith(head, length, 0, 'G', 'I', 'F', '8', '9', 'a')) return "image/gif";
+        if (startsWith(head, length, 0, 'R', 'I', 'F', 'F') && startsWith(head, length, 8, 'W', 'E', 'B', 'P')) return "image/webp";
+        throw new IllegalArgumentException("Formato de fichero no permitido. Solo JPG, PNG, GIF, y WEBP.");
+    }
+
+    private static boolean startsWith(byte[] head, int length, int offset, int... signature) {
+        if (length < offset + signature.length) return false;
+        for (int i = 0; i < signature.length; i++) {
+            if ((head[offset + i] & 0xFF) != signature[i]) return false;
+        }
+        return true;
+    }
+
+    // Otra instancia puede haber registrado el mismo contenido a la vez: si el insert choca con la
+    // clave primaria se reintenta como renovación.
+    private StoredFile registrar(String ruta, String sha, String contentType, long size) {
+        try {
+            return newTransaction.execute(status -> registrarEnTransaccion(ruta, sha, contentType, size));
+        } catch (DataIntegrityViolationException e) {
+            return newTransaction.execute(status -> registrarEnTransaccion(ruta, sha, contentType, size));
+        }
+    }
+
+    // Una nueva subida del mismo contenido renueva touchedAt y así lo protege del recolector
+    private StoredFile registrarEnTransaccion(String ruta, String sha, String contentType, long size) {
+        Instant now = Instant.now();
+        if (storedFileRepository.touch(ruta, now) > 0) {
+            return storedFileRepository.findById(ruta).orElseThrow();
+        }
+        return storedFileRepository.save(StoredFile.builder()
+                .path(ruta)
+                .sha256(sha)
+                .contentType(contentType)
+                .size(size)
+                .createdAt(now)
+                .touchedAt(now)
+                .build());
+    }
+
+    public Resource cargarFichero(String ruta) {
+        try {
+            return new InputStreamResource(blobStore.open(ruta));
+        } catch (NoSuchFileException e) {
+            throw new ResourceNotFoundException("El fichero no existe: " + ruta);
         } catch (IOException e) {
             throw new RuntimeException("Error al cargar el fichero: " + ruta, e);
         }
     }
 
-    private void validarTipoDeFichero(MultipartFile fichero) {
-        String contentType = fichero.getContentType();
-        if (!List.of("image/jpeg", "image/png", "image/gif", "image/webp").contains(contentType)) {
-            throw new IllegalArgumentException("Formato de fichero no permitido. Solo JPG, PNG, GIF, y WEBP.");
+    // Metadatos para servir el fichero. Los subidos antes de guardar metadatos se describen una vez
+    // (hash + tipo por extensión) y quedan registrados.
+    public StoredFile describirFichero(String ruta) {
+        return storedFileRepository.findById(ruta).orElseGet(() -> storedFileRepository.save(describirDesdeDisco(ruta)));
+    }
+
+    // Con size se sirve la menor miniatura que lo cubra. Si aún no existe (o es de una versión
+    // anterior del fichero) se encarga y, mientras tanto, se sirve el original. Si ya falló una vez
+    // se sirve siempre el original.
+    public StoredFile describirFichero(String ruta, Integer size) {
+        Integer thumbnailSize = thumbnailService.resolveSize(size);
+        StoredFile original = describirFichero(ruta);
+        if (thumbnailSize == null || original.getThumbnailFailedAt() != null) return original;
+        return storedFileRepository.findById(ThumbnailService.thumbnailPath(ruta, thumbnailSize))
+                .filter(thumbnail -> !thumbnail.getCreatedAt().isBefore(original.getCreatedAt()))
+                .orElseGet(() -> {
+                    thumbnailService.generateAsync(original);
+                    return original;
+                });
+    }
+
+    // Prefijo de las rutas que pertenecen al almacén (las anteriores a él no se recolectan)
+    public String getBlobPrefix() {
+        return blobStore.keyPrefix();
+    }
+
+    // Borra un blob y sus miniaturas si sigue sin referencias y nadie lo ha vuelto a subir desde
+    // cutoff. La fila queda bloqueada (SELECT ... FOR UPDATE) mientras se borran los blobs y hasta el
+    // commit, y guardarFichero registra la fila antes de mirar si el blob existe. Así una subida del
+    // mismo contenido en cualquier instancia o renueva touchedAt antes y el borrado se descarta, o
+    // espera al commit, ya no encuentra el blob y lo vuelve a subir.
+    public boolean borrarSiHuerfano(String ruta, Instant cutoff) {
+        return Boolean.TRUE.equals(newTransaction.execute(status -> {
+            StoredFile file = storedFileRepository.findForUpdate(ruta).orElse(null);
+            if (file == null || !ultimaSubida(file).isBefore(cutoff) || storedFileRepository.countReferences(ruta) > 0) {
+                return false;
+            }
+            List<String> paths = new ArrayList<>();
+            paths.add(ruta);
+            storedFileRepository.findByVariantOf(ruta).forEach(variant -> paths.add(variant.getPath()));
+            for (String path : paths) {
+                try {
+                    blobStore.delete(path);
+                } catch (IOException e) {
+                    logger.warn("Could not delete blob {}: {}", path, e.getMessage());
+                }
+            }
+            storedFileRepository.deleteWithVariants(ruta);
+            return true;
+        }));
+    }
+
+    private static Instant ultimaSubida(StoredFile file) {
+        return file.getTouchedAt() != null ? file.getTouchedAt() : file.getCreatedAt();
+    }
+
+    private StoredFile describirDesdeDisco(String ruta) {
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (InputStream in = new DigestInputStream(blobStore.open(ruta), digest)) {
+                size = in.transferTo(OutputStream.nullOutputStream());
+            }
+            Path local = blobStore.localPath(ruta).orElse(null);
+            String contentType = local != null ? Files.probeContentType(local) : URLConnection.guessContentTypeFromName(ruta);
+            Instant createdAt = local != null ? Files.getLastModifiedTime(local).toInstant() : Instant.now();
+            return StoredFile.builder()
+                    .path(ruta)
+                    .sha256(HexFormat.of().formatHex(digest.digest()))
+                    .contentType(contentType == null ? "application/octet-stream" : contentType)
+                    .size(size)
+                    .createdAt(createdAt)
+                    .build();
+        } catch (NoSuchFileException e) {
+            throw new ResourceNotFoundException("El fichero no existe: " + ruta);
+        } catch (IOException e) {
+            throw new RuntimeException("Error al leer el fichero: " + ruta, e);
         }
     }
 
-    private void validarTamanoFichero(MultipartFile fichero) {
-        if (fichero.getSize() > 2 * 1024 * 1024) { // 2 MB
-            throw new IllegalArgumentException("El fichero es demasiado grande. Tamaño máximo permitido: 2 MB.");
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
-}
\ No newline at end of file
+}
@@ -3,6 +3,7 @@ package com.example.catalog.services;
 import com.example.catalog.domain.dto.*;
 import com.example.catalog.domain.entities.Group;
 import com.example.catalog.domain.entities.User;
+import com.example.catalog.mappers.CursorMapper;
 import com.example.catalog.mappers.GroupMapper;
 import com.example.catalog.repositories.GroupRepository;
 import com.example.catalog.repositories.UserRepository;
@@ -10,21 +11,24 @@ import com.example.catalog.web.exceptions.DuplicatedGroupException;
 import com.example.catalog.web.exceptions.GroupNotFoundException;
 import com.example.catalog.web.exceptions.ResourceNotFoundException;
 import com.example.catalog.web.exceptions.UserNotFoundException;
-import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
-import com.example.catalog.services.email.EmailService;
+import com.example.catalog.services.email.EmailModels;
+import com.example.catalog.services.email.EmailOutboxService;
+import com.example.catalog.services.search.SearchIndexer;
+import com.example.catalog.services.stream.NotificationStreamHub;
 
 @Service
 @Transactional
@@ -33,40 +37,50 @@ public class GroupService {
     private final GroupRepository groupRepository;
     private final UserRepository userRepository;
     private final FileService fileService;
-    private final EmailService emailService;
+    private final AvatarCache avatarCache;
+    private final EmailOutboxService emailOutbox;
+    private final SearchIndexer searchIndexer;
+    private final NotificationStreamHub streamHub;
 
-    public GroupService(GroupRepository groupRepository, UserRepository userRepository, FileService fileService, EmailService emailService) {
+    public GroupService(GroupRepository groupRepository, UserRepository userRepository, FileService fileService, AvatarCache avatarCache, EmailOutboxService emailOutbox, SearchIndexer searchIndexer, NotificationStreamHub streamHub) {
         this.groupRepository = groupRepository;
         this.userRepository = userRepository;
         this.fileService = fileService;
-        this.emailService = emailService;
+        this.avatarCache = avatarCache;
+        this.emailOutbox = emailOutbox;
+        this.searchIndexer = searchIndexer;
+        this.streamHub = streamHub;
     }
 
+    @Transactional(readOnly = true)
     public Page<GroupResponseDTO> list(Pageable pageable) {
-        Page<GroupResponseDTO> groups = groupRepository.findAll(pageable).map(GroupMapper::toDTO);
+        Page<GroupResponseDTO> groups = groupRepository.findAllViews(pageable);
         return groups;
     }
 
+    @Transactional(readOnly = true)
     public Page<GroupResponseDTO> listByUserEmail(String email, Pageable pageable) {
-        return groupRepository.findByAdminOrMemberEmail(email, pageable).map(GroupMapper::toDTO);
+        return groupRepository.findViewsByAdminOrMemberEmail(email, pageable);
     }
 
+    // Cursor = (name, id) del último grupo devuelto
+    @Transactional(readOnly = true)
+    public CursorSliceDTO<GroupResponseDTO> scrollByUserEmail(String email, String cursor, int size) {
+        String[] keys = CursorMapper.decode(cursor, 2);
+        Slice<GroupResponseDTO> groups = keys == null
+                ? groupRepository.scrollByAdminOrMemberEmailFirst(email, CursorMapper.limit(size))
+                : groupRepository.scrollByAdminOrMemberEmailAfter(email, keys[0], CursorMapper.parseId(keys[1]), CursorMapper.limit(size));
+        return CursorSliceDTO.of(groups, group -> group, group -> CursorMapper.encode(group.getName(), group.getId()));
+    }
+
+    @Transactional(readOnly = true)
     public GroupResponseDTO showById(Long id) {
-        Group group = groupRepository.getGroupById(id);
-        if (group == null) {
-            throw new GroupNotFoundException(id);
-        } else {
-            return GroupMapper.toDTO(group);
-        }
+        return groupRepository.findViewById(id).orElseThrow(() -> new GroupNotFoundException(id));
     }
 
+    @Transactional(readOnly = true)
     public GroupResponseDTO showByName(String name) {
-        Group group = groupRepository.getGroupByName(name);
-        if (group == null) {
-            throw new GroupNotFoundException(name);
-        } else {
-            return GroupMapper.toDTO(group);
-        }
+        return groupRepository.findViewByName(name).orElseThrow(() -> new GroupNotFoundException(name));
     }
 
     public GroupResponseDTO create(GroupRequestDTO dto) {
@@ -77,21 +91,15 @@ public class GroupService {
             Group group = GroupMapper.toEntity(dto);
             group.setAdminUser(admin);
             Group savedGroup = groupRepository.save(group);
+            searchIndexer.groupSaved(savedGroup);
 
             // notificar al admin
-            try {
-                String subject = "Nuevo grupo creado: " + savedGroup.getName();
-                Map<String, Object> model = new HashMap<>();
-                model.put("group", savedGroup);
-                model.put("user", admin);
-                emailService.sendTemplateEmail(admin.getEmail(), subject, "group-created.html", model);
-            } catch (Exception e) {
-                try {
-                    emailService.sendSimpleEmail(admin.getEmail(), "Nuevo grupo creado: " + savedGroup.getName(), "Se ha creado el grupo: " + savedGroup.getName());
-                } catch (Exception ex) {
-                    // ignore
-                }
-            }
+            String subject = "Nuevo grupo creado: " + savedGroup.getName();
+            Map<String, Object> model = new HashMap<>();
+            model.put("group", EmailModels.group(savedGroup));
+            model.put("user", EmailModels.user(admin));
+            emailOutbox.enqueueTemplate(admin.getEmail(), subject, "group-created.html", model, "Se ha creado el grupo: " + savedGroup.getName());
+            streamHub.activity(admin.getEmail(), groupEvent("created", savedGroup));
 
             return GroupMapper.toDTO(savedGroup);
         }
@@ -103,16 +111,14 @@ public class GroupService {
         group.setAdminUser(admin);
         updateBasicFields(dto, group);
         Group updatedGroup = groupRepository.save(group);
+        searchIndexer.groupSaved(updatedGroup);
         // notificar al admin sobre actualización
-        try {
-            String subject = "Grupo actualizado: " + updatedGroup.getName();
-            Map<String, Object> model = new HashMap<>();
-            model.put("group", updatedGroup);
-            model.put("user", admin);
-            emailService.sendTemplateEmail(admin.getEmail(), subject, "group-updated.html", model);
-        } catch (Exception e) {
-            try { emailService.sendSimpleEmail(admin.getEmail(), "Grupo actualizado: " + updatedGroup.getName(), "El grupo ha sido actualizado: " + updatedGroup.getName()); } catch (Exception ex) { }
-        }
+        String subject = "Grupo actualizado: " + updatedGroup.getName();
+        Map<String, Object> model = new HashMap<>();
+        model.put("group", EmailModels.group(updatedGroup));
+        model.put("user", EmailModels.user(admin));
+        emailOutbox.enqueueTemplate(admin.getEmail(), subject, "group-updated.html", model, "El grupo ha sido actualizado: " + updatedGroup.getName());
+        streamHub.activity(admin.getEmail(), groupEvent("updated", updatedGroup));
         return GroupMapper.toDTO(updatedGroup);
     }
 
@@ -129,47 +135,43 @@ public class GroupService {
         if (!groupRepository.existsById(id)) throw new IllegalArgumentException("Group not found");
         Group grp = groupRepository.findById(id).orElse(null);
         groupRepository.deleteById(id);
-        if (grp != null) {
-            try {
-                String subject = "Grupo eliminado: " + grp.getName();
-                Map<String, Object> model = new HashMap<>();
-                model.put("group", grp);
-                emailService.sendTemplateEmail(grp.getAdminUser().getEmail(), subject, "group-deleted.html", model);
-            } catch (Exception e) {
-                // ignore
-            }
+        searchIndexer.groupDeleted(id);
+        if (grp != null && grp.getAdminUser() != null) {
+            String subject = "Grupo eliminado: " + grp.getName();
+            Map<String, Object> model = new HashMap<>();
+            model.put("group", EmailModels.group(grp));
+            emailOutbox.enqueueTemplate(grp.getAdminUser().getEmail(), subject, "group-deleted.html", model, "El grupo ha sido eliminado: " + grp.getName());
+            streamHub.activity(grp.getAdminUser().getEmail(), groupEvent("deleted", grp));
         }
     }
 
-    public Resource obtenerAvatarGenerico(Long id) {
-        Group grupo = obtenerGrupoPorId(id);
-        if (grupo.getImage() == null || grupo.getImage().isEmpty()) {
-            throw new ResourceNotFoundException("El usuario no tiene un avatar asignado.");
-        }
-        return fileService.cargarFichero(grupo.getImage());
+    private static ActivityEventDTO groupEvent(String action, Group group) {
+        return new ActivityEventDTO("group", action, group.getId(), group.getName());
     }
 
-    public void guardarAvatar(Long grupoId, MultipartFile avatar) throws IOException {
-        validarTamanoArchivo(avatar);
-        validarTipoDeArchivo(avatar);
-        Group grupo = groupRepository.findById(grupoId).orElseThrow(() -> new ResourceNotFoundException("Grupo no encontrado con id: " + grupoId));
-        String rutaArchivo = fileService.guardarFichero(grupoId, avatar);
-        grupo.setImage(rutaArchivo);
-        groupRepository.save(grupo);
+    public AvatarCache.Avatar obtenerAvatarGenerico(Long id, Integer size) {
+        return avatarCache.get(AvatarCache.GROUP, id, size, () -> {
+            Group grupo = obtenerGrupoPorId(id);
+            if (grupo.getImage() == null || grupo.getImage().isEmpty()) {
+                throw new ResourceNotFoundException("El usuario no tiene un avatar asignado.");
+            }
+            return fileService.describirFichero(grupo.getImage(), size);
+        });
     }
 
-    private void validarTamanoArchivo(MultipartFile avatar) {
-        long maxSizeInBytes = 1024 * 1024 * 5L; // 5MB
-        if (avatar.getSize() > maxSizeInBytes) {
-            throw new IllegalArgumentException("Tamaño de archivo excede el límite de 5MB");
+    public void guardarAvatar(Long grupoId, MultipartFile avatar) throws IOException {
+        try (InputStream contenido = avatar.getInputStream()) {
+            guardarAvatar(grupoId, contenido);
         }
     }
 
-    private void validarTipoDeArchivo(MultipartFile avatar) {
-        String contentType = avatar.getContentType();
-        if (!Arrays.asList("image/png", "image/jpeg", "image/gif", "image/webp").contains(contentType)) {
-            throw new IllegalArgumentException("Tipo de archivo debe ser: (jpeg, png, gif, webp)");
-        }
+    // El tipo y el tamaño se comprueban sobre los bytes recibidos, no sobre lo que declara el cliente
+    public void guardarAvatar(Long grupoId, InputStream avatar) throws IOException {
+        Group grupo = groupRepository.findById(grupoId).orElseThrow(() -> new ResourceNotFoundException("Grupo no encontrado con id: " + grupoId));
+        String rutaArchivo = fileService.guardarFichero(avatar);
+        grupo.setImage(rutaArchivo);
+        groupRepository.save(grupo);
+        avatarCache.invalidate(AvatarCache.GROUP, grupoId);
     }
 
     public Group obtenerGrupoPorId(Long id) {
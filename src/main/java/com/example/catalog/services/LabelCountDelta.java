@@ -0,0 +1,40 @@
+package com.example.catalog.services;
+
+import com.example.catalog.domain.entities.Label;
+import com.example.catalog.domain.entities.Task;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Cambios pendientes en user_label_counts: +1 por cada (asignado, etiqueta) de una tarea nueva, -1
+// por cada uno de una tarea borrada. En una actualización se registra la tarea antes (remove) y
+// después (add) del cambio, y lo que no cambia se anula.
+public final class LabelCountDelta {
+    private final Map<Long, Map<Long, Long>> byUser = new HashMap<>();
+
+    public LabelCountDelta add(Task task) {
+        return record(task, 1);
+    }
+
+    public LabelCountDelta remove(Task task) {
+        return record(task, -1);
+    }
+
+    private LabelCountDelta record(Task task, long sign) {
+        if (task.getAssigmentFor() == null || task.getAssigmentFor().getId() == null || task.getLabels() == null) return this;
+        Map<Long, Long> labels = byUser.computeIfAbsent(task.getAssigmentFor().getId(), id -> new HashMap<>());
+        for (Label label : task.getLabels()) {
+            labels.merge(label.getId(), sign, Long::sum);
+        }
+        return this;
+    }
+
+    // userId -> (labelId -> cambio), sin las entradas que se han anulado
+    Map<Long, Map<Long, Long>> changes() {
+        Map<Long, Map<Long, Long>> changes = new HashMap<>();
+        byUser.forEach((userId, labels) -> labels.forEach((labelId, delta) -> {
+            if (delta != 0) changes.computeIfAbsent(userId, id -> new HashMap<>()).put(labelId, delta);
+        }));
+        return changes;
+    }
+}
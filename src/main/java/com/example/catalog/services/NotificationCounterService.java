@@ -0,0 +1,110 @@
+package com.example.catalog.services;
+
+import com.example.catalog.domain.entities.NotificationCounter;
+import com.example.catalog.repositories.NotificationCounterRepository;
+import com.example.catalog.repositories.NotificationRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+// Contador de notificaciones sin leer por usuario: una fila en notification_counters que se suma
+// en la misma transacción que la escritura de notificaciones, y una copia en memoria que se ajusta
+// con el mismo delta tras el commit. Leerlo no toca la tabla notifications salvo para un usuario
+// que aún no tiene fila (datos anteriores al contador), y solo hasta que recibe su primera escritura.
+@Service
+public class NotificationCounterService {
+
+    private final NotificationCounterRepository counterRepository;
+    private final NotificationRepository notificationRepository;
+    private final TransactionTemplate newTransaction;
+    private final Cache<String, Long> unreadCounts;
+
+    public NotificationCounterService(NotificationCounterRepository counterRepository,
+                                      NotificationRepository notificationRepository,
+                                      PlatformTransactionManager transactionManager,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${app.notifications.unread-cache.max-size:10000}") long maxSize,
+                                      @Value("${app.notifications.unread-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.counterRepository = counterRepository;
+        this.notificationRepository = notificationRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.unreadCounts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, unreadCounts, "notifications.unread");
+    }
+
+    public long unreadCount(String email) {
+        return unreadCounts.get(email, key -> counterRepository.findUnreadCount(key)
+                .orElseGet(() -> notificationRepository.countByUserEmailAndReadFalse(key)));
+    }
+
+    // Debe llamarse dentro de la transacción que crea o marca las notificaciones.
+    public void add(String email, long delta) {
+        if (delta == 0) return;
+        if (counterRepository.increment(email, delta) == 0) {
+            createCounter(email);
+            counterRepository.increment(email, delta);
+        }
+        afterCommit(email, delta);
+    }
+
+    // Como add(email, 1) para una notificación nueva; devuelve su posición en el orden de commit
+    // del usuario. Debe llamarse dentro de la transacción que la crea.
+    public long addCreated(String email) {
+        if (counterRepository.incrementForNew(email) == 0) {
+            createCounter(email);
+            counterRepository.incrementForNew(email);
+        }
+        afterCommit(email, 1);
+        return counterRepository.findLastSeq(email).orElseThrow();
+    }
+
+    // La fila se crea en su propia transacción con el recuento confirmado hasta ahora, sin lo que
+    // la transacción en curso aún no ha confirmado (eso lo suma después increment). Si otra petición
+    // la crea a la vez, la clave primaria rechaza la segunda y se usa la que ya existe.
+    private void createCounter(String email) {
+        try {
+            newTransaction.executeWithoutResult(status ->
+                    counterRepository.saveAndFlush(NotificationCounter.builder()
+                            .userEmail(email)
+                            .unreadCount(notificationRepository.countByUserEmailAndReadFalse(email))
+                            .build()));
+        } catch (DataIntegrityViolationException e) {
+            // ya creada por otra petición
+        }
+    }
+
+    // Ajusta la copia en memoria solo si la escritura se confirma. Si una carga concurrente ya leyó
+    // el valor nuevo, el delta se aplica dos veces hasta que caduca la entrada (ttl-seconds).
+    private void afterCommit(String email, long delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            adjust(email, delta);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                adjust(email, delta);
+            }
+        });
+    }
+
+    private void adjust(String email, long delta) {
+        unreadCounts.asMap().computeIfPresent(email, (key, count) -> Math.max(0, count + delta));
+    }
+}
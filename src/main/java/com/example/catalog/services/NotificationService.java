@@ -1,23 +1,39 @@
 package com.example.catalog.services;
 
+import com.example.catalog.domain.dto.CursorSliceDTO;
 import com.example.catalog.domain.dto.NotificationRequestDTO;
 import com.example.catalog.domain.dto.NotificationResponseDTO;
 import com.example.catalog.domain.entities.Notification;
+import com.example.catalog.mappers.CursorMapper;
 import com.example.catalog.mappers.NotificationMapper;
 import com.example.catalog.repositories.NotificationRepository;
-import com.example.catalog.web.exceptions.DuplicatedNotificationException;
+import com.example.catalog.services.stream.NotificationStreamHub;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
 
 
 @Service
 public class NotificationService {
+    private static final int MAX_DEDUPE_KEY_LENGTH = 128;
 
     private final NotificationRepository repository;
+    private final NotificationStreamHub streamHub;
+    private final NotificationCounterService counterService;
+    private final TransactionTemplate transactionTemplate;
 
-    public NotificationService(NotificationRepository repository) {
+    public NotificationService(NotificationRepository repository, NotificationStreamHub streamHub, NotificationCounterService counterService, PlatformTransactionManager transactionManager) {
         this.repository = repository;
+        this.streamHub = streamHub;
+        this.counterService = counterService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public Page<NotificationResponseDTO> findAll(Pageable pageable) {
@@ -30,17 +46,73 @@ public class NotificationService {
         return notifications;
     }
 
+    // Cursor = id de la última notificación devuelta (más recientes primero)
+    public CursorSliceDTO<NotificationResponseDTO> scrollByUserEmail(String email, String cursor, int size) {
+        String[] keys = CursorMapper.decode(cursor, 1);
+        Slice<Notification> notifications = keys == null
+                ? repository.findByUserEmailOrderByIdDesc(email, CursorMapper.limit(size))
+                : repository.findByUserEmailAndIdLessThanOrderByIdDesc(email, CursorMapper.parseId(keys[0]), CursorMapper.limit(size));
+        return CursorSliceDTO.of(notifications, NotificationMapper::toDTO, notification -> CursorMapper.encode(notification.getId()));
+    }
+
     public NotificationResponseDTO create(NotificationRequestDTO dto) {
-        if (repository.existsByTitle(dto.getTitle())) {
-            throw new DuplicatedNotificationException(dto.getTitle());
-        } else {
-            Notification notification = NotificationMapper.toEntity(dto);
-            if (notification.getTitle() != null) notification.setTitle(notification.getTitle().toLowerCase());
-            if (notification.getMessage() != null) notification.setMessage(notification.getMessage().toLowerCase());
-            if (notification.getCreatedAt() != null) notification.setCreatedAt(notification.getCreatedAt());
-            if (notification.getUserEmail() != null) notification.setUserEmail(notification.getUserEmail());
-            Notification savedNotification = repository.save(notification);
-            return NotificationMapper.toDTO(savedNotification);
+        return createOrGet(dto).notification();
+    }
+
+    // Idempotente por (user_email, dedupe_key) cuando el cliente da la clave (dedupeKey o cabecera
+    // Idempotency-Key): un reintento devuelve la notificación ya creada (created = false). Sin clave
+    // se usa una aleatoria y cada petición crea una notificación, también si repite el título (avisos
+    // recurrentes). El caso normal es un único INSERT comprobado por el índice único; solo si choca
+    // se busca y se devuelve la ya existente.
+    public Creation createOrGet(NotificationRequestDTO dto) {
+        if (dto.getUserEmail() == null || dto.getUserEmail().isBlank()) {
+            throw new IllegalArgumentException("userEmail is required");
+        }
+        Notification notification = NotificationMapper.toEntity(dto);
+        if (notification.getTitle() != null) notification.setTitle(notification.getTitle().toLowerCase());
+        if (notification.getMessage() != null) notification.setMessage(notification.getMessage().toLowerCase());
+        notification.setDedupeKey(dedupeKey(dto.getDedupeKey()));
+        try {
+            return new Creation(transactionTemplate.execute(status -> insert(notification)), true);
+        } catch (DataIntegrityViolationException e) {
+            // la transacción ya se ha deshecho (en PostgreSQL no puede seguir tras el error)
+            return repository.findByUserEmailAndDedupeKey(notification.getUserEmail(), notification.getDedupeKey())
+                    .map(existing -> new Creation(NotificationMapper.toDTO(existing), false))
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    private NotificationResponseDTO insert(Notification notification) {
+        Notification savedNotification = repository.saveAndFlush(notification);
+        savedNotification.setStreamSeq(counterService.addCreated(savedNotification.getUserEmail()));
+        NotificationResponseDTO saved = NotificationMapper.toDTO(savedNotification);
+        streamHub.notificationCreated(saved);
+        return saved;
+    }
+
+    static String dedupeKey(String clientKey) {
+        if (clientKey == null || clientKey.isBlank()) {
+            return "random:" + UUID.randomUUID();
+        }
+        if (clientKey.length() > MAX_DEDUPE_KEY_LENGTH) {
+            throw new IllegalArgumentException("dedupeKey must be at most " + MAX_DEDUPE_KEY_LENGTH + " characters");
         }
+        return clientKey;
+    }
+
+    public long unreadCount(String email) {
+        return counterService.unreadCount(email);
+    }
+
+    // upToId = id de la notificación más reciente que ha visto el usuario; null marca todas
+    @Transactional
+    public int markRead(String email, Long upToId) {
+        int marked = upToId == null ? repository.markAllRead(email) : repository.markReadUpTo(email, upToId);
+        counterService.add(email, -marked);
+        return marked;
+    }
+
+    // created = false si la clave ya existía y se devuelve la notificación de la primera petición
+    public record Creation(NotificationResponseDTO notification, boolean created) {
     }
 }
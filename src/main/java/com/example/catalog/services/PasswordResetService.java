@@ -5,6 +5,7 @@ import com.example.catalog.domain.entities.PasswordResetToken;
 import com.example.catalog.domain.entities.User;
 import com.example.catalog.repositories.PasswordResetTokenRepository;
 import com.example.catalog.repositories.UserRepository;
+import com.example.catalog.segurity.user.PrincipalCache;
 import com.example.catalog.services.email.EmailService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,6 +35,7 @@ public class PasswordResetService {
     private final PasswordEncoder passwordEncoder;
     private final SecureRandom secureRandom = new SecureRandom();
     private final EmailService emailService;
+    private final PrincipalCache principalCache;
 
     @Value("${app.password-reset.token-expiration-minutes:60}")
     private long tokenExpirationMinutes;
@@ -41,11 +43,12 @@ public class PasswordResetService {
     @Value("${app.frontend.base-url:http://localhost:4200}")
     private String frontendBaseUrl;
 
-    public PasswordResetService(UserRepository userRepository, PasswordResetTokenRepository tokenRepository, PasswordEncoder passwordEncoder, EmailService emailService) {
+    public PasswordResetService(UserRepository userRepository, PasswordResetTokenRepository tokenRepository, PasswordEncoder passwordEncoder, EmailService emailService, PrincipalCache principalCache) {
         this.userRepository = userRepository;
         this.tokenRepository = tokenRepository;
         this.passwordEncoder = passwordEncoder;
         this.emailService = emailService;
+        this.principalCache = principalCache;
     }
 
     public void requestPasswordReset(String email) {
@@ -121,6 +124,8 @@ public class PasswordResetService {
         user.setPassword(passwordEncoder.encode(newPassword));
         // guardar usuario
         userRepository.save(user);
+        // los tokens emitidos con la contraseña anterior dejan de validar
+        principalCache.invalidate(user.getEmail());
 
         // marcar token como usado y guardar
         token.setUsed(true);
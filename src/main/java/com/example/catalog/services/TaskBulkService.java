@@ -0,0 +1,240 @@
+package com.example.catalog.services;
+
+import com.example.catalog.domain.dto.BulkItemResultDTO;
+import com.example.catalog.domain.dto.BulkResultDTO;
+import com.example.catalog.domain.dto.TaskBulkUpdateDTO;
+import com.example.catalog.domain.dto.TaskRequestDTO;
+import com.example.catalog.domain.entities.Label;
+import com.example.catalog.domain.entities.Task;
+import com.example.catalog.domain.entities.User;
+import com.example.catalog.mappers.TaskMapper;
+import com.example.catalog.repositories.JpaBatchWriter;
+import com.example.catalog.repositories.TaskRepository;
+import com.example.catalog.repositories.UserRepository;
+import com.example.catalog.services.email.EmailModels;
+import com.example.catalog.services.email.EmailOutboxService;
+import com.example.catalog.services.search.SearchIndexer;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Alta, modificación y borrado de tareas en lote dentro de una sola transacción. Los asignados y
+// las tareas se cargan con una consulta por petición (no una por elemento), las inserciones salen
+// en lotes JDBC y cada usuario recibe un único correo resumen en lugar de uno por tarea.
+// Los elementos inválidos no abortan la petición: se informan en el resultado con su índice.
+@Service
+@Transactional
+public class TaskBulkService {
+    private final TaskRepository taskRepository;
+    private final UserRepository userRepository;
+    private final JpaBatchWriter batchWriter;
+    private final EmailOutboxService emailOutbox;
+    private final Validator validator;
+    private final TaskLabelService taskLabelService;
+    private final SearchIndexer searchIndexer;
+    private final int maxItems;
+
+    public TaskBulkService(TaskRepository taskRepository, UserRepository userRepository, JpaBatchWriter batchWriter,
+                           EmailOutboxService emailOutbox, Validator validator, TaskLabelService taskLabelService, SearchIndexer searchIndexer,
+                           @Value("${app.tasks.bulk.max-items:1000}") int maxItems) {
+        this.taskRepository = taskRepository;
+        this.userRepository = userRepository;
+        this.batchWriter = batchWriter;
+        this.emailOutbox = emailOutbox;
+        this.validator = validator;
+        this.taskLabelService = taskLabelService;
+        this.searchIndexer = searchIndexer;
+        this.maxItems = maxItems;
+    }
+
+    public BulkResultDTO createAll(List<TaskRequestDTO> dtos) {
+        checkSize(dtos);
+        Map<Long, User> users = loadAssignees(dtos);
+        Set<String> existingTitles = taskRepository.findExistingTitles(dtos.stream()
+                .map(TaskRequestDTO::getTitle).filter(Objects::nonNull).collect(Collectors.toSet()));
+
+        BulkItemResultDTO[] results = new BulkItemResultDTO[dtos.size()];
+        List<Task> tasks = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        Set<String> seenTitles = new HashSet<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            TaskRequestDTO dto = dtos.get(i);
+            String error = validate(dto);
+            if (error == null && (existingTitles.contains(dto.getTitle()) || !seenTitles.add(dto.getTitle()))) {
+                error = "La tarea con título " + dto.getTitle() + " ya existe";
+            }
+            User user = error == null ? users.get(dto.getAssigmentFor().getId()) : null;
+            if (error == null && user == null) {
+                error = "Usuario no encontrado con id " + dto.getAssigmentFor().getId();
+            }
+            if (error != null) {
+                results[i] = BulkItemResultDTO.failed(i, null, error);
+                continue;
+            }
+            Task task = TaskMapper.toEntity(dto);
+            task.setAssigmentFor(user);
+            tasks.add(task);
+            indexes.add(i);
+        }
+
+        Map<String, Label> labels = taskLabelService.resolve(labelNames(indexes.stream().map(dtos::get).toList()));
+        LabelCountDelta labelCounts = new LabelCountDelta();
+        for (int j = 0; j < tasks.size(); j++) {
+            tasks.get(j).setLabels(TaskLabelService.labelsFor(dtos.get(indexes.get(j)).getLabels(), labels));
+            labelCounts.add(tasks.get(j));
+        }
+        taskLabelService.applyCounts(labelCounts);
+        batchWriter.persistAll(tasks);
+        searchIndexer.tasksSaved(tasks);
+        for (int j = 0; j < tasks.size(); j++) {
+            results[indexes.get(j)] = BulkItemResultDTO.ok(indexes.get(j), tasks.get(j).getId());
+        }
+        sendDigests(tasks, "Nuevas tareas asignadas", "Te han asignado las tareas: ");
+        return new BulkResultDTO(Arrays.asList(results));
+    }
+
+    // Igual que la actualización individual: no se comprueba el título duplicado. Los cambios se
+    // vuelcan al commit como UPDATE en lote. Un id repetido falla: se aplica solo su primer cambio.
+    public BulkResultDTO updateAll(List<TaskBulkUpdateDTO> dtos) {
+        checkSize(dtos);
+        Map<Long, User> users = loadAssignees(dtos);
+        Map<Long, Task> tasksById = taskRepository.findAllById(dtos.stream()
+                        .map(TaskBulkUpdateDTO::getId).filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Task::getId, Function.identity()));
+
+        Map<String, Label> labels = taskLabelService.resolve(labelNames(dtos));
+        LabelCountDelta labelCounts = new LabelCountDelta();
+        List<BulkItemResultDTO> results = new ArrayList<>(dtos.size());
+        List<Task> updated = new ArrayList<>();
+        Map<String, List<String>> unassigned = new LinkedHashMap<>();
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            TaskBulkUpdateDTO dto = dtos.get(i);
+            String error = validate(dto);
+            Task task = error == null ? tasksById.get(dto.getId()) : null;
+            if (error == null && task == null) {
+                error = "Tarea no encontrada con id " + dto.getId();
+            }
+            if (error == null && !seen.add(dto.getId())) {
+                error = "La tarea con id " + dto.getId() + " está repetida en la petición";
+            }
+            User newUser = error == null ? users.get(dto.getAssigmentFor().getId()) : null;
+            if (error == null && newUser == null) {
+                error = "Usuario no encontrado con id " + dto.getAssigmentFor().getId();
+            }
+            if (error != null) {
+                results.add(BulkItemResultDTO.failed(i, dto.getId(), error));
+                continue;
+            }
+            User oldUser = task.getAssigmentFor();
+            labelCounts.remove(task);
+            TaskService.updateBasicFields(dto, task);
+            task.setAssigmentFor(newUser);
+            if (dto.getLabels() != null) task.setLabels(TaskLabelService.labelsFor(dto.getLabels(), labels));
+            labelCounts.add(task);
+            if (oldUser != null && !oldUser.getId().equals(newUser.getId())) {
+                unassigned.computeIfAbsent(oldUser.getEmail(), email -> new ArrayList<>()).add(task.getTitle());
+            }
+            updated.add(task);
+            results.add(BulkItemResultDTO.ok(i, task.getId()));
+        }
+
+        taskLabelService.applyCounts(labelCounts);
+        searchIndexer.tasksSaved(updated);
+        sendDigests(updated, "Tareas actualizadas", "Se han actualizado las tareas: ");
+        unassigned.forEach((email, titles) -> emailOutbox.enqueueText(email,
+                "Has sido desasignado de " + titles.size() + " tarea(s)",
+                "Ya no estás asignado a las tareas: " + String.join(", ", titles)));
+        return new BulkResultDTO(results);
+    }
+
+    public BulkResultDTO deleteAll(List<Long> ids) {
+        checkSize(ids);
+        Map<Long, Task> tasksById = taskRepository.findAllById(ids.stream().filter(Objects::nonNull).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Task::getId, Function.identity()));
+
+        List<BulkItemResultDTO> results = new ArrayList<>(ids.size());
+        List<Task> deleted = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Long id = ids.get(i);
+            Task task = id == null ? null : tasksById.get(id);
+            if (task == null || !seen.add(id)) {
+                results.add(BulkItemResultDTO.failed(i, id, "Tarea no encontrada con id " + id));
+                continue;
+            }
+            deleted.add(task);
+            results.add(BulkItemResultDTO.ok(i, id));
+        }
+
+        // deleteAll y no deleteAllInBatch: así también se borran las filas de task_label_links
+        LabelCountDelta labelCounts = new LabelCountDelta();
+        deleted.forEach(labelCounts::remove);
+        taskLabelService.applyCounts(labelCounts);
+        taskRepository.deleteAll(deleted);
+        searchIndexer.tasksDeleted(deleted.stream().map(Task::getId).toList());
+        sendDigests(deleted, "Tareas eliminadas", "Se han eliminado las tareas: ");
+        return new BulkResultDTO(results);
+    }
+
+    private void checkSize(List<?> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("La petición debe contener al menos un elemento");
+        }
+        if (items.size() > maxItems) {
+            throw new IllegalArgumentException("La petición no puede tener más de " + maxItems + " elementos");
+        }
+    }
+
+    private Map<Long, User> loadAssignees(List<? extends TaskRequestDTO> dtos) {
+        Set<Long> ids = dtos.stream()
+                .map(TaskRequestDTO::getAssigmentFor)
+                .filter(Objects::nonNull)
+                .map(User::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (ids.isEmpty()) return Map.of();
+        return userRepository.findAllById(ids).stream().collect(Collectors.toMap(User::getId, Function.identity()));
+    }
+
+    private static List<String> labelNames(List<? extends TaskRequestDTO> dtos) {
+        return dtos.stream().filter(Objects::nonNull).map(TaskRequestDTO::getLabels).filter(Objects::nonNull).flatMap(List::stream).toList();
+    }
+
+    private String validate(TaskRequestDTO dto) {
+        if (dto == null) return "Elemento vacío";
+        Set<ConstraintViolation<TaskRequestDTO>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (dto.getAssigmentFor().getId() == null) return "es obligatorio asignar la tarea a un usuario";
+        return null;
+    }
+
+    // Un correo por asignado con todas sus tareas de la petición
+    private void sendDigests(List<Task> tasks, String heading, String fallbackPrefix) {
+        Map<Long, List<Task>> byUser = new LinkedHashMap<>();
+        for (Task task : tasks) {
+            if (task.getAssigmentFor() == null) continue;
+            byUser.computeIfAbsent(task.getAssigmentFor().getId(), id -> new ArrayList<>()).add(task);
+        }
+        byUser.values().forEach(userTasks -> {
+            User user = userTasks.get(0).getAssigmentFor();
+            Map<String, Object> model = new HashMap<>();
+            model.put("user", EmailModels.user(user));
+            model.put("tasks", userTasks.stream().map(EmailModels::task).toList());
+            model.put("heading", heading);
+            String titles = userTasks.stream().map(Task::getTitle).collect(Collectors.joining(", "));
+            emailOutbox.enqueueTemplate(user.getEmail(), heading + " (" + userTasks.size() + ")", "task-digest.html", model, fallbackPrefix + titles);
+        });
+    }
+}
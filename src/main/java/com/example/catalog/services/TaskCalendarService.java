@@ -0,0 +1,91 @@
+package com.example.catalog.services;
+
+import com.example.catalog.domain.dto.CalendarDTO;
+import com.example.catalog.domain.dto.CalendarDayDTO;
+import com.example.catalog.domain.dto.CalendarEntryDTO;
+import com.example.catalog.domain.dto.CursorSliceDTO;
+import com.example.catalog.mappers.CursorMapper;
+import com.example.catalog.repositories.TaskRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+// Vistas de calendario del usuario autenticado: rango de fechas agrupado por día y agenda de las
+// próximas tareas por cursor (date, time, id).
+@Service
+@Transactional(readOnly = true)
+public class TaskCalendarService {
+    private final TaskRepository taskRepository;
+    private final int maxDays;
+    private final int maxTasks;
+
+    public TaskCalendarService(TaskRepository taskRepository,
+                               @Value("${app.tasks.calendar.max-days:92}") int maxDays,
+                               @Value("${app.tasks.calendar.max-tasks:2000}") int maxTasks) {
+        this.taskRepository = taskRepository;
+        this.maxDays = maxDays;
+        this.maxTasks = maxTasks;
+    }
+
+    public CalendarDTO calendar(Long userId, LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("from y to son obligatorios");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("La fecha inicial no puede ser posterior a la final");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxDays) {
+            throw new IllegalArgumentException("El rango no puede superar " + maxDays + " días");
+        }
+        // una fila de más para saber si el rango se ha recortado
+        List<CalendarEntryDTO> entries = taskRepository.findCalendar(userId, from, to, PageRequest.ofSize(maxTasks + 1));
+        boolean truncated = entries.size() > maxTasks;
+        if (truncated) entries = entries.subList(0, maxTasks);
+        return new CalendarDTO(from, to, entries.size(), truncated, byDay(entries));
+    }
+
+    // Primera página: tareas a partir de ahora. Las siguientes continúan tras el cursor.
+    public CursorSliceDTO<CalendarEntryDTO> agenda(Long userId, String cursor, int size) {
+        return agenda(userId, cursor, size, LocalDateTime.now());
+    }
+
+    CursorSliceDTO<CalendarEntryDTO> agenda(Long userId, String cursor, int size, LocalDateTime now) {
+        String[] keys = CursorMapper.decode(cursor, 3);
+        Slice<CalendarEntryDTO> tasks;
+        try {
+            tasks = keys == null
+                    // id 0: incluye las tareas que empiezan justo ahora
+                    ? taskRepository.findAgendaAfter(userId, now.toLocalDate(), now.toLocalTime(), 0L, CursorMapper.limit(size))
+                    : taskRepository.findAgendaAfter(userId, LocalDate.parse(keys[0]), LocalTime.parse(keys[1]), CursorMapper.parseId(keys[2]), CursorMapper.limit(size));
+        } catch (DateTimeException | NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+        return CursorSliceDTO.of(tasks, task -> task, task -> CursorMapper.encode(task.getDate(), task.getTime(), task.getId()));
+    }
+
+    // Las filas ya vienen ordenadas por fecha: basta con cortar cuando cambia el día
+    static List<CalendarDayDTO> byDay(List<CalendarEntryDTO> entries) {
+        List<CalendarDayDTO> days = new ArrayList<>();
+        List<CalendarEntryDTO> current = null;
+        LocalDate currentDate = null;
+        for (CalendarEntryDTO entry : entries) {
+            if (!entry.getDate().equals(currentDate)) {
+                currentDate = entry.getDate();
+                current = new ArrayList<>();
+                days.add(new CalendarDayDTO(currentDate, current));
+            }
+            current.add(entry);
+        }
+        return days;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.catalog.services;
+
+import com.example.catalog.domain.dto.TaskResponseDTO;
+import com.example.catalog.domain.enums.TaskFileFormat;
+import com.example.catalog.mappers.TaskCsvMapper;
+import com.example.catalog.repositories.TaskRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Exporta las tareas de un usuario fila a fila desde un cursor de la base de datos directamente a
+// la respuesta: las filas son proyecciones (no entidades gestionadas), así que ni la sesión ni el
+// heap crecen con el número de tareas.
+@Service
+public class TaskExportService {
+    private final TaskRepository taskRepository;
+    private final ObjectWriter rowWriter;
+    private final ObjectMapper objectMapper;
+
+    public TaskExportService(TaskRepository taskRepository, ObjectMapper objectMapper) {
+        this.taskRepository = taskRepository;
+        this.objectMapper = objectMapper;
+        this.rowWriter = objectMapper.writerFor(TaskResponseDTO.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    // Devuelve el número de filas escritas. No cierra el OutputStream.
+    @Transactional(readOnly = true)
+    public long exportByUserEmail(String email, TaskFileFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+        long rows = 0;
+        try (Stream<TaskResponseDTO> tasks = taskRepository.streamViewsByUserEmail(email)) {
+            Iterator<TaskResponseDTO> iterator = tasks.iterator();
+            if (format == TaskFileFormat.CSV) {
+                TaskCsvMapper.writeHeader(writer);
+                while (iterator.hasNext()) {
+                    TaskCsvMapper.writeRow(writer, iterator.next());
+                    rows++;
+                }
+            } else {
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                while (iterator.hasNext()) {
+                    rowWriter.writeValue(generator, iterator.next());
+                    generator.writeRaw('\n');
+                    rows++;
+                }
+                generator.close();
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+}
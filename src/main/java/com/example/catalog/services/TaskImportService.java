@@ -0,0 +1,393 @@
+package com.example.catalog.services;
+
+import com.example.catalog.domain.dto.TaskImportStatusDTO;
+import com.example.catalog.domain.dto.TaskRequestDTO;
+import com.example.catalog.domain.entities.Label;
+import com.example.catalog.domain.entities.Task;
+import com.example.catalog.domain.entities.User;
+import com.example.catalog.domain.enums.ImportStatus;
+import com.example.catalog.domain.enums.TaskFileFormat;
+import com.example.catalog.mappers.TaskCsvMapper;
+import com.example.catalog.mappers.TaskMapper;
+import com.example.catalog.repositories.JpaBatchWriter;
+import com.example.catalog.repositories.TaskRepository;
+import com.example.catalog.repositories.UserRepository;
+import com.example.catalog.services.search.SearchIndexer;
+import com.example.catalog.web.exceptions.ServiceBusyException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Importación de tareas desde CSV o NDJSON. El cuerpo de la petición se vuelca a disco según llega
+// (sin parser multipart, cortando en app.tasks.import.max-file-size) y un worker lo lee
+// registro a registro: solo hay en memoria el lote en curso (app.tasks.import.batch-size filas), que
+// se valida con las mismas restricciones que TaskRequestDTO y se inserta en su propia transacción
+// con lotes JDBC. La lectura va al ritmo de las escrituras, y las importaciones simultáneas están
+// limitadas por un pool acotado (503 si está lleno). El progreso se consulta por id.
+@Service
+public class TaskImportService {
+    private static final Logger logger = LoggerFactory.getLogger(TaskImportService.class);
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final TaskRepository taskRepository;
+    private final UserRepository userRepository;
+    private final JpaBatchWriter batchWriter;
+    private final Validator validator;
+    private final TaskLabelService taskLabelService;
+    private final SearchIndexer searchIndexer;
+    private final ObjectReader rowReader;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor workers;
+    private final Cache<String, ImportJob> jobs;
+    private final int batchSize;
+    private final long maxFileBytes;
+
+    public TaskImportService(TaskRepository taskRepository,
+                             UserRepository userRepository,
+                             JpaBatchWriter batchWriter,
+                             Validator validator,
+                             TaskLabelService taskLabelService,
+                             SearchIndexer searchIndexer,
+                             ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.tasks.import.batch-size:500}") int batchSize,
+                             @Value("${app.tasks.import.workers:2}") int workerCount,
+                             @Value("${app.tasks.import.queue-capacity:4}") int queueCapacity,
+                             @Value("${app.tasks.import.retention-minutes:60}") long retentionMinutes,
+                             @Value("${app.tasks.import.max-file-size:200MB}") DataSize maxFileSize) {
+        this.taskRepository = taskRepository;
+        this.userRepository = userRepository;
+        this.batchWriter = batchWriter;
+        this.validator = validator;
+        this.taskLabelService = taskLabelService;
+        this.searchIndexer = searchIndexer;
+        this.rowReader = objectMapper.readerFor(TaskRequestDTO.class);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxFileBytes = maxFileSize.toBytes();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), namedThreads("task-import-"));
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(retentionMinutes))
+                .maximumSize(1000)
+                .build();
+    }
+
+    public TaskImportStatusDTO start(InputStream body, String fileName, TaskFileFormat format) {
+        Path spool;
+        try {
+            spool = Files.createTempFile("task-import-", "." + format.getExtension());
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar el fichero de importación", e);
+        }
+        try {
+            if (copy(body, spool) == 0) {
+                throw new IllegalArgumentException("El fichero de importación está vacío");
+            }
+        } catch (IOException e) {
+            deleteQuietly(spool);
+            throw new UncheckedIOException("No se pudo guardar el fichero de importación", e);
+        } catch (RuntimeException e) {
+            deleteQuietly(spool);
+            throw e;
+        }
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), fileName, format);
+        jobs.put(job.id, job);
+        try {
+            workers.execute(() -> run(job, spool));
+        } catch (RejectedExecutionException e) {
+            jobs.invalidate(job.id);
+            deleteQuietly(spool);
+            throw new ServiceBusyException("Hay demasiadas importaciones en curso, inténtalo más tarde", 30);
+        }
+        return job.snapshot();
+    }
+
+    private long copy(InputStream body, Path spool) throws IOException {
+        byte[] buffer = new byte[8192];
+        long size = 0;
+        try (OutputStream out = Files.newOutputStream(spool)) {
+            int read;
+            while ((read = body.read(buffer)) >= 0) {
+                size += read;
+                if (size > maxFileBytes) {
+                    throw new IllegalArgumentException("El fichero de importación es demasiado grande. Tamaño máximo permitido: " + (maxFileBytes / (1024 * 1024)) + " MB.");
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+        return size;
+    }
+
+    public TaskImportStatusDTO status(String id) {
+        ImportJob job = jobs.getIfPresent(id);
+        if (job == null) {
+            throw new IllegalArgumentException("Importación no encontrada: " + id);
+        }
+        return job.snapshot();
+    }
+
+    void run(ImportJob job, Path spool) {
+        try (BufferedReader reader = Files.newBufferedReader(spool, StandardCharsets.UTF_8)) {
+            RowSource source = job.format == TaskFileFormat.CSV ? csvSource(reader) : ndjsonSource(reader);
+            List<Row> batch = new ArrayList<>(batchSize);
+            Row row;
+            while ((row = source.next()) != null) {
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    importBatch(job, batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) importBatch(job, batch);
+            job.finish(ImportStatus.COMPLETED, null);
+            logger.info("Task import {} finished: {} imported, {} rejected", job.id, job.imported.get(), job.rejected.get());
+        } catch (Exception e) {
+            job.finish(ImportStatus.FAILED, e.getMessage());
+            logger.warn("Task import {} failed after {} rows: {}", job.id, job.processed(), e.getMessage());
+        } finally {
+            deleteQuietly(spool);
+        }
+    }
+
+    private void importBatch(ImportJob job, List<Row> batch) {
+        List<String> errors = new ArrayList<>();
+        Integer imported = transactionTemplate.execute(status -> {
+            Map<Long, User> usersById = new HashMap<>();
+            Map<String, User> usersByEmail = new HashMap<>();
+            loadAssignees(batch, usersById, usersByEmail);
+            // los lotes anteriores ya están en la base de datos, así que basta con una consulta por lote
+            Set<String> existingTitles = taskRepository.findExistingTitles(batch.stream()
+                    .filter(row -> row.dto != null && row.dto.getTitle() != null)
+                    .map(row -> row.dto.getTitle()).collect(Collectors.toSet()));
+            Set<String> seenTitles = new HashSet<>();
+
+            List<Task> tasks = new ArrayList<>(batch.size());
+            List<TaskRequestDTO> accepted = new ArrayList<>(batch.size());
+            for (Row row : batch) {
+                String error = row.error != null ? row.error : validate(row.dto);
+                User user = null;
+                if (error == null) {
+                    User assignee = row.dto.getAssigmentFor();
+                    user = assignee.getId() != null ? usersById.get(assignee.getId()) : usersByEmail.get(assignee.getEmail());
+                    if (user == null) {
+                        error = "Usuario no encontrado: " + (assignee.getId() != null ? assignee.getId() : assignee.getEmail());
+                    } else if (existingTitles.contains(row.dto.getTitle()) || !seenTitles.add(row.dto.getTitle())) {
+                        error = "La tarea con título " + row.dto.getTitle() + " ya existe";
+                    }
+                }
+                if (error != null) {
+                    errors.add(row.position + ": " + error);
+                    continue;
+                }
+                Task task = TaskMapper.toEntity(row.dto);
+                task.setAssigmentFor(user);
+                tasks.add(task);
+                accepted.add(row.dto);
+            }
+            Map<String, Label> labels = taskLabelService.resolve(accepted.stream().flatMap(dto -> dto.getLabels().stream()).toList());
+            LabelCountDelta labelCounts = new LabelCountDelta();
+            for (int i = 0; i < tasks.size(); i++) {
+                tasks.get(i).setLabels(TaskLabelService.labelsFor(accepted.get(i).getLabels(), labels));
+                labelCounts.add(tasks.get(i));
+            }
+            taskLabelService.applyCounts(labelCounts);
+            batchWriter.persistAll(tasks);
+            searchIndexer.tasksSaved(tasks);
+            return tasks.size();
+        });
+        job.recordBatch(imported == null ? 0 : imported, errors);
+    }
+
+    private void loadAssignees(List<Row> batch, Map<Long, User> usersById, Map<String, User> usersByEmail) {
+        Set<Long> ids = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (Row row : batch) {
+            User assignee = row.dto != null ? row.dto.getAssigmentFor() : null;
+            if (assignee == null) continue;
+            if (assignee.getId() != null) ids.add(assignee.getId());
+            else if (assignee.getEmail() != null) emails.add(assignee.getEmail());
+        }
+        if (!ids.isEmpty()) {
+            usersById.putAll(userRepository.findAllById(ids).stream().collect(Collectors.toMap(User::getId, Function.identity())));
+        }
+        if (!emails.isEmpty()) {
+            usersByEmail.putAll(userRepository.findByEmailIn(emails).stream().collect(Collectors.toMap(User::getEmail, Function.identity(), (a, b) -> a)));
+        }
+    }
+
+    private String validate(TaskRequestDTO dto) {
+        Set<ConstraintViolation<TaskRequestDTO>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "));
+        }
+        User assignee = dto.getAssigmentFor();
+        if (assignee.getId() == null && assignee.getEmail() == null) {
+            return "es obligatorio asignar la tarea a un usuario";
+        }
+        return null;
+    }
+
+    // Cada registro del fichero: el DTO leído o el error de formato que lo invalida
+    private record Row(String position, TaskRequestDTO dto, String error) {
+    }
+
+    private interface RowSource {
+        Row next() throws IOException;
+    }
+
+    private RowSource csvSource(BufferedReader reader) throws IOException {
+        List<String> header = TaskCsvMapper.readRecord(reader);
+        if (header == null) {
+            throw new IllegalArgumentException("El fichero CSV no tiene cabecera");
+        }
+        Map<String, Integer> columns = TaskCsvMapper.columnIndex(header);
+        AtomicLong records = new AtomicLong(1);
+        return () -> {
+            List<String> record;
+            do {
+                record = TaskCsvMapper.readRecord(reader);
+                if (record == null) return null;
+                records.incrementAndGet();
+            } while (record.size() == 1 && record.get(0).isBlank());
+            String position = "registro " + records.get();
+            try {
+                return new Row(position, TaskCsvMapper.toRequest(columns, record), null);
+            } catch (IllegalArgumentException e) {
+                return new Row(position, null, e.getMessage());
+            }
+        };
+    }
+
+    private RowSource ndjsonSource(BufferedReader reader) {
+        AtomicLong lines = new AtomicLong();
+        return () -> {
+            String line;
+            do {
+                line = readLine(reader);
+                if (line == null) return null;
+                lines.incrementAndGet();
+            } while (line.isBlank());
+            String position = "línea " + lines.get();
+            try {
+                TaskRequestDTO dto = rowReader.readValue(line);
+                return dto == null ? new Row(position, null, "JSON vacío") : new Row(position, dto, null);
+            } catch (JsonProcessingException e) {
+                return new Row(position, null, "JSON inválido: " + e.getOriginalMessage());
+            }
+        };
+    }
+
+    // readLine con límite de longitud, para que una línea sin fin no agote la memoria
+    private static String readLine(BufferedReader reader) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = reader.read()) != -1 && c != '\n') {
+            if (line.length() == TaskCsvMapper.MAX_RECORD_LENGTH) {
+                throw new IllegalArgumentException("Línea de más de " + TaskCsvMapper.MAX_RECORD_LENGTH + " caracteres");
+            }
+            if (c != '\r') line.append((char) c);
+        }
+        return c == -1 && line.isEmpty() ? null : line.toString();
+    }
+
+    static final class ImportJob {
+        private final String id;
+        private final String fileName;
+        private final TaskFileFormat format;
+        private final Instant startedAt = Instant.now();
+        private final long startedNanos = System.nanoTime();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final List<String> errors = new CopyOnWriteArrayList<>();
+        private volatile ImportStatus status = ImportStatus.RUNNING;
+        private volatile Instant finishedAt;
+        private volatile long finishedNanos;
+        private volatile String message;
+
+        ImportJob(String id, String fileName, TaskFileFormat format) {
+            this.id = id;
+            this.fileName = fileName;
+            this.format = format;
+        }
+
+        void recordBatch(int importedRows, List<String> batchErrors) {
+            imported.addAndGet(importedRows);
+            rejected.addAndGet(batchErrors.size());
+            for (String error : batchErrors) {
+                if (errors.size() >= MAX_REPORTED_ERRORS) break;
+                errors.add(error);
+            }
+        }
+
+        void finish(ImportStatus finalStatus, String finalMessage) {
+            finishedNanos = System.nanoTime();
+            finishedAt = Instant.now();
+            message = finalMessage;
+            status = finalStatus;
+        }
+
+        long processed() {
+            return imported.get() + rejected.get();
+        }
+
+        TaskImportStatusDTO snapshot() {
+            long end = finishedAt != null ? finishedNanos : System.nanoTime();
+            double seconds = (end - startedNanos) / 1_000_000_000.0;
+            double throughput = seconds > 0 ? Math.round(processed() / seconds * 10) / 10.0 : 0;
+            return new TaskImportStatusDTO(id, fileName, format, status, processed(), imported.get(), rejected.get(),
+                    throughput, startedAt, finishedAt, message, List.copyOf(errors));
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not delete import spool file {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+}
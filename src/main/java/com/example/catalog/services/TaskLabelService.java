@@ -0,0 +1,175 @@
+package com.example.catalog.services;
+
+import com.example.catalog.domain.dto.LabelCountDTO;
+import com.example.catalog.domain.entities.Label;
+import com.example.catalog.repositories.LabelRepository;
+import com.example.catalog.repositories.UserLabelCountRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Diccionario de etiquetas y contadores por usuario. Los nombres se normalizan (sin espacios en los
+// extremos, sin vacíos ni repetidos) y se resuelven con una consulta por llamada, no una por etiqueta.
+@Service
+@Transactional
+public class TaskLabelService {
+    private static final int MAX_CREATE_ATTEMPTS = 3;
+    private static final String INSERT_EMPTY_COUNT = "INSERT INTO user_label_counts (user_id, label_id, task_count) VALUES (?, ?, 0)";
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final LabelRepository labelRepository;
+    private final UserLabelCountRepository countRepository;
+    private final TransactionTemplate newTransaction;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public TaskLabelService(LabelRepository labelRepository, UserLabelCountRepository countRepository, PlatformTransactionManager transactionManager) {
+        this.labelRepository = labelRepository;
+        this.countRepository = countRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public static List<String> normalize(Collection<String> names) {
+        if (names == null) return List.of();
+        LinkedHashSet<String> normalized = new LinkedHashSet<>();
+        for (String name : names) {
+            if (name != null && !name.isBlank()) normalized.add(name.trim());
+        }
+        return new ArrayList<>(normalized);
+    }
+
+    // Etiquetas de todos los nombres indicados, creando las que falten. Para peticiones con varias tareas.
+    public Map<String, Label> resolve(Collection<String> names) {
+        List<String> wanted = normalize(names);
+        if (wanted.isEmpty()) return new HashMap<>();
+        Map<String, Label> labels = byName(labelRepository.findByNameIn(wanted));
+        List<String> missing = wanted.stream().filter(name -> !labels.containsKey(name)).toList();
+        if (!missing.isEmpty()) {
+            createMissing(missing);
+            labels.putAll(byName(labelRepository.findByNameIn(missing)));
+        }
+        return labels;
+    }
+
+    public Set<Label> resolveSet(Collection<String> names) {
+        return labelsFor(names, resolve(names));
+    }
+
+    public static Set<Label> labelsFor(Collection<String> names, Map<String, Label> dictionary) {
+        Set<Label> labels = new LinkedHashSet<>();
+        for (String name : normalize(names)) {
+            Label label = dictionary.get(name);
+            if (label != null) labels.add(label);
+        }
+        return labels;
+    }
+
+    // Las etiquetas nuevas se crean en su propia transacción: si otra petición crea la misma a la vez,
+    // el choque con la restricción única no aborta la transacción del llamante.
+    private void createMissing(List<String> names) {
+        try {
+            newTransaction.executeWithoutResult(status ->
+                    labelRepository.saveAll(names.stream().map(name -> Label.builder().name(name).build()).toList()));
+        } catch (DataIntegrityViolationException e) {
+            for (String name : names) {
+                try {
+                    newTransaction.executeWithoutResult(status -> {
+                        if (labelRepository.findByNameIn(List.of(name)).isEmpty()) {
+                            labelRepository.save(Label.builder().name(name).build());
+                        }
+                    });
+                } catch (DataIntegrityViolationException alreadyCreated) {
+                    // la ha creado otra transacción entre la consulta y el insert
+                }
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<LabelCountDTO> countsByUserEmail(String email) {
+        return countRepository.findCountsByUserEmail(email);
+    }
+
+    // Una sentencia UPDATE por usuario y valor de cambio. Antes de sumar, los pares quedan bloqueados
+    // y los que faltan se crean a cero (lockOrCreate), así la suma siempre encuentra su fila.
+    public void applyCounts(LabelCountDelta delta) {
+        Map<Long, Map<Long, Long>> changes = delta.changes();
+        Set<Long> decremented = new HashSet<>();
+        changes.forEach((userId, labels) -> {
+            Map<Long, List<Long>> labelsByDelta = labels.entrySet().stream()
+                    .collect(Collectors.groupingBy(Map.Entry::getValue, Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+            labelsByDelta.forEach((change, labelIds) -> {
+                if (change < 0) {
+                    decremented.add(userId);
+                } else {
+                    lockOrCreate(userId, labelIds);
+                }
+                countRepository.increment(userId, labelIds, change);
+            });
+        });
+        if (!decremented.isEmpty()) {
+            countRepository.deleteEmpty(decremented);
+        }
+    }
+
+    // Bloquea los pares que existen (una resta concurrente ya no puede borrarlos a cero) e inserta
+    // los que faltan, cada uno tras un savepoint: si otra transacción estrena el mismo par a la vez,
+    // el choque con la clave primaria solo deshace ese insert y el par se bloquea en la vuelta siguiente.
+    private void lockOrCreate(Long userId, List<Long> labelIds) {
+        for (int attempt = 1; ; attempt++) {
+            Set<Long> existing = new HashSet<>(countRepository.lockLabelIds(userId, labelIds));
+            List<Long> missing = labelIds.stream().filter(labelId -> !existing.contains(labelId)).toList();
+            if (missing.isEmpty()) return;
+            if (attempt > MAX_CREATE_ATTEMPTS) {
+                throw new IllegalStateException("Could not create label counts " + missing + " of user " + userId);
+            }
+            entityManager.flush();
+            entityManager.unwrap(Session.class).doWork(connection -> insertEmpty(connection, userId, missing));
+        }
+    }
+
+    // JDBC directo: un error de Hibernate marcaría la transacción del llamante para rollback
+    private static void insertEmpty(Connection connection, Long userId, List<Long> labelIds) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_EMPTY_COUNT)) {
+            for (Long labelId : labelIds) {
+                Savepoint savepoint = connection.setSavepoint();
+                try {
+                    insert.setLong(1, userId);
+                    insert.setLong(2, labelId);
+                    insert.executeUpdate();
+                    connection.releaseSavepoint(savepoint);
+                } catch (SQLException e) {
+                    connection.rollback(savepoint);
+                    // creado por otra transacción
+                    if (!UNIQUE_VIOLATION.equals(e.getSQLState())) throw e;
+                }
+            }
+        }
+    }
+
+    // Recalcula todos los contadores desde las tareas (migración inicial)
+    public void rebuildCounts() {
+        countRepository.deleteAllCounts();
+        countRepository.rebuildCounts();
+    }
+
+    private static Map<String, Label> byName(List<Label> labels) {
+        return labels.stream().collect(Collectors.toMap(Label::getName, Function.identity(), (a, b) -> a, HashMap::new));
+    }
+}
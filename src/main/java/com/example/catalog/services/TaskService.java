@@ -1,9 +1,13 @@
 package com.example.catalog.services;
 
+import com.example.catalog.domain.dto.ActivityEventDTO;
+import com.example.catalog.domain.dto.CursorSliceDTO;
+import com.example.catalog.domain.dto.LabelCountDTO;
 import com.example.catalog.domain.dto.TaskRequestDTO;
 import com.example.catalog.domain.dto.TaskResponseDTO;
 import com.example.catalog.domain.entities.Task;
 import com.example.catalog.domain.entities.User;
+import com.example.catalog.mappers.CursorMapper;
 import com.example.catalog.mappers.TaskMapper;
 import com.example.catalog.repositories.TaskRepository;
 import com.example.catalog.repositories.UserRepository;
@@ -11,21 +15,30 @@ import com.example.catalog.web.exceptions.DuplicatedTaskException;
 import com.example.catalog.web.exceptions.ResourceNotFoundException;
 import com.example.catalog.web.exceptions.TaskNotFoundException;
 import com.example.catalog.web.exceptions.UserNotFoundException;
-import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.io.InputStream;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 
-import com.example.catalog.services.email.EmailService;
+import com.example.catalog.services.email.EmailModels;
+import com.example.catalog.services.email.EmailOutboxService;
+import com.example.catalog.services.search.SearchIndexer;
+import com.example.catalog.services.stream.NotificationStreamHub;
 
 @Service
 @Transactional
@@ -34,42 +47,107 @@ public class TaskService {
     private final TaskRepository taskRepository;
     private final UserRepository userRepository;
     private final FileService fileService;
-    private final EmailService emailService;
+    private final AvatarCache avatarCache;
+    private final EmailOutboxService emailOutbox;
+    private final TaskLabelService taskLabelService;
+    private final SearchIndexer searchIndexer;
+    private final NotificationStreamHub streamHub;
 
-    public TaskService(TaskRepository taskRepository, UserRepository userRepository, FileService fileService, EmailService emailService) {
+    public TaskService(TaskRepository taskRepository, UserRepository userRepository, FileService fileService, AvatarCache avatarCache, EmailOutboxService emailOutbox, TaskLabelService taskLabelService, SearchIndexer searchIndexer, NotificationStreamHub streamHub) {
         this.taskRepository = taskRepository;
         this.userRepository = userRepository;
         this.fileService = fileService;
-        this.emailService = emailService;
+        this.avatarCache = avatarCache;
+        this.emailOutbox = emailOutbox;
+        this.taskLabelService = taskLabelService;
+        this.searchIndexer = searchIndexer;
+        this.streamHub = streamHub;
     }
 
+    @Transactional(readOnly = true)
     public Page<TaskResponseDTO> list(Pageable pageable) {
-        Page<TaskResponseDTO> tasks = taskRepository.findAll(pageable).map(TaskMapper::toDTO);
+        Page<TaskResponseDTO> tasks = taskRepository.findAllViews(pageable);
         return tasks;
     }
 
+    @Transactional(readOnly = true)
     public Page<TaskResponseDTO> listByUserEmail(String email, Pageable pageable) {
-        return taskRepository.findByAssigmentForEmail(email, pageable).map(TaskMapper::toDTO);
+        return taskRepository.findViewsByUserEmail(email, pageable);
     }
 
-    public TaskResponseDTO showById(Long id) {
-        Task task = taskRepository.getTaskById(id);
-        if (task == null) {
-            throw new TaskNotFoundException(id);
-        } else {
-            return TaskMapper.toDTO(task);
+    // Cursor = (date, time, id) de la última tarea devuelta
+    @Transactional(readOnly = true)
+    public CursorSliceDTO<TaskResponseDTO> scroll(String cursor, int size) {
+        String[] keys = CursorMapper.decode(cursor, 3);
+        Slice<TaskResponseDTO> tasks = keys == null
+                ? taskRepository.scrollFirst(CursorMapper.limit(size))
+                : taskRepository.scrollAfter(parseDate(keys[0]), parseTime(keys[1]), CursorMapper.parseId(keys[2]), CursorMapper.limit(size));
+        return CursorSliceDTO.of(tasks, task -> task, TaskService::cursorOf);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorSliceDTO<TaskResponseDTO> scrollByUserEmail(String email, String cursor, int size) {
+        String[] keys = CursorMapper.decode(cursor, 3);
+        Slice<TaskResponseDTO> tasks = keys == null
+                ? taskRepository.scrollByUserEmailFirst(email, CursorMapper.limit(size))
+                : taskRepository.scrollByUserEmailAfter(email, parseDate(keys[0]), parseTime(keys[1]), CursorMapper.parseId(keys[2]), CursorMapper.limit(size));
+        return CursorSliceDTO.of(tasks, task -> task, TaskService::cursorOf);
+    }
+
+    // match = any (alguna de las etiquetas) o all (todas). Sin etiquetas solo filtra por asignado y fechas.
+    @Transactional(readOnly = true)
+    public Page<TaskResponseDTO> search(List<String> labels, String match, String email, LocalDate from, LocalDate to, Pageable pageable) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("La fecha inicial no puede ser posterior a la final");
         }
+        List<String> names = TaskLabelService.normalize(labels);
+        // el orden lo fija la consulta (fecha, hora, id)
+        Pageable page = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        if (names.isEmpty()) {
+            return taskRepository.search(email, from, to, page);
+        }
+        return switch (match == null ? "any" : match.toLowerCase(Locale.ROOT)) {
+            case "any" -> taskRepository.searchAnyLabel(names, email, from, to, page);
+            case "all" -> taskRepository.searchAllLabels(names, names.size(), email, from, to, page);
+            default -> throw new IllegalArgumentException("match debe ser any o all");
+        };
     }
 
-    public TaskResponseDTO showByTitle(String title) {
-        Task task = taskRepository.getTaskByTitle(title);
-        if (task == null) {
-            throw new TaskNotFoundException(title);
-        } else {
-            return TaskMapper.toDTO(task);
+    @Transactional(readOnly = true)
+    public List<LabelCountDTO> labelCountsByUserEmail(String email) {
+        return taskLabelService.countsByUserEmail(email);
+    }
+
+    private static String cursorOf(TaskResponseDTO task) {
+        return CursorMapper.encode(task.getDate(), task.getTime(), task.getId());
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+
+    private static LocalTime parseTime(String value) {
+        try {
+            return LocalTime.parse(value);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Cursor inválido");
         }
     }
 
+    @Transactional(readOnly = true)
+    public TaskResponseDTO showById(Long id) {
+        return taskRepository.findViewById(id).orElseThrow(() -> new TaskNotFoundException(id));
+    }
+
+    @Transactional(readOnly = true)
+    public TaskResponseDTO showByTitle(String title) {
+        return taskRepository.findViewsByTitle(title).stream().findFirst().orElseThrow(() -> new TaskNotFoundException(title));
+    }
+
     public TaskResponseDTO create(TaskRequestDTO dto) {
         if (taskRepository.existsByTitle(dto.getTitle())) {
             throw new DuplicatedTaskException(dto.getTitle());
@@ -77,19 +155,18 @@ public class TaskService {
             User user = userRepository.findById(dto.getAssigmentFor().getId()).orElseThrow(() -> new UserNotFoundException(dto.getAssigmentFor().getId()));
             Task task = TaskMapper.toEntity(dto);
             task.setAssigmentFor(user);
+            task.setLabels(taskLabelService.resolveSet(dto.getLabels()));
             Task savedTask = taskRepository.save(task);
+            taskLabelService.applyCounts(new LabelCountDelta().add(savedTask));
+            searchIndexer.taskSaved(savedTask);
 
-            try {
-                String subject = "Nueva tarea asignada: " + savedTask.getTitle();
-                Map<String, Object> model = new HashMap<>();
-                model.put("task", savedTask);
-                model.put("user", user);
-                emailService.sendTemplateEmail(user.getEmail(), subject, "task-created.html", model);
-            } catch (Exception e) {
-                String subject = "Nueva tarea asignada: " + savedTask.getTitle();
-                String text = "Te han asignado la tarea: " + savedTask.getTitle();
-                emailService.sendSimpleEmail(user.getEmail(), subject, text);
-            }
+            // el correo se encola en esta transaccion y se envia despues del commit
+            String subject = "Nueva tarea asignada: " + savedTask.getTitle();
+            Map<String, Object> model = new HashMap<>();
+            model.put("task", EmailModels.task(savedTask));
+            model.put("user", EmailModels.user(user));
+            emailOutbox.enqueueTemplate(user.getEmail(), subject, "task-created.html", model, "Te han asignado la tarea: " + savedTask.getTitle());
+            streamHub.activity(user.getEmail(), taskEvent("created", savedTask));
 
             return TaskMapper.toDTO(savedTask);
         }
@@ -99,98 +176,85 @@ public class TaskService {
         Task task = taskRepository.findById(id).orElseThrow(() -> new TaskNotFoundException(id));
         User newUser = userRepository.findById(dto.getAssigmentFor().getId()).orElseThrow(() -> new UserNotFoundException(dto.getAssigmentFor().getId()));
         User oldUser = task.getAssigmentFor();
+        LabelCountDelta labelCounts = new LabelCountDelta().remove(task);
         task.setAssigmentFor(newUser);
         updateBasicFields(dto, task);
+        if (dto.getLabels() != null) task.setLabels(taskLabelService.resolveSet(dto.getLabels()));
         Task updatedTask = taskRepository.save(task);
+        searchIndexer.taskSaved(updatedTask);
+        taskLabelService.applyCounts(labelCounts.add(updatedTask));
 
         // notificar cambios: si el asignado cambió, notificar a nuevo y (opcional) al antiguo
-        try {
-            String subject = "Tarea actualizada: " + updatedTask.getTitle();
-            Map<String, Object> model = new HashMap<>();
-            model.put("task", updatedTask);
-            model.put("user", newUser);
-            emailService.sendTemplateEmail(newUser.getEmail(), subject, "task-updated.html", model);
-        } catch (Exception e) {
-            try {
-                String subject = "Tarea actualizada: " + updatedTask.getTitle();
-                String text = "La tarea ha sido actualizada: " + updatedTask.getTitle();
-                emailService.sendSimpleEmail(newUser.getEmail(), subject, text);
-            } catch (Exception ex) {
-                // ignore
-            }
-        }
+        String subject = "Tarea actualizada: " + updatedTask.getTitle();
+        Map<String, Object> model = new HashMap<>();
+        model.put("task", EmailModels.task(updatedTask));
+        model.put("user", EmailModels.user(newUser));
+        emailOutbox.enqueueTemplate(newUser.getEmail(), subject, "task-updated.html", model, "La tarea ha sido actualizada: " + updatedTask.getTitle());
+        streamHub.activity(newUser.getEmail(), taskEvent("updated", updatedTask));
 
         // if assignment changed, notify old user about unassignment
         if (oldUser != null && !oldUser.getId().equals(newUser.getId())) {
-            try {
-                String subject = "Has sido desasignado de la tarea: " + updatedTask.getTitle();
-                emailService.sendSimpleEmail(oldUser.getEmail(), subject, "Ya no estás asignado a la tarea: " + updatedTask.getTitle());
-            } catch (Exception ex) {
-                // ignore
-            }
+            emailOutbox.enqueueText(oldUser.getEmail(), "Has sido desasignado de la tarea: " + updatedTask.getTitle(), "Ya no estás asignado a la tarea: " + updatedTask.getTitle());
+            streamHub.activity(oldUser.getEmail(), taskEvent("unassigned", updatedTask));
         }
 
         return TaskMapper.toDTO(updatedTask);
     }
 
-    private void updateBasicFields(TaskRequestDTO task, Task updatedTask) {
+    static void updateBasicFields(TaskRequestDTO task, Task updatedTask) {
         Optional.ofNullable(task.getTitle()).ifPresent(updatedTask::setTitle);
         Optional.ofNullable(task.getDescription()).ifPresent(updatedTask::setDescription);
         Optional.ofNullable(task.getDate()).ifPresent(updatedTask::setDate);
         Optional.ofNullable(task.getTime()).ifPresent(updatedTask::setTime);
         Optional.ofNullable(task.getAssigmentFor()).ifPresent(updatedTask::setAssigmentFor);
         Optional.ofNullable(task.getStatus()).ifPresent(updatedTask::setStatus);
-        Optional.ofNullable(task.getLabels()).ifPresent(updatedTask::setLabels);
         Optional.ofNullable(task.getImage()).ifPresent(updatedTask::setImage);
     }
 
     public void delete(Long id) {
         Task tarea = taskRepository.findById(id).orElse(null);
         if (tarea == null) throw new IllegalArgumentException("Task not found");
-        taskRepository.deleteById(id);
+        taskLabelService.applyCounts(new LabelCountDelta().remove(tarea));
+        taskRepository.delete(tarea);
+        searchIndexer.taskDeleted(id);
 
         // notificar al asignado sobre eliminación
-        try {
-            if (tarea.getAssigmentFor() != null) {
-                String subject = "Tarea eliminada: " + tarea.getTitle();
-                Map<String, Object> model = new HashMap<>();
-                model.put("task", tarea);
-                emailService.sendTemplateEmail(tarea.getAssigmentFor().getEmail(), subject, "task-deleted.html", model);
-            }
-        } catch (Exception e) {
-            // ignore
+        if (tarea.getAssigmentFor() != null) {
+            String subject = "Tarea eliminada: " + tarea.getTitle();
+            Map<String, Object> model = new HashMap<>();
+            model.put("task", EmailModels.task(tarea));
+            emailOutbox.enqueueTemplate(tarea.getAssigmentFor().getEmail(), subject, "task-deleted.html", model, "La tarea ha sido eliminada: " + tarea.getTitle());
+            streamHub.activity(tarea.getAssigmentFor().getEmail(), taskEvent("deleted", tarea));
         }
     }
 
-    public Resource obtenerAvatarGenerico(Long id) {
-        Task tarea = obtenerTareaPorId(id);
-        if (tarea.getImage() == null || tarea.getImage().isEmpty()) {
-            throw new ResourceNotFoundException("El usuario no tiene un avatar asignado.");
-        }
-        return fileService.cargarFichero(tarea.getImage());
+    private static ActivityEventDTO taskEvent(String action, Task task) {
+        return new ActivityEventDTO("task", action, task.getId(), task.getTitle());
     }
 
-    public void guardarAvatar(Long tareaId, MultipartFile avatar) throws IOException {
-        validarTamanoArchivo(avatar);
-        validarTipoDeArchivo(avatar);
-        Task tarea = taskRepository.findById(tareaId).orElseThrow(() -> new ResourceNotFoundException("Tarea no encontrada con id: " + tareaId));
-        String rutaArchivo = fileService.guardarFichero(tareaId, avatar);
-        tarea.setImage(rutaArchivo);
-        taskRepository.save(tarea);
+    public AvatarCache.Avatar obtenerAvatarGenerico(Long id, Integer size) {
+        return avatarCache.get(AvatarCache.TASK, id, size, () -> {
+            Task tarea = obtenerTareaPorId(id);
+            if (tarea.getImage() == null || tarea.getImage().isEmpty()) {
+                throw new ResourceNotFoundException("El usuario no tiene un avatar asignado.");
+            }
+            return fileService.describirFichero(tarea.getImage(), size);
+        });
     }
 
-    private void validarTamanoArchivo(MultipartFile avatar) {
-        long maxSizeInBytes = 1024 * 1024 * 5L; // 5MB
-        if (avatar.getSize() > maxSizeInBytes) {
-            throw new IllegalArgumentException("Tamaño de archivo excede el límite de 5MB");
+    public void guardarAvatar(Long tareaId, MultipartFile avatar) throws IOException {
+        try (InputStream contenido = avatar.getInputStream()) {
+            guardarAvatar(tareaId, contenido);
         }
     }
 
-    private void validarTipoDeArchivo(MultipartFile avatar) {
-        String contentType = avatar.getContentType();
-        if (!Arrays.asList("image/png", "image/jpeg", "image/gif", "image/webp").contains(contentType)) {
-            throw new IllegalArgumentException("Tipo de archivo debe ser: (jpeg, png, gif, webp)");
-        }
+    // El tipo y el tamaño se comprueban sobre los bytes recibidos, no sobre lo que declara el cliente
+    public void guardarAvatar(Long tareaId, InputStream avatar) throws IOException {
+        Task tarea = taskRepository.findById(tareaId).orElseThrow(() -> new ResourceNotFoundException("Tarea no encontrada con id: " + tareaId));
+        String rutaArchivo = fileService.guardarFichero(avatar);
+        tarea.setImage(rutaArchivo);
+        taskRepository.save(tarea);
+        avatarCache.invalidate(AvatarCache.TASK, tareaId);
     }
 
     public Task obtenerTareaPorId(Long id) {
@@ -0,0 +1,264 @@
+package com.example.catalog.services;
+
+import com.example.catalog.domain.entities.StoredFile;
+import com.example.catalog.repositories.StoredFileRepository;
+import com.example.catalog.services.storage.BlobStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Miniaturas de las imágenes subidas (por defecto 32/64/128/256 px de lado máximo), generadas en
+// segundo plano con un pool acotado y solo con ImageIO del JDK. Se guardan en el BlobStore junto
+// al original como <ruta>.<tamaño>px y se registran en stored_files como cualquier otro fichero.
+// Las imágenes con transparencia se guardan en PNG y el resto en JPEG. Si la cola está llena no se
+// generan ahora: se vuelve a intentar la primera vez que alguien pida ese tamaño. Si la generación
+// falla (formato no soportado, imagen enorme...) se anota en el original y ya no se reintenta.
+@Component
+public class ThumbnailService {
+    private static final Logger logger = LoggerFactory.getLogger(ThumbnailService.class);
+
+    private final StoredFileRepository storedFileRepository;
+    private final BlobStore blobStore;
+    private final int[] sizes;
+    private final long maxPixels;
+    private final float jpegQuality;
+    private final ThreadPoolExecutor workers;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final Timer generationTimer;
+    private final DistributionSummary savedBytes;
+    private final Counter failures;
+
+    public ThumbnailService(StoredFileRepository storedFileRepository,
+                            BlobStore blobStore,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.files.thumbnails.sizes:32,64,128,256}") int[] sizes,
+                            @Value("${app.files.thumbnails.max-pixels:40000000}") long maxPixels,
+                            @Value("${app.files.thumbnails.jpeg-quality:0.85}") float jpegQuality,
+                            @Value("${app.files.thumbnails.workers:2}") int workerCount,
+                            @Value("${app.files.thumbnails.queue-capacity:100}") int queueCapacity) {
+        this.storedFileRepository = storedFileRepository;
+        this.blobStore = blobStore;
+        this.sizes = Arrays.stream(sizes).filter(size -> size > 0).sorted().distinct().toArray();
+        this.maxPixels = maxPixels;
+        this.jpegQuality = jpegQuality;
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), namedThreads("thumbnail-worker-"));
+        this.generationTimer = Timer.builder("files.thumbnail.generation")
+                .description("Time to decode an upload and write all its thumbnails")
+                .register(meterRegistry);
+        this.savedBytes = DistributionSummary.builder("files.thumbnail.saved")
+                .description("Bytes saved by serving a thumbnail instead of the original")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.failures = Counter.builder("files.thumbnail.failures")
+                .description("Uploads whose thumbnails could not be generated")
+                .register(meterRegistry);
+    }
+
+    public static String thumbnailPath(String originalPath, int size) {
+        return originalPath + "." + size + "px";
+    }
+
+    // Tamaño de miniatura que sirve para una petición: el menor configurado que cubra el pedido.
+    // null = el original (sin tamaño o más grande que la mayor miniatura).
+    public Integer resolveSize(Integer requested) {
+        if (requested == null) return null;
+        if (requested <= 0) {
+            throw new IllegalArgumentException("size debe ser mayor que 0");
+        }
+        for (int size : sizes) {
+            if (size >= requested) return size;
+        }
+        return null;
+    }
+
+    public void generateAsync(StoredFile original) {
+        if (sizes.length == 0 || !pending.add(original.getPath())) return;
+        try {
+            workers.execute(() -> {
+                try {
+                    generate(original);
+                } finally {
+                    pending.remove(original.getPath());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(original.getPath());
+            logger.debug("Thumbnail queue full, skipping {}", original.getPath());
+        }
+    }
+
+    void generate(StoredFile original) {
+        long start = System.nanoTime();
+        try {
+            BufferedImage image = read(original.getPath());
+            boolean alpha = image.getColorModel().hasAlpha();
+            for (int size : sizes) {
+                StoredFile thumbnail = write(scale(image, size, alpha), original.getPath(), size, alpha);
+                storedFileRepository.save(thumbnail);
+                savedBytes.record(Math.max(0, original.getSize() - thumbnail.getSize()));
+            }
+            generationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } catch (IOException | RuntimeException e) {
+            failures.increment();
+            logger.warn("Could not generate thumbnails for {}, not retrying: {}", original.getPath(), e.getMessage());
+            markFailed(original);
+        }
+    }
+
+    private void markFailed(StoredFile original) {
+        try {
+            storedFileRepository.markThumbnailFailed(original.getPath(), Instant.now());
+        } catch (RuntimeException e) {
+            logger.warn("Could not record thumbnail failure for {}: {}", original.getPath(), e.getMessage());
+        }
+    }
+
+    // Comprueba las dimensiones en la cabecera antes de decodificar para no reservar memoria de más
+    private BufferedImage read(String key) throws IOException {
+        try (InputStream source = blobStore.open(key);
+             ImageInputStream in = ImageIO.createImageInputStream(source)) {
+            Iterator<ImageReader> readers = in == null ? Collections.emptyIterator() : ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    throw new IOException("Image too large: " + pixels + " pixels");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Reduce a la mitad mientras se pueda y termina con un paso bilineal: calidad parecida a un
+    // filtro de área sin su coste. No amplía imágenes más pequeñas que la miniatura.
+    static BufferedImage scale(BufferedImage source, int size, boolean alpha) {
+        double ratio = Math.min(1.0, (double) size / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage step = new BufferedImage(width, height, type);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                if (!alpha) {
+                    graphics.setColor(Color.WHITE);
+                    graphics.fillRect(0, 0, width, height);
+                }
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    // Escribe en un temporal calculando el hash y lo publica en el almacén junto al original
+    private StoredFile write(BufferedImage image, String originalPath, int size, boolean alpha) throws IOException {
+        String path = thumbnailPath(originalPath, size);
+        Path temp = blobStore.createTempFile("thumb");
+        try {
+            MessageDigest digest = sha256();
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest);
+                 ImageOutputStream imageOut = ImageIO.createImageOutputStream(out)) {
+                ImageWriter writer = ImageIO.getImageWritersByFormatName(alpha ? "png" : "jpeg").next();
+                try {
+                    writer.setOutput(imageOut);
+                    ImageWriteParam param = writer.getDefaultWriteParam();
+                    if (!alpha) {
+                        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                        param.setCompressionQuality(jpegQuality);
+                    }
+                    writer.write(null, new IIOImage(image, null, null), param);
+                } finally {
+                    writer.dispose();
+                }
+            }
+            long bytes = Files.size(temp);
+            blobStore.put(path, temp, alpha ? "image/png" : "image/jpeg");
+            return StoredFile.builder()
+                    .path(path)
+                    .sha256(HexFormat.of().formatHex(digest.digest()))
+                    .contentType(alpha ? "image/png" : "image/jpeg")
+                    .size(bytes)
+                    .createdAt(Instant.now())
+                    .variantOf(originalPath)
+                    .build();
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+}
@@ -1,19 +1,216 @@
 package com.example.catalog.services;
 
+import com.example.catalog.segurity.jwt.JwtUtil;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
+// Tokens revocados por logout, indexados por jti (o hash del token si no tiene jti). Cada entrada
+// caduca cuando vence el propio token, asi que la memoria no crece con el trafico de logout.
+// Un filtro de Bloom delante del mapa resuelve el caso comun "no revocado" sin locks ni
+// reservas de memoria; solo los positivos (reales o falsos) consultan el mapa.
+// Una revocacion vigente nunca se descarta: max-entries dimensiona el filtro y avisa cuando se
+// supera (jwt.blacklist.over-capacity), pero la entrada se guarda igualmente.
 @Service
 public class TokenBlacklistService {
-    private final Set<String> blacklistedTokens = new HashSet<>();
+    private static final Logger logger = LoggerFactory.getLogger(TokenBlacklistService.class);
+    private static final long BUCKET_MILLIS = 60_000;
+
+    private final JwtUtil jwtUtil;
+    private final int maxEntries;
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    // tokens agrupados por minuto de caducidad: la purga solo recorre las cubetas ya vencidas
+    private final NavigableMap<Long, Set<String>> expiryBuckets = new TreeMap<>();
+    private final AtomicLong expiredEvictions = new AtomicLong();
+    private final AtomicLong overCapacity = new AtomicLong();
+    private volatile BloomFilter bloomFilter;
+    private int bloomCapacity;
+
+    public TokenBlacklistService(JwtUtil jwtUtil, MeterRegistry meterRegistry, @Value("${app.jwt.blacklist.max-entries:100000}") int maxEntries) {
+        this.jwtUtil = jwtUtil;
+        this.maxEntries = maxEntries;
+        this.bloomCapacity = maxEntries;
+        this.bloomFilter = new BloomFilter(maxEntries);
+
+        Gauge.builder("jwt.blacklist.size", revoked, Map::size)
+                .description("Revoked tokens currently held in memory")
+                .register(meterRegistry);
+        FunctionCounter.builder("jwt.blacklist.evictions", expiredEvictions, AtomicLong::get)
+                .tag("reason", "expired")
+                .register(meterRegistry);
+        FunctionCounter.builder("jwt.blacklist.over-capacity", overCapacity, AtomicLong::get)
+                .description("Revocations stored while the blacklist was above max-entries")
+                .register(meterRegistry);
+    }
 
     public void addTokenToBlacklist(String token) {
-        blacklistedTokens.add(token);
+        String tokenId;
+        Instant expiresAt;
+        try {
+            tokenId = jwtUtil.extractTokenId(token);
+            expiresAt = jwtUtil.extractExpiration(token).toInstant();
+        } catch (IllegalArgumentException e) {
+            // token invalido o ya caducado: no hay nada que revocar
+            return;
+        }
+        revoke(tokenId, expiresAt);
     }
 
     public boolean isTokenBlacklisted(String token) {
-        return blacklistedTokens.contains(token);
+        return isRevoked(jwtUtil.extractTokenId(token));
+    }
+
+    // Sincronizado con purgeExpired para que ninguna revocacion se pierda al reconstruir el filtro.
+    // Coste O(1) amortizado: con el limite alcanzado solo se purga si la cubeta mas antigua ya vencio
+    // (como mucho una vez por minuto) y el filtro se reconstruye al doble de tamaño cuando se queda corto.
+    public synchronized void revoke(String tokenId, Instant expiresAt) {
+        long expiresAtMillis = expiresAt.toEpochMilli();
+        if (revoked.size() >= maxEntries && !revoked.containsKey(tokenId)) {
+            purgeExpired();
+            if (revoked.size() >= maxEntries && overCapacity.getAndIncrement() % maxEntries == 0) {
+                logger.error("Token blacklist above max-entries ({} entries, limit {}): keeping every live revocation, raise app.jwt.blacklist.max-entries",
+                        revoked.size(), maxEntries);
+            }
+        }
+        Long previous = revoked.put(tokenId, expiresAtMillis);
+        if (previous != null) {
+            removeFromBucket(tokenId, previous);
+        }
+        expiryBuckets.computeIfAbsent(bucketOf(expiresAtMillis), bucket -> new HashSet<>()).add(tokenId);
+        if (revoked.size() > bloomCapacity) {
+            bloomCapacity *= 2;
+            rebuildBloomFilter();
+        } else {
+            bloomFilter.add(tokenId);
+        }
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (!bloomFilter.mightContain(tokenId)) {
+            return false;
+        }
+        return revoked.containsKey(tokenId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.blacklist.purge-interval-ms:60000}")
+    public synchronized void purgeExpired() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        Iterator<Map.Entry<Long, Set<String>>> buckets = expiryBuckets.headMap(bucketOf(now), true).entrySet().iterator();
+        while (buckets.hasNext()) {
+            Set<String> tokenIds = buckets.next().getValue();
+            Iterator<String> ids = tokenIds.iterator();
+            while (ids.hasNext()) {
+                String tokenId = ids.next();
+                Long expiresAt = revoked.get(tokenId);
+                // la cubeta del minuto actual puede tener tokens aun vigentes
+                if (expiresAt == null || expiresAt <= now) {
+                    if (revoked.remove(tokenId) != null) removed++;
+                    ids.remove();
+                }
+            }
+            if (tokenIds.isEmpty()) buckets.remove();
+        }
+        if (removed > 0) {
+            expiredEvictions.addAndGet(removed);
+            bloomCapacity = Math.max(maxEntries, revoked.size() * 2);
+            rebuildBloomFilter();
+        }
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    public long getExpiredEvictions() {
+        return expiredEvictions.get();
+    }
+
+    public long getOverCapacityRevocations() {
+        return overCapacity.get();
+    }
+
+    private void removeFromBucket(String tokenId, long expiresAtMillis) {
+        Set<String> bucket = expiryBuckets.get(bucketOf(expiresAtMillis));
+        if (bucket != null && bucket.remove(tokenId) && bucket.isEmpty()) {
+            expiryBuckets.remove(bucketOf(expiresAtMillis));
+        }
+    }
+
+    private static long bucketOf(long epochMillis) {
+        return Math.floorDiv(epochMillis, BUCKET_MILLIS);
+    }
+
+    private void rebuildBloomFilter() {
+        BloomFilter rebuilt = new BloomFilter(bloomCapacity);
+        revoked.keySet().forEach(rebuilt::add);
+        bloomFilter = rebuilt;
+    }
+
+    // Filtro de Bloom de ~10 bits por entrada y 7 funciones hash (~1% de falsos positivos a plena carga).
+    static final class BloomFilter {
+        private static final int HASHES = 7;
+        private final AtomicLongArray bits;
+        private final int mask;
+
+        BloomFilter(int expectedEntries) {
+            int size = Integer.highestOneBit(Math.max(64, expectedEntries * 10 - 1)) << 1;
+            this.bits = new AtomicLongArray(size >>> 6);
+            this.mask = size - 1;
+        }
+
+        void add(String key) {
+            long hash = hash64(key);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = (h1 + i * h2) & mask;
+                int word = bit >>> 6;
+                long flag = 1L << bit;
+                long current;
+                do {
+                    current = bits.get(word);
+                } while ((current & flag) == 0 && !bits.compareAndSet(word, current, current | flag));
+            }
+        }
+
+        boolean mightContain(String key) {
+            long hash = hash64(key);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = (h1 + i * h2) & mask;
+                if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // FNV-1a sobre los caracteres seguido del mezclador final de MurmurHash3.
+        private static long hash64(String key) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < key.length(); i++) {
+                h ^= key.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb93fe53e2e1bL;
+            h ^= h >>> 33;
+            return h;
+        }
     }
 }
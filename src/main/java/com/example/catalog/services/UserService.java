@@ -1,15 +1,18 @@
 package com.example.catalog.services;
 
 import com.example.catalog.domain.dto.*;
+import com.example.catalog.domain.entities.StoredFile;
 import com.example.catalog.domain.entities.User;
+import com.example.catalog.mappers.CursorMapper;
 import com.example.catalog.mappers.UserMapper;
 import com.example.catalog.repositories.UserRepository;
+import com.example.catalog.segurity.user.PrincipalCache;
 import com.example.catalog.web.exceptions.DuplicatedUserException;
 import com.example.catalog.web.exceptions.ResourceNotFoundException;
 import com.example.catalog.web.exceptions.UserNotFoundException;
-import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -19,12 +22,13 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
-import com.example.catalog.services.email.EmailService;
+import com.example.catalog.services.email.EmailModels;
+import com.example.catalog.services.email.EmailOutboxService;
 
 @Service
 @Transactional
@@ -33,45 +37,48 @@ public class UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final FileService fileService;
-    private final EmailService emailService;
+    private final AvatarCache avatarCache;
+    private final EmailOutboxService emailOutbox;
+    private final PrincipalCache principalCache;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, FileService fileService, EmailService emailService) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, FileService fileService, AvatarCache avatarCache, EmailOutboxService emailOutbox, PrincipalCache principalCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.fileService = fileService;
-        this.emailService = emailService;
+        this.avatarCache = avatarCache;
+        this.emailOutbox = emailOutbox;
+        this.principalCache = principalCache;
     }
 
+    @Transactional(readOnly = true)
     public Page<UserResponseDTO> list(Pageable pageable) {
-        Page<UserResponseDTO> users = userRepository.findAll(pageable).map(UserMapper::toDTO);
+        Page<UserResponseDTO> users = userRepository.findAllViews(pageable);
         return users;
     }
 
+    // Cursor = (username, id) del último usuario devuelto
+    @Transactional(readOnly = true)
+    public CursorSliceDTO<UserResponseDTO> scroll(String cursor, int size) {
+        String[] keys = CursorMapper.decode(cursor, 2);
+        Slice<UserResponseDTO> users = keys == null
+                ? userRepository.scrollFirst(CursorMapper.limit(size))
+                : userRepository.scrollAfter(keys[0], CursorMapper.parseId(keys[1]), CursorMapper.limit(size));
+        return CursorSliceDTO.of(users, user -> user, user -> CursorMapper.encode(user.getUsername(), user.getId()));
+    }
+
+    @Transactional(readOnly = true)
     public UserResponseDTO showById(Long id) {
-        User user = userRepository.getUserById(id);
-        if (user == null) {
-            throw new UserNotFoundException(id);
-        } else {
-            return UserMapper.toDTO(user);
-        }
+        return userRepository.findViewById(id).orElseThrow(() -> new UserNotFoundException(id));
     }
 
+    @Transactional(readOnly = true)
     public UserResponseDTO showByName(String username) {
-        User user = userRepository.getUserByUsername(username);
-        if (user == null) {
-            throw new UserNotFoundException(username);
-        } else {
-            return UserMapper.toDTO(user);
-        }
+        return userRepository.findViewByUsername(username).orElseThrow(() -> new UserNotFoundException(username));
     }
 
+    @Transactional(readOnly = true)
     public UserResponseDTO showByEmail(String email) {
-        User user = userRepository.getUserByEmail(email);
-        if (user == null) {
-            throw new UserNotFoundException(email);
-        } else {
-            return UserMapper.toDTO(user);
-        }
+        return userRepository.findViewByEmail(email).orElseThrow(() -> new UserNotFoundException(email));
     }
 
     public UserResponseDTO create(UserRequestDTO dto) {
@@ -93,20 +100,7 @@ public class UserService {
         User savedUser = userRepository.save(user);
 
         // Enviar correo de bienvenida/registro
-        try {
-            String subject = "Bienvenido a MemoWorks";
-            Map<String, Object> model = new HashMap<>();
-            model.put("user", savedUser);
-            emailService.sendTemplateEmail(savedUser.getEmail(), subject, "saludo.html", model);
-        } catch (Exception e) {
-            // fallback simple
-            try {
-                String subject = "Bienvenido a MemoWorks";
-                String text = "Gracias por registrarte en MemoWorks.";
-                emailService.sendSimpleEmail(savedUser.getEmail(), subject, text);
-            } catch (Exception ex) {
-            }
-        }
+        enqueueWelcomeEmail(savedUser);
 
         return UserMapper.toDTO(savedUser);
     }
@@ -122,6 +116,7 @@ public class UserService {
             throw new DuplicatedUserException(dto.getEmail());
         }
 
+        String previousEmail = user.getEmail();
         updateBasicFields(dto, user);
 
         // si se provee contraseña, codificar antes de guardar
@@ -130,6 +125,10 @@ public class UserService {
         }
 
         User updatedUser = userRepository.save(user);
+
+        // email, rol o contraseña pueden haber cambiado
+        principalCache.invalidate(previousEmail);
+        principalCache.invalidate(updatedUser.getEmail());
         return UserMapper.toDTO(updatedUser);
     }
 
@@ -147,8 +146,9 @@ public class UserService {
     }
 
     public void delete(Long id) {
-        if (!userRepository.existsById(id)) throw new IllegalArgumentException("User not found");
+        User user = userRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("User not found"));
         userRepository.deleteById(id);
+        principalCache.invalidate(user.getEmail());
     }
 
     public boolean existsByEmail(String email) {
@@ -168,23 +168,18 @@ public class UserService {
             User savedUser = userRepository.save(user);
 
             // enviar correo de registro
-            try {
-                String subject = "Bienvenido a MemoWorks";
-                Map<String, Object> model = new HashMap<>();
-                model.put("user", savedUser);
-                emailService.sendTemplateEmail(savedUser.getEmail(), subject, "saludo.html", model);
-            } catch (Exception e) {
-                try {
-                    emailService.sendSimpleEmail(savedUser.getEmail(), "Bienvenido a MemoWorks", "Gracias por registrarte en MemoWorks.");
-                } catch (Exception ex) {
-                    // ignore
-                }
-            }
+            enqueueWelcomeEmail(savedUser);
 
             return savedUser;
         }
     }
 
+    private void enqueueWelcomeEmail(User user) {
+        Map<String, Object> model = new HashMap<>();
+        model.put("user", EmailModels.user(user));
+        emailOutbox.enqueueTemplate(user.getEmail(), "Bienvenido a MemoWorks", "saludo.html", model, "Gracias por registrarte en MemoWorks.");
+    }
+
     /******************************************************************************************************/
 
     public User obtenerMiPerfil() {
@@ -200,35 +195,34 @@ public class UserService {
                 .orElseThrow(() -> new ResourceNotFoundException(USUARIO_NO_ENCONTRADO_CON + "email " + email));
     }
 
-    public Resource obtenerAvatarGenerico(Long id) {
-        User usuario = (id == null) ? obtenerMiPerfil() : obtenerUsuarioPorId(id);
+    public AvatarCache.Avatar obtenerAvatarGenerico(Long id, Integer size) {
+        if (id == null) {
+            User usuario = obtenerMiPerfil();
+            return avatarCache.get(AvatarCache.USER, usuario.getId(), size, () -> describirAvatar(usuario, size));
+        }
+        return avatarCache.get(AvatarCache.USER, id, size, () -> describirAvatar(obtenerUsuarioPorId(id), size));
+    }
+
+    private StoredFile describirAvatar(User usuario, Integer size) {
         if (usuario.getAvatar() == null || usuario.getAvatar().isEmpty()) {
             throw new ResourceNotFoundException("El usuario no tiene un avatar asignado.");
         }
-        return fileService.cargarFichero(usuario.getAvatar());
+        return fileService.describirFichero(usuario.getAvatar(), size);
     }
 
     public void guardarAvatar(Long usuarioId, MultipartFile avatar) throws IOException {
-        validarTamanoArchivo(avatar);
-        validarTipoDeArchivo(avatar);
-        User usuario = userRepository.findById(usuarioId).orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado con id: " + usuarioId));
-        String rutaArchivo = fileService.guardarFichero(usuarioId, avatar);
-        usuario.setAvatar(rutaArchivo);
-        userRepository.save(usuario);
-    }
-
-    private void validarTamanoArchivo(MultipartFile avatar) {
-        long maxSizeInBytes = 1024 * 1024 * 5L; // 5MB
-        if (avatar.getSize() > maxSizeInBytes) {
-            throw new IllegalArgumentException("Tamaño de archivo excede el límite de 5MB");
+        try (InputStream contenido = avatar.getInputStream()) {
+            guardarAvatar(usuarioId, contenido);
         }
     }
 
-    private void validarTipoDeArchivo(MultipartFile avatar) {
-        String contentType = avatar.getContentType();
-        if (!Arrays.asList("image/png", "image/jpeg", "image/gif", "image/webp").contains(contentType)) {
-            throw new IllegalArgumentException("Tipo de archivo debe ser: (jpeg, png, gif, webp)");
-        }
+    // El tipo y el tamaño se comprueban sobre los bytes recibidos, no sobre lo que declara el cliente
+    public void guardarAvatar(Long usuarioId, InputStream avatar) throws IOException {
+        User usuario = userRepository.findById(usuarioId).orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado con id: " + usuarioId));
+        String rutaArchivo = fileService.guardarFichero(avatar);
+        usuario.setAvatar(rutaArchivo);
+        userRepository.save(usuario);
+        avatarCache.invalidate(AvatarCache.USER, usuarioId);
     }
 
     public User obtenerUsuarioPorId(Long id) {
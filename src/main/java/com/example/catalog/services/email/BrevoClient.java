@@ -0,0 +1,159 @@
+package com.example.catalog.services.email;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Cliente HTTP de Brevo sobre java.net.http.HttpClient: reutiliza conexiones (keep-alive en HTTP/1.1,
+// multiplexado en HTTP/2), es no bloqueante y limita las peticiones en vuelo con un semaforo.
+// Los lotes usan messageVersions, asi que N destinatarios son una sola peticion en vez de N.
+@Component
+public class BrevoClient {
+    private static final Logger logger = LoggerFactory.getLogger(BrevoClient.class);
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final Semaphore permits;
+    private final URI sendUri;
+    private final String apiKey;
+    private final String senderEmail;
+    private final String senderName;
+    private final Duration requestTimeout;
+    private final int maxVersionsPerRequest;
+
+    public BrevoClient(ObjectMapper objectMapper,
+                       @Value("${brevo.api.url:https://api.brevo.com/v3}") String apiUrl,
+                       @Value("${brevo.api.key:}") String apiKey,
+                       @Value("${brevo.sender.email:}") String senderEmail,
+                       @Value("${brevo.sender.name:MemoWorks}") String senderName,
+                       @Value("${brevo.http.connect-timeout-ms:5000}") long connectTimeoutMs,
+                       @Value("${brevo.http.request-timeout-ms:15000}") long requestTimeoutMs,
+                       @Value("${brevo.http.max-concurrency:8}") int maxConcurrency,
+                       @Value("${brevo.batch.max-versions:100}") int maxVersionsPerRequest) {
+        this.objectMapper = objectMapper;
+        this.sendUri = URI.create(apiUrl.replaceAll("/+$", "") + "/smtp/email");
+        this.apiKey = apiKey;
+        this.senderEmail = senderEmail;
+        this.senderName = senderName;
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.permits = new Semaphore(maxConcurrency);
+        this.maxVersionsPerRequest = maxVersionsPerRequest;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+    }
+
+    public boolean isConfigured() {
+        return apiKey != null && !apiKey.isBlank() && senderEmail != null && !senderEmail.isBlank();
+    }
+
+    public String getSenderEmail() {
+        return senderEmail;
+    }
+
+    public String getSenderName() {
+        return senderName;
+    }
+
+    public CompletableFuture<Void> send(OutgoingEmail email) {
+        Map<String, Object> body = baseBody(email);
+        body.put("to", List.of(Map.of("email", email.to())));
+        return post(body, 1);
+    }
+
+    // Parte la lista en peticiones de como mucho maxVersionsPerRequest destinatarios. Devuelve un
+    // resultado por correo, en el mismo orden: el de la petición en la que viaja, para que un
+    // trozo rechazado no arrastre a los demás.
+    public List<CompletableFuture<Void>> sendBatch(List<OutgoingEmail> emails) {
+        if (emails.size() == 1) return List.of(send(emails.get(0)));
+        List<CompletableFuture<Void>> results = new ArrayList<>(emails.size());
+        for (int from = 0; from < emails.size(); from += maxVersionsPerRequest) {
+            List<OutgoingEmail> chunk = emails.subList(from, Math.min(from + maxVersionsPerRequest, emails.size()));
+            CompletableFuture<Void> request = post(batchBody(chunk), chunk.size());
+            chunk.forEach(email -> results.add(request));
+        }
+        return results;
+    }
+
+    // Espera el resultado y relanza la causa original en lugar de CompletionException.
+    public static void await(CompletableFuture<Void> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new EmailDeliveryException("Brevo request failed", e.getCause());
+        }
+    }
+
+    private Map<String, Object> batchBody(List<OutgoingEmail> emails) {
+        Map<String, Object> body = baseBody(emails.get(0));
+        List<Map<String, Object>> versions = new ArrayList<>(emails.size());
+        for (OutgoingEmail email : emails) {
+            Map<String, Object> version = new LinkedHashMap<>();
+            version.put("to", List.of(Map.of("email", email.to())));
+            version.put("subject", email.subject());
+            if (email.htmlContent() != null) version.put("htmlContent", email.htmlContent());
+            if (email.textContent() != null) version.put("textContent", email.textContent());
+            versions.add(version);
+        }
+        body.put("messageVersions", versions);
+        return body;
+    }
+
+    private Map<String, Object> baseBody(OutgoingEmail email) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("sender", Map.of("name", senderName, "email", senderEmail));
+        body.put("subject", email.subject());
+        if (email.htmlContent() != null) body.put("htmlContent", email.htmlContent());
+        if (email.textContent() != null) body.put("textContent", email.textContent());
+        return body;
+    }
+
+    private CompletableFuture<Void> post(Map<String, Object> body, int recipients) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new EmailDeliveryException("Cannot serialize Brevo request", e));
+        }
+        HttpRequest request = HttpRequest.newBuilder(sendUri)
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .header("api-key", apiKey)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(json))
+                .build();
+
+        try {
+            if (!permits.tryAcquire(requestTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                return CompletableFuture.failedFuture(new EmailDeliveryException("Too many concurrent Brevo requests"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(new EmailDeliveryException("Interrupted waiting for a Brevo slot", e));
+        }
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, error) -> permits.release())
+                .thenAccept(response -> {
+                    if (response.statusCode() / 100 != 2) {
+                        throw new EmailDeliveryException("Brevo responded " + response.statusCode() + ": " + response.body());
+                    }
+                    logger.info("Brevo accepted {} recipient(s): status={}", recipients, response.statusCode());
+                });
+    }
+}
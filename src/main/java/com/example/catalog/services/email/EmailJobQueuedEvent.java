@@ -0,0 +1,4 @@
+package com.example.catalog.services.email;
+
+public record EmailJobQueuedEvent(Long jobId) {
+}
@@ -0,0 +1,40 @@
+package com.example.catalog.services.email;
+
+import com.example.catalog.domain.entities.Group;
+import com.example.catalog.domain.entities.Task;
+import com.example.catalog.domain.entities.User;
+
+// Vistas inmutables para las plantillas de correo. El outbox las guarda como JSON, asi que nunca
+// se pasan entidades JPA (arrastrarian relaciones lazy y la contraseña del usuario).
+public final class EmailModels {
+
+    private EmailModels() {
+    }
+
+    public record UserView(Long id, String name, String username, String email) {
+    }
+
+    public record TaskView(Long id, String title, String description, String date, String time) {
+    }
+
+    public record GroupView(Long id, String name, String description) {
+    }
+
+    public static UserView user(User user) {
+        return new UserView(user.getId(), user.getName(), user.getUsername(), user.getEmail());
+    }
+
+    public static TaskView task(Task task) {
+        return new TaskView(
+                task.getId(),
+                task.getTitle(),
+                task.getDescription(),
+                task.getDate() != null ? task.getDate().toString() : null,
+                task.getTime() != null ? task.getTime().toString() : null
+        );
+    }
+
+    public static GroupView group(Group group) {
+        return new GroupView(group.getId(), group.getName(), group.getDescription());
+    }
+}
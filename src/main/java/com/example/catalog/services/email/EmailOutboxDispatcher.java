@@ -0,0 +1,281 @@
+package com.example.catalog.services.email;
+
+import com.example.catalog.domain.entities.EmailJob;
+import com.example.catalog.domain.enums.EmailJobStatus;
+import com.example.catalog.repositories.EmailJobRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.thymeleaf.exceptions.TemplateEngineException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Vacia la tabla email_jobs con un pool de workers acotado. Se despierta tras el commit de cada
+// transaccion que encola correos y, ademas, sondea periodicamente para reintentos y para los
+// trabajos que hayan dejado otras instancias.
+@Component
+public class EmailOutboxDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+    private static final TypeReference<Map<String, Object>> MODEL_TYPE = new TypeReference<>() {};
+
+    private final EmailJobRepository repository;
+    private final EmailService emailService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor workers;
+    private final ExecutorService poller;
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean(false);
+
+    @Value("${app.email.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.email.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.email.outbox.backoff-seconds:30}")
+    private long backoffSeconds;
+
+    @Value("${app.email.outbox.stale-after-seconds:300}")
+    private long staleAfterSeconds;
+
+    public EmailOutboxDispatcher(EmailJobRepository repository,
+                                 EmailService emailService,
+                                 ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.email.outbox.workers:4}") int workerCount,
+                                 @Value("${app.email.outbox.queue-capacity:100}") int queueCapacity) {
+        this.repository = repository;
+        this.emailService = emailService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), namedThreads("email-outbox-worker-"));
+        this.poller = Executors.newSingleThreadExecutor(namedThreads("email-outbox-poller-"));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onJobQueued(EmailJobQueuedEvent event) {
+        wakeUp();
+    }
+
+    // Varias transacciones seguidas solo provocan un drenado pendiente.
+    public void wakeUp() {
+        if (wakeUpPending.compareAndSet(false, true)) {
+            try {
+                poller.execute(() -> {
+                    wakeUpPending.set(false);
+                    drain();
+                });
+            } catch (RejectedExecutionException e) {
+                wakeUpPending.set(false);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.email.outbox.poll-interval-ms:5000}")
+    public void poll() {
+        Instant staleBefore = Instant.now().minusSeconds(staleAfterSeconds);
+        Integer released = transactionTemplate.execute(status ->
+                repository.releaseStaleJobs(EmailJobStatus.SENDING, EmailJobStatus.PENDING, staleBefore));
+        if (released != null && released > 0) {
+            logger.warn("Released {} email jobs stuck in SENDING", released);
+        }
+        drain();
+    }
+
+    // Solo reclama trabajos mientras haya huecos libres en la cola de workers. Los trabajos con la
+    // misma plantilla viajan juntos en una sola tarea para que el proveedor los envie por lotes.
+    synchronized void drain() {
+        try {
+            while (workers.getQueue().remainingCapacity() > 0) {
+                List<EmailJob> claimed = claim(batchSize);
+                for (List<EmailJob> group : groupByTemplate(claimed)) {
+                    try {
+                        workers.execute(() -> deliverGroup(group));
+                    } catch (RejectedExecutionException e) {
+                        group.forEach(job -> reschedule(job, Instant.now()));
+                    }
+                }
+                if (claimed.size() < batchSize) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.error("Email outbox drain failed: {}", e.getMessage());
+        }
+    }
+
+    static Collection<List<EmailJob>> groupByTemplate(List<EmailJob> jobs) {
+        Map<String, List<EmailJob>> groups = new LinkedHashMap<>();
+        List<List<EmailJob>> singles = new ArrayList<>();
+        for (EmailJob job : jobs) {
+            if (job.getTemplateName() == null) {
+                singles.add(List.of(job));
+            } else {
+                groups.computeIfAbsent(job.getTemplateName(), name -> new ArrayList<>()).add(job);
+            }
+        }
+        List<List<EmailJob>> result = new ArrayList<>(groups.values());
+        result.addAll(singles);
+        return result;
+    }
+
+    List<EmailJob> claim(int limit) {
+        List<EmailJob> claimed = transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            List<EmailJob> jobs = repository.lockDueJobs(EmailJobStatus.PENDING, now, PageRequest.of(0, limit));
+            for (EmailJob job : jobs) {
+                job.setStatus(EmailJobStatus.SENDING);
+                job.setLockedAt(now);
+            }
+            return jobs;
+        });
+        return claimed == null ? List.of() : claimed;
+    }
+
+    void deliverGroup(List<EmailJob> jobs) {
+        if (jobs.size() == 1) {
+            deliver(jobs.get(0));
+            return;
+        }
+        List<EmailJob> batch = new ArrayList<>(jobs.size());
+        List<TemplateEmail> emails = new ArrayList<>(jobs.size());
+        for (EmailJob job : jobs) {
+            try {
+                emails.add(new TemplateEmail(job.getRecipient(), job.getSubject(), readModel(job)));
+                batch.add(job);
+            } catch (IOException e) {
+                markFailed(job, e);
+                repository.save(job);
+            }
+        }
+        if (batch.isEmpty()) return;
+        Map<Integer, Exception> failures;
+        try {
+            failures = emailService.sendTemplateBatch(batch.get(0).getTemplateName(), emails);
+        } catch (Exception e) {
+            batch.forEach(job -> markFailed(job, e));
+            repository.saveAll(batch);
+            return;
+        }
+        // cada trabajo queda según el resultado de su propia petición
+        List<EmailJob> done = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            EmailJob job = batch.get(i);
+            Exception failure = failures.get(i);
+            if (failure instanceof TemplateEngineException) {
+                // su modelo no renderiza: se reintenta solo para aplicar el texto alternativo
+                deliver(job);
+                continue;
+            }
+            if (failure == null) {
+                markSent(job);
+            } else {
+                markFailed(job, failure);
+            }
+            done.add(job);
+        }
+        repository.saveAll(done);
+    }
+
+    void deliver(EmailJob job) {
+        try {
+            send(job);
+            markSent(job);
+        } catch (Exception e) {
+            markFailed(job, e);
+        }
+        repository.save(job);
+    }
+
+    private void markSent(EmailJob job) {
+        job.setStatus(EmailJobStatus.SENT);
+        job.setSentAt(Instant.now());
+        job.setLastError(null);
+        job.setLockedAt(null);
+    }
+
+    private void markFailed(EmailJob job, Exception e) {
+        int attempts = job.getAttempts() + 1;
+        job.setAttempts(attempts);
+        job.setLastError(truncate(e.getMessage()));
+        job.setLockedAt(null);
+        if (attempts >= maxAttempts) {
+            job.setStatus(EmailJobStatus.DEAD);
+            logger.error("Email job {} to {} moved to DEAD after {} attempts: {}", job.getId(), job.getRecipient(), attempts, e.getMessage());
+        } else {
+            job.setStatus(EmailJobStatus.PENDING);
+            job.setNextAttemptAt(Instant.now().plus(backoff(attempts)));
+            logger.warn("Email job {} to {} failed (attempt {}), retrying at {}: {}", job.getId(), job.getRecipient(), attempts, job.getNextAttemptAt(), e.getMessage());
+        }
+    }
+
+    private void send(EmailJob job) throws IOException {
+        if (job.getTemplateName() == null) {
+            emailService.sendSimpleEmail(job.getRecipient(), job.getSubject(), job.getFallbackText());
+            return;
+        }
+        try {
+            emailService.sendTemplateEmail(job.getRecipient(), job.getSubject(), job.getTemplateName(), readModel(job));
+        } catch (TemplateEngineException e) {
+            // La plantilla no se puede renderizar: reintentar no sirve, se envia el texto alternativo si lo hay.
+            if (job.getFallbackText() == null) throw e;
+            logger.warn("Template {} failed for email job {}, sending fallback text: {}", job.getTemplateName(), job.getId(), e.getMessage());
+            emailService.sendSimpleEmail(job.getRecipient(), job.getSubject(), job.getFallbackText());
+        }
+    }
+
+    private Map<String, Object> readModel(EmailJob job) throws IOException {
+        return job.getModel() == null ? Map.of() : objectMapper.readValue(job.getModel(), MODEL_TYPE);
+    }
+
+    private void reschedule(EmailJob job, Instant when) {
+        job.setStatus(EmailJobStatus.PENDING);
+        job.setNextAttemptAt(when);
+        job.setLockedAt(null);
+        repository.save(job);
+    }
+
+    Duration backoff(int attempts) {
+        long factor = 1L << Math.min(attempts - 1, 10);
+        return Duration.ofSeconds(backoffSeconds * factor);
+    }
+
+    private static String truncate(String message) {
+        if (message == null) return null;
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        poller.shutdown();
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+}
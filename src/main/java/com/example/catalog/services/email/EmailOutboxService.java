@@ -0,0 +1,76 @@
+package com.example.catalog.services.email;
+
+import com.example.catalog.domain.entities.EmailJob;
+import com.example.catalog.domain.enums.EmailJobStatus;
+import com.example.catalog.repositories.EmailJobRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Map;
+
+// Encola correos en la tabla email_jobs dentro de la transaccion del llamante. El envio real
+// lo hace EmailOutboxDispatcher despues del commit, asi que la latencia del proveedor de correo
+// ya no se suma a las peticiones de escritura.
+@Service
+public class EmailOutboxService {
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxService.class);
+
+    private final EmailJobRepository repository;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public EmailOutboxService(EmailJobRepository repository, ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Transactional
+    public void enqueueTemplate(String to, String subject, String templateName, Map<String, Object> model, String fallbackText) {
+        if (templateName == null || templateName.isBlank()) {
+            throw new IllegalArgumentException("templateName is required");
+        }
+        enqueue(to, subject, templateName, model, fallbackText);
+    }
+
+    @Transactional
+    public void enqueueText(String to, String subject, String text) {
+        enqueue(to, subject, null, null, text);
+    }
+
+    private void enqueue(String to, String subject, String templateName, Map<String, Object> model, String fallbackText) {
+        if (to == null || to.isBlank()) {
+            logger.warn("Skipping email '{}' because the recipient is empty", subject);
+            return;
+        }
+        Instant now = Instant.now();
+        EmailJob job = EmailJob.builder()
+                .recipient(to)
+                .subject(subject)
+                .templateName(templateName)
+                .model(writeModel(model))
+                .fallbackText(fallbackText)
+                .status(EmailJobStatus.PENDING)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build();
+        EmailJob saved = repository.save(job);
+        eventPublisher.publishEvent(new EmailJobQueuedEvent(saved.getId()));
+    }
+
+    private String writeModel(Map<String, Object> model) {
+        if (model == null || model.isEmpty()) return null;
+        try {
+            return objectMapper.writeValueAsString(model);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("El modelo del correo no se puede serializar", e);
+        }
+    }
+}
@@ -1,10 +1,27 @@
 package com.example.catalog.services.email;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public interface EmailService {
     void sendSimpleEmail(String to, String subject, String text);
     void sendHtmlEmail(String to, String subject, String html);
     void sendTemplateEmail(String to, String subject, String templateName, Map<String, Object> model);
+
+    // Devuelve el error de cada correo que no salio, por su posicion en emails; los que no aparecen
+    // se enviaron. Los proveedores con API de lotes lo sobrescriben; por defecto se envia uno a uno.
+    default Map<Integer, Exception> sendTemplateBatch(String templateName, List<TemplateEmail> emails) {
+        Map<Integer, Exception> failures = new HashMap<>();
+        for (int i = 0; i < emails.size(); i++) {
+            TemplateEmail email = emails.get(i);
+            try {
+                sendTemplateEmail(email.to(), email.subject(), templateName, email.model());
+            } catch (RuntimeException e) {
+                failures.put(i, e);
+            }
+        }
+        return failures;
+    }
 }
 
@@ -2,60 +2,40 @@ package com.example.catalog.services.email;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
-import org.thymeleaf.context.Context;
-import org.thymeleaf.spring6.SpringTemplateEngine;
 
 import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @Primary
 public class EmailServiceBrevoImpl implements EmailService {
     private static final Logger logger = LoggerFactory.getLogger(EmailServiceBrevoImpl.class);
 
-    @Value("${brevo.api.key:}")
-    private String apiKey;
-
-    @Value("${brevo.sender.email:}")
-    private String senderEmail;
-
-    @Value("${brevo.sender.name:MemoWorks}")
-    private String senderName;
-
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final SpringTemplateEngine templateEngine;
+    private final BrevoClient brevoClient;
+    private final EmailTemplateRenderer templateRenderer;
 
     private boolean enabled = false;
 
-    public EmailServiceBrevoImpl(SpringTemplateEngine templateEngine) {
-        this.templateEngine = templateEngine;
+    public EmailServiceBrevoImpl(BrevoClient brevoClient, EmailTemplateRenderer templateRenderer) {
+        this.brevoClient = brevoClient;
+        this.templateRenderer = templateRenderer;
     }
 
     @PostConstruct
     private void init() {
-        if (apiKey == null || apiKey.isBlank()) {
-            logger.warn("Brevo API key not configured (brevo.api.key). Brevo email sender DISABLED.");
-            enabled = false;
-            return;
-        }
-        if (senderEmail == null || senderEmail.isBlank()) {
-            logger.warn("Brevo sender email not configured (brevo.sender.email). Brevo email sender DISABLED.");
+        if (!brevoClient.isConfigured()) {
+            logger.warn("Brevo API key or sender email not configured (brevo.api.key, brevo.sender.email). Brevo email sender DISABLED.");
             enabled = false;
             return;
         }
         enabled = true;
-        logger.info("Brevo email sender ENABLED. Sender: {} <{}>", senderName, senderEmail);
+        logger.info("Brevo email sender ENABLED. Sender: {} <{}>", brevoClient.getSenderName(), brevoClient.getSenderEmail());
     }
 
     public boolean isEnabled() {
@@ -86,13 +66,43 @@ public class EmailServiceBrevoImpl implements EmailService {
             logger.info("Skipping sendTemplateEmail to {} because Brevo is disabled. Subject: {} Template: {}", to, subject, templateName);
             return;
         }
-        if (templateName == null || templateName.isBlank()) {
-            throw new IllegalArgumentException("templateName is required");
+        sendViaBrevo(to, subject, templateRenderer.render(templateName, model), null);
+    }
+
+    // Un POST con messageVersions por cada trozo de destinatarios de la plantilla. Un fallo solo
+    // afecta a los correos de su petición (o al que no se pudo renderizar).
+    @Override
+    public Map<Integer, Exception> sendTemplateBatch(String templateName, List<TemplateEmail> emails) {
+        Map<Integer, Exception> failures = new HashMap<>();
+        if (!enabled) {
+            logger.info("Skipping sendTemplateBatch of {} emails because Brevo is disabled. Template: {}", emails.size(), templateName);
+            return failures;
+        }
+        List<Integer> positions = new ArrayList<>(emails.size());
+        List<OutgoingEmail> rendered = new ArrayList<>(emails.size());
+        for (int i = 0; i < emails.size(); i++) {
+            TemplateEmail email = emails.get(i);
+            try {
+                rendered.add(new OutgoingEmail(email.to(), email.subject(), templateRenderer.render(templateName, email.model()), null));
+                positions.add(i);
+            } catch (RuntimeException e) {
+                failures.put(i, e);
+            }
         }
-        Context context = new Context();
-        if (model != null) context.setVariables(model);
-        String html = templateEngine.process(templateName, context);
-        sendViaBrevo(to, subject, html, null);
+        if (rendered.isEmpty()) return failures;
+
+        List<CompletableFuture<Void>> results = brevoClient.sendBatch(rendered);
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                BrevoClient.await(results.get(i));
+            } catch (RuntimeException e) {
+                failures.put(positions.get(i), e);
+            }
+        }
+        if (!failures.isEmpty()) {
+            logger.error("Failed to send {} of {} emails via Brevo. Template: {}", failures.size(), emails.size(), templateName);
+        }
+        return failures;
     }
 
     public void sendTestEmail(String to) {
@@ -104,28 +114,12 @@ public class EmailServiceBrevoImpl implements EmailService {
     }
 
     private void sendViaBrevo(String to, String subject, String htmlContent, String textContent) {
-        String url = "https://api.brevo.com/v3/smtp/email";
-
-        Map<String, Object> body = new HashMap<>();
-        Map<String, String> sender = Map.of("name", senderName, "email", senderEmail);
-        body.put("sender", sender);
-        body.put("to", List.of(Map.of("email", to)));
-        body.put("subject", subject);
-        if (htmlContent != null) body.put("htmlContent", htmlContent);
-        if (textContent != null) body.put("textContent", textContent);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.set("api-key", apiKey);
-
-        HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, headers);
-
         try {
-            ResponseEntity<String> response = restTemplate.postForEntity(url, request, String.class);
-            logger.info("Brevo send response: status={}, body={}", response.getStatusCode(), response.getBody());
-        } catch (RestClientException e) {
+            BrevoClient.await(brevoClient.send(new OutgoingEmail(to, subject, htmlContent, textContent)));
+        } catch (RuntimeException e) {
             logger.error("Failed to send email via Brevo to {}: {}", to, e.getMessage());
-            // no relanzar para no romper la lógica principal
+            // se relanza para que el outbox de correos reintente el envío
+            throw e;
         }
     }
 }
@@ -8,8 +8,6 @@ import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.context.Context;
-import org.thymeleaf.spring6.SpringTemplateEngine;
 
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
@@ -21,14 +19,14 @@ public class EmailServiceImpl implements EmailService {
     private static final Logger logger = LoggerFactory.getLogger(EmailServiceImpl.class);
 
     private final JavaMailSender mailSender;
-    private final SpringTemplateEngine templateEngine;
+    private final EmailTemplateRenderer templateRenderer;
 
     @Value("${spring.mail.username:}")
     private String fromAddress;
 
-    public EmailServiceImpl(JavaMailSender mailSender, SpringTemplateEngine templateEngine) {
+    public EmailServiceImpl(JavaMailSender mailSender, EmailTemplateRenderer templateRenderer) {
         this.mailSender = mailSender;
-        this.templateEngine = templateEngine;
+        this.templateRenderer = templateRenderer;
     }
 
     @Override
@@ -66,10 +64,7 @@ public class EmailServiceImpl implements EmailService {
 
     @Override
     public void sendTemplateEmail(String to, String subject, String templateName, Map<String, Object> model) {
-        Context context = new Context();
-        if (model != null) context.setVariables(model);
-        String html = templateEngine.process(templateName, context);
-        sendHtmlEmail(to, subject, html);
+        sendHtmlEmail(to, subject, templateRenderer.render(templateName, model));
     }
 }
 
@@ -0,0 +1,139 @@
+package com.example.catalog.services.email;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.exceptions.TemplateEngineException;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Motor de plantillas propio para los correos: independiente de spring.thymeleaf.cache, precarga
+// las plantillas parseadas al arrancar y publica el tiempo de render y el tamaño por plantilla
+// (email.template.render / email.template.size). Con app.email.templates.hot-reload=true no se
+// cachea nada y cada envio vuelve a leer la plantilla del classpath (solo para desarrollo).
+@Component
+public class EmailTemplateRenderer {
+    private static final Logger logger = LoggerFactory.getLogger(EmailTemplateRenderer.class);
+    private static final String TEMPLATE_LOCATION = "templates/";
+
+    private final SpringTemplateEngine templateEngine;
+    private final MeterRegistry meterRegistry;
+    private final boolean hotReload;
+    private final Map<String, Timer> renderTimers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> sizeSummaries = new ConcurrentHashMap<>();
+
+    public EmailTemplateRenderer(MeterRegistry meterRegistry, @Value("${app.email.templates.hot-reload:false}") boolean hotReload) {
+        this.meterRegistry = meterRegistry;
+        this.hotReload = hotReload;
+
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix(TEMPLATE_LOCATION);
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        resolver.setCacheable(!hotReload);
+
+        SpringTemplateEngine engine = new SpringTemplateEngine();
+        engine.setTemplateResolver(resolver);
+        engine.setEnableSpringELCompiler(true);
+        this.templateEngine = engine;
+    }
+
+    @PostConstruct
+    void preload() {
+        if (hotReload) {
+            logger.info("Email template hot reload ENABLED: templates are not cached");
+            return;
+        }
+        int loaded = 0;
+        try {
+            Resource[] resources = new PathMatchingResourcePatternResolver().getResources("classpath:" + TEMPLATE_LOCATION + "*.html");
+            for (Resource resource : resources) {
+                String templateName = resource.getFilename();
+                try {
+                    templateEngine.process(templateName, warmUpContext());
+                    loaded++;
+                } catch (TemplateEngineException e) {
+                    logger.warn("Could not preload email template {}: {}", templateName, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Could not list email templates: {}", e.getMessage());
+        }
+        logger.info("Preloaded {} email templates", loaded);
+    }
+
+    public String render(String templateName, Map<String, Object> model) {
+        if (templateName == null || templateName.isBlank()) {
+            throw new IllegalArgumentException("templateName is required");
+        }
+        Context context = new Context();
+        if (model != null) context.setVariables(model);
+
+        long start = System.nanoTime();
+        String html = templateEngine.process(templateName, context);
+        renderTimer(templateName).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        sizeSummary(templateName).record(utf8Length(html));
+        return html;
+    }
+
+    private Timer renderTimer(String templateName) {
+        return renderTimers.computeIfAbsent(templateName, name -> Timer.builder("email.template.render")
+                .description("Time spent rendering an email template")
+                .tag("template", name)
+                .register(meterRegistry));
+    }
+
+    private DistributionSummary sizeSummary(String templateName) {
+        return sizeSummaries.computeIfAbsent(templateName, name -> DistributionSummary.builder("email.template.size")
+                .description("Size of the rendered email body")
+                .baseUnit("bytes")
+                .tag("template", name)
+                .register(meterRegistry));
+    }
+
+    // Variables vacias con todas las propiedades que usan las plantillas, para que el render de
+    // precarga no falle al evaluar ${task.title}, ${user.name}, etc.
+    private static Context warmUpContext() {
+        Context context = new Context();
+        context.setVariable("task", new EmailModels.TaskView(null, "", "", "", ""));
+        context.setVariable("user", new EmailModels.UserView(null, "", "", ""));
+        context.setVariable("group", new EmailModels.GroupView(null, "", ""));
+        context.setVariable("link", "");
+        context.setVariable("tasks", List.of());
+        context.setVariable("heading", "");
+        return context;
+    }
+
+    private static long utf8Length(String text) {
+        long bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,5 @@
+package com.example.catalog.services.email;
+
+// Correo ya renderizado listo para enviarse al proveedor.
+public record OutgoingEmail(String to, String subject, String htmlContent, String textContent) {
+}
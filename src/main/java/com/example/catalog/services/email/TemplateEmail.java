@@ -0,0 +1,7 @@
+package com.example.catalog.services.email;
+
+import java.util.Map;
+
+// Un destinatario dentro de un envio por lotes de la misma plantilla.
+public record TemplateEmail(String to, String subject, Map<String, Object> model) {
+}
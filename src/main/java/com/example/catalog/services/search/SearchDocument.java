@@ -0,0 +1,48 @@
+package com.example.catalog.services.search;
+
+import com.example.catalog.domain.dto.GroupResponseDTO;
+import com.example.catalog.domain.dto.TaskResponseDTO;
+import com.example.catalog.domain.entities.Group;
+import com.example.catalog.domain.entities.Task;
+import com.example.catalog.domain.entities.User;
+import com.example.catalog.mappers.TaskMapper;
+
+import java.util.*;
+
+// Lo que se indexa de una tarea o un grupo. visibleTo son los usuarios que pueden encontrarlo: el
+// asignado de la tarea, o el administrador y los miembros del grupo.
+public record SearchDocument(String type, Long id, String title, String description, List<String> labels, Set<Long> visibleTo) {
+    public static final String TASK = "task";
+    public static final String GROUP = "group";
+
+    public String key() {
+        return key(type, id);
+    }
+
+    public static String key(String type, Long id) {
+        return type + ":" + id;
+    }
+
+    public static SearchDocument task(Task task) {
+        Set<Long> visibleTo = task.getAssigmentFor() != null ? Set.of(task.getAssigmentFor().getId()) : Set.of();
+        return new SearchDocument(TASK, task.getId(), task.getTitle(), task.getDescription(), TaskMapper.labelNames(task.getLabels()), visibleTo);
+    }
+
+    public static SearchDocument task(TaskResponseDTO task) {
+        Set<Long> visibleTo = task.getAssigmentFor() != null ? Set.of(task.getAssigmentFor().getId()) : Set.of();
+        return new SearchDocument(TASK, task.getId(), task.getTitle(), task.getDescription(), task.getLabels(), visibleTo);
+    }
+
+    public static SearchDocument group(Group group) {
+        Set<Long> visibleTo = new HashSet<>();
+        if (group.getAdminUser() != null) visibleTo.add(group.getAdminUser().getId());
+        if (group.getUsers() != null) group.getUsers().stream().map(User::getId).forEach(visibleTo::add);
+        return new SearchDocument(GROUP, group.getId(), group.getName(), group.getDescription(), List.of(), visibleTo);
+    }
+
+    public static SearchDocument group(GroupResponseDTO group) {
+        Set<Long> visibleTo = new HashSet<>(group.getUserIds());
+        if (group.getAdminUser() != null) visibleTo.add(group.getAdminUser().getId());
+        return new SearchDocument(GROUP, group.getId(), group.getName(), group.getDescription(), List.of(), visibleTo);
+    }
+}
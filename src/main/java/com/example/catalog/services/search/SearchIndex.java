@@ -0,0 +1,285 @@
+package com.example.catalog.services.search;
+
+import com.example.catalog.domain.dto.SearchHitDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.*;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Índice Lucene en disco sobre títulos, descripciones y etiquetas de tareas y nombres y descripciones
+// de grupos. Las escrituras llegan tras el commit de la base de datos (SearchIndexer) y se ven en las
+// búsquedas al refrescar el lector (near real time); el commit a disco se hace periódicamente.
+// Si el índice se pierde se reconstruye desde la base de datos al arrancar.
+@Component
+public class SearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndex.class);
+    public static final int MAX_RESULTS = 50;
+    private static final int DESCRIPTION_PREVIEW = 200;
+
+    private static final String KEY = "key";
+    private static final String TYPE = "type";
+    private static final String ID = "id";
+    private static final String TITLE = "title";
+    private static final String DESCRIPTION = "description";
+    private static final String LABELS = "labels";
+    private static final String VISIBLE_TO = "visibleTo";
+    // Reconstrucción en la que se escribió el documento por última vez
+    private static final String GENERATION = "generation";
+    // Campos de texto y su peso en la puntuación
+    private static final Map<String, Float> TEXT_FIELDS = Map.of(TITLE, 3f, LABELS, 2f, DESCRIPTION, 1f);
+
+    private final Path indexPath;
+    private final MeterRegistry meterRegistry;
+    private final Analyzer analyzer = new FoldingAnalyzer();
+    private final Map<String, Timer> queryTimers = new ConcurrentHashMap<>();
+    // Ordena las escrituras de apply y de rebuild sobre una misma clave
+    private final Object writeLock = new Object();
+    private volatile String generation = UUID.randomUUID().toString();
+    // Claves escritas por apply durante la reconstrucción en curso (null si no hay ninguna)
+    private Set<String> touchedDuringRebuild;
+    private Directory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    private boolean created;
+
+    public SearchIndex(@Value("${app.search.index-dir:./data/search-index}") String indexDir, MeterRegistry meterRegistry) {
+        this.indexPath = Path.of(indexDir);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        Files.createDirectories(indexPath);
+        directory = FSDirectory.open(indexPath);
+        created = !DirectoryReader.indexExists(directory);
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        searcherManager = new SearcherManager(writer, null);
+        Gauge.builder("search.index.documents", writer, w -> w.getDocStats().numDocs)
+                .description("Documents in the full-text search index")
+                .register(meterRegistry);
+        logger.info("Search index at {} ({})", indexPath.toAbsolutePath(), created ? "new" : writer.getDocStats().numDocs + " documents");
+    }
+
+    // true si al arrancar no había índice en disco
+    public boolean isNew() {
+        return created;
+    }
+
+    public void apply(Collection<SearchDocument> upserts, Collection<String> deletedKeys) {
+        try {
+            synchronized (writeLock) {
+                for (SearchDocument document : upserts) {
+                    writer.updateDocument(new Term(KEY, document.key()), toLucene(document, generation));
+                    if (touchedDuringRebuild != null) touchedDuringRebuild.add(document.key());
+                }
+                for (String key : deletedKeys) {
+                    writer.deleteDocuments(new Term(KEY, key));
+                    if (touchedDuringRebuild != null) touchedDuringRebuild.add(key);
+                }
+            }
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not update the search index", e);
+        }
+    }
+
+    // Sustituye el contenido del índice por los documentos que entregue source sin vaciarlo antes:
+    // cada documento se reescribe por su clave y al final se borran los que no se han escrito en esta
+    // reconstrucción. Lo que apply escribe o borra mientras tanto procede de un commit posterior a la
+    // lectura de source, así que source no lo vuelve a pisar.
+    public long rebuild(Consumer<Consumer<SearchDocument>> source) {
+        String current = UUID.randomUUID().toString();
+        synchronized (writeLock) {
+            generation = current;
+            touchedDuringRebuild = new HashSet<>();
+        }
+        try {
+            long[] count = {0};
+            source.accept(document -> {
+                try {
+                    synchronized (writeLock) {
+                        if (touchedDuringRebuild.contains(document.key())) return;
+                        writer.updateDocument(new Term(KEY, document.key()), toLucene(document, current));
+                    }
+                    count[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.deleteDocuments(new BooleanQuery.Builder()
+                    .add(new MatchAllDocsQuery(), BooleanClause.Occur.FILTER)
+                    .add(new TermQuery(new Term(GENERATION, current)), BooleanClause.Occur.MUST_NOT)
+                    .build());
+            writer.commit();
+            searcherManager.maybeRefresh();
+            created = false;
+            return count[0];
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not rebuild the search index", e);
+        } finally {
+            synchronized (writeLock) {
+                touchedDuringRebuild = null;
+            }
+        }
+    }
+
+    // Cada palabra de la consulta debe aparecer (exacta, como prefijo o con alguna errata) en algún campo
+    public List<SearchHitDTO> search(String text, Long userId, Set<String> types, int limit) {
+        List<String> terms = analyze(text);
+        if (terms.isEmpty() || userId == null || types.isEmpty()) return List.of();
+
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (String term : terms) {
+            query.add(termQuery(term), BooleanClause.Occur.MUST);
+        }
+        query.add(new TermQuery(new Term(VISIBLE_TO, userId.toString())), BooleanClause.Occur.FILTER);
+        BooleanQuery.Builder typeFilter = new BooleanQuery.Builder();
+        types.forEach(type -> typeFilter.add(new TermQuery(new Term(TYPE, type)), BooleanClause.Occur.SHOULD));
+        query.add(typeFilter.build(), BooleanClause.Occur.FILTER);
+
+        long start = System.nanoTime();
+        IndexSearcher searcher = null;
+        try {
+            searcher = searcherManager.acquire();
+            TopDocs top = searcher.search(query.build(), Math.min(Math.max(limit, 1), MAX_RESULTS));
+            StoredFields stored = searcher.storedFields();
+            List<SearchHitDTO> hits = new ArrayList<>(top.scoreDocs.length);
+            for (ScoreDoc scoreDoc : top.scoreDocs) {
+                Document document = stored.document(scoreDoc.doc);
+                hits.add(new SearchHitDTO(document.get(TYPE), Long.valueOf(document.get(ID)), document.get(TITLE),
+                        preview(document.get(DESCRIPTION)), scoreDoc.score));
+            }
+            return hits;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Search failed", e);
+        } finally {
+            release(searcher);
+            queryTimer(types.size() == 1 ? types.iterator().next() : "all").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Query termQuery(String term) {
+        BooleanQuery.Builder alternatives = new BooleanQuery.Builder();
+        int maxEdits = term.length() >= 6 ? 2 : term.length() >= 3 ? 1 : 0;
+        TEXT_FIELDS.forEach((field, boost) -> {
+            alternatives.add(new BoostQuery(new TermQuery(new Term(field, term)), boost * 4), BooleanClause.Occur.SHOULD);
+            alternatives.add(new BoostQuery(new PrefixQuery(new Term(field, term)), boost * 2), BooleanClause.Occur.SHOULD);
+            if (maxEdits > 0) {
+                alternatives.add(new BoostQuery(new FuzzyQuery(new Term(field, term), maxEdits, 1), boost), BooleanClause.Occur.SHOULD);
+            }
+        });
+        return alternatives.build();
+    }
+
+    List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isBlank()) return terms;
+        try (TokenStream stream = analyzer.tokenStream(TITLE, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken() && terms.size() < 10) {
+                terms.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+
+    private static Document toLucene(SearchDocument source, String generation) {
+        Document document = new Document();
+        document.add(new StringField(KEY, source.key(), Field.Store.NO));
+        document.add(new StringField(GENERATION, generation, Field.Store.NO));
+        document.add(new StringField(TYPE, source.type(), Field.Store.YES));
+        document.add(new StoredField(ID, source.id().toString()));
+        document.add(new TextField(TITLE, Objects.requireNonNullElse(source.title(), ""), Field.Store.YES));
+        document.add(new TextField(DESCRIPTION, Objects.requireNonNullElse(source.description(), ""), Field.Store.YES));
+        document.add(new TextField(LABELS, String.join(" ", source.labels()), Field.Store.NO));
+        for (Long userId : source.visibleTo()) {
+            document.add(new StringField(VISIBLE_TO, userId.toString(), Field.Store.NO));
+        }
+        return document;
+    }
+
+    private static String preview(String description) {
+        if (description == null || description.length() <= DESCRIPTION_PREVIEW) return description;
+        return description.substring(0, DESCRIPTION_PREVIEW) + "…";
+    }
+
+    private void release(IndexSearcher searcher) {
+        if (searcher == null) return;
+        try {
+            searcherManager.release(searcher);
+        } catch (IOException e) {
+            logger.warn("Could not release index searcher: {}", e.getMessage());
+        }
+    }
+
+    private Timer queryTimer(String type) {
+        return queryTimers.computeIfAbsent(type, name -> Timer.builder("search.query")
+                .description("Full-text search latency")
+                .tag("type", name)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry));
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.commit-interval-ms:5000}")
+    public void commit() {
+        try {
+            if (writer != null && writer.isOpen() && writer.hasUncommittedChanges()) {
+                writer.commit();
+            }
+        } catch (IOException e) {
+            logger.warn("Could not commit the search index: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        commit();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    // Tokens en minúsculas y sin tildes: "Diseño" se encuentra con "diseno"
+    static final class FoldingAnalyzer extends Analyzer {
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            StandardTokenizer tokenizer = new StandardTokenizer();
+            TokenStream stream = new ASCIIFoldingFilter(new LowerCaseFilter(tokenizer));
+            return new TokenStreamComponents(tokenizer, stream);
+        }
+    }
+}
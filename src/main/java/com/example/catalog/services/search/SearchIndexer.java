@@ -0,0 +1,115 @@
+package com.example.catalog.services.search;
+
+import com.example.catalog.domain.entities.Group;
+import com.example.catalog.domain.entities.Task;
+import com.example.catalog.repositories.GroupRepository;
+import com.example.catalog.repositories.TaskRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+// Mantiene el índice de búsqueda al día desde los servicios de escritura. Los documentos se
+// construyen dentro de la transacción (con las entidades aún cargadas) y se aplican al índice solo
+// tras el commit, así un rollback no deja resultados fantasma.
+@Component
+public class SearchIndexer {
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndexer.class);
+
+    private final SearchIndex index;
+    private final TaskRepository taskRepository;
+    private final GroupRepository groupRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean rebuildOnStartup;
+
+    public SearchIndexer(SearchIndex index,
+                         TaskRepository taskRepository,
+                         GroupRepository groupRepository,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${app.search.rebuild-on-startup:false}") boolean rebuildOnStartup) {
+        this.index = index;
+        this.taskRepository = taskRepository;
+        this.groupRepository = groupRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    public void taskSaved(Task task) {
+        tasksSaved(List.of(task));
+    }
+
+    public void tasksSaved(Collection<Task> tasks) {
+        if (tasks.isEmpty()) return;
+        afterCommit(tasks.stream().map(SearchDocument::task).toList(), List.of());
+    }
+
+    public void taskDeleted(Long id) {
+        tasksDeleted(List.of(id));
+    }
+
+    public void tasksDeleted(Collection<Long> ids) {
+        if (ids.isEmpty()) return;
+        afterCommit(List.of(), ids.stream().map(id -> SearchDocument.key(SearchDocument.TASK, id)).toList());
+    }
+
+    public void groupSaved(Group group) {
+        afterCommit(List.of(SearchDocument.group(group)), List.of());
+    }
+
+    public void groupDeleted(Long id) {
+        afterCommit(List.of(), List.of(SearchDocument.key(SearchDocument.GROUP, id)));
+    }
+
+    private void afterCommit(List<SearchDocument> upserts, List<String> deletedKeys) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(upserts, deletedKeys);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(upserts, deletedKeys);
+            }
+        });
+    }
+
+    // Un fallo del índice no debe tumbar una escritura ya confirmada; se corrige con una reconstrucción.
+    private void apply(List<SearchDocument> upserts, List<String> deletedKeys) {
+        try {
+            index.apply(upserts, deletedKeys);
+        } catch (RuntimeException e) {
+            logger.error("Search index update failed ({} upserts, {} deletes): {}", upserts.size(), deletedKeys.size(), e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfNeeded() {
+        if (index.isNew() || rebuildOnStartup) {
+            rebuild();
+        }
+    }
+
+    public long rebuild() {
+        long start = System.currentTimeMillis();
+        Long documents = readOnlyTransaction.execute(status -> index.rebuild(sink -> {
+            try (Stream<SearchDocument> tasks = taskRepository.streamAllViews().map(SearchDocument::task)) {
+                tasks.forEach(sink);
+            }
+            try (Stream<SearchDocument> groups = groupRepository.streamAllViews().map(SearchDocument::group)) {
+                groups.forEach(sink);
+            }
+        }));
+        logger.info("Rebuilt search index with {} documents in {} ms", documents, System.currentTimeMillis() - start);
+        return documents == null ? 0 : documents;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.catalog.services.search;
+
+import com.example.catalog.domain.dto.SearchHitDTO;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+@Service
+public class SearchService {
+    private static final int MAX_QUERY_LENGTH = 200;
+
+    private final SearchIndex index;
+
+    public SearchService(SearchIndex index) {
+        this.index = index;
+    }
+
+    // Solo devuelve tareas asignadas al usuario y grupos que administra o de los que es miembro
+    public List<SearchHitDTO> search(Long userId, String query, String type, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("El parámetro q es obligatorio");
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("q no puede tener más de " + MAX_QUERY_LENGTH + " caracteres");
+        }
+        return index.search(query, userId, types(type), limit);
+    }
+
+    static Set<String> types(String type) {
+        if (type == null || type.isBlank()) return Set.of(SearchDocument.TASK, SearchDocument.GROUP);
+        return switch (type.trim().toLowerCase(Locale.ROOT)) {
+            case "all" -> Set.of(SearchDocument.TASK, SearchDocument.GROUP);
+            case SearchDocument.TASK -> Set.of(SearchDocument.TASK);
+            case SearchDocument.GROUP -> Set.of(SearchDocument.GROUP);
+            default -> throw new IllegalArgumentException("type debe ser all, task o group");
+        };
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.catalog.services.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Optional;
+
+// Dónde viven los bytes de los ficheros subidos. Las claves son las rutas guardadas en
+// stored_files (y en users.avatar, tasks.image, groups.image); cada implementación decide su forma.
+// Se elige con app.files.store: local (disco, por defecto) o s3 (cualquier servicio compatible).
+public interface BlobStore {
+
+    // Clave de un blob nuevo a partir de su SHA-256
+    String key(String sha256);
+
+    // Prefijo común de las claves de key(): lo que queda fuera no lo gestiona el almacén
+    String keyPrefix();
+
+    // Temporal local desde el que put puede publicar el fichero sin copiarlo de más
+    Path createTempFile(String prefix) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    // Publica source bajo key. source puede desaparecer (se mueve en vez de copiarse).
+    void put(String key, Path source, String contentType) throws IOException;
+
+    // NoSuchFileException si la clave no existe
+    InputStream open(String key) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    // Fichero en disco local, si lo hay, para servirlo con sendfile
+    Optional<Path> localPath(String key);
+
+    // URL desde la que el cliente puede descargar el blob directamente, sin pasar por la aplicación
+    Optional<URI> downloadUrl(String key);
+}
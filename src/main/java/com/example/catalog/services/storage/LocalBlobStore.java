@@ -0,0 +1,87 @@
+package com.example.catalog.services.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.*;
+import java.util.Optional;
+
+// Blobs en el disco local como <blob-dir>/ab/cd/<sha256>. La clave es la propia ruta, así que los
+// ficheros anteriores al almacén (uploads/usuario/...) se siguen leyendo sin migrarlos.
+@Component
+@ConditionalOnProperty(name = "app.files.store", havingValue = "local", matchIfMissing = true)
+public class LocalBlobStore implements BlobStore {
+
+    private final Path root;
+    private final Path tempDir;
+
+    public LocalBlobStore(@Value("${app.files.blob-dir:uploads/blobs}") String blobDir) throws IOException {
+        this.root = Paths.get(blobDir);
+        // dentro del mismo directorio para que put sea un rename atómico
+        this.tempDir = root.resolve("tmp");
+        Files.createDirectories(tempDir);
+    }
+
+    @Override
+    public String key(String sha256) {
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256).toString();
+    }
+
+    @Override
+    public String keyPrefix() {
+        return root.toString() + File.separator;
+    }
+
+    @Override
+    public Path createTempFile(String prefix) throws IOException {
+        return Files.createTempFile(tempDir, prefix, ".tmp");
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(Paths.get(key));
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        Path target = Paths.get(key);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // otro sistema de ficheros: se copia junto al destino y se renombra
+            Path sibling = Files.createTempFile(target.getParent(), "blob", ".tmp");
+            try {
+                Files.copy(source, sibling, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(sibling, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(sibling);
+            }
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(Paths.get(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(Paths.get(key));
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.of(Paths.get(key));
+    }
+
+    @Override
+    public Optional<URI> downloadUrl(String key) {
+        return Optional.empty();
+    }
+}
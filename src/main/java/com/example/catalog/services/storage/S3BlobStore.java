@@ -0,0 +1,267 @@
+package com.example.catalog.services.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Blobs en un bucket compatible con S3 (AWS, MinIO, R2...) con el protocolo REST y firma SigV4
+// sobre java.net.http, sin SDK. Las subidas grandes van por multipart leyendo el temporal por
+// tramos, así que la memoria no depende del tamaño del fichero. Las descargas no pasan por la
+// aplicación: se redirige a una URL prefirmada cuya fecha de firma se redondea a media validez,
+// de modo que la URL de un blob es la misma durante ese intervalo y el navegador puede cachearla.
+// Se usan URLs path-style (<endpoint>/<bucket>/<clave>), que aceptan todos los proveedores.
+@Component
+@ConditionalOnProperty(name = "app.files.store", havingValue = "s3")
+public class S3BlobStore implements BlobStore {
+    private static final Logger logger = LoggerFactory.getLogger(S3BlobStore.class);
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    private static final Pattern UPLOAD_ID = Pattern.compile("<UploadId>([^<]+)</UploadId>");
+
+    private final HttpClient httpClient;
+    private final SigV4 signer;
+    private final String bucketUrl;
+    private final String prefix;
+    private final Path tempDir;
+    private final long partSize;
+    private final Duration presignTtl;
+    private final Duration requestTimeout;
+
+    public S3BlobStore(@Value("${app.files.s3.endpoint}") String endpoint,
+                       @Value("${app.files.s3.bucket}") String bucket,
+                       @Value("${app.files.s3.region:us-east-1}") String region,
+                       @Value("${app.files.s3.access-key}") String accessKey,
+                       @Value("${app.files.s3.secret-key}") String secretKey,
+                       @Value("${app.files.s3.prefix:blobs/}") String prefix,
+                       @Value("${app.files.s3.temp-dir:${java.io.tmpdir}}") String tempDir,
+                       @Value("${app.files.s3.part-size-bytes:8388608}") long partSize,
+                       @Value("${app.files.s3.presign-ttl-seconds:3600}") long presignTtlSeconds,
+                       @Value("${app.files.s3.connect-timeout-ms:5000}") long connectTimeoutMs,
+                       @Value("${app.files.s3.request-timeout-ms:60000}") long requestTimeoutMs) throws IOException {
+        if (partSize < MIN_PART_SIZE) {
+            throw new IllegalArgumentException("app.files.s3.part-size-bytes must be at least " + MIN_PART_SIZE);
+        }
+        this.signer = new SigV4(accessKey, secretKey, region);
+        this.bucketUrl = endpoint.replaceAll("/+$", "") + "/" + SigV4.encode(bucket);
+        this.prefix = prefix;
+        this.tempDir = Paths.get(tempDir);
+        Files.createDirectories(this.tempDir);
+        this.partSize = partSize;
+        this.presignTtl = Duration.ofSeconds(presignTtlSeconds);
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+    }
+
+    @Override
+    public String key(String sha256) {
+        return prefix + sha256.substring(0, 2) + "/" + sha256.substring(2, 4) + "/" + sha256;
+    }
+
+    @Override
+    public String keyPrefix() {
+        return prefix;
+    }
+
+    @Override
+    public Path createTempFile(String prefix) throws IOException {
+        return Files.createTempFile(tempDir, prefix, ".tmp");
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        HttpResponse<Void> response = send(request("HEAD", uri(key, null)).method("HEAD", HttpRequest.BodyPublishers.noBody()), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) return false;
+        check(response, "HEAD " + key);
+        return true;
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        long size = Files.size(source);
+        if (size <= partSize) {
+            HttpRequest.Builder put = request("PUT", uri(key, null))
+                    .header("Content-Type", contentType)
+                    .PUT(HttpRequest.BodyPublishers.ofFile(source));
+            check(send(put, HttpResponse.BodyHandlers.ofString()), "PUT " + key);
+            return;
+        }
+        putMultipart(key, source, size, contentType);
+    }
+
+    private void putMultipart(String key, Path source, long size, String contentType) throws IOException {
+        HttpRequest.Builder initiate = request("POST", uri(key, "uploads="))
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.noBody());
+        HttpResponse<String> initiated = check(send(initiate, HttpResponse.BodyHandlers.ofString()), "initiate multipart " + key);
+        Matcher matcher = UPLOAD_ID.matcher(initiated.body());
+        if (!matcher.find()) {
+            throw new IOException("S3 did not return an UploadId for " + key);
+        }
+        String uploadId = matcher.group(1);
+        String encodedUploadId = SigV4.encode(uploadId);
+        try {
+            List<String> etags = new ArrayList<>();
+            for (long offset = 0; offset < size; offset += partSize) {
+                long length = Math.min(partSize, size - offset);
+                int partNumber = etags.size() + 1;
+                long partOffset = offset;
+                HttpRequest.Builder part = request("PUT", uri(key, "partNumber=" + partNumber + "&uploadId=" + encodedUploadId))
+                        .PUT(HttpRequest.BodyPublishers.fromPublisher(
+                                HttpRequest.BodyPublishers.ofInputStream(() -> slice(source, partOffset, length)), length));
+                HttpResponse<String> uploaded = check(send(part, HttpResponse.BodyHandlers.ofString()), "upload part " + partNumber + " of " + key);
+                etags.add(uploaded.headers().firstValue("ETag")
+                        .orElseThrow(() -> new IOException("S3 did not return an ETag for part " + partNumber + " of " + key)));
+            }
+            StringBuilder complete = new StringBuilder("<CompleteMultipartUpload>");
+            for (int i = 0; i < etags.size(); i++) {
+                complete.append("<Part><PartNumber>").append(i + 1).append("</PartNumber><ETag>")
+                        .append(etags.get(i).replace("\"", "&quot;")).append("</ETag></Part>");
+            }
+            complete.append("</CompleteMultipartUpload>");
+            HttpRequest.Builder finish = request("POST", uri(key, "uploadId=" + encodedUploadId))
+                    .header("Content-Type", "application/xml")
+                    .POST(HttpRequest.BodyPublishers.ofString(complete.toString()));
+            HttpResponse<String> finished = check(send(finish, HttpResponse.BodyHandlers.ofString()), "complete multipart " + key);
+            // S3 puede responder 200 con un <Error> en el cuerpo si falla al ensamblar
+            if (finished.body().contains("<Error>")) {
+                throw new IOException("S3 failed to complete multipart upload of " + key + ": " + finished.body());
+            }
+        } catch (IOException | RuntimeException e) {
+            abort(key, encodedUploadId);
+            throw e;
+        }
+    }
+
+    private void abort(String key, String encodedUploadId) {
+        try {
+            send(request("DELETE", uri(key, "uploadId=" + encodedUploadId)).DELETE(), HttpResponse.BodyHandlers.discarding());
+        } catch (IOException e) {
+            logger.warn("Could not abort multipart upload of {}: {}", key, e.getMessage());
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        HttpResponse<InputStream> response = send(request("GET", uri(key, null)).GET(), HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() / 100 == 2) {
+            return response.body();
+        }
+        response.body().close();
+        if (response.statusCode() == 404) {
+            throw new NoSuchFileException(key);
+        }
+        throw new IOException("S3 GET " + key + " responded " + response.statusCode());
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        HttpResponse<String> response = send(request("DELETE", uri(key, null)).DELETE(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 404) {
+            check(response, "DELETE " + key);
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<URI> downloadUrl(String key) {
+        long window = Math.max(1, presignTtl.toSeconds() / 2);
+        Instant signingTime = Instant.ofEpochSecond(Instant.now().getEpochSecond() / window * window);
+        return Optional.of(signer.presign("GET", uri(key, null), signingTime, presignTtl));
+    }
+
+    URI uri(String key, String rawQuery) {
+        StringBuilder path = new StringBuilder(bucketUrl);
+        for (String segment : key.split("/", -1)) {
+            path.append('/').append(SigV4.encode(segment));
+        }
+        if (rawQuery != null) path.append('?').append(rawQuery);
+        return URI.create(path.toString());
+    }
+
+    private HttpRequest.Builder request(String method, URI uri) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(requestTimeout);
+        for (Map.Entry<String, String> header : signer.authorize(method, uri, Instant.now()).entrySet()) {
+            builder.header(header.getKey(), header.getValue());
+        }
+        return builder;
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest.Builder request, HttpResponse.BodyHandler<T> handler) throws IOException {
+        try {
+            return httpClient.send(request.build(), handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for S3");
+        }
+    }
+
+    private static <T> HttpResponse<T> check(HttpResponse<T> response, String operation) throws IOException {
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("S3 " + operation + " responded " + response.statusCode() + (response.body() instanceof String body ? ": " + body : ""));
+        }
+        return response;
+    }
+
+    // Tramo [offset, offset + length) del fichero, leído bajo demanda mientras se envía
+    private static InputStream slice(Path source, long offset, long length) {
+        try {
+            FileChannel channel = FileChannel.open(source, StandardOpenOption.READ).position(offset);
+            return new InputStream() {
+                private long remaining = length;
+
+                @Override
+                public int read() throws IOException {
+                    byte[] one = new byte[1];
+                    return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+                }
+
+                @Override
+                public int read(byte[] buffer, int off, int len) throws IOException {
+                    if (remaining <= 0) return -1;
+                    int read = channel.read(ByteBuffer.wrap(buffer, off, (int) Math.min(len, remaining)));
+                    if (read > 0) remaining -= read;
+                    return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    channel.close();
+                }
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
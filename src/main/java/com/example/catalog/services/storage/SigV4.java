@@ -0,0 +1,146 @@
+package com.example.catalog.services.storage;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+// Firma AWS Signature Version 4 para S3, en cabeceras (peticiones de la aplicación) o en la query
+// (URLs prefirmadas). Se firma siempre con UNSIGNED-PAYLOAD para poder enviar el cuerpo en streaming
+// sin leerlo dos veces.
+final class SigV4 {
+    static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+    private static final String SERVICE = "s3";
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+
+    private final String accessKey;
+    private final String secretKey;
+    private final String region;
+
+    SigV4(String accessKey, String secretKey, String region) {
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.region = region;
+    }
+
+    // Cabeceras a añadir a la petición: x-amz-date, x-amz-content-sha256 y Authorization
+    Map<String, String> authorize(String method, URI uri, Instant now) {
+        String timestamp = TIMESTAMP.format(now);
+        SortedMap<String, String> headers = new TreeMap<>();
+        headers.put("host", host(uri));
+        headers.put("x-amz-content-sha256", UNSIGNED_PAYLOAD);
+        headers.put("x-amz-date", timestamp);
+        String signedHeaders = String.join(";", headers.keySet());
+        String canonical = canonicalRequest(method, uri.getRawPath(), canonicalQuery(uri.getRawQuery()), headers, UNSIGNED_PAYLOAD);
+        String authorization = ALGORITHM + " Credential=" + accessKey + "/" + scope(now)
+                + ", SignedHeaders=" + signedHeaders + ", Signature=" + signature(canonical, now);
+        Map<String, String> result = new LinkedHashMap<>();
+        result.put("x-amz-date", timestamp);
+        result.put("x-amz-content-sha256", UNSIGNED_PAYLOAD);
+        result.put("Authorization", authorization);
+        return result;
+    }
+
+    // URL válida durante expires desde signingTime, firmando solo la cabecera host
+    URI presign(String method, URI uri, Instant signingTime, Duration expires) {
+        StringBuilder query = new StringBuilder(uri.getRawQuery() == null ? "" : uri.getRawQuery() + "&");
+        query.append("X-Amz-Algorithm=").append(ALGORITHM)
+                .append("&X-Amz-Credential=").append(encode(accessKey + "/" + scope(signingTime)))
+                .append("&X-Amz-Date=").append(TIMESTAMP.format(signingTime))
+                .append("&X-Amz-Expires=").append(expires.toSeconds())
+                .append("&X-Amz-SignedHeaders=host");
+        SortedMap<String, String> headers = new TreeMap<>(Map.of("host", host(uri)));
+        String canonical = canonicalRequest(method, uri.getRawPath(), canonicalQuery(query.toString()), headers, UNSIGNED_PAYLOAD);
+        query.append("&X-Amz-Signature=").append(signature(canonical, signingTime));
+        return URI.create(uri.getScheme() + "://" + uri.getRawAuthority() + uri.getRawPath() + "?" + query);
+    }
+
+    String signature(String canonicalRequest, Instant time) {
+        String stringToSign = ALGORITHM + "\n" + TIMESTAMP.format(time) + "\n" + scope(time) + "\n" + sha256Hex(canonicalRequest);
+        byte[] key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), DATE.format(time));
+        key = hmac(key, region);
+        key = hmac(key, SERVICE);
+        key = hmac(key, "aws4_request");
+        return HexFormat.of().formatHex(hmac(key, stringToSign));
+    }
+
+    private String scope(Instant time) {
+        return DATE.format(time) + "/" + region + "/" + SERVICE + "/aws4_request";
+    }
+
+    static String canonicalRequest(String method, String rawPath, String canonicalQuery, SortedMap<String, String> headers, String payloadHash) {
+        StringBuilder canonical = new StringBuilder()
+                .append(method).append('\n')
+                .append(rawPath == null || rawPath.isEmpty() ? "/" : rawPath).append('\n')
+                .append(canonicalQuery).append('\n');
+        headers.forEach((name, value) -> canonical.append(name).append(':').append(value.trim()).append('\n'));
+        return canonical.append('\n')
+                .append(String.join(";", headers.keySet())).append('\n')
+                .append(payloadHash)
+                .toString();
+    }
+
+    // Parámetros ya codificados, ordenados por nombre y valor; "uploads" se firma como "uploads="
+    static String canonicalQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) return "";
+        List<String> params = new ArrayList<>();
+        for (String param : rawQuery.split("&")) {
+            if (param.isEmpty()) continue;
+            params.add(param.indexOf('=') < 0 ? param + "=" : param);
+        }
+        params.sort(Comparator.comparing((String param) -> param.substring(0, param.indexOf('=')))
+                .thenComparing(param -> param.substring(param.indexOf('=') + 1)));
+        return String.join("&", params);
+    }
+
+    // Host tal y como lo envía HttpClient: sin puerto si es el de por defecto del esquema
+    static String host(URI uri) {
+        int port = uri.getPort();
+        boolean defaultPort = port == -1
+                || ("https".equalsIgnoreCase(uri.getScheme()) && port == 443)
+                || ("http".equalsIgnoreCase(uri.getScheme()) && port == 80);
+        return defaultPort ? uri.getHost() : uri.getHost() + ":" + port;
+    }
+
+    // Codificación RFC 3986 que exige SigV4 (todo salvo letras, dígitos y -_.~)
+    static String encode(String value) {
+        StringBuilder encoded = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_' || c == '.' || c == '~') {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(Character.toUpperCase(Character.forDigit((b >> 4) & 0xf, 16)))
+                        .append(Character.toUpperCase(Character.forDigit(b & 0xf, 16)));
+            }
+        }
+        return encoded.toString();
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String sha256Hex(String data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.catalog.services.stream;
+
+import com.example.catalog.domain.dto.ActivityEventDTO;
+import com.example.catalog.domain.dto.NotificationResponseDTO;
+import com.example.catalog.domain.entities.Notification;
+import com.example.catalog.mappers.NotificationMapper;
+import com.example.catalog.repositories.NotificationRepository;
+import com.example.catalog.web.exceptions.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Canal SSE de notificaciones: reparte los eventos entre las conexiones abiertas de cada usuario.
+// Las conexiones son peticiones asincronas del servlet, asi que una conexion ociosa no ocupa ningun
+// hilo; los envios se hacen en hilos virtuales, como mucho uno por conexion a la vez. Cada conexion
+// tiene un buffer acotado: si el cliente no da abasto se cierra y al reconectar recupera lo perdido
+// desde la base de datos con Last-Event-ID. Los eventos se publican tras el commit.
+@Component
+public class NotificationStreamHub {
+    private static final Logger logger = LoggerFactory.getLogger(NotificationStreamHub.class);
+    static final String NOTIFICATION = "notification";
+    static final String RESYNC = "resync";
+    private static final Event HEARTBEAT = new Event(null, null, null);
+
+    private final NotificationRepository repository;
+    private final Map<String, Queue<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("notification-stream-", 0).factory());
+    private final Counter overflows;
+    private final long timeoutMs;
+    private final int bufferSize;
+    private final int replayLimit;
+    private final int maxPerUser;
+    private final int maxConnections;
+
+    public NotificationStreamHub(NotificationRepository repository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.notifications.stream.timeout-ms:1800000}") long timeoutMs,
+                                 @Value("${app.notifications.stream.buffer-size:64}") int bufferSize,
+                                 @Value("${app.notifications.stream.replay-limit:100}") int replayLimit,
+                                 @Value("${app.notifications.stream.max-per-user:5}") int maxPerUser,
+                                 @Value("${app.notifications.stream.max-connections:10000}") int maxConnections) {
+        this.repository = repository;
+        this.timeoutMs = timeoutMs;
+        this.bufferSize = bufferSize;
+        this.replayLimit = replayLimit;
+        this.maxPerUser = maxPerUser;
+        this.maxConnections = maxConnections;
+
+        Gauge.builder("notifications.stream.connections", connections, AtomicInteger::get)
+                .description("Open notification streams")
+                .register(meterRegistry);
+        this.overflows = Counter.builder("notifications.stream.overflows")
+                .description("Notification streams closed because the client could not keep up")
+                .register(meterRegistry);
+    }
+
+    // lastEventId = id de la última notificación recibida; se reenvía lo posterior antes que lo nuevo
+    public SseEmitter subscribe(String email, String lastEventId) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw new ServiceBusyException("Too many open notification streams", 5);
+        }
+        Subscription subscription = new Subscription(email, new SseEmitter(timeoutMs), new ArrayBlockingQueue<>(bufferSize), parseEventId(lastEventId));
+        SseEmitter emitter = subscription.emitter;
+        emitter.onCompletion(() -> remove(subscription));
+        emitter.onError(error -> remove(subscription));
+        emitter.onTimeout(emitter::complete);
+
+        List<Subscription> evicted = new ArrayList<>();
+        subscriptions.compute(email, (key, current) -> {
+            Queue<Subscription> queue = current == null ? new ConcurrentLinkedQueue<>() : current;
+            queue.add(subscription);
+            while (queue.size() > maxPerUser) {
+                evicted.add(queue.poll());
+            }
+            return queue;
+        });
+        // la pestaña más antigua deja sitio a la nueva
+        evicted.forEach(this::close);
+
+        if (subscription.replayFrom != null) {
+            schedule(subscription);
+        }
+        return emitter;
+    }
+
+    public void notificationCreated(NotificationResponseDTO notification) {
+        publishAfterCommit(notification.getUserEmail(), new Event(NOTIFICATION, notification.getId(), notification));
+    }
+
+    public void activity(String email, ActivityEventDTO activity) {
+        publishAfterCommit(email, new Event(activity.getType(), null, activity));
+    }
+
+    // Comentario periódico: mantiene abiertos proxies y balanceadores y detecta clientes desconectados.
+    @Scheduled(fixedDelayString = "${app.notifications.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        subscriptions.values().forEach(queue -> queue.forEach(subscription -> offer(subscription, HEARTBEAT)));
+    }
+
+    public int connectionCount() {
+        return connections.get();
+    }
+
+    private void publishAfterCommit(String email, Event event) {
+        if (email == null) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(email, event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(email, event);
+            }
+        });
+    }
+
+    void publish(String email, Event event) {
+        Queue<Subscription> queue = subscriptions.get(email);
+        if (queue == null) return;
+        queue.forEach(subscription -> offer(subscription, event));
+    }
+
+    private void offer(Subscription subscription, Event event) {
+        if (!subscription.open.get()) return;
+        if (!subscription.buffer.offer(event)) {
+            overflows.increment();
+            logger.warn("Notification stream of {} overflowed ({} buffered events), closing it", subscription.email, bufferSize);
+            close(subscription);
+            return;
+        }
+        schedule(subscription);
+    }
+
+    // Como mucho un drenado en curso por conexión, así los eventos salen en orden.
+    private void schedule(Subscription subscription) {
+        if (subscription.draining.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(subscription));
+            } catch (RejectedExecutionException e) {
+                subscription.draining.set(false);
+            }
+        }
+    }
+
+    private void drain(Subscription subscription) {
+        try {
+            if (subscription.replayFrom != null) {
+                replay(subscription);
+            }
+            Event event;
+            while (subscription.open.get() && (event = subscription.buffer.poll()) != null) {
+                send(subscription, event);
+            }
+        } catch (IOException | RuntimeException e) {
+            // normalmente el cliente se ha desconectado; si no, reconectará y retomará por Last-Event-ID
+            logger.debug("Notification stream of {} failed: {}", subscription.email, e.getMessage());
+            close(subscription);
+        } finally {
+            subscription.draining.set(false);
+        }
+        if (subscription.open.get() && !subscription.buffer.isEmpty()) {
+            schedule(subscription);
+        }
+    }
+
+    // Se da de alta antes de consultar, así lo que se confirme durante la consulta llega en directo
+    // y no se pierde; los duplicados se descartan por id. Se reenvía por orden de commit y no por id:
+    // un id menor que Last-Event-ID puede confirmarse después. Si falta más de replayLimit el
+    // cliente recibe "resync" y recarga el listado completo.
+    private void replay(Subscription subscription) throws IOException {
+        Long from = subscription.replayFrom;
+        subscription.replayFrom = null;
+        PageRequest page = PageRequest.ofSize(replayLimit + 1);
+        List<Notification> missed = repository.findStreamSeq(subscription.email, from)
+                .map(seq -> repository.findByUserEmailAndStreamSeqGreaterThanOrderByStreamSeqAsc(subscription.email, seq, page))
+                .orElseGet(() -> repository.findByUserEmailAndIdGreaterThanOrderByIdAsc(subscription.email, from, page));
+        if (missed.size() > replayLimit) {
+            subscription.emitter.send(SseEmitter.event().name(RESYNC).data(""));
+            return;
+        }
+        for (Notification notification : missed) {
+            send(subscription, new Event(NOTIFICATION, notification.getId(), NotificationMapper.toDTO(notification)));
+            subscription.replayed.add(notification.getId());
+        }
+    }
+
+    private void send(Subscription subscription, Event event) throws IOException {
+        if (event == HEARTBEAT) {
+            subscription.emitter.send(SseEmitter.event().comment("ping"));
+            return;
+        }
+        SseEmitter.SseEventBuilder builder = SseEmitter.event();
+        if (event.id() != null) {
+            if (subscription.replayed.remove(event.id())) return;
+            builder.id(event.id().toString());
+        }
+        subscription.emitter.send(builder.name(event.name()).data(event.data(), MediaType.APPLICATION_JSON));
+    }
+
+    private void close(Subscription subscription) {
+        remove(subscription);
+        try {
+            subscription.emitter.complete();
+        } catch (RuntimeException e) {
+            logger.debug("Could not complete notification stream of {}: {}", subscription.email, e.getMessage());
+        }
+    }
+
+    private void remove(Subscription subscription) {
+        if (!subscription.open.compareAndSet(true, false)) return;
+        connections.decrementAndGet();
+        subscription.buffer.clear();
+        subscriptions.computeIfPresent(subscription.email, (key, queue) -> {
+            queue.remove(subscription);
+            return queue.isEmpty() ? null : queue;
+        });
+    }
+
+    private static Long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) return null;
+        try {
+            return Long.valueOf(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscriptions.values().forEach(queue -> queue.forEach(this::close));
+        senders.shutdownNow();
+    }
+
+    record Event(String name, Long id, Object data) {
+    }
+
+    static final class Subscription {
+        final String email;
+        final SseEmitter emitter;
+        final BlockingQueue<Event> buffer;
+        final AtomicBoolean open = new AtomicBoolean(true);
+        final AtomicBoolean draining = new AtomicBoolean(false);
+        // ids reenviados desde la base de datos que aún pueden llegar también en directo
+        final Set<Long> replayed = ConcurrentHashMap.newKeySet();
+        volatile Long replayFrom;
+
+        Subscription(String email, SseEmitter emitter, BlockingQueue<Event> buffer, Long replayFrom) {
+            this.email = email;
+            this.emitter = emitter;
+            this.buffer = buffer;
+            this.replayFrom = replayFrom;
+        }
+    }
+}
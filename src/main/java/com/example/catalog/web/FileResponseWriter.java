@@ -0,0 +1,158 @@
+package com.example.catalog.web;
+
+import com.example.catalog.domain.dto.FileUrls;
+import com.example.catalog.domain.entities.StoredFile;
+import com.example.catalog.services.storage.BlobStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+
+// Sirve ficheros subidos a partir de sus metadatos (StoredFile) sin sondear el disco:
+//  - ETag fuerte = SHA-256 del contenido y Last-Modified = fecha de subida; If-None-Match /
+//    If-Modified-Since responden 304 sin tocar el fichero.
+//  - Con ?v=<sha256 del original> la URL es inmutable y se cachea un año; sin versión el cliente
+//    revalida. Las miniaturas se versionan con el hash de su original (variantOf), que es el que
+//    llevan las URLs. Si se pidió una miniatura y se sirve el original (aún no existe o falló), la
+//    respuesta nunca es inmutable: la miniatura debe sustituirla en cuanto esté lista.
+//  - Range de un solo tramo (206/416), que es lo que piden los navegadores.
+//  - Cuerpo desde memoria si viene de AvatarCache. Si el BlobStore da una URL de descarga (S3) se
+//    redirige a ella; si no, sendfile de Tomcat cuando el conector lo soporta o FileChannel.transferTo.
+@Component
+public class FileResponseWriter {
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final BlobStore blobStore;
+    private final long immutableMaxAgeSeconds;
+
+    public FileResponseWriter(BlobStore blobStore, @Value("${app.files.immutable-max-age-seconds:31536000}") long immutableMaxAgeSeconds) {
+        this.blobStore = blobStore;
+        this.immutableMaxAgeSeconds = immutableMaxAgeSeconds;
+    }
+
+    public void write(StoredFile file, String version, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        write(file, null, version, request, response);
+    }
+
+    // Con body (contenido ya en memoria) se responde desde el buffer sin tocar el disco
+    public void write(StoredFile file, ByteBuffer body, String version, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        write(file, body, null, version, request, response);
+    }
+
+    // size es el tamaño de miniatura pedido (null = el original)
+    public void write(StoredFile file, ByteBuffer body, Integer size, String version, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String etag = etag(file);
+        boolean servedAsRequested = size == null || file.getVariantOf() != null;
+        boolean versioned = servedAsRequested && version != null && version.equals(originalVersion(file));
+        response.setHeader(HttpHeaders.CACHE_CONTROL, versioned
+                ? "private, max-age=" + immutableMaxAgeSeconds + ", immutable"
+                : "private, no-cache");
+        // fija ETag y Last-Modified y, si el cliente ya tiene esta versión, deja la respuesta en 304
+        if (new ServletWebRequest(request, response).checkNotModified(etag, file.getCreatedAt().toEpochMilli())) {
+            return;
+        }
+        if (body == null) {
+            Optional<URI> url = blobStore.downloadUrl(file.getPath());
+            if (url.isPresent()) {
+                // el almacén sirve los bytes (y los Range) directamente; la redirección no se cachea
+                response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+                response.setStatus(HttpServletResponse.SC_FOUND);
+                response.setHeader(HttpHeaders.LOCATION, url.get().toString());
+                return;
+            }
+        }
+
+        Path path = blobStore.localPath(file.getPath()).orElseThrow();
+        long length = file.getSize();
+        long start = 0;
+        long end = length - 1;
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && ifRangeMatches(request, etag)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(range);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            if (ranges.size() == 1) {
+                long first = ranges.get(0).getRangeStart(length);
+                long last = ranges.get(0).getRangeEnd(length);
+                if (first >= length || first > last) {
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    return;
+                }
+                start = first;
+                end = last;
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        response.setContentType(file.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + path.getFileName() + "\"");
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count <= 0) {
+            return;
+        }
+        if (body != null) {
+            ByteBuffer slice = body.duplicate().position((int) start).limit((int) (end + 1));
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            while (slice.hasRemaining()) {
+                out.write(slice);
+            }
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat envía el fichero desde el kernel al socket al terminar la petición
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) break;
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    private static String originalVersion(StoredFile file) {
+        return file.getVariantOf() == null ? file.getSha256() : FileUrls.version(file.getVariantOf());
+    }
+
+    public static String etag(StoredFile file) {
+        return "\"" + file.getSha256() + "\"";
+    }
+
+    // If-Range con otra versión: se ignora el Range y se envía el fichero completo
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        return ifRange == null || ifRange.equals(etag);
+    }
+}
@@ -1,13 +1,17 @@
 package com.example.catalog.web.controllers;
 
+import com.example.catalog.domain.dto.CursorSliceDTO;
 import com.example.catalog.domain.dto.GroupRequestDTO;
 import com.example.catalog.domain.dto.GroupResponseDTO;
 import com.example.catalog.domain.dto.TaskResponseDTO;
+import com.example.catalog.services.AvatarCache;
 import com.example.catalog.services.GroupService;
+import com.example.catalog.web.FileResponseWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
-import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
@@ -16,13 +20,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.parameters.P;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
 import java.net.URI;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.List;
 
 @RestController
@@ -30,9 +30,11 @@ import java.util.List;
 public class GroupControler {
 
     private final GroupService groupService;
+    private final FileResponseWriter fileResponseWriter;
 
-    public GroupControler(GroupService groupService) {
+    public GroupControler(GroupService groupService, FileResponseWriter fileResponseWriter) {
         this.groupService = groupService;
+        this.fileResponseWriter = fileResponseWriter;
     }
 
     @GetMapping
@@ -49,6 +51,12 @@ public class GroupControler {
         return ResponseEntity.ok(groups);
     }
 
+    @GetMapping("/myGroups/{email}/scroll")
+    @Operation(summary = "Get groups by user email with a cursor", description = "Retrieve the groups associated with a user email ordered by name, using an opaque cursor and no total count.", parameters = {@Parameter(name = "email", description = "User email"), @Parameter(name = "cursor", description = "nextCursor from the previous response; empty for the first page"), @Parameter(name = "size", description = "Page size (max 100)")})
+    public ResponseEntity<CursorSliceDTO<GroupResponseDTO>> scrollByUserEmail(@PathVariable(name = "email") String email, @RequestParam(name = "cursor", required = false) String cursor, @RequestParam(name = "size", defaultValue = "20") int size) {
+        return ResponseEntity.ok(groupService.scrollByUserEmail(email, cursor, size));
+    }
+
     @GetMapping("/id/{id}")
     @Operation(summary = "Get group by ID", description = "Retrieve a group by its unique ID.", parameters = {@Parameter(name = "id", description = "Group ID")})
     public ResponseEntity<GroupResponseDTO> getById(@PathVariable(name = "id") Long id) {
@@ -84,64 +92,31 @@ public class GroupControler {
         return ResponseEntity.noContent().build();
     }
 
-    @PostMapping("/{id}/avatar")
+    @PostMapping(value = "/{id}/avatar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(summary = "Cargar avatar de tarea", description = "Carga o actualiza el avatar asociado a una tarea específica utilizando su ID.", parameters = {@Parameter(name = "id", description = "ID de la tarea a la que se le asignará el avatar.")})
-    public ResponseEntity<?> cargarAvatar(@PathVariable(name = "id") Long id, @RequestParam("file") MultipartFile file) {
-        try {
-            groupService.guardarAvatar(id, file);
-            return ResponseEntity.ok("Avatar actualizado correctamente.");
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().body("Error al cargar el avatar: " + e.getMessage());
-        }
+    public ResponseEntity<?> cargarAvatar(@PathVariable(name = "id") Long id, @RequestParam("file") MultipartFile file) throws IOException {
+        groupService.guardarAvatar(id, file);
+        return ResponseEntity.ok("Avatar actualizado correctamente.");
+    }
+
+    @PostMapping(value = "/{id}/avatar", consumes = {MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_GIF_VALUE, "image/webp"})
+    @Operation(summary = "Cargar avatar de tarea (cuerpo binario)", description = "Igual que la subida multipart pero con la imagen como cuerpo de la petición: se procesa en streaming sin pasar por el parser multipart.", parameters = {@Parameter(name = "id", description = "ID de la tarea a la que se le asignará el avatar.")})
+    public ResponseEntity<?> cargarAvatarBinario(@PathVariable(name = "id") Long id, HttpServletRequest request) throws IOException {
+        groupService.guardarAvatar(id, request.getInputStream());
+        return ResponseEntity.ok("Avatar actualizado correctamente.");
     }
 
     @GetMapping("/me/avatar")
     @Operation(summary = "Obtener avatar del usuario logueado", description = "Obtiene el avatar asociado al usuario actualmente autenticado.")
-    public ResponseEntity<Resource> obtenerAvatarUsuarioLogueado() {
-        Resource avatar = groupService.obtenerAvatarGenerico(null);
-        try {
-            Path avatarPath = Paths.get(avatar.getURL().getPath());
-            MediaType mediaType = determinarMediaType(avatarPath);
-            return ResponseEntity.ok()
-                    .header("Content-Disposition", "inline; filename=\"" + avatar.getFilename() + "\"")
-                    .contentType(mediaType)
-                    .body(avatar);
-        } catch (IOException e) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error al procesar el archivo de avatar", e);
-        }
+    public void obtenerAvatarUsuarioLogueado(@RequestParam(name = "v", required = false) String version, @RequestParam(name = "size", required = false) Integer size, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        AvatarCache.Avatar avatar = groupService.obtenerAvatarGenerico(null, size);
+        fileResponseWriter.write(avatar.file(), avatar.body(), size, version, request, response);
     }
 
     @GetMapping("/{id}/avatar")
-    @Operation(summary = "Obtener avatar de tarea por ID", description = "Obtiene el avatar asociado a una tarea específica utilizando su ID.", parameters = {@Parameter(name = "id", description = "ID de la tarea cuyo avatar se desea obtener.")})
-    public ResponseEntity<Resource> obtenerAvatar(@PathVariable(name = "id") Long id) {
-        Resource avatar = groupService.obtenerAvatarGenerico(id);
-        try {
-            Path avatarPath = Paths.get(avatar.getURL().getPath());
-            MediaType mediaType = determinarMediaType(avatarPath);
-            return ResponseEntity.ok()
-                    .header("Content-Disposition", "inline; filename=\"" + avatar.getFilename() + "\"")
-                    .contentType(mediaType)
-                    .body(avatar);
-        } catch (IOException e) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error al procesar el archivo de avatar", e);
-        }
-    }
-
-    @Operation(summary = "Determinar MediaType", description = "Determina el MediaType de un archivo dado su Path.", parameters = {@Parameter(name = "ficheroPath", description = "Path del archivo cuyo MediaType se desea determinar.")})
-    private MediaType determinarMediaType(Path ficheroPath) {
-        try {
-            String contentType = Files.probeContentType(ficheroPath);
-            if (contentType == null || contentType.isBlank()) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El tipo de contenido no puede ser nulo o vacío.");
-            }
-            return switch (contentType.toLowerCase()) {
-                case "image/jpeg" -> MediaType.IMAGE_JPEG;
-                case "image/png" -> MediaType.IMAGE_PNG;
-                case "image/gif" -> MediaType.IMAGE_GIF;
-                default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Formato de imagen no soportado: " + contentType);
-            };
-        } catch (IOException e) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error al determinar el tipo de contenido", e);
-        }
+    @Operation(summary = "Obtener avatar de tarea por ID", description = "Obtiene el avatar asociado a una tarea específica utilizando su ID.", parameters = {@Parameter(name = "id", description = "ID de la tarea cuyo avatar se desea obtener."), @Parameter(name = "size", description = "Lado en píxeles de la miniatura (32, 64, 128 o 256); sin él se sirve el original.")})
+    public void obtenerAvatar(@PathVariable(name = "id") Long id, @RequestParam(name = "v", required = false) String version, @RequestParam(name = "size", required = false) Integer size, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        AvatarCache.Avatar avatar = groupService.obtenerAvatarGenerico(id, size);
+        fileResponseWriter.write(avatar.file(), avatar.body(), size, version, request, response);
     }
 }
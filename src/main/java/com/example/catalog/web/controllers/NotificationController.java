@@ -1,15 +1,21 @@
 package com.example.catalog.web.controllers;
 
+import com.example.catalog.domain.dto.CursorSliceDTO;
 import com.example.catalog.domain.dto.NotificationRequestDTO;
 import com.example.catalog.domain.dto.NotificationResponseDTO;
+import com.example.catalog.domain.dto.UnreadCountDTO;
 import com.example.catalog.services.NotificationService;
+import com.example.catalog.services.stream.NotificationStreamHub;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Page;
 
@@ -18,9 +24,11 @@ import org.springframework.data.domain.Page;
 public class NotificationController {
 
     private final NotificationService service;
+    private final NotificationStreamHub streamHub;
 
-    public NotificationController(NotificationService service) {
+    public NotificationController(NotificationService service, NotificationStreamHub streamHub) {
         this.service = service;
+        this.streamHub = streamHub;
     }
 
     @GetMapping
@@ -37,10 +45,48 @@ public class NotificationController {
         return ResponseEntity.ok(notifications);
     }
 
+    @GetMapping("/myNotifications/{email}/scroll")
+    @Operation(summary = "Get notifications by user email with a cursor", description = "Retrieve the newest notifications of a user first, using an opaque cursor and no total count.", parameters = {@Parameter(name = "email", description = "User email"), @Parameter(name = "cursor", description = "nextCursor from the previous response; empty for the first page"), @Parameter(name = "size", description = "Page size (max 100)")})
+    public ResponseEntity<CursorSliceDTO<NotificationResponseDTO>> scrollByUserEmail(@PathVariable(name = "email") String email, @RequestParam(name = "cursor", required = false) String cursor, @RequestParam(name = "size", defaultValue = "20") int size) {
+        return ResponseEntity.ok(service.scrollByUserEmail(email, cursor, size));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream notifications of the current user", description = "Server-Sent Events channel with the notifications (event 'notification') and task/group changes (events 'task' and 'group') of the authenticated user. Send Last-Event-ID to receive the notifications missed while disconnected; 'resync' means too many were missed and the list must be reloaded.", parameters = {@Parameter(name = "Last-Event-ID", description = "Id of the last notification received")})
+    public ResponseEntity<SseEmitter> stream(Authentication authentication, @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        SseEmitter emitter = streamHub.subscribe(authentication.getName(), lastEventId);
+        // sin buffer en proxies inversos (nginx) para que cada evento salga en cuanto se envía
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+
+    @GetMapping("/unread-count")
+    @Operation(summary = "Get the unread notification count of the current user", description = "Served from a per-user counter, without counting notifications.")
+    public ResponseEntity<UnreadCountDTO> unreadCount(Authentication authentication) {
+        return ResponseEntity.ok(new UnreadCountDTO(service.unreadCount(authentication.getName())));
+    }
+
+    @PostMapping("/read")
+    @Operation(summary = "Mark notifications of the current user as read", description = "Marks as read every notification with an id up to upTo (usually the newest one shown), or all of them when upTo is omitted. Returns the new unread count.", parameters = {@Parameter(name = "upTo", description = "Highest notification id to mark as read")})
+    public ResponseEntity<UnreadCountDTO> markRead(Authentication authentication, @RequestParam(name = "upTo", required = false) Long upTo) {
+        service.markRead(authentication.getName(), upTo);
+        return ResponseEntity.ok(new UnreadCountDTO(service.unreadCount(authentication.getName())));
+    }
+
+    @PostMapping("/read-all")
+    @Operation(summary = "Mark all notifications of the current user as read", description = "Returns the new unread count.")
+    public ResponseEntity<UnreadCountDTO> markAllRead(Authentication authentication) {
+        service.markRead(authentication.getName(), null);
+        return ResponseEntity.ok(new UnreadCountDTO(service.unreadCount(authentication.getName())));
+    }
+
     @PostMapping
-    @Operation(summary = "Create a new notification", description = "Create a new notification with the provided details.", parameters = {@Parameter(name = "dto", description = "Notification details")})
-    public ResponseEntity<NotificationResponseDTO> create(@RequestBody @Valid NotificationRequestDTO dto) {
-        NotificationResponseDTO saved = service.create(dto);
-        return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+    @Operation(summary = "Create a new notification", description = "Create a new notification with the provided details. Creation is idempotent per user when a dedupeKey (or Idempotency-Key header) is given: repeating it returns the notification already created with 200 instead of 201. Without a key every request creates a new notification.", parameters = {@Parameter(name = "dto", description = "Notification details"), @Parameter(name = "Idempotency-Key", description = "Client dedupe key, used when the body has no dedupeKey")})
+    public ResponseEntity<NotificationResponseDTO> create(@RequestBody @Valid NotificationRequestDTO dto, @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (dto.getDedupeKey() == null) dto.setDedupeKey(idempotencyKey);
+        NotificationService.Creation creation = service.createOrGet(dto);
+        return ResponseEntity.status(creation.created() ? HttpStatus.CREATED : HttpStatus.OK).body(creation.notification());
     }
 }
@@ -0,0 +1,32 @@
+package com.example.catalog.web.controllers;
+
+import com.example.catalog.domain.dto.SearchHitDTO;
+import com.example.catalog.segurity.user.PrincipalCache;
+import com.example.catalog.services.search.SearchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping(value = "/api/v1/search", produces = MediaType.APPLICATION_JSON_VALUE)
+public class SearchController {
+
+    private final SearchService service;
+    private final PrincipalCache principalCache;
+
+    public SearchController(SearchService service, PrincipalCache principalCache) {
+        this.service = service;
+        this.principalCache = principalCache;
+    }
+
+    @GetMapping
+    @Operation(summary = "Buscar tareas y grupos", description = "Busca en títulos, descripciones y etiquetas de las tareas del usuario y en nombres y descripciones de sus grupos. Encuentra palabras completas, prefijos y pequeñas erratas.", parameters = {@Parameter(name = "q", description = "Texto a buscar."), @Parameter(name = "type", description = "all, task o group."), @Parameter(name = "limit", description = "Número máximo de resultados (como mucho 50).")})
+    public ResponseEntity<List<SearchHitDTO>> search(Authentication authentication, @RequestParam(name = "q") String query, @RequestParam(name = "type", defaultValue = "all") String type, @RequestParam(name = "limit", defaultValue = "20") int limit) {
+        return ResponseEntity.ok(service.search(principalCache.current(authentication).id(), query, type, limit));
+    }
+}
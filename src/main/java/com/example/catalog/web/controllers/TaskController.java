@@ -1,30 +1,50 @@
 package com.example.catalog.web.controllers;
 
+import com.example.catalog.domain.dto.BulkResultDTO;
+import com.example.catalog.domain.dto.CalendarDTO;
+import com.example.catalog.domain.dto.CalendarEntryDTO;
+import com.example.catalog.domain.dto.CursorSliceDTO;
+import com.example.catalog.domain.dto.LabelCountDTO;
+import com.example.catalog.domain.dto.TaskBulkUpdateDTO;
+import com.example.catalog.domain.dto.TaskImportStatusDTO;
 import com.example.catalog.domain.dto.TaskRequestDTO;
 import com.example.catalog.domain.dto.TaskResponseDTO;
 import com.example.catalog.domain.entities.Task;
 import com.example.catalog.domain.entities.User;
+import com.example.catalog.domain.enums.TaskFileFormat;
+import com.example.catalog.segurity.user.PrincipalCache;
+import com.example.catalog.services.AvatarCache;
+import com.example.catalog.services.TaskBulkService;
+import com.example.catalog.services.TaskCalendarService;
+import com.example.catalog.services.TaskExportService;
+import com.example.catalog.services.TaskImportService;
 import com.example.catalog.services.TaskService;
+import com.example.catalog.web.FileResponseWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeType;
 import io.swagger.v3.oas.annotations.security.SecurityScheme;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
-import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.List;
 
 @SecurityScheme(
         name = "BearerAuth",
@@ -38,9 +58,21 @@ import java.nio.file.Paths;
 public class TaskController {
 
     private final TaskService taskService;
-
-    public TaskController(TaskService taskService) {
+    private final TaskBulkService taskBulkService;
+    private final TaskExportService taskExportService;
+    private final TaskImportService taskImportService;
+    private final TaskCalendarService taskCalendarService;
+    private final FileResponseWriter fileResponseWriter;
+    private final PrincipalCache principalCache;
+
+    public TaskController(TaskService taskService, TaskBulkService taskBulkService, TaskExportService taskExportService, TaskImportService taskImportService, TaskCalendarService taskCalendarService, FileResponseWriter fileResponseWriter, PrincipalCache principalCache) {
         this.taskService = taskService;
+        this.taskBulkService = taskBulkService;
+        this.taskExportService = taskExportService;
+        this.taskImportService = taskImportService;
+        this.taskCalendarService = taskCalendarService;
+        this.fileResponseWriter = fileResponseWriter;
+        this.principalCache = principalCache;
     }
 
     @GetMapping
@@ -57,6 +89,78 @@ public class TaskController {
         return ResponseEntity.ok(tasks);
     }
 
+    @GetMapping("/scroll")
+    @Operation(summary = "Listar tareas por cursor", description = "Obtiene las tareas ordenadas por fecha y hora usando un cursor opaco, sin contar el total.", parameters = {@Parameter(name = "cursor", description = "Valor nextCursor de la respuesta anterior; vacío para la primera página."), @Parameter(name = "size", description = "Tamaño de la página (máximo 100).")})
+    public ResponseEntity<CursorSliceDTO<TaskResponseDTO>> scroll(@RequestParam(name = "cursor", required = false) String cursor, @RequestParam(name = "size", defaultValue = "20") int size) {
+        return ResponseEntity.ok(taskService.scroll(cursor, size));
+    }
+
+    @GetMapping("/myTasks/{email}/scroll")
+    @Operation(summary = "Listar tareas por email de usuario con cursor", description = "Obtiene las tareas de un usuario ordenadas por fecha y hora usando un cursor opaco, sin contar el total.", parameters = {@Parameter(name = "email", description = "Correo electrónico del usuario cuyas tareas se desean obtener."), @Parameter(name = "cursor", description = "Valor nextCursor de la respuesta anterior; vacío para la primera página."), @Parameter(name = "size", description = "Tamaño de la página (máximo 100).")})
+    public ResponseEntity<CursorSliceDTO<TaskResponseDTO>> scrollByUserEmail(@PathVariable(name = "email") String email, @RequestParam(name = "cursor", required = false) String cursor, @RequestParam(name = "size", defaultValue = "20") int size) {
+        return ResponseEntity.ok(taskService.scrollByUserEmail(email, cursor, size));
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Buscar tareas por etiquetas", description = "Filtra las tareas por etiquetas (alguna o todas), asignado y rango de fechas. Los resultados se ordenan por fecha y hora.", parameters = {@Parameter(name = "labels", description = "Etiquetas a buscar, separadas por comas o repitiendo el parámetro."), @Parameter(name = "match", description = "any: alguna de las etiquetas; all: todas."), @Parameter(name = "assignee", description = "Correo electrónico del usuario asignado."), @Parameter(name = "from", description = "Fecha inicial (yyyy-MM-dd), incluida."), @Parameter(name = "to", description = "Fecha final (yyyy-MM-dd), incluida.")})
+    public ResponseEntity<Page<TaskResponseDTO>> search(@RequestParam(name = "labels", required = false) List<String> labels,
+                                                        @RequestParam(name = "match", defaultValue = "any") String match,
+                                                        @RequestParam(name = "assignee", required = false) String assignee,
+                                                        @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                        @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                        Pageable pageable) {
+        return ResponseEntity.ok(taskService.search(labels, match, assignee, from, to, pageable));
+    }
+
+    @GetMapping("/calendar")
+    @Operation(summary = "Calendario del usuario", description = "Devuelve las tareas del usuario autenticado entre dos fechas, agrupadas por día y ordenadas por hora.", parameters = {@Parameter(name = "from", description = "Fecha inicial (yyyy-MM-dd), incluida."), @Parameter(name = "to", description = "Fecha final (yyyy-MM-dd), incluida. El rango máximo es de 92 días.")})
+    public ResponseEntity<CalendarDTO> calendar(Authentication authentication,
+                                                @RequestParam(name = "from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                @RequestParam(name = "to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(taskCalendarService.calendar(principalCache.current(authentication).id(), from, to));
+    }
+
+    @GetMapping("/agenda")
+    @Operation(summary = "Agenda del usuario", description = "Devuelve las próximas tareas del usuario autenticado a partir de ahora, en orden, usando un cursor opaco.", parameters = {@Parameter(name = "cursor", description = "Valor nextCursor de la respuesta anterior; vacío para empezar desde ahora."), @Parameter(name = "size", description = "Número de tareas (máximo 100).")})
+    public ResponseEntity<CursorSliceDTO<CalendarEntryDTO>> agenda(Authentication authentication, @RequestParam(name = "cursor", required = false) String cursor, @RequestParam(name = "size", defaultValue = "20") int size) {
+        return ResponseEntity.ok(taskCalendarService.agenda(principalCache.current(authentication).id(), cursor, size));
+    }
+
+    @GetMapping("/myLabels/{email}")
+    @Operation(summary = "Etiquetas de un usuario", description = "Devuelve cuántas tareas tiene el usuario con cada etiqueta, de la más usada a la menos usada.", parameters = {@Parameter(name = "email", description = "Correo electrónico del usuario.")})
+    public ResponseEntity<List<LabelCountDTO>> labelCounts(@PathVariable(name = "email") String email) {
+        return ResponseEntity.ok(taskService.labelCountsByUserEmail(email));
+    }
+
+    @GetMapping(value = "/myTasks/{email}/export", produces = {"application/x-ndjson", "text/csv"})
+    @Operation(summary = "Exportar tareas de un usuario", description = "Descarga todas las tareas de un usuario como NDJSON o CSV. Las filas se escriben en la respuesta a medida que se leen de la base de datos.", parameters = {@Parameter(name = "email", description = "Correo electrónico del usuario cuyas tareas se desean exportar."), @Parameter(name = "format", description = "Formato de salida: ndjson o csv.")})
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable(name = "email") String email, @RequestParam(name = "format", defaultValue = "ndjson") String format) {
+        TaskFileFormat exportFormat = TaskFileFormat.parse(format);
+        StreamingResponseBody body = out -> taskExportService.exportByUserEmail(email, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"tasks." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    @Operation(summary = "Importar tareas", description = "Recibe un fichero CSV (text/csv) o NDJSON (application/x-ndjson) con tareas como cuerpo de la petición, sin multipart: se vuelca a disco según llega. La importación se procesa en segundo plano por lotes; la respuesta incluye el id para consultar el progreso.", parameters = {@Parameter(name = "Content-Disposition", description = "Opcional: filename del fichero importado, que se muestra en el progreso.")})
+    public ResponseEntity<TaskImportStatusDTO> importTasks(@RequestHeader(name = HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                           @RequestHeader(name = HttpHeaders.CONTENT_DISPOSITION, required = false) String disposition,
+                                                           HttpServletRequest request) throws IOException {
+        String fileName = disposition == null ? null : ContentDisposition.parse(disposition).getFilename();
+        TaskImportStatusDTO status = taskImportService.start(request.getInputStream(), fileName, TaskFileFormat.of(contentType));
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/tasks/import/" + status.getId()))
+                .body(status);
+    }
+
+    @GetMapping("/import/{id}")
+    @Operation(summary = "Progreso de una importación", description = "Devuelve las filas procesadas, importadas y rechazadas y el ritmo de la importación.", parameters = {@Parameter(name = "id", description = "Id devuelto al iniciar la importación.")})
+    public ResponseEntity<TaskImportStatusDTO> importStatus(@PathVariable(name = "id") String id) {
+        return ResponseEntity.ok(taskImportService.status(id));
+    }
+
     @GetMapping("/title/{title}")
     @Operation(summary = "Obtener tarea por título", description = "Obtiene los detalles de una tarea específica utilizando su título.", parameters = {@Parameter(name = "title", description = "Título de la tarea a obtener.")})
     public ResponseEntity<TaskResponseDTO> getByTitle(@PathVariable(name = "title") String title) {
@@ -92,64 +196,49 @@ public class TaskController {
         return ResponseEntity.noContent().build();
     }
 
-    @PostMapping("/{id}/avatar")
+    @PostMapping("/bulk")
+    @Operation(summary = "Crear tareas en lote", description = "Crea varias tareas en una sola transacción y envía un único correo resumen por usuario asignado. Devuelve el resultado de cada elemento.")
+    public ResponseEntity<BulkResultDTO> createBulk(@RequestBody List<TaskRequestDTO> dtos) {
+        return ResponseEntity.ok(taskBulkService.createAll(dtos));
+    }
+
+    @PutMapping("/bulk")
+    @Operation(summary = "Actualizar tareas en lote", description = "Actualiza varias tareas (cada elemento incluye su id) en una sola transacción. Devuelve el resultado de cada elemento.")
+    public ResponseEntity<BulkResultDTO> updateBulk(@RequestBody List<TaskBulkUpdateDTO> dtos) {
+        return ResponseEntity.ok(taskBulkService.updateAll(dtos));
+    }
+
+    @DeleteMapping("/bulk")
+    @Operation(summary = "Eliminar tareas en lote", description = "Elimina las tareas cuyos IDs se envían en el cuerpo en una sola transacción. Devuelve el resultado de cada elemento.")
+    public ResponseEntity<BulkResultDTO> deleteBulk(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(taskBulkService.deleteAll(ids));
+    }
+
+    @PostMapping(value = "/{id}/avatar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(summary = "Cargar avatar de tarea", description = "Carga o actualiza el avatar asociado a una tarea específica utilizando su ID.", parameters = {@Parameter(name = "id", description = "ID de la tarea a la que se le asignará el avatar.")})
-    public ResponseEntity<?> cargarAvatar(@PathVariable(name = "id") Long id, @RequestParam("file") MultipartFile file) {
-        try {
-            taskService.guardarAvatar(id, file);
-            return ResponseEntity.ok("Avatar actualizado correctamente.");
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().body("Error al cargar el avatar: " + e.getMessage());
-        }
+    public ResponseEntity<?> cargarAvatar(@PathVariable(name = "id") Long id, @RequestParam("file") MultipartFile file) throws IOException {
+        taskService.guardarAvatar(id, file);
+        return ResponseEntity.ok("Avatar actualizado correctamente.");
+    }
+
+    @PostMapping(value = "/{id}/avatar", consumes = {MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_GIF_VALUE, "image/webp"})
+    @Operation(summary = "Cargar avatar de tarea (cuerpo binario)", description = "Igual que la subida multipart pero con la imagen como cuerpo de la petición: se procesa en streaming sin pasar por el parser multipart.", parameters = {@Parameter(name = "id", description = "ID de la tarea a la que se le asignará el avatar.")})
+    public ResponseEntity<?> cargarAvatarBinario(@PathVariable(name = "id") Long id, HttpServletRequest request) throws IOException {
+        taskService.guardarAvatar(id, request.getInputStream());
+        return ResponseEntity.ok("Avatar actualizado correctamente.");
     }
 
     @GetMapping("/me/avatar")
     @Operation(summary = "Obtener avatar del usuario logueado", description = "Obtiene el avatar asociado al usuario actualmente autenticado.")
-    public ResponseEntity<Resource> obtenerAvatarUsuarioLogueado() {
-        Resource avatar = taskService.obtenerAvatarGenerico(null);
-        try {
-            Path avatarPath = Paths.get(avatar.getURL().getPath());
-            MediaType mediaType = determinarMediaType(avatarPath);
-            return ResponseEntity.ok()
-                    .header("Content-Disposition", "inline; filename=\"" + avatar.getFilename() + "\"")
-                    .contentType(mediaType)
-                    .body(avatar);
-        } catch (IOException e) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error al procesar el archivo de avatar", e);
-        }
+    public void obtenerAvatarUsuarioLogueado(@RequestParam(name = "v", required = false) String version, @RequestParam(name = "size", required = false) Integer size, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        AvatarCache.Avatar avatar = taskService.obtenerAvatarGenerico(null, size);
+        fileResponseWriter.write(avatar.file(), avatar.body(), size, version, request, response);
     }
 
     @GetMapping("/{id}/avatar")
-    @Operation(summary = "Obtener avatar de tarea por ID", description = "Obtiene el avatar asociado a una tarea específica utilizando su ID.", parameters = {@Parameter(name = "id", description = "ID de la tarea cuyo avatar se desea obtener.")})
-    public ResponseEntity<Resource> obtenerAvatar(@PathVariable(name = "id") Long id) {
-        Resource avatar = taskService.obtenerAvatarGenerico(id);
-        try {
-            Path avatarPath = Paths.get(avatar.getURL().getPath());
-            MediaType mediaType = determinarMediaType(avatarPath);
-            return ResponseEntity.ok()
-                    .header("Content-Disposition", "inline; filename=\"" + avatar.getFilename() + "\"")
-                    .contentType(mediaType)
-                    .body(avatar);
-        } catch (IOException e) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error al procesar el archivo de avatar", e);
-        }
-    }
-
-    @Operation(summary = "Determinar MediaType", description = "Determina el MediaType de un archivo dado su Path.", parameters = {@Parameter(name = "ficheroPath", description = "Path del archivo cuyo MediaType se desea determinar.")})
-    private MediaType determinarMediaType(Path ficheroPath) {
-        try {
-            String contentType = Files.probeContentType(ficheroPath);
-            if (contentType == null || contentType.isBlank()) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El tipo de contenido no puede ser nulo o vacío.");
-            }
-            return switch (contentType.toLowerCase()) {
-                case "image/jpeg" -> MediaType.IMAGE_JPEG;
-                case "image/png" -> MediaType.IMAGE_PNG;
-                case "image/gif" -> MediaType.IMAGE_GIF;
-                default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Formato de imagen no soportado: " + contentType);
-            };
-        } catch (IOException e) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error al determinar el tipo de contenido", e);
-        }
-    }
-}
\ No newline at end of file
+    @Operation(summary = "Obtener avatar de tarea por ID", description = "Obtiene el avatar asociado a una tarea específica utilizando su ID.", parameters = {@Parameter(name = "id", description = "ID de la tarea cuyo avatar se desea obtener."), @Parameter(name = "size", description = "Lado en píxeles de la miniatura (32, 64, 128 o 256); sin él se sirve el original.")})
+    public void obtenerAvatar(@PathVariable(name = "id") Long id, @RequestParam(name = "v", required = false) String version, @RequestParam(name = "size", required = false) Integer size, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        AvatarCache.Avatar avatar = taskService.obtenerAvatarGenerico(id, size);
+        fileResponseWriter.write(avatar.file(), avatar.body(), size, version, request, response);
+    }
+}
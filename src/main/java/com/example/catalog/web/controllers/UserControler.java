@@ -1,13 +1,17 @@
 package com.example.catalog.web.controllers;
 
+import com.example.catalog.domain.dto.CursorSliceDTO;
 import com.example.catalog.domain.dto.UserRequestDTO;
 import com.example.catalog.domain.dto.UserResponseDTO;
 import com.example.catalog.domain.entities.User;
+import com.example.catalog.services.AvatarCache;
 import com.example.catalog.services.UserService;
+import com.example.catalog.web.FileResponseWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
-import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
@@ -16,12 +20,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.Map;
 
 @RestController
@@ -29,9 +29,11 @@ import java.util.Map;
 public class UserControler {
 
     private final UserService userService;
+    private final FileResponseWriter fileResponseWriter;
 
-    public UserControler(UserService userService) {
+    public UserControler(UserService userService, FileResponseWriter fileResponseWriter) {
         this.userService = userService;
+        this.fileResponseWriter = fileResponseWriter;
     }
 
     @GetMapping
@@ -41,6 +43,12 @@ public class UserControler {
         return ResponseEntity.ok(users);
     }
 
+    @GetMapping("/scroll")
+    @Operation(summary = "Listar usuarios por cursor", description = "Obtiene los usuarios ordenados por nombre de usuario usando un cursor opaco, sin contar el total.", parameters = {@Parameter(name = "cursor", description = "Valor nextCursor de la respuesta anterior; vacío para la primera página."), @Parameter(name = "size", description = "Tamaño de la página (máximo 100).")})
+    public ResponseEntity<CursorSliceDTO<UserResponseDTO>> scroll(@RequestParam(name = "cursor", required = false) String cursor, @RequestParam(name = "size", defaultValue = "20") int size) {
+        return ResponseEntity.ok(userService.scroll(cursor, size));
+    }
+
     @GetMapping("/id/{id}")
     @Operation(summary = "Obtener usuario por ID", description = "Obtiene los detalles de un usuario específico utilizando su ID.", parameters = {@Parameter(name = "id", description = "ID del usuario a obtener.")})
     public ResponseEntity<UserResponseDTO> getById(@PathVariable(name = "id") Long id) {
@@ -105,64 +113,31 @@ public class UserControler {
         return ResponseEntity.ok(usuario);
     }
 
-    @PostMapping("/{id}/avatar")
+    @PostMapping(value = "/{id}/avatar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(summary = "Cargar avatar de usuario", description = "Carga o actualiza el avatar de un usuario específico utilizando su ID.", parameters = {@Parameter(name = "id", description = "ID del usuario cuyo avatar se va a cargar.")})
-    public ResponseEntity<?> cargarAvatar(@PathVariable(name = "id") Long id, @RequestParam("file") MultipartFile file) {
-        try {
-            userService.guardarAvatar(id, file);
-            return ResponseEntity.ok("Avatar actualizado correctamente.");
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().body("Error al cargar el avatar: " + e.getMessage());
-        }
+    public ResponseEntity<?> cargarAvatar(@PathVariable(name = "id") Long id, @RequestParam("file") MultipartFile file) throws IOException {
+        userService.guardarAvatar(id, file);
+        return ResponseEntity.ok("Avatar actualizado correctamente.");
+    }
+
+    @PostMapping(value = "/{id}/avatar", consumes = {MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_GIF_VALUE, "image/webp"})
+    @Operation(summary = "Cargar avatar de usuario (cuerpo binario)", description = "Igual que la subida multipart pero con la imagen como cuerpo de la petición: se procesa en streaming sin pasar por el parser multipart.", parameters = {@Parameter(name = "id", description = "ID del usuario cuyo avatar se va a cargar.")})
+    public ResponseEntity<?> cargarAvatarBinario(@PathVariable(name = "id") Long id, HttpServletRequest request) throws IOException {
+        userService.guardarAvatar(id, request.getInputStream());
+        return ResponseEntity.ok("Avatar actualizado correctamente.");
     }
 
     @GetMapping("/me/avatar")
     @Operation(summary = "Obtener avatar del usuario autenticado", description = "Obtiene el avatar del usuario actualmente autenticado.")
-    public ResponseEntity<Resource> obtenerAvatarUsuarioLogueado() {
-        Resource avatar = userService.obtenerAvatarGenerico(null);
-        try {
-            Path avatarPath = Paths.get(avatar.getURL().getPath());
-            MediaType mediaType = determinarMediaType(avatarPath);
-            return ResponseEntity.ok()
-                    .header("Content-Disposition", "inline; filename=\"" + avatar.getFilename() + "\"")
-                    .contentType(mediaType)
-                    .body(avatar);
-        } catch (IOException e) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error al procesar el archivo de avatar", e);
-        }
+    public void obtenerAvatarUsuarioLogueado(@RequestParam(name = "v", required = false) String version, @RequestParam(name = "size", required = false) Integer size, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        AvatarCache.Avatar avatar = userService.obtenerAvatarGenerico(null, size);
+        fileResponseWriter.write(avatar.file(), avatar.body(), size, version, request, response);
     }
 
     @GetMapping("/{id}/avatar")
-    @Operation(summary = "Obtener avatar de usuario por ID", description = "Obtiene el avatar de un usuario específico utilizando su ID.", parameters = {@Parameter(name = "id", description = "ID del usuario cuyo avatar se va a obtener.")})
-    public ResponseEntity<Resource> obtenerAvatar(@PathVariable(name = "id") Long id) {
-        Resource avatar = userService.obtenerAvatarGenerico(id);
-        try {
-            Path avatarPath = Paths.get(avatar.getURL().getPath());
-            MediaType mediaType = determinarMediaType(avatarPath);
-            return ResponseEntity.ok()
-                    .header("Content-Disposition", "inline; filename=\"" + avatar.getFilename() + "\"")
-                    .contentType(mediaType)
-                    .body(avatar);
-        } catch (IOException e) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error al procesar el archivo de avatar", e);
-        }
-    }
-
-    @Operation(summary = "Determinar MediaType de un archivo", description = "Determina el MediaType de un archivo dado su Path.", parameters = {@Parameter(name = "ficheroPath", description = "Path del archivo cuyo MediaType se va a determinar.")})
-    private MediaType determinarMediaType(Path ficheroPath) {
-        try {
-            String contentType = Files.probeContentType(ficheroPath);
-            if (contentType == null || contentType.isBlank()) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El tipo de contenido no puede ser nulo o vacío.");
-            }
-            return switch (contentType.toLowerCase()) {
-                case "image/jpeg" -> MediaType.IMAGE_JPEG;
-                case "image/png" -> MediaType.IMAGE_PNG;
-                case "image/gif" -> MediaType.IMAGE_GIF;
-                default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Formato de imagen no soportado: " + contentType);
-            };
-        } catch (IOException e) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error al determinar el tipo de contenido", e);
-        }
+    @Operation(summary = "Obtener avatar de usuario por ID", description = "Obtiene el avatar de un usuario específico utilizando su ID.", parameters = {@Parameter(name = "id", description = "ID del usuario cuyo avatar se va a obtener."), @Parameter(name = "size", description = "Lado en píxeles de la miniatura (32, 64, 128 o 256); sin él se sirve el original.")})
+    public void obtenerAvatar(@PathVariable(name = "id") Long id, @RequestParam(name = "v", required = false) String version, @RequestParam(name = "size", required = false) Integer size, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        AvatarCache.Avatar avatar = userService.obtenerAvatarGenerico(id, size);
+        fileResponseWriter.write(avatar.file(), avatar.body(), size, version, request, response);
     }
 }
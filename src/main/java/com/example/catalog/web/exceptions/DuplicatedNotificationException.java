@@ -1,8 +0,0 @@
-package com.example.catalog.web.exceptions;
-
-public class DuplicatedNotificationException extends RuntimeException {
-  public DuplicatedNotificationException(String name) {
-    super("the notification already exists: " + name);
-  }
-
-}
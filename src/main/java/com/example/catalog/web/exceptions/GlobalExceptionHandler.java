@@ -1,5 +1,6 @@
 package com.example.catalog.web.exceptions;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -48,4 +49,26 @@ public class GlobalExceptionHandler {
                 "timestamp", Instant.now().toString()
         ));
     }
-}
\ No newline at end of file
+
+    @ExceptionHandler(ResourceNotFoundException.class)
+    public ResponseEntity<Map<String, Object>> notFound(ResourceNotFoundException ex) {
+        String msg = Objects.requireNonNullElse(ex.getMessage(), "Not found");
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                "error", "NOT_FOUND",
+                "message", msg,
+                "timestamp", Instant.now().toString()
+        ));
+    }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<Map<String, Object>> serviceBusy(ServiceBusyException ex) {
+        String msg = Objects.requireNonNullElse(ex.getMessage(), "Service busy");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(Map.of(
+                        "error", "SERVICE_UNAVAILABLE",
+                        "message", msg,
+                        "timestamp", Instant.now().toString()
+                ));
+    }
+}
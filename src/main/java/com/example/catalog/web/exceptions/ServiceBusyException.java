@@ -0,0 +1,15 @@
+package com.example.catalog.web.exceptions;
+
+// El recurso está saturado (cola llena): se responde 503 con Retry-After
+public class ServiceBusyException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -19,3 +19,7 @@ INSERT INTO task_labels (task_id, labels) VALUES
                                               (1, 'DIW'),
                                               (1, 'DAW'),
                                               (2, 'DIW');*/
+
+-- notifications usaba IDENTITY: la secuencia de Hibernate (notification_seq) arranca por encima del
+-- mayor id existente. Nunca retrocede, asi que es seguro ejecutarlo en cada arranque.
+SELECT setval('notification_seq', GREATEST((SELECT COALESCE(MAX(id), 0) + 1 FROM notifications), (SELECT last_value FROM notification_seq)));
@@ -0,0 +1,49 @@
+package com.example.catalog.mappers;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CursorMapperTest {
+
+    @Test
+    public void decode_returnsTheEncodedKeysInOrder() {
+        String cursor = CursorMapper.encode(LocalDate.of(2025, 3, 3), LocalTime.of(9, 30), 42L);
+
+        assertArrayEquals(new String[]{"2025-03-03", "09:30", "42"}, CursorMapper.decode(cursor, 3));
+        // las claves pueden contener el separador y caracteres no ASCII
+        assertArrayEquals(new String[]{"ana.pérez", "7"}, CursorMapper.decode(CursorMapper.encode("ana.pérez", 7L), 2));
+        assertFalse(cursor.contains("="));
+    }
+
+    @Test
+    public void decode_treatsAMissingCursorAsTheFirstPage() {
+        assertNull(CursorMapper.decode(null, 1));
+        assertNull(CursorMapper.decode(" ", 1));
+    }
+
+    @Test
+    public void decode_rejectsMalformedCursors() {
+        String twoKeys = CursorMapper.encode("ana", 7L);
+
+        assertThrows(IllegalArgumentException.class, () -> CursorMapper.decode(twoKeys, 3));
+        assertThrows(IllegalArgumentException.class, () -> CursorMapper.decode("no*es*base64", 1));
+        assertThrows(IllegalArgumentException.class, () -> CursorMapper.decode(twoKeys + ".", 2));
+    }
+
+    @Test
+    public void parseId_rejectsNonNumericKeys() {
+        assertEquals(42L, CursorMapper.parseId("42"));
+        assertThrows(IllegalArgumentException.class, () -> CursorMapper.parseId("uno"));
+    }
+
+    @Test
+    public void limit_clampsThePageSize() {
+        assertEquals(1, CursorMapper.limit(0).getPageSize());
+        assertEquals(20, CursorMapper.limit(20).getPageSize());
+        assertEquals(CursorMapper.MAX_SIZE, CursorMapper.limit(10_000).getPageSize());
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.catalog.repositories;
+
+import com.example.catalog.domain.entities.Group;
+import com.example.catalog.domain.entities.Label;
+import com.example.catalog.domain.entities.Notification;
+import com.example.catalog.domain.entities.Task;
+import com.example.catalog.domain.entities.User;
+import com.example.catalog.domain.enums.Rol;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Filas/segundo al insertar tareas (con 2 etiquetas cada una) y notificaciones con Hibernate:
+// sin lotes (batch_size=1, optimizador pooled por defecto) frente a la configuración de
+// application.properties (batch_size=50, order_inserts, pooled-lo). Se mide en H2 y en H2 en modo PostgreSQL.
+// No forma parte de mvn test: se lanza con main() desde el IDE o con
+// java -cp target/test-classes:target/classes:<classpath de test> org.openjdk.jmh.Main BulkInsertBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkInsertBenchmark {
+    private static final int ROWS = 1000;
+
+    @Param({"h2", "h2-postgresql"})
+    public String database;
+
+    @Param({"unbatched", "batched"})
+    public String writeMode;
+
+    private SessionFactory sessionFactory;
+    private User owner;
+    private List<Label> labels;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean batched = "batched".equals(writeMode);
+        String url = "jdbc:h2:mem:bulk-" + database + "-" + writeMode + ";DB_CLOSE_DELAY=-1"
+                + ("h2-postgresql".equals(database) ? ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE" : "");
+        Configuration configuration = new Configuration()
+                .addAnnotatedClass(User.class)
+                .addAnnotatedClass(Task.class)
+                .addAnnotatedClass(Label.class)
+                .addAnnotatedClass(Group.class)
+                .addAnnotatedClass(Notification.class)
+                .setPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy())
+                .setProperty("hibernate.connection.url", url)
+                .setProperty("hibernate.connection.username", "sa")
+                .setProperty("hibernate.connection.pool_size", "2")
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                .setProperty("hibernate.show_sql", "false")
+                .setProperty("hibernate.jdbc.batch_size", batched ? "50" : "1")
+                .setProperty("hibernate.order_inserts", String.valueOf(batched))
+                .setProperty("hibernate.id.optimizer.pooled.preferred", batched ? "pooled-lo" : "pooled");
+        sessionFactory = configuration.buildSessionFactory();
+
+        owner = User.builder().name("bench").surnames("bench").username("bench").phoneNumber("600000000")
+                .email("bench@example.com").password("x").rol(Rol.USUARIO).build();
+        labels = new ArrayList<>();
+        for (int i = 0; i <= 10; i++) {
+            labels.add(Label.builder().name(i == 0 ? "bulk" : "l" + i).build());
+        }
+        sessionFactory.inTransaction(session -> {
+            session.persist(owner);
+            labels.forEach(session::persist);
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    // Una invocación = 1000 tareas (+2000 filas de etiquetas) y 1000 notificaciones; el resultado se expresa en tareas/s
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void insertTasksAndNotifications() {
+        try (Session session = sessionFactory.openSession()) {
+            Transaction tx = session.beginTransaction();
+            for (int i = 0; i < ROWS; i++) {
+                session.persist(Task.builder().title("tarea " + i).description("bulk").date(LocalDate.now()).time(LocalTime.NOON)
+                        .assigmentFor(owner).status(false).labels(Set.of(labels.get(0), labels.get(1 + i % 10))).build());
+                session.persist(Notification.builder().title("aviso " + i).message("bulk").createdAt(new Date()).userEmail(owner.getEmail()).build());
+                if ((i + 1) % 50 == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+            tx.commit();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BulkInsertBenchmark.class.getSimpleName()).build()).run();
+    }
+}
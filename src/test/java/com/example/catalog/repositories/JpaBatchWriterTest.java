@@ -0,0 +1,49 @@
+package com.example.catalog.repositories;
+
+import com.example.catalog.domain.entities.Notification;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.sql.init.mode=never"
+})
+@Import(JpaBatchWriter.class)
+public class JpaBatchWriterTest {
+
+    @Autowired
+    private JpaBatchWriter batchWriter;
+    @Autowired
+    private NotificationRepository notificationRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    public void persistAll_insertsInJdbcBatchesWithOneSequenceCallPerBatch() {
+        List<Notification> notifications = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            notifications.add(Notification.builder().title("aviso " + i).message("m").createdAt(new Date()).userEmail("user@example.com").build());
+        }
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        batchWriter.persistAll(notifications);
+
+        // 120 filas = 3 lotes de INSERT + 3 reservas de 50 ids en la secuencia (pooled-lo)
+        assertTrue(statistics.getPrepareStatementCount() <= 6, "statements: " + statistics.getPrepareStatementCount());
+        assertEquals(120, notificationRepository.count());
+        assertEquals(120, notifications.stream().map(Notification::getId).distinct().count());
+    }
+}
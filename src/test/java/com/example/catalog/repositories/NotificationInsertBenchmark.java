@@ -0,0 +1,87 @@
+package com.example.catalog.repositories;
+
+import com.example.catalog.domain.entities.Notification;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Notificaciones creadas por segundo (una por transacción, como NotificationService.create) según
+// las filas que ya tiene la tabla: comprobación previa por título sin índice (la de antes, recorre
+// la tabla entera) frente al INSERT con clave de idempotencia e índice único (user_email, dedupe_key),
+// que debe mantenerse plano aunque la tabla crezca. Se mide en H2 en modo PostgreSQL.
+// No forma parte de mvn test: se lanza con main() desde el IDE o con
+// java -cp target/test-classes:target/classes:<classpath de test> org.openjdk.jmh.Main NotificationInsertBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class NotificationInsertBenchmark {
+    private static final int USERS = 1000;
+
+    @Param({"0", "100000", "1000000", "3000000"})
+    public int existingRows;
+
+    @Param({"title-check", "dedupe-key"})
+    public String dedupeMode;
+
+    private SessionFactory sessionFactory;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String url = "jdbc:h2:mem:notifications-" + existingRows + "-" + dedupeMode + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE";
+        Configuration configuration = new Configuration()
+                .addAnnotatedClass(Notification.class)
+                .setPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy())
+                .setProperty("hibernate.connection.url", url)
+                .setProperty("hibernate.connection.username", "sa")
+                .setProperty("hibernate.connection.pool_size", "2")
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                .setProperty("hibernate.show_sql", "false");
+        sessionFactory = configuration.buildSessionFactory();
+
+        // ids negativos para no interferir con la secuencia de Hibernate
+        sessionFactory.inTransaction(session -> session.createNativeMutationQuery(
+                        "INSERT INTO notifications (id, title, message, created_at, user_email, is_read, dedupe_key) "
+                                + "SELECT -x, 'aviso ' || x, 'carga', CURRENT_TIMESTAMP, 'user' || MOD(x, " + USERS + ") || '@example.com', FALSE, 'title:' || x "
+                                + "FROM SYSTEM_RANGE(1, " + existingRows + ") AS r(x)")
+                .executeUpdate());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public void createNotification() {
+        long n = sequence.incrementAndGet();
+        String title = "aviso nuevo " + n;
+        boolean titleCheck = "title-check".equals(dedupeMode);
+        sessionFactory.inTransaction(session -> {
+            if (titleCheck && !session.createSelectionQuery("SELECT n.id FROM Notification n WHERE n.title = :title", Long.class)
+                    .setParameter("title", title)
+                    .setMaxResults(1)
+                    .getResultList()
+                    .isEmpty()) {
+                return;
+            }
+            session.persist(Notification.builder().title(title).message("carga").createdAt(new Date())
+                    .userEmail("user" + n % USERS + "@example.com").dedupeKey(titleCheck ? null : "title:nuevo-" + n).build());
+        });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(NotificationInsertBenchmark.class.getSimpleName()).build()).run();
+    }
+}
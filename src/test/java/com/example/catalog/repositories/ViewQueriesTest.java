@@ -0,0 +1,124 @@
+package com.example.catalog.repositories;
+
+import com.example.catalog.domain.dto.GroupResponseDTO;
+import com.example.catalog.domain.dto.TaskResponseDTO;
+import com.example.catalog.domain.dto.UserResponseDTO;
+import com.example.catalog.domain.entities.Group;
+import com.example.catalog.domain.entities.Label;
+import com.example.catalog.domain.entities.Task;
+import com.example.catalog.domain.entities.User;
+import com.example.catalog.domain.enums.Rol;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Proyecciones TASK_VIEW, GROUP_VIEW y USER_VIEW: una consulta por página con las colecciones
+// agregadas con listagg, siempre en el mismo orden aunque las filas se hayan insertado en otro
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+public class ViewQueriesTest {
+
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private GroupRepository groupRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private LabelRepository labelRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private User ana;
+    private User bea;
+    private User carla;
+
+    @BeforeEach
+    public void setUp() {
+        ana = user("ana");
+        bea = user("bea");
+        carla = user("carla");
+    }
+
+    @Test
+    public void taskView_flattensTheAssigneeAndSortsLabels() {
+        Label zeta = labelRepository.save(Label.builder().name("zeta").build());
+        Label alfa = labelRepository.save(Label.builder().name("alfa").build());
+        Task task = task("con etiquetas", ana, Set.of(zeta, alfa));
+        Task plain = task("sin etiquetas", ana, Set.of());
+        flush();
+
+        TaskResponseDTO view = taskRepository.findViewById(task.getId()).orElseThrow();
+
+        assertEquals("con etiquetas", view.getTitle());
+        assertEquals(ana.getId(), view.getAssigmentFor().getId());
+        assertEquals("ana@example.com", view.getAssigmentFor().getEmail());
+        assertEquals(List.of("alfa", "zeta"), view.getLabels());
+        assertEquals(List.of(), taskRepository.findViewById(plain.getId()).orElseThrow().getLabels());
+    }
+
+    @Test
+    public void groupView_listsMemberIdsInIdOrder() {
+        // miembros añadidos en orden distinto al de sus ids
+        Group group = group("equipo", ana, carla, ana, bea);
+        Group empty = group("vacío", null);
+        flush();
+
+        GroupResponseDTO view = groupRepository.findViewById(group.getId()).orElseThrow();
+
+        assertEquals(List.of(ana.getId(), bea.getId(), carla.getId()), view.getUserIds());
+        assertEquals("ana@example.com", view.getAdminUser().getEmail());
+        GroupResponseDTO emptyView = groupRepository.findViewById(empty.getId()).orElseThrow();
+        assertNull(emptyView.getAdminUser());
+        assertEquals(List.of(), emptyView.getUserIds());
+    }
+
+    @Test
+    public void userView_listsTaskAndGroupIdsInIdOrder() {
+        Task first = task("primera", bea, Set.of());
+        Task second = task("segunda", bea, Set.of());
+        Group one = group("uno", ana, bea);
+        Group two = group("dos", null, bea);
+        flush();
+
+        UserResponseDTO view = userRepository.findViewByEmail("bea@example.com").orElseThrow();
+
+        assertEquals(List.of(first.getId(), second.getId()), view.getTasksIds());
+        assertEquals(List.of(one.getId(), two.getId()), view.getGroupIds());
+        UserResponseDTO none = userRepository.findViewById(carla.getId()).orElseThrow();
+        assertEquals(List.of(), none.getTasksIds());
+        assertEquals(List.of(), none.getGroupIds());
+    }
+
+    private User user(String username) {
+        return userRepository.save(User.builder().name(username).surnames("s").username(username).phoneNumber("600")
+                .email(username + "@example.com").password("x").rol(Rol.USUARIO).build());
+    }
+
+    private Task task(String title, User user, Set<Label> labels) {
+        return taskRepository.save(Task.builder().title(title).description("d").date(LocalDate.of(2025, 3, 3))
+                .time(LocalTime.of(9, 0)).assigmentFor(user).status(false).labels(labels).build());
+    }
+
+    private Group group(String name, User admin, User... members) {
+        return groupRepository.save(Group.builder().name(name).description("grupo " + name).adminUser(admin)
+                .users(new ArrayList<>(List.of(members))).build());
+    }
+
+    private void flush() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
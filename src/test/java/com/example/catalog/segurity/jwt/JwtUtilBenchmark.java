@@ -0,0 +1,89 @@
+package com.example.catalog.segurity.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Coste por petición de la autenticación JWT en JwtRequestFilter.
+// No forma parte de mvn test: se lanza con main() desde el IDE o con
+// java -cp target/test-classes:target/classes:<classpath de test> org.openjdk.jmh.Main JwtUtilBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private final UserDetails user = new User("user@example.com", "x", List.of());
+    private Key legacyKey;
+    private String legacyToken;
+    private JwtUtil jwtUtil;
+    private String token;
+    private JwtUtil coldJwtUtil;
+    private String[] coldTokens;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        legacyKey = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+        legacyToken = Jwts.builder()
+                .setSubject(user.getUsername())
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 3_600_000))
+                .signWith(legacyKey, SignatureAlgorithm.HS256)
+                .compact();
+        jwtUtil = new JwtUtil();
+        token = jwtUtil.generateToken(user);
+        // caché de una sola entrada y tokens distintos en rotación: casi todas las llamadas parsean
+        coldJwtUtil = new JwtUtil(1);
+        coldTokens = new String[1024];
+        for (int i = 0; i < coldTokens.length; i++) {
+            coldTokens[i] = coldJwtUtil.generateToken(user);
+        }
+    }
+
+    // Antes: extractUsername + validateToken (extractUsername + isTokenExpired), cada uno con un parser nuevo.
+    @Benchmark
+    public boolean before_threeParsesPerRequest() {
+        String username = legacyParse().getSubject();
+        boolean sameUser = legacyParse().getSubject().equals(username);
+        boolean notExpired = legacyParse().getExpiration().after(new Date());
+        return sameUser && notExpired;
+    }
+
+    // Después, primera vez que se ve el token: un solo parseo con el parser reutilizado.
+    @Benchmark
+    public boolean after_singleParseCold() {
+        String fresh = coldTokens[next++ & (coldTokens.length - 1)];
+        Claims claims = coldJwtUtil.parseAndValidate(fresh);
+        return coldJwtUtil.validateToken(claims, user);
+    }
+
+    // Después, peticiones siguientes con el mismo token: claims servidos desde la caché.
+    @Benchmark
+    public boolean after_cachedClaims() {
+        Claims claims = jwtUtil.parseAndValidate(token);
+        return jwtUtil.validateToken(claims, user);
+    }
+
+    private Claims legacyParse() {
+        return Jwts.parserBuilder().setSigningKey(legacyKey).build().parseClaimsJws(legacyToken).getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtUtilBenchmark.class.getSimpleName()).build()).run();
+    }
+}
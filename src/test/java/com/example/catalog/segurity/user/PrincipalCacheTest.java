@@ -0,0 +1,78 @@
+package com.example.catalog.segurity.user;
+
+import com.example.catalog.domain.enums.Rol;
+import com.example.catalog.repositories.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.impl.DefaultClaims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class PrincipalCacheTest {
+
+    private UserRepository userRepository;
+    private PrincipalCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        userRepository = mock(UserRepository.class);
+        cache = new PrincipalCache(userRepository, new SimpleMeterRegistry(), 100, 300);
+    }
+
+    @Test
+    public void get_queriesTheDatabaseOnlyOncePerUser() {
+        when(userRepository.findPrincipalByEmail("ana@example.com"))
+                .thenReturn(Optional.of(new UserPrincipal(1L, "ana@example.com", Rol.USUARIO, "hash")));
+
+        UserPrincipal first = cache.get("ana@example.com");
+        UserPrincipal second = cache.get("ana@example.com");
+
+        assertSame(first, second);
+        assertEquals("ROLE_USUARIO", first.getAuthorities().iterator().next().getAuthority());
+        verify(userRepository, times(1)).findPrincipalByEmail("ana@example.com");
+    }
+
+    @Test
+    public void invalidate_forcesReloadAfterPasswordChange() {
+        when(userRepository.findPrincipalByEmail("ana@example.com"))
+                .thenReturn(Optional.of(new UserPrincipal(1L, "ana@example.com", Rol.USUARIO, "old")))
+                .thenReturn(Optional.of(new UserPrincipal(1L, "ana@example.com", Rol.USUARIO, "new")));
+        Claims oldToken = new DefaultClaims(Map.of(UserPrincipal.CLAIM_PASSWORD_VERSION, UserPrincipal.passwordVersion("old")));
+
+        assertTrue(cache.get("ana@example.com").acceptsPasswordVersion(oldToken));
+        cache.invalidate("ana@example.com");
+
+        assertFalse(cache.get("ana@example.com").acceptsPasswordVersion(oldToken));
+    }
+
+    @Test
+    public void current_resolvesHttpBasicUsersByTheirEmail() {
+        UserPrincipal jwt = new UserPrincipal(2L, "eva@example.com", Rol.USUARIO, 0);
+        when(userRepository.findPrincipalByEmail("ana@example.com"))
+                .thenReturn(Optional.of(new UserPrincipal(1L, "ana@example.com", Rol.USUARIO, "hash")));
+        // httpBasic autentica con los UserDetails de CustomUserDetailsService, no con UserPrincipal
+        User basic = new User("ana@example.com", "hash", jwt.getAuthorities());
+
+        assertSame(jwt, cache.current(new UsernamePasswordAuthenticationToken(jwt, null, jwt.getAuthorities())));
+        assertEquals(1L, cache.current(new UsernamePasswordAuthenticationToken(basic, null, basic.getAuthorities())).id());
+        verify(userRepository, never()).findPrincipalByEmail("eva@example.com");
+    }
+
+    @Test
+    public void get_doesNotCacheMissingUsers() {
+        when(userRepository.findPrincipalByEmail("nadie@example.com")).thenReturn(Optional.empty());
+
+        assertNull(cache.get("nadie@example.com"));
+        assertNull(cache.get("nadie@example.com"));
+
+        verify(userRepository, times(2)).findPrincipalByEmail("nadie@example.com");
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.catalog.services;
+
+import com.example.catalog.domain.entities.StoredFile;
+import com.example.catalog.services.storage.LocalBlobStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+public class AvatarCacheTest {
+
+    @TempDir
+    private Path tempDir;
+    private SimpleMeterRegistry registry;
+    private ThumbnailService thumbnailService;
+    private AvatarCache cache;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        registry = new SimpleMeterRegistry();
+        thumbnailService = mock(ThumbnailService.class);
+        when(thumbnailService.resolveSize(isNull())).thenReturn(null);
+        when(thumbnailService.resolveSize(64)).thenReturn(64);
+        cache = new AvatarCache(thumbnailService, new LocalBlobStore(tempDir.resolve("blobs").toString()), registry, 1024 * 1024, 100, 600);
+    }
+
+    @Test
+    public void get_servesRepeatedRequestsFromMemory() throws Exception {
+        StoredFile file = file("avatar.png", "0123456789", null);
+        AtomicInteger loads = new AtomicInteger();
+
+        AvatarCache.Avatar first = cache.get(AvatarCache.USER, 1L, null, () -> {
+            loads.incrementAndGet();
+            return file;
+        });
+        Files.delete(Path.of(file.getPath()));
+        AvatarCache.Avatar second = cache.get(AvatarCache.USER, 1L, null, () -> {
+            loads.incrementAndGet();
+            return file;
+        });
+
+        assertEquals(1, loads.get());
+        assertSame(first, second);
+        byte[] bytes = new byte[second.body().remaining()];
+        second.body().duplicate().get(bytes);
+        assertEquals("0123456789", new String(bytes, StandardCharsets.US_ASCII));
+        assertTrue(second.body().isDirect());
+        assertEquals(0.5, registry.get("files.avatars.hit.ratio").gauge().value());
+        assertTrue(registry.get("files.avatars.resident").gauge().value() >= 10);
+    }
+
+    @Test
+    public void invalidate_dropsEverySizeOfTheOwner() throws Exception {
+        StoredFile original = file("avatar.png", "original", null);
+        StoredFile thumbnail = file("avatar.png.64px", "mini", original.getPath());
+        cache.get(AvatarCache.GROUP, 7L, null, () -> original);
+        cache.get(AvatarCache.GROUP, 7L, 64, () -> thumbnail);
+        cache.get(AvatarCache.USER, 7L, null, () -> original);
+
+        cache.invalidate(AvatarCache.GROUP, 7L);
+
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(AvatarCache.GROUP, 7L, null, () -> {
+            loads.incrementAndGet();
+            return original;
+        });
+        cache.get(AvatarCache.GROUP, 7L, 64, () -> {
+            loads.incrementAndGet();
+            return thumbnail;
+        });
+        cache.get(AvatarCache.USER, 7L, null, () -> {
+            loads.incrementAndGet();
+            return original;
+        });
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void get_doesNotCacheOriginalServedInPlaceOfMissingThumbnailOrLargeFiles() throws Exception {
+        StoredFile original = file("avatar.png", "original", null);
+        StoredFile large = file("large.png", "x".repeat(200), null);
+
+        AvatarCache.Avatar fallback = cache.get(AvatarCache.USER, 1L, 64, () -> original);
+        AvatarCache.Avatar tooLarge = cache.get(AvatarCache.USER, 2L, null, () -> large);
+
+        assertNull(fallback.body());
+        assertNull(tooLarge.body());
+        assertEquals(0.0, registry.get("files.avatars.resident").gauge().value());
+    }
+
+    private StoredFile file(String name, String content, String variantOf) throws Exception {
+        Path path = Files.writeString(tempDir.resolve(name), content, StandardCharsets.US_ASCII);
+        return StoredFile.builder().path(path.toString()).sha256("x").contentType("image/png")
+                .size((long) content.length()).createdAt(Instant.now()).variantOf(variantOf).build();
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.catalog.services;
+
+import com.example.catalog.domain.entities.StoredFile;
+import com.example.catalog.domain.entities.User;
+import com.example.catalog.domain.enums.Rol;
+import com.example.catalog.repositories.StoredFileRepository;
+import com.example.catalog.repositories.UserRepository;
+import com.example.catalog.services.storage.LocalBlobStore;
+import com.example.catalog.web.exceptions.ServiceBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// Sin transacción de test: FileService confirma los metadatos en transacciones propias
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never",
+        "app.files.gc.grace-minutes=0",
+        "app.files.max-upload-bytes=1024",
+        "app.files.upload.max-concurrent=1"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({FileService.class, LocalBlobStore.class, BlobGarbageCollector.class, FileServiceTest.Metrics.class})
+public class FileServiceTest {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 0x0D};
+
+    @TempDir
+    static Path blobDir;
+
+    @DynamicPropertySource
+    static void blobDir(DynamicPropertyRegistry registry) {
+        registry.add("app.files.blob-dir", () -> blobDir.toString());
+    }
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @MockBean
+    private ThumbnailService thumbnailService;
+    @Autowired
+    private FileService fileService;
+    @Autowired
+    private BlobGarbageCollector garbageCollector;
+    @Autowired
+    private StoredFileRepository storedFileRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    public void tearDown() {
+        userRepository.deleteAll();
+        storedFileRepository.deleteAll();
+    }
+
+    @Test
+    public void guardarFichero_storesIdenticalContentOnce() throws Exception {
+        String first = fileService.guardarFichero(png("a.png", "mismo contenido"));
+        String second = fileService.guardarFichero(png("b.png", "mismo contenido"));
+
+        assertEquals(first, second);
+        Path path = Paths.get(first);
+        String sha = path.getFileName().toString();
+        assertEquals(blobDir.resolve(sha.substring(0, 2)).resolve(sha.substring(2, 4)).resolve(sha), path);
+        assertArrayEquals(png("c.png", "mismo contenido").getBytes(), Files.readAllBytes(path));
+        assertEquals(1, storedFileRepository.count());
+        assertTrue(tempFiles().isEmpty());
+        verify(thumbnailService, times(1)).generateAsync(any(StoredFile.class));
+    }
+
+    @Test
+    public void collect_deletesUnreferencedBlobsAndKeepsReferencedOnes() throws Exception {
+        String referenced = fileService.guardarFichero(png("a.png", "avatar en uso"));
+        String orphan = fileService.guardarFichero(png("b.png", "avatar reemplazado"));
+        storedFileRepository.save(StoredFile.builder().path(orphan + ".64px").sha256("x").contentType("image/png")
+                .size(1L).createdAt(Instant.now()).variantOf(orphan).build());
+        userRepository.save(User.builder().name("Ana").surnames("s").username("ana").phoneNumber("600")
+                .email("ana@example.com").password("x").rol(Rol.USUARIO).avatar(referenced).build());
+        Thread.sleep(5);
+
+        assertEquals(1, garbageCollector.collect());
+
+        assertTrue(Files.exists(Paths.get(referenced)));
+        assertFalse(Files.exists(Paths.get(orphan)));
+        assertTrue(storedFileRepository.existsById(referenced));
+        assertFalse(storedFileRepository.existsById(orphan));
+        assertFalse(storedFileRepository.existsById(orphan + ".64px"));
+    }
+
+    @Test
+    public void borrarSiHuerfano_keepsBlobUploadedAgainAfterCutoff() throws Exception {
+        String ruta = fileService.guardarFichero(png("a.png", "subido otra vez"));
+        Instant cutoff = Instant.now().minusSeconds(60);
+
+        assertFalse(fileService.borrarSiHuerfano(ruta, cutoff));
+        assertTrue(Files.exists(Paths.get(ruta)));
+    }
+
+    @Test
+    public void describirFichero_servesTheOriginalWithoutRetryingFailedThumbnails() throws Exception {
+        String ruta = fileService.guardarFichero(png("a.png", "miniatura rota"));
+        when(thumbnailService.resolveSize(64)).thenReturn(64);
+
+        fileService.describirFichero(ruta, 64);
+        verify(thumbnailService, times(2)).generateAsync(any(StoredFile.class));
+
+        storedFileRepository.markThumbnailFailed(ruta, Instant.now());
+        assertEquals(ruta, fileService.describirFichero(ruta, 64).getPath());
+        assertEquals(ruta, fileService.describirFichero(ruta, 64).getPath());
+        verify(thumbnailService, times(2)).generateAsync(any(StoredFile.class));
+    }
+
+    @Test
+    public void guardarFichero_detectsTypeFromContentAndRejectsOtherFiles() throws Exception {
+        MockMultipartFile disguised = new MockMultipartFile("avatar", "a.png", "image/png", "<html>no soy una imagen</html>".getBytes());
+        byte[] gif = "GIF89a contenido".getBytes(StandardCharsets.US_ASCII);
+
+        String ruta = fileService.guardarFichero(new MockMultipartFile("avatar", "a.png", "image/png", gif));
+
+        assertEquals("image/gif", storedFileRepository.findById(ruta).orElseThrow().getContentType());
+        assertThrows(IllegalArgumentException.class, () -> fileService.guardarFichero(disguised));
+    }
+
+    @Test
+    public void guardarFichero_enforcesSizeLimitWhileStreaming() {
+        byte[] big = new byte[4096];
+        System.arraycopy(PNG_SIGNATURE, 0, big, 0, PNG_SIGNATURE.length);
+
+        assertThrows(IllegalArgumentException.class, () -> fileService.guardarFichero(new ByteArrayInputStream(big)));
+        assertEquals(0, storedFileRepository.count());
+        assertTrue(tempFiles().isEmpty());
+    }
+
+    @Test
+    public void guardarFichero_rejectsUploadsBeyondTheConcurrencyLimit() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InputStream slow = new SequenceInputStream(new ByteArrayInputStream(PNG_SIGNATURE), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                reading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                return -1;
+            }
+        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> first = executor.submit(() -> fileService.guardarFichero(slow));
+            assertTrue(reading.await(5, TimeUnit.SECONDS));
+
+            ServiceBusyException busy = assertThrows(ServiceBusyException.class, () -> fileService.guardarFichero(png("b.png", "otro")));
+
+            release.countDown();
+            assertNotNull(first.get(5, TimeUnit.SECONDS));
+            assertTrue(busy.getRetryAfterSeconds() > 0);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<Path> tempFiles() {
+        try (var files = Files.list(blobDir.resolve("tmp"))) {
+            return files.toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static MockMultipartFile png(String name, String content) {
+        byte[] bytes = new byte[PNG_SIGNATURE.length + content.length()];
+        System.arraycopy(PNG_SIGNATURE, 0, bytes, 0, PNG_SIGNATURE.length);
+        System.arraycopy(content.getBytes(StandardCharsets.US_ASCII), 0, bytes, PNG_SIGNATURE.length, content.length());
+        return new MockMultipartFile("avatar", name, "application/octet-stream", bytes);
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.catalog.services;
+
+import com.example.catalog.domain.dto.NotificationRequestDTO;
+import com.example.catalog.domain.dto.NotificationResponseDTO;
+import com.example.catalog.domain.entities.Notification;
+import com.example.catalog.repositories.NotificationCounterRepository;
+import com.example.catalog.repositories.NotificationRepository;
+import com.example.catalog.services.stream.NotificationStreamHub;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Sin transacción de test: el contador se crea en una transacción propia
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({NotificationService.class, NotificationCounterService.class, NotificationServiceTest.Metrics.class})
+public class NotificationServiceTest {
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private NotificationService service;
+    @Autowired
+    private NotificationRepository repository;
+    @Autowired
+    private NotificationCounterRepository counterRepository;
+    @MockBean
+    private NotificationStreamHub streamHub;
+
+    @AfterEach
+    public void tearDown() {
+        repository.deleteAll();
+        counterRepository.deleteAll();
+    }
+
+    @Test
+    public void create_incrementsTheUnreadCounterOfItsUser() {
+        service.create(request("a", "ana@example.com"));
+        service.create(request("b", "ana@example.com"));
+        service.create(request("c", "bob@example.com"));
+
+        assertEquals(2, service.unreadCount("ana@example.com"));
+        assertEquals(1, service.unreadCount("bob@example.com"));
+        assertEquals(2, counterRepository.findUnreadCount("ana@example.com").orElseThrow());
+    }
+
+    @Test
+    public void markRead_upToAnIdOnlyCountsNotificationsThatWereUnread() {
+        NotificationResponseDTO first = service.create(request("a", "eva@example.com"));
+        NotificationResponseDTO second = service.create(request("b", "eva@example.com"));
+        service.create(request("c", "eva@example.com"));
+        assertEquals(3, service.unreadCount("eva@example.com"));
+
+        assertEquals(1, service.markRead("eva@example.com", first.getId()));
+        assertEquals(1, service.markRead("eva@example.com", second.getId()));
+        assertEquals(0, service.markRead("eva@example.com", second.getId()));
+
+        assertEquals(1, service.unreadCount("eva@example.com"));
+        assertTrue(repository.findById(first.getId()).orElseThrow().isRead());
+
+        assertEquals(1, service.markRead("eva@example.com", null));
+        assertEquals(0, service.unreadCount("eva@example.com"));
+        assertEquals(0, counterRepository.findUnreadCount("eva@example.com").orElseThrow());
+    }
+
+    @Test
+    public void counter_startsFromExistingNotificationsOfUsersWithoutOne() {
+        // notificaciones anteriores al contador: sin fila en notification_counters
+        repository.save(Notification.builder().title("x").userEmail("leo@example.com").build());
+        repository.save(Notification.builder().title("y").userEmail("leo@example.com").build());
+        assertEquals(2, service.unreadCount("leo@example.com"));
+
+        service.create(request("z", "leo@example.com"));
+
+        assertEquals(3, counterRepository.findUnreadCount("leo@example.com").orElseThrow());
+        assertEquals(3, service.unreadCount("leo@example.com"));
+    }
+
+    @Test
+    public void create_isIdempotentPerUserAndDedupeKey() {
+        NotificationService.Creation first = service.createOrGet(request("a", "ines@example.com", "pedido-42"));
+        NotificationService.Creation retry = service.createOrGet(request("otro titulo", "ines@example.com", "pedido-42"));
+        NotificationService.Creation otherUser = service.createOrGet(request("a", "juan@example.com", "pedido-42"));
+
+        assertTrue(first.created());
+        assertFalse(retry.created());
+        assertTrue(otherUser.created());
+        assertEquals(first.notification().getId(), retry.notification().getId());
+        assertEquals("a", retry.notification().getTitle());
+        assertNotEquals(first.notification().getId(), otherUser.notification().getId());
+        assertEquals(1, service.unreadCount("ines@example.com"));
+        assertEquals(2, repository.count());
+    }
+
+    @Test
+    public void create_withoutKeyKeepsRecurringNotificationsWithTheSameTitle() {
+        NotificationService.Creation first = service.createOrGet(new NotificationRequestDTO("Tarea Vencida", "mensaje", new Date(), "olga@example.com", null));
+        NotificationService.Creation again = service.createOrGet(new NotificationRequestDTO("tarea vencida", "mensaje", new Date(), "olga@example.com", null));
+
+        assertTrue(again.created());
+        assertNotEquals(first.notification().getId(), again.notification().getId());
+        assertEquals(2, service.unreadCount("olga@example.com"));
+    }
+
+    @Test
+    public void create_numbersEachUsersNotificationsInCommitOrder() {
+        NotificationResponseDTO first = service.create(request("a", "rita@example.com"));
+        NotificationResponseDTO second = service.create(request("b", "rita@example.com"));
+        NotificationResponseDTO other = service.create(request("a", "sara@example.com"));
+
+        assertEquals(1L, repository.findStreamSeq("rita@example.com", first.getId()).orElseThrow());
+        assertEquals(2L, repository.findStreamSeq("rita@example.com", second.getId()).orElseThrow());
+        assertEquals(1L, repository.findStreamSeq("sara@example.com", other.getId()).orElseThrow());
+        assertEquals(2, counterRepository.findUnreadCount("rita@example.com").orElseThrow());
+    }
+
+    private static NotificationRequestDTO request(String title, String email) {
+        return new NotificationRequestDTO(title + "-" + email, "mensaje", new Date(), email, null);
+    }
+
+    private static NotificationRequestDTO request(String title, String email, String dedupeKey) {
+        return new NotificationRequestDTO(title, "mensaje", new Date(), email, dedupeKey);
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.catalog.services;
+
+import com.example.catalog.domain.dto.CursorSliceDTO;
+import com.example.catalog.domain.dto.TaskResponseDTO;
+import com.example.catalog.domain.entities.Group;
+import com.example.catalog.domain.entities.Label;
+import com.example.catalog.domain.entities.Task;
+import com.example.catalog.domain.entities.User;
+import com.example.catalog.domain.enums.Rol;
+import com.example.catalog.mappers.GroupMapper;
+import com.example.catalog.mappers.TaskMapper;
+import com.example.catalog.repositories.GroupRepository;
+import com.example.catalog.repositories.LabelRepository;
+import com.example.catalog.repositories.TaskRepository;
+import com.example.catalog.repositories.UserRepository;
+import com.example.catalog.segurity.user.PrincipalCache;
+import com.example.catalog.services.email.EmailOutboxService;
+import com.example.catalog.services.search.SearchIndexer;
+import com.example.catalog.services.stream.NotificationStreamHub;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.sql.init.mode=never"
+})
+@Import({TaskService.class, GroupService.class, UserService.class})
+public class PagedQueryStatementsTest {
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private GroupService groupService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private GroupRepository groupRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private LabelRepository labelRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @MockBean
+    private FileService fileService;
+    @MockBean
+    private AvatarCache avatarCache;
+    @MockBean
+    private EmailOutboxService emailOutbox;
+    @MockBean
+    private TaskLabelService taskLabelService;
+    @MockBean
+    private SearchIndexer searchIndexer;
+    @MockBean
+    private NotificationStreamHub streamHub;
+    @MockBean
+    private PasswordEncoder passwordEncoder;
+    @MockBean
+    private PrincipalCache principalCache;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            users.add(userRepository.save(User.builder().name("n" + i).surnames("s").username("user" + i).phoneNumber("600" + i)
+                    .email("user" + i + "@example.com").password("x").rol(Rol.USUARIO).build()));
+        }
+        Label shared = labelRepository.save(Label.builder().name("b").build());
+        for (int i = 0; i < 40; i++) {
+            Label own = labelRepository.save(Label.builder().name("a" + i).build());
+            taskRepository.save(Task.builder().title("tarea " + i).description("d").date(LocalDate.of(2025, 1, 1 + i % 28)).time(LocalTime.NOON)
+                    .assigmentFor(users.get(i % 10)).status(false).labels(Set.of(own, shared)).build());
+        }
+        for (int i = 0; i < 10; i++) {
+            groupRepository.save(Group.builder().name("grupo " + i).description("grupo " + i).adminUser(users.get(i % 10))
+                    .users(List.of(users.get(0), users.get((i + 1) % 10))).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    // Cada listado se llama por el método de servicio que usa su endpoint y se serializa como lo
+    // haría el controlador, así que una carga perezosa en el servicio o en el DTO también cuenta.
+
+    // GET /api/v1/tasks, /myTasks/{email}, /search, /scroll y /myTasks/{email}/scroll
+    @Test
+    public void taskListings_runOneQueryPerPagePlusCount() {
+        assertStatements(2, () -> taskService.list(PageRequest.of(0, 30)));
+        assertStatements(2, () -> taskService.listByUserEmail("user0@example.com", PageRequest.of(0, 2)));
+        assertStatements(2, () -> taskService.search(List.of(), null, "user0@example.com", null, null, PageRequest.of(0, 2)));
+        assertStatements(2, () -> taskService.search(List.of("b"), "any", null, null, null, PageRequest.of(0, 30)));
+        assertStatements(2, () -> taskService.search(List.of("b", "a1"), "all", null, null, null, PageRequest.of(0, 1)));
+
+        CursorSliceDTO<TaskResponseDTO> first = taskService.scroll(null, 30);
+        assertStatements(1, () -> taskService.scroll(null, 30));
+        assertStatements(1, () -> taskService.scroll(first.getNextCursor(), 30));
+        assertStatements(1, () -> taskService.scrollByUserEmail("user0@example.com", null, 2));
+    }
+
+    // GET /api/v1/groups, /myGroups/{email} y /myGroups/{email}/scroll
+    @Test
+    public void groupListings_runOneQueryPerPagePlusCount() {
+        assertStatements(2, () -> groupService.list(PageRequest.of(0, 5)));
+        assertStatements(2, () -> groupService.listByUserEmail("user0@example.com", PageRequest.of(0, 5)));
+        assertStatements(1, () -> groupService.scrollByUserEmail("user0@example.com", null, 5));
+    }
+
+    // GET /api/v1/users y /scroll
+    @Test
+    public void userListings_runOneQueryPerPagePlusCount() {
+        assertStatements(2, () -> userService.list(PageRequest.of(0, 5)));
+        assertStatements(1, () -> userService.scroll(null, 5));
+    }
+
+    // Páginas de entidades mapeadas: labels, users y los User relacionados se cargan por lotes,
+    // así que el número de consultas no depende del tamaño de la página
+    @Test
+    public void entityPages_loadCollectionsInBatches() {
+        long smallTaskPage = countStatements(() -> taskRepository.findAll(PageRequest.of(0, 5)).map(TaskMapper::toDTO).getContent());
+        long largeTaskPage = countStatements(() -> taskRepository.findAll(PageRequest.of(0, 30)).map(TaskMapper::toDTO).getContent());
+        assertEquals(smallTaskPage, largeTaskPage);
+        assertTrue(largeTaskPage <= 4, "task page used " + largeTaskPage + " statements");
+
+        long smallGroupPage = countStatements(() -> groupRepository.findByAdminOrMemberEmail("user0@example.com", PageRequest.of(0, 2)).map(GroupMapper::toDTO).getContent());
+        long largeGroupPage = countStatements(() -> groupRepository.findByAdminOrMemberEmail("user0@example.com", PageRequest.of(0, 8)).map(GroupMapper::toDTO).getContent());
+        assertEquals(smallGroupPage, largeGroupPage);
+        assertTrue(largeGroupPage <= 4, "group page used " + largeGroupPage + " statements");
+    }
+
+    private void assertStatements(long expected, Supplier<Object> endpoint) {
+        assertEquals(expected, countStatements(() -> {
+            try {
+                objectMapper.writeValueAsString(endpoint.get());
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+    }
+
+    private long countStatements(Runnable query) {
+        entityManager.clear();
+        statistics.clear();
+        query.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
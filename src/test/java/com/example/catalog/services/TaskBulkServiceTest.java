@@ -0,0 +1,159 @@
+package com.example.catalog.services;
+
+import com.example.catalog.domain.dto.BulkResultDTO;
+import com.example.catalog.domain.dto.TaskBulkUpdateDTO;
+import com.example.catalog.domain.dto.TaskRequestDTO;
+import com.example.catalog.domain.entities.Task;
+import com.example.catalog.domain.entities.User;
+import com.example.catalog.domain.enums.Rol;
+import com.example.catalog.repositories.JpaBatchWriter;
+import com.example.catalog.repositories.LabelRepository;
+import com.example.catalog.repositories.TaskRepository;
+import com.example.catalog.repositories.UserRepository;
+import com.example.catalog.services.email.EmailOutboxService;
+import com.example.catalog.services.search.SearchIndexer;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.catalog.services.TaskFixtures.labels;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+@Import({TaskBulkService.class, JpaBatchWriter.class, TaskLabelService.class})
+@ImportAutoConfiguration(ValidationAutoConfiguration.class)
+public class TaskBulkServiceTest {
+
+    @Autowired
+    private TaskBulkService taskBulkService;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private LabelRepository labelRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @MockBean
+    private EmailOutboxService emailOutbox;
+    @MockBean
+    private SearchIndexer searchIndexer;
+
+    private User ana;
+    private User luis;
+
+    @BeforeEach
+    public void setUp() {
+        ana = userRepository.save(user("ana"));
+        luis = userRepository.save(user("luis"));
+        taskRepository.save(Task.builder().title("existente").description("d").date(LocalDate.of(2025, 1, 1)).time(LocalTime.NOON)
+                .assigmentFor(ana).status(false).labels(labels(labelRepository, "a")).build());
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void createAll_reportsInvalidItemsAndSendsOneDigestPerAssignee() {
+        List<TaskRequestDTO> dtos = new ArrayList<>();
+        dtos.add(request("uno", ana));
+        dtos.add(request("existente", ana));
+        dtos.add(request("dos", ana));
+        dtos.add(request("uno", luis));
+        dtos.add(request("tres", User.builder().id(-1L).build()));
+        TaskRequestDTO invalid = request("cuatro", luis);
+        invalid.setDate(null);
+        dtos.add(invalid);
+        dtos.add(request("cinco", luis));
+
+        BulkResultDTO result = taskBulkService.createAll(dtos);
+
+        assertEquals(3, result.getSucceeded());
+        assertEquals(4, result.getFailed());
+        assertEquals(List.of(true, false, true, false, false, false, true), result.getItems().stream().map(item -> item.isSuccess()).toList());
+        assertEquals("la fecha es obligatoria", result.getItems().get(5).getError());
+        assertEquals(4, taskRepository.count());
+        verify(emailOutbox).enqueueTemplate(eq(ana.getEmail()), any(), eq("task-digest.html"), anyMap(), contains("uno, dos"));
+        verify(emailOutbox).enqueueTemplate(eq(luis.getEmail()), any(), eq("task-digest.html"), anyMap(), contains("cinco"));
+        verifyNoMoreInteractions(emailOutbox);
+    }
+
+    @Test
+    public void updateAll_reassignsAndCoalescesUnassignmentNotices() {
+        Long id = taskRepository.findAll().get(0).getId();
+        TaskBulkUpdateDTO update = new TaskBulkUpdateDTO();
+        copy(request("renombrada", luis), update);
+        update.setId(id);
+        TaskBulkUpdateDTO missing = new TaskBulkUpdateDTO();
+        copy(request("otra", luis), missing);
+        missing.setId(-1L);
+        TaskBulkUpdateDTO repeated = new TaskBulkUpdateDTO();
+        copy(request("repetida", ana), repeated);
+        repeated.setId(id);
+
+        BulkResultDTO result = taskBulkService.updateAll(List.of(update, missing, repeated));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(1, result.getSucceeded());
+        assertEquals(List.of(true, false, false), result.getItems().stream().map(item -> item.isSuccess()).toList());
+        Task task = taskRepository.findById(id).orElseThrow();
+        assertEquals("renombrada", task.getTitle());
+        assertEquals(luis.getId(), task.getAssigmentFor().getId());
+        verify(searchIndexer).tasksSaved(argThat(tasks -> tasks.size() == 1));
+        verify(emailOutbox).enqueueTemplate(eq(luis.getEmail()), any(), eq("task-digest.html"), anyMap(), eq("Se han actualizado las tareas: renombrada"));
+        verify(emailOutbox).enqueueText(eq(ana.getEmail()), any(), contains("renombrada"));
+    }
+
+    @Test
+    public void deleteAll_removesFoundTasksAndFailsTheRest() {
+        Long id = taskRepository.findAll().get(0).getId();
+
+        BulkResultDTO result = taskBulkService.deleteAll(List.of(id, -1L, id));
+        entityManager.flush();
+
+        assertEquals(1, result.getSucceeded());
+        assertEquals(2, result.getFailed());
+        assertEquals(0, taskRepository.count());
+        verify(emailOutbox).enqueueTemplate(eq(ana.getEmail()), any(), eq("task-digest.html"), anyMap(), contains("existente"));
+    }
+
+    @Test
+    public void rejectsEmptyRequests() {
+        assertThrows(IllegalArgumentException.class, () -> taskBulkService.deleteAll(List.of()));
+    }
+
+    private static User user(String name) {
+        return User.builder().name(name).surnames("s").username(name).phoneNumber("600" + name.length())
+                .email(name + "@example.com").password("x").rol(Rol.USUARIO).build();
+    }
+
+    private static TaskRequestDTO request(String title, User user) {
+        return new TaskRequestDTO(title, "d", LocalDate.of(2025, 2, 1), LocalTime.NOON, User.builder().id(user.getId()).build(), false, List.of("x"), null);
+    }
+
+    private static void copy(TaskRequestDTO from, TaskRequestDTO to) {
+        to.setTitle(from.getTitle());
+        to.setDescription(from.getDescription());
+        to.setDate(from.getDate());
+        to.setTime(from.getTime());
+        to.setAssigmentFor(from.getAssigmentFor());
+        to.setStatus(from.getStatus());
+        to.setLabels(from.getLabels());
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.catalog.services;
+
+import com.example.catalog.domain.dto.CalendarDTO;
+import com.example.catalog.domain.dto.CalendarEntryDTO;
+import com.example.catalog.domain.dto.CursorSliceDTO;
+import com.example.catalog.domain.entities.Label;
+import com.example.catalog.domain.entities.Task;
+import com.example.catalog.domain.entities.User;
+import com.example.catalog.domain.enums.Rol;
+import com.example.catalog.repositories.LabelRepository;
+import com.example.catalog.repositories.TaskRepository;
+import com.example.catalog.repositories.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.sql.init.mode=never",
+        "app.tasks.calendar.max-days=31",
+        "app.tasks.calendar.max-tasks=5"
+})
+@Import(TaskCalendarService.class)
+public class TaskCalendarServiceTest {
+
+    @Autowired
+    private TaskCalendarService taskCalendarService;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private LabelRepository labelRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private User ana;
+    private User luis;
+
+    @BeforeEach
+    public void setUp() {
+        ana = userRepository.save(User.builder().name("Ana").surnames("s").username("ana").phoneNumber("600")
+                .email("ana@example.com").password("x").rol(Rol.USUARIO).build());
+        luis = userRepository.save(User.builder().name("Luis").surnames("s").username("luis").phoneNumber("601")
+                .email("luis@example.com").password("x").rol(Rol.USUARIO).build());
+        Label urgente = labelRepository.save(Label.builder().name("urgente").build());
+        task("tarde", ana, LocalDate.of(2025, 3, 3), LocalTime.of(17, 0), Set.of(urgente));
+        task("mañana", ana, LocalDate.of(2025, 3, 3), LocalTime.of(9, 0), Set.of());
+        task("jueves", ana, LocalDate.of(2025, 3, 6), LocalTime.of(12, 0), Set.of());
+        task("fuera", ana, LocalDate.of(2025, 4, 1), LocalTime.of(12, 0), Set.of());
+        task("de luis", luis, LocalDate.of(2025, 3, 4), LocalTime.of(12, 0), Set.of());
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void calendar_groupsTheUsersTasksByDayInOneQuery() {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        CalendarDTO calendar = taskCalendarService.calendar(ana.getId(), LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(3, calendar.getTotal());
+        assertFalse(calendar.isTruncated());
+        assertEquals(List.of(LocalDate.of(2025, 3, 3), LocalDate.of(2025, 3, 6)), calendar.getDays().stream().map(day -> day.getDate()).toList());
+        List<CalendarEntryDTO> monday = calendar.getDays().get(0).getTasks();
+        assertEquals(List.of("mañana", "tarde"), monday.stream().map(CalendarEntryDTO::getTitle).toList());
+        assertEquals(List.of("urgente"), monday.get(1).getLabels());
+    }
+
+    @Test
+    public void calendar_marksTruncatedResultsAndRejectsInvalidRanges() {
+        for (int i = 0; i < 6; i++) {
+            task("extra " + i, ana, LocalDate.of(2025, 3, 10), LocalTime.of(8, i), Set.of());
+        }
+
+        CalendarDTO calendar = taskCalendarService.calendar(ana.getId(), LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 31));
+
+        assertTrue(calendar.isTruncated());
+        assertEquals(5, calendar.getTotal());
+        assertThrows(IllegalArgumentException.class, () -> taskCalendarService.calendar(ana.getId(), LocalDate.of(2025, 3, 2), LocalDate.of(2025, 3, 1)));
+        assertThrows(IllegalArgumentException.class, () -> taskCalendarService.calendar(ana.getId(), LocalDate.of(2025, 1, 1), LocalDate.of(2025, 3, 1)));
+    }
+
+    @Test
+    public void agenda_seeksUpcomingTasksPageByPage() {
+        LocalDateTime now = LocalDateTime.of(2025, 3, 3, 9, 0);
+
+        CursorSliceDTO<CalendarEntryDTO> first = taskCalendarService.agenda(ana.getId(), null, 2, now);
+        CursorSliceDTO<CalendarEntryDTO> second = taskCalendarService.agenda(ana.getId(), first.getNextCursor(), 2, now);
+
+        assertEquals(List.of("mañana", "tarde"), first.getContent().stream().map(CalendarEntryDTO::getTitle).toList());
+        assertTrue(first.isHasNext());
+        assertEquals(List.of("jueves", "fuera"), second.getContent().stream().map(CalendarEntryDTO::getTitle).toList());
+        assertThrows(IllegalArgumentException.class, () -> taskCalendarService.agenda(ana.getId(), "x.y.z", 2, now));
+    }
+
+    private void task(String title, User user, LocalDate date, LocalTime time, Set<Label> labels) {
+        taskRepository.save(Task.builder().title(title).description("d").date(date).time(time)
+                .assigmentFor(user).status(false).labels(labels).build());
+    }
+}
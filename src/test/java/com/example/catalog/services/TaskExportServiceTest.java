@@ -0,0 +1,97 @@
+package com.example.catalog.services;
+
+import com.example.catalog.domain.entities.Task;
+import com.example.catalog.domain.entities.User;
+import com.example.catalog.domain.enums.TaskFileFormat;
+import com.example.catalog.domain.enums.Rol;
+import com.example.catalog.repositories.LabelRepository;
+import com.example.catalog.repositories.TaskRepository;
+import com.example.catalog.repositories.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static com.example.catalog.services.TaskFixtures.labels;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+@Import(TaskExportService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+public class TaskExportServiceTest {
+
+    @Autowired
+    private TaskExportService taskExportService;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private LabelRepository labelRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    public void setUp() {
+        User user = userRepository.save(User.builder().name("Ana").surnames("s").username("ana").phoneNumber("600")
+                .email("ana@example.com").password("x").rol(Rol.USUARIO).build());
+        taskRepository.save(Task.builder().title("segunda").description("con \"comillas\", y coma").date(LocalDate.of(2025, 3, 2)).time(LocalTime.NOON)
+                .assigmentFor(user).status(true).labels(labels(labelRepository, "a", "b")).build());
+        taskRepository.save(Task.builder().title("primera").description("d").date(LocalDate.of(2025, 3, 1)).time(LocalTime.NOON)
+                .assigmentFor(user).status(false).labels(labels(labelRepository, "c")).build());
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void exportNdjson_writesOneJsonObjectPerLineInDateOrder() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = taskExportService.exportByUserEmail("ana@example.com", TaskFileFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, rows);
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals("primera", first.get("title").asText());
+        assertEquals("2025-03-01", first.get("date").asText());
+        assertEquals("ana@example.com", first.get("assigmentFor").get("email").asText());
+        assertEquals(List.of("a", "b"), objectMapper.convertValue(objectMapper.readTree(lines[1]).get("labels"), List.class));
+    }
+
+    @Test
+    public void exportCsv_quotesFieldsAndJoinsLabels() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        taskExportService.exportByUserEmail("ana@example.com", TaskFileFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(3, lines.length);
+        assertEquals("id,title,description,date,time,assigneeId,assigneeName,assigneeEmail,status,labels,image", lines[0]);
+        assertTrue(lines[2].contains(",segunda,\"con \"\"comillas\"\", y coma\",2025-03-02,12:00,"), lines[2]);
+        assertTrue(lines[2].endsWith(",Ana,ana@example.com,true,a|b,"), lines[2]);
+    }
+
+    @Test
+    public void parse_rejectsUnknownFormats() {
+        assertEquals(TaskFileFormat.CSV, TaskFileFormat.parse("csv"));
+        assertThrows(IllegalArgumentException.class, () -> TaskFileFormat.parse("xml"));
+    }
+}
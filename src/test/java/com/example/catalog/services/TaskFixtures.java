@@ -0,0 +1,25 @@
+package com.example.catalog.services;
+
+import com.example.catalog.domain.entities.Label;
+import com.example.catalog.repositories.LabelRepository;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Datos de prueba compartidos por los tests de tareas
+final class TaskFixtures {
+
+    private TaskFixtures() {
+    }
+
+    // Etiquetas con esos nombres, creando las que aún no existen
+    static Set<Label> labels(LabelRepository labelRepository, String... names) {
+        Set<Label> labels = new HashSet<>();
+        for (String name : names) {
+            labels.add(labelRepository.findByNameIn(List.of(name)).stream().findFirst()
+                    .orElseGet(() -> labelRepository.save(Label.builder().name(name).build())));
+        }
+        return labels;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.catalog.services;
+
+import com.example.catalog.domain.dto.TaskImportStatusDTO;
+import com.example.catalog.domain.entities.Task;
+import com.example.catalog.domain.entities.User;
+import com.example.catalog.domain.enums.ImportStatus;
+import com.example.catalog.domain.enums.Rol;
+import com.example.catalog.domain.enums.TaskFileFormat;
+import com.example.catalog.mappers.TaskMapper;
+import com.example.catalog.repositories.JpaBatchWriter;
+import com.example.catalog.repositories.LabelRepository;
+import com.example.catalog.repositories.TaskRepository;
+import com.example.catalog.repositories.UserRepository;
+import com.example.catalog.services.search.SearchIndexer;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static com.example.catalog.services.TaskFixtures.labels;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never",
+        "app.tasks.import.batch-size=2",
+        "app.tasks.import.max-file-size=1KB"
+})
+@Import({TaskImportService.class, JpaBatchWriter.class, TaskLabelService.class})
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+public class TaskImportServiceTest {
+
+    @Autowired
+    private TaskImportService taskImportService;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private LabelRepository labelRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @MockBean
+    private SearchIndexer searchIndexer;
+    @TempDir
+    private Path tempDir;
+
+    private User ana;
+
+    @BeforeEach
+    public void setUp() {
+        ana = userRepository.save(User.builder().name("Ana").surnames("s").username("ana").phoneNumber("600")
+                .email("ana@example.com").password("x").rol(Rol.USUARIO).build());
+        taskRepository.save(Task.builder().title("existente").description("d").date(LocalDate.of(2025, 1, 1)).time(LocalTime.NOON)
+                .assigmentFor(ana).status(false).labels(labels(labelRepository, "a")).build());
+        entityManager.flush();
+    }
+
+    @Test
+    public void csvImport_insertsValidRowsInBatchesAndReportsRejected() throws Exception {
+        String csv = "title,description,date,time,assigneeEmail,status,labels\r\n"
+                + "uno,\"varias\r\nlíneas, con \"\"comillas\"\"\",2025-02-01,10:00,ana@example.com,false,a|b\r\n"
+                + "existente,d,2025-02-01,10:00,ana@example.com,false,a\r\n"
+                + "dos,d,2025-13-01,10:00,ana@example.com,false,a\r\n"
+                + "\r\n"
+                + "tres,d,2025-02-03,10:00,nadie@example.com,true,a\r\n"
+                + "cuatro,d,2025-02-04,10:00,ana@example.com,true,\r\n"
+                + "cinco,d,2025-02-05,10:00,ana@example.com,true,c\r\n";
+
+        TaskImportStatusDTO status = run(TaskFileFormat.CSV, csv);
+
+        assertEquals(ImportStatus.COMPLETED, status.getStatus());
+        assertEquals(6, status.getProcessed());
+        assertEquals(2, status.getImported());
+        assertEquals(4, status.getRejected());
+        assertTrue(status.getErrors().contains("registro 7: debes introducir una etiqueta como minimo"), status.getErrors().toString());
+        Task uno = taskRepository.findAll().stream().filter(task -> task.getTitle().equals("uno")).findFirst().orElseThrow();
+        assertEquals("varias\r\nlíneas, con \"comillas\"", uno.getDescription());
+        assertEquals(List.of("a", "b"), TaskMapper.labelNames(uno.getLabels()));
+        assertEquals(3, taskRepository.count());
+    }
+
+    @Test
+    public void ndjsonImport_acceptsExportedRowsAndRejectsMalformedLines() throws Exception {
+        String ndjson = "{\"id\":7,\"title\":\"uno\",\"description\":\"d\",\"date\":\"2025-02-01\",\"time\":\"10:00:00\",\"assigmentFor\":{\"id\":" + ana.getId() + ",\"name\":\"Ana\"},\"status\":false,\"labels\":[\"a\"]}\n"
+                + "{\"title\":\"dos\"\n"
+                + "{\"title\":\"muy largo para ser un titulo valido\",\"description\":\"d\",\"date\":\"2025-02-01\",\"time\":\"10:00\",\"assigmentFor\":{\"id\":" + ana.getId() + "},\"status\":false,\"labels\":[\"a\"]}\n";
+
+        TaskImportStatusDTO status = run(TaskFileFormat.NDJSON, ndjson);
+
+        assertEquals(1, status.getImported());
+        assertEquals(2, status.getRejected());
+        assertTrue(status.getErrors().get(0).startsWith("línea 2: JSON inválido"), status.getErrors().toString());
+        assertEquals("línea 3: el titulo no puede tener mas de 25 caracteres", status.getErrors().get(1));
+    }
+
+    @Test
+    public void csvImport_failsWithoutRequiredColumns() throws Exception {
+        TaskImportStatusDTO status = run(TaskFileFormat.CSV, "title,description\r\nuno,d\r\n");
+
+        assertEquals(ImportStatus.FAILED, status.getStatus());
+        assertEquals("Falta la columna date en la cabecera CSV", status.getMessage());
+    }
+
+    @Test
+    public void start_rejectsEmptyBodiesAndBodiesAboveTheLimit() {
+        IllegalArgumentException empty = assertThrows(IllegalArgumentException.class,
+                () -> taskImportService.start(new ByteArrayInputStream(new byte[0]), null, TaskFileFormat.CSV));
+        IllegalArgumentException tooLarge = assertThrows(IllegalArgumentException.class,
+                () -> taskImportService.start(new ByteArrayInputStream(new byte[1025]), "grande.csv", TaskFileFormat.CSV));
+
+        assertEquals("El fichero de importación está vacío", empty.getMessage());
+        assertTrue(tooLarge.getMessage().startsWith("El fichero de importación es demasiado grande"));
+    }
+
+    private TaskImportStatusDTO run(TaskFileFormat format, String content) throws Exception {
+        Path file = Files.writeString(tempDir.resolve("import." + format.getExtension()), content, StandardCharsets.UTF_8);
+        TaskImportService.ImportJob job = new TaskImportService.ImportJob("test", file.getFileName().toString(), format);
+        taskImportService.run(job, file);
+        return job.snapshot();
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.catalog.services;
+
+import com.example.catalog.domain.dto.LabelCountDTO;
+import com.example.catalog.domain.dto.TaskResponseDTO;
+import com.example.catalog.domain.entities.Label;
+import com.example.catalog.domain.entities.Task;
+import com.example.catalog.domain.entities.User;
+import com.example.catalog.domain.enums.Rol;
+import com.example.catalog.repositories.TaskRepository;
+import com.example.catalog.repositories.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+@Import(TaskLabelService.class)
+public class TaskLabelServiceTest {
+
+    @Autowired
+    private TaskLabelService taskLabelService;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private User ana;
+    private User luis;
+
+    @BeforeEach
+    public void setUp() {
+        ana = userRepository.save(user("ana"));
+        luis = userRepository.save(user("luis"));
+    }
+
+    @Test
+    public void resolve_normalizesNamesAndReusesExistingLabels() {
+        Map<String, Label> first = taskLabelService.resolve(List.of(" DAW", "DIW", "", "DAW"));
+        Map<String, Label> second = taskLabelService.resolve(List.of("DAW", "DWEC"));
+
+        assertEquals(Set.of("DAW", "DIW"), first.keySet());
+        assertEquals(first.get("DAW").getId(), second.get("DAW").getId());
+        assertNotNull(second.get("DWEC").getId());
+    }
+
+    @Test
+    public void applyCounts_tracksCreateReassignAndDelete() {
+        Task first = task("uno", ana, LocalDate.of(2025, 1, 1), "DAW", "DIW");
+        Task second = task("dos", ana, LocalDate.of(2025, 1, 2), "DAW");
+
+        assertCounts(ana, Map.of("DAW", 2L, "DIW", 1L));
+
+        LabelCountDelta delta = new LabelCountDelta().remove(second);
+        second.setAssigmentFor(luis);
+        second.setLabels(taskLabelService.resolveSet(List.of("DAW", "DWEC")));
+        taskLabelService.applyCounts(delta.add(second));
+
+        assertCounts(ana, Map.of("DAW", 1L, "DIW", 1L));
+        assertCounts(luis, Map.of("DAW", 1L, "DWEC", 1L));
+
+        taskLabelService.applyCounts(new LabelCountDelta().remove(first));
+        taskRepository.delete(first);
+
+        assertCounts(ana, Map.of());
+        assertEquals(List.of("DAW", "DWEC"), taskLabelService.countsByUserEmail(luis.getEmail()).stream().map(LabelCountDTO::getName).toList());
+    }
+
+    @Test
+    public void search_filtersByAnyOrAllLabelsAssigneeAndDates() {
+        task("uno", ana, LocalDate.of(2025, 1, 1), "DAW", "DIW");
+        task("dos", ana, LocalDate.of(2025, 1, 2), "DAW");
+        task("tres", luis, LocalDate.of(2025, 1, 3), "DIW", "DAW");
+        task("cuatro", ana, LocalDate.of(2025, 2, 1), "DIW");
+        entityManager.flush();
+        entityManager.clear();
+        PageRequest page = PageRequest.of(0, 10);
+
+        assertEquals(List.of("uno", "dos", "tres", "cuatro"), titles(taskRepository.searchAnyLabel(List.of("DAW", "DIW"), null, null, null, page).getContent()));
+        assertEquals(List.of("uno", "tres"), titles(taskRepository.searchAllLabels(List.of("DAW", "DIW"), 2, null, null, null, page).getContent()));
+        assertEquals(List.of("uno"), titles(taskRepository.searchAllLabels(List.of("DAW", "DIW"), 2, ana.getEmail(), null, null, page).getContent()));
+        assertEquals(List.of("dos", "tres"), titles(taskRepository.searchAnyLabel(List.of("DAW"), null, LocalDate.of(2025, 1, 2), LocalDate.of(2025, 1, 31), page).getContent()));
+        assertEquals(3, taskRepository.search(ana.getEmail(), null, null, page).getTotalElements());
+        assertEquals(List.of("DAW", "DIW"), taskRepository.findViewsByTitle("tres").get(0).getLabels());
+    }
+
+    private Task task(String title, User user, LocalDate date, String... labels) {
+        Task task = taskRepository.save(Task.builder().title(title).description("d").date(date).time(LocalTime.NOON)
+                .assigmentFor(user).status(false).labels(taskLabelService.resolveSet(List.of(labels))).build());
+        taskLabelService.applyCounts(new LabelCountDelta().add(task));
+        return task;
+    }
+
+    private void assertCounts(User user, Map<String, Long> expected) {
+        Map<String, Long> counts = new HashMap<>();
+        taskLabelService.countsByUserEmail(user.getEmail()).forEach(count -> counts.put(count.getName(), count.getCount()));
+        assertEquals(expected, counts);
+    }
+
+    private static List<String> titles(List<TaskResponseDTO> tasks) {
+        return tasks.stream().map(TaskResponseDTO::getTitle).toList();
+    }
+
+    private static User user(String name) {
+        return User.builder().name(name).surnames("s").username(name).phoneNumber("600" + name.length())
+                .email(name + "@example.com").password("x").rol(Rol.USUARIO).build();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.catalog.services;
+
+import com.example.catalog.domain.entities.StoredFile;
+import com.example.catalog.repositories.StoredFileRepository;
+import com.example.catalog.services.storage.LocalBlobStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ThumbnailServiceTest {
+
+    @TempDir
+    private Path tempDir;
+    private StoredFileRepository repository;
+    private SimpleMeterRegistry meterRegistry;
+    private ThumbnailService thumbnailService;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        repository = mock(StoredFileRepository.class);
+        when(repository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        meterRegistry = new SimpleMeterRegistry();
+        thumbnailService = new ThumbnailService(repository, new LocalBlobStore(tempDir.resolve("blobs").toString()), meterRegistry, new int[]{64, 32}, 1_000_000, 0.85f, 1, 10);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        thumbnailService.shutdown();
+    }
+
+    @Test
+    public void resolveSize_picksTheSmallestThumbnailCoveringTheRequest() {
+        assertNull(thumbnailService.resolveSize(null));
+        assertEquals(32, thumbnailService.resolveSize(20));
+        assertEquals(64, thumbnailService.resolveSize(33));
+        assertNull(thumbnailService.resolveSize(100));
+        assertThrows(IllegalArgumentException.class, () -> thumbnailService.resolveSize(0));
+    }
+
+    @Test
+    public void generate_writesEverySizeKeepingAspectRatioAndRecordsMetrics() throws Exception {
+        StoredFile original = image("foto.png", 400, 200, BufferedImage.TYPE_INT_RGB);
+
+        thumbnailService.generate(original);
+
+        BufferedImage small = ImageIO.read(Path.of(ThumbnailService.thumbnailPath(original.getPath(), 32)).toFile());
+        BufferedImage large = ImageIO.read(Path.of(ThumbnailService.thumbnailPath(original.getPath(), 64)).toFile());
+        assertEquals(32, small.getWidth());
+        assertEquals(16, small.getHeight());
+        assertEquals(64, large.getWidth());
+        ArgumentCaptor<StoredFile> saved = ArgumentCaptor.forClass(StoredFile.class);
+        verify(repository, times(2)).save(saved.capture());
+        assertEquals(List.of("image/jpeg", "image/jpeg"), saved.getAllValues().stream().map(StoredFile::getContentType).toList());
+        assertEquals(1, meterRegistry.get("files.thumbnail.generation").timer().count());
+        assertEquals(2, meterRegistry.get("files.thumbnail.saved").summary().count());
+    }
+
+    @Test
+    public void generate_keepsTransparencyAsPngAndSkipsOversizedImages() throws Exception {
+        StoredFile transparent = image("logo.png", 100, 100, BufferedImage.TYPE_INT_ARGB);
+        StoredFile huge = image("enorme.png", 2000, 1000, BufferedImage.TYPE_INT_RGB);
+
+        thumbnailService.generate(transparent);
+        thumbnailService.generate(huge);
+
+        ArgumentCaptor<StoredFile> saved = ArgumentCaptor.forClass(StoredFile.class);
+        verify(repository, times(2)).save(saved.capture());
+        assertTrue(saved.getAllValues().stream().allMatch(file -> file.getContentType().equals("image/png")));
+        assertFalse(Files.exists(Path.of(ThumbnailService.thumbnailPath(huge.getPath(), 32))));
+        assertEquals(1.0, meterRegistry.get("files.thumbnail.failures").counter().count());
+        verify(repository).markThumbnailFailed(eq(huge.getPath()), any());
+        verify(repository, never()).markThumbnailFailed(eq(transparent.getPath()), any());
+    }
+
+    private StoredFile image(String name, int width, int height, int type) throws Exception {
+        Path path = tempDir.resolve(name);
+        ImageIO.write(new BufferedImage(width, height, type), "png", path.toFile());
+        return new StoredFile(path.toString(), "x", "image/png", Files.size(path), Instant.now(), null, null, null);
+    }
+}
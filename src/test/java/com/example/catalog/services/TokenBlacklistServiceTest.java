@@ -0,0 +1,72 @@
+package com.example.catalog.services;
+
+import com.example.catalog.segurity.jwt.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenBlacklistServiceTest {
+
+    private final JwtUtil jwtUtil = new JwtUtil();
+
+    @Test
+    public void logout_revokesOnlyThatToken() {
+        TokenBlacklistService service = new TokenBlacklistService(jwtUtil, new SimpleMeterRegistry(), 1000);
+        String token = jwtUtil.generateToken(new User("user@example.com", "x", List.of()));
+        String other = jwtUtil.generateToken(new User("user@example.com", "x", List.of()));
+
+        service.addTokenToBlacklist(token);
+
+        assertTrue(service.isTokenBlacklisted(token));
+        assertFalse(service.isTokenBlacklisted(other));
+        assertEquals(1, service.size());
+    }
+
+    @Test
+    public void purgeExpired_dropsEntriesOnceTheTokenHasExpired() {
+        TokenBlacklistService service = new TokenBlacklistService(jwtUtil, new SimpleMeterRegistry(), 1000);
+        service.revoke("expired", Instant.now().minusSeconds(1));
+        service.revoke("live", Instant.now().plusSeconds(3600));
+
+        service.purgeExpired();
+
+        assertFalse(service.isRevoked("expired"));
+        assertTrue(service.isRevoked("live"));
+        assertEquals(1, service.getExpiredEvictions());
+    }
+
+    @Test
+    public void revoke_neverDropsALiveRevocationAboveMaxEntries() {
+        TokenBlacklistService service = new TokenBlacklistService(jwtUtil, new SimpleMeterRegistry(), 10);
+        for (int i = 0; i < 50; i++) {
+            service.revoke("jti-" + i, Instant.now().plusSeconds(60 + i));
+        }
+
+        assertEquals(50, service.size());
+        assertEquals(40, service.getOverCapacityRevocations());
+        for (int i = 0; i < 50; i++) {
+            assertTrue(service.isRevoked("jti-" + i));
+        }
+        assertFalse(service.isRevoked("jti-50"));
+    }
+
+    @Test
+    public void revoke_atCapacityMakesRoomOnlyWithExpiredEntries() {
+        TokenBlacklistService service = new TokenBlacklistService(jwtUtil, new SimpleMeterRegistry(), 2);
+        service.revoke("expired", Instant.now().minusSeconds(120));
+        service.revoke("live", Instant.now().plusSeconds(3600));
+
+        service.revoke("new", Instant.now().plusSeconds(3600));
+
+        assertEquals(2, service.size());
+        assertEquals(0, service.getOverCapacityRevocations());
+        assertFalse(service.isRevoked("expired"));
+        assertTrue(service.isRevoked("live"));
+        assertTrue(service.isRevoked("new"));
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.catalog.services.email;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BrevoClientTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<JsonNode> requests = new CopyOnWriteArrayList<>();
+    private final List<String> apiKeys = new CopyOnWriteArrayList<>();
+    private final AtomicInteger status = new AtomicInteger(201);
+    // las peticiones que incluyen este destinatario se rechazan
+    private volatile String rejectedRecipient = "-";
+    private HttpServer server;
+
+    @BeforeEach
+    public void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v3/smtp/email", exchange -> {
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            requests.add(request);
+            apiKeys.add(exchange.getRequestHeaders().getFirst("api-key"));
+            byte[] body = "{\"messageIds\":[]}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(request.toString().contains(rejectedRecipient) ? 500 : status.get(), body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    public void sendBatch_usesOneRequestWithMessageVersions() {
+        BrevoClient client = client(100);
+
+        client.sendBatch(List.of(
+                new OutgoingEmail("a@example.com", "Grupo actualizado: A", "<p>a</p>", null),
+                new OutgoingEmail("b@example.com", "Grupo actualizado: A", "<p>b</p>", null),
+                new OutgoingEmail("c@example.com", "Grupo actualizado: A", "<p>c</p>", null))).forEach(BrevoClient::await);
+
+        assertEquals(1, requests.size());
+        JsonNode versions = requests.get(0).get("messageVersions");
+        assertEquals(3, versions.size());
+        assertEquals("b@example.com", versions.get(1).get("to").get(0).get("email").asText());
+        assertEquals("<p>b</p>", versions.get(1).get("htmlContent").asText());
+        assertEquals("noreply@example.com", requests.get(0).get("sender").get("email").asText());
+        assertEquals("test-key", apiKeys.get(0));
+    }
+
+    @Test
+    public void sendBatch_splitsIntoChunksOfMaxVersions() {
+        BrevoClient client = client(2);
+
+        List<CompletableFuture<Void>> results = client.sendBatch(List.of(
+                new OutgoingEmail("a@example.com", "s", "<p>a</p>", null),
+                new OutgoingEmail("b@example.com", "s", "<p>b</p>", null),
+                new OutgoingEmail("c@example.com", "s", "<p>c</p>", null)));
+        results.forEach(BrevoClient::await);
+
+        assertEquals(3, results.size());
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    public void sendBatch_failsOnlyTheEmailsOfTheRejectedChunk() {
+        rejectedRecipient = "c@example.com";
+        BrevoClient client = client(2);
+
+        List<CompletableFuture<Void>> results = client.sendBatch(List.of(
+                new OutgoingEmail("a@example.com", "s", "<p>a</p>", null),
+                new OutgoingEmail("b@example.com", "s", "<p>b</p>", null),
+                new OutgoingEmail("c@example.com", "s", "<p>c</p>", null)));
+
+        BrevoClient.await(results.get(0));
+        BrevoClient.await(results.get(1));
+        assertThrows(EmailDeliveryException.class, () -> BrevoClient.await(results.get(2)));
+    }
+
+    @Test
+    public void send_failsOnErrorStatus() {
+        status.set(500);
+        BrevoClient client = client(100);
+
+        assertThrows(EmailDeliveryException.class,
+                () -> BrevoClient.await(client.send(new OutgoingEmail("a@example.com", "s", null, "texto"))));
+        assertFalse(requests.get(0).has("messageVersions"));
+        assertEquals("a@example.com", requests.get(0).get("to").get(0).get("email").asText());
+    }
+
+    private BrevoClient client(int maxVersions) {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/v3";
+        return new BrevoClient(objectMapper, url, "test-key", "noreply@example.com", "MemoWorks", 1000, 5000, 4, maxVersions);
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.catalog.services.email;
+
+import com.example.catalog.domain.entities.EmailJob;
+import com.example.catalog.domain.enums.EmailJobStatus;
+import com.example.catalog.repositories.EmailJobRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.client.RestClientException;
+import org.thymeleaf.exceptions.TemplateProcessingException;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class EmailOutboxDispatcherTest {
+
+    private EmailJobRepository repository;
+    private EmailService emailService;
+    private EmailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    public void setUp() {
+        repository = mock(EmailJobRepository.class);
+        emailService = mock(EmailService.class);
+        dispatcher = new EmailOutboxDispatcher(repository, emailService, new ObjectMapper(), mock(PlatformTransactionManager.class), 1, 10);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "backoffSeconds", 10L);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void deliver_marksJobSentAndRendersStoredModel() {
+        EmailJob job = job("task-created.html", "{\"task\":{\"title\":\"Memo\"}}", null, 0);
+
+        dispatcher.deliver(job);
+
+        verify(emailService).sendTemplateEmail(eq("user@example.com"), eq("Asunto"), eq("task-created.html"), eq(Map.of("task", Map.of("title", "Memo"))));
+        assertEquals(EmailJobStatus.SENT, job.getStatus());
+        assertNotNull(job.getSentAt());
+        verify(repository).save(job);
+    }
+
+    @Test
+    public void deliver_schedulesRetryWithBackoffOnProviderFailure() {
+        EmailJob job = job("task-created.html", null, null, 1);
+        doThrow(new RestClientException("503")).when(emailService).sendTemplateEmail(any(), any(), any(), any());
+
+        Instant before = Instant.now();
+        dispatcher.deliver(job);
+
+        assertEquals(EmailJobStatus.PENDING, job.getStatus());
+        assertEquals(2, job.getAttempts());
+        assertFalse(job.getNextAttemptAt().isBefore(before.plusSeconds(20)));
+        assertEquals("503", job.getLastError());
+    }
+
+    @Test
+    public void deliver_deadLettersAfterMaxAttempts() {
+        EmailJob job = job(null, null, "texto", 2);
+        doThrow(new RestClientException("down")).when(emailService).sendSimpleEmail(any(), any(), any());
+
+        dispatcher.deliver(job);
+
+        assertEquals(EmailJobStatus.DEAD, job.getStatus());
+        assertEquals(3, job.getAttempts());
+    }
+
+    @Test
+    public void deliver_sendsFallbackTextWhenTemplateCannotBeRendered() {
+        EmailJob job = job("missing.html", null, "texto alternativo", 0);
+        doThrow(new TemplateProcessingException("missing")).when(emailService).sendTemplateEmail(any(), any(), any(), any());
+
+        dispatcher.deliver(job);
+
+        verify(emailService).sendSimpleEmail("user@example.com", "Asunto", "texto alternativo");
+        assertEquals(EmailJobStatus.SENT, job.getStatus());
+    }
+
+    @Test
+    public void deliverGroup_sendsJobsOfTheSameTemplateAsOneBatch() {
+        EmailJob first = job("group-updated.html", "{\"group\":{\"name\":\"A\"}}", null, 0);
+        EmailJob second = job("group-updated.html", "{\"group\":{\"name\":\"A\"}}", null, 0);
+        second.setRecipient("other@example.com");
+
+        dispatcher.deliverGroup(List.of(first, second));
+
+        verify(emailService).sendTemplateBatch(eq("group-updated.html"), argThat(emails -> emails.size() == 2));
+        verify(emailService, never()).sendTemplateEmail(any(), any(), any(), any());
+        assertEquals(EmailJobStatus.SENT, first.getStatus());
+        assertEquals(EmailJobStatus.SENT, second.getStatus());
+    }
+
+    @Test
+    public void deliverGroup_failsOnlyTheJobsOfTheRejectedRequest() {
+        EmailJob first = job("group-updated.html", "{\"group\":{\"name\":\"A\"}}", null, 0);
+        EmailJob second = job("group-updated.html", "{\"group\":{\"name\":\"A\"}}", null, 0);
+        second.setRecipient("other@example.com");
+        when(emailService.sendTemplateBatch(any(), any())).thenReturn(Map.of(1, new EmailDeliveryException("500")));
+
+        dispatcher.deliverGroup(List.of(first, second));
+
+        assertEquals(EmailJobStatus.SENT, first.getStatus());
+        assertEquals(EmailJobStatus.PENDING, second.getStatus());
+        assertEquals(1, second.getAttempts());
+        assertEquals("500", second.getLastError());
+    }
+
+    private EmailJob job(String templateName, String model, String fallbackText, int attempts) {
+        return EmailJob.builder()
+                .id(1L)
+                .recipient("user@example.com")
+                .subject("Asunto")
+                .templateName(templateName)
+                .model(model)
+                .fallbackText(fallbackText)
+                .status(EmailJobStatus.SENDING)
+                .attempts(attempts)
+                .nextAttemptAt(Instant.now())
+                .createdAt(Instant.now())
+                .build();
+    }
+}
@@ -4,7 +4,6 @@ import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
-import org.thymeleaf.spring6.SpringTemplateEngine;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -14,8 +13,8 @@ public class EmailServiceImplTest {
     @Test
     public void sendSimpleEmail_callsMailSender() {
         JavaMailSender mailSender = mock(JavaMailSender.class);
-        SpringTemplateEngine templateEngine = mock(SpringTemplateEngine.class);
-        EmailServiceImpl service = new EmailServiceImpl(mailSender, templateEngine);
+        EmailTemplateRenderer templateRenderer = mock(EmailTemplateRenderer.class);
+        EmailServiceImpl service = new EmailServiceImpl(mailSender, templateRenderer);
 
         // set fromAddress via reflection if needed, but we'll skip and just ensure no exception
         service.sendSimpleEmail("test@example.com", "Asunto", "Cuerpo");
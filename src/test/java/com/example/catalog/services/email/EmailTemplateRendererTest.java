@@ -0,0 +1,37 @@
+package com.example.catalog.services.email;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmailTemplateRendererTest {
+
+    @Test
+    public void render_usesViewModelsAndPublishesPerTemplateMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        EmailTemplateRenderer renderer = new EmailTemplateRenderer(registry, false);
+        renderer.preload();
+
+        String html = renderer.render("task-created.html", Map.of(
+                "task", new EmailModels.TaskView(1L, "MemoWorks", "realizar proyecto", "2025-12-18", "18:45"),
+                "user", new EmailModels.UserView(1L, null, "usuario", "user@example.com")));
+
+        assertTrue(html.contains("MemoWorks"));
+        assertTrue(html.contains("usuario"));
+        assertEquals(1, registry.get("email.template.render").tag("template", "task-created.html").timer().count());
+        assertEquals(html.getBytes(StandardCharsets.UTF_8).length, registry.get("email.template.size").tag("template", "task-created.html").summary().totalAmount(), 0.0);
+    }
+
+    @Test
+    public void render_acceptsModelsReadBackFromTheOutbox() {
+        EmailTemplateRenderer renderer = new EmailTemplateRenderer(new SimpleMeterRegistry(), true);
+
+        String html = renderer.render("group-updated.html", Map.of("group", Map.of("name", "DAW")));
+
+        assertTrue(html.contains("DAW"));
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.catalog.services.search;
+
+import com.example.catalog.domain.dto.SearchHitDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchIndexTest {
+
+    private static final Set<String> ALL = Set.of(SearchDocument.TASK, SearchDocument.GROUP);
+
+    @TempDir
+    private Path tempDir;
+    private SimpleMeterRegistry meterRegistry;
+    private SearchIndex index;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        index = new SearchIndex(tempDir.toString(), meterRegistry);
+        index.open();
+        index.apply(List.of(
+                new SearchDocument(SearchDocument.TASK, 1L, "Preparar presupuesto", "Revisar las cifras del trimestre", List.of("finanzas"), Set.of(10L)),
+                new SearchDocument(SearchDocument.TASK, 2L, "Diseño de la portada", "Bocetos para la revista", List.of("diseno", "urgente"), Set.of(10L)),
+                new SearchDocument(SearchDocument.TASK, 3L, "Presupuesto privado", "Solo para otro usuario", List.of(), Set.of(20L)),
+                new SearchDocument(SearchDocument.GROUP, 4L, "Equipo de finanzas", "Presupuestos y cierres", List.of(), Set.of(10L, 20L))
+        ), List.of());
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        index.close();
+    }
+
+    @Test
+    public void search_matchesPrefixesAndIgnoresAccents() {
+        assertEquals(List.of(2L), ids(index.search("dise", 10L, ALL, 10)));
+        assertEquals(List.of(2L), ids(index.search("DISEÑO portada", 10L, ALL, 10)));
+    }
+
+    @Test
+    public void search_toleratesTypos() {
+        List<SearchHitDTO> hits = index.search("presupeusto", 10L, ALL, 10);
+
+        assertTrue(ids(hits).containsAll(List.of(1L, 4L)));
+        assertEquals(1L, hits.get(0).getId(), "title matches rank above description matches");
+    }
+
+    @Test
+    public void search_onlyReturnsDocumentsVisibleToTheUser() {
+        assertFalse(ids(index.search("presupuesto", 10L, ALL, 10)).contains(3L));
+        assertEquals(List.of(3L, 4L), ids(index.search("presupuesto", 20L, ALL, 10)).stream().sorted().toList());
+    }
+
+    @Test
+    public void search_filtersByTypeAndRequiresEveryWord() {
+        assertEquals(List.of(4L), ids(index.search("finanzas", 10L, Set.of(SearchDocument.GROUP), 10)));
+        assertTrue(index.search("presupuesto portada", 10L, ALL, 10).isEmpty());
+    }
+
+    @Test
+    public void apply_replacesAndDeletesByKey() {
+        index.apply(List.of(new SearchDocument(SearchDocument.TASK, 1L, "Cerrar trimestre", "", List.of(), Set.of(10L))),
+                List.of(SearchDocument.key(SearchDocument.GROUP, 4L)));
+
+        assertEquals(List.of(1L), ids(index.search("trimestre", 10L, ALL, 10)));
+        assertTrue(index.search("finanzas", 10L, Set.of(SearchDocument.GROUP), 10).isEmpty());
+    }
+
+    @Test
+    public void rebuild_replacesWholeIndexAndRecordsMetrics() {
+        long documents = index.rebuild(sink -> sink.accept(
+                new SearchDocument(SearchDocument.GROUP, 9L, "Nuevo", null, List.of(), Set.of(10L))));
+        index.search("nuevo", 10L, ALL, 10);
+
+        assertEquals(1, documents);
+        assertEquals(1.0, meterRegistry.get("search.index.documents").gauge().value());
+        assertEquals(1, meterRegistry.get("search.query").tag("type", "all").timer().count());
+        assertTrue(index.search("presupuesto", 10L, ALL, 10).isEmpty());
+    }
+
+    @Test
+    public void rebuild_keepsWritesAppliedWhileItRunsAndServesSearches() {
+        index.rebuild(sink -> {
+            // commit concurrente: llega tras la lectura de la base de datos que alimenta la reconstrucción
+            index.apply(List.of(new SearchDocument(SearchDocument.TASK, 1L, "Cerrar trimestre", "", List.of(), Set.of(10L))),
+                    List.of(SearchDocument.key(SearchDocument.GROUP, 4L)));
+            assertEquals(List.of(2L), ids(index.search("portada", 10L, ALL, 10)));
+
+            sink.accept(new SearchDocument(SearchDocument.TASK, 1L, "Preparar presupuesto", "", List.of(), Set.of(10L)));
+            sink.accept(new SearchDocument(SearchDocument.TASK, 2L, "Diseño de la portada", "", List.of(), Set.of(10L)));
+            sink.accept(new SearchDocument(SearchDocument.GROUP, 4L, "Equipo de finanzas", "", List.of(), Set.of(10L)));
+        });
+
+        assertEquals(List.of(1L), ids(index.search("trimestre", 10L, ALL, 10)));
+        assertEquals(List.of(2L), ids(index.search("portada", 10L, ALL, 10)));
+        assertTrue(index.search("finanzas", 10L, ALL, 10).isEmpty());
+        assertTrue(index.search("privado", 20L, ALL, 10).isEmpty());
+    }
+
+    private static List<Long> ids(List<SearchHitDTO> hits) {
+        return hits.stream().map(SearchHitDTO::getId).toList();
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.catalog.services.storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Servidor S3 mínimo en proceso para los tests: objetos y subidas multipart en memoria, y
+// comprobación de la firma SigV4 (en cabeceras o prefirmada) con lo que llega realmente por la red.
+class FakeS3Server implements AutoCloseable {
+    static final String ACCESS_KEY = "test-access";
+    static final String SECRET_KEY = "test-secret";
+    static final String REGION = "eu-west-1";
+    static final String BUCKET = "avatars";
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final Pattern AUTHORIZATION = Pattern.compile("SignedHeaders=([^,]+), Signature=([0-9a-f]+)");
+    private static final Pattern PART_NUMBER = Pattern.compile("<PartNumber>(\\d+)</PartNumber>");
+
+    record StoredObject(byte[] bytes, String contentType) {
+    }
+
+    private final HttpServer server;
+    private final SigV4 signer = new SigV4(ACCESS_KEY, SECRET_KEY, REGION);
+    final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+    private final Map<String, String> uploadTypes = new ConcurrentHashMap<>();
+    private final AtomicInteger uploadIds = new AtomicInteger();
+    final List<String> requests = new CopyOnWriteArrayList<>();
+
+    FakeS3Server() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    String endpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            URI uri = exchange.getRequestURI();
+            String rawQuery = uri.getRawQuery() == null ? "" : uri.getRawQuery();
+            Map<String, String> query = parse(rawQuery);
+            requests.add(method + " " + uri.getRawPath() + (rawQuery.isEmpty() ? "" : "?" + rawQuery));
+            if (!signatureValid(exchange, method, uri.getRawPath(), rawQuery, query)) {
+                respond(exchange, 403, "<Error><Code>SignatureDoesNotMatch</Code></Error>");
+                return;
+            }
+            String prefix = "/" + BUCKET + "/";
+            if (!uri.getRawPath().startsWith(prefix)) {
+                respond(exchange, 404, "<Error><Code>NoSuchBucket</Code></Error>");
+                return;
+            }
+            String key = URLDecoder.decode(uri.getRawPath().substring(prefix.length()).replace("+", "%2B"), StandardCharsets.UTF_8);
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            switch (method) {
+                case "HEAD" -> {
+                    StoredObject object = objects.get(key);
+                    exchange.sendResponseHeaders(object == null ? 404 : 200, -1);
+                }
+                case "GET" -> {
+                    StoredObject object = objects.get(key);
+                    if (object == null) {
+                        respond(exchange, 404, "<Error><Code>NoSuchKey</Code></Error>");
+                    } else {
+                        exchange.getResponseHeaders().add("Content-Type", object.contentType());
+                        exchange.sendResponseHeaders(200, object.bytes().length);
+                        try (OutputStream out = exchange.getResponseBody()) {
+                            out.write(object.bytes());
+                        }
+                    }
+                }
+                case "PUT" -> {
+                    if (query.containsKey("uploadId")) {
+                        Map<Integer, byte[]> parts = uploads.get(query.get("uploadId"));
+                        int partNumber = Integer.parseInt(query.get("partNumber"));
+                        parts.put(partNumber, body);
+                        exchange.getResponseHeaders().add("ETag", "\"part-" + partNumber + "\"");
+                        exchange.sendResponseHeaders(200, -1);
+                    } else {
+                        objects.put(key, new StoredObject(body, exchange.getRequestHeaders().getFirst("Content-Type")));
+                        exchange.sendResponseHeaders(200, -1);
+                    }
+                }
+                case "POST" -> {
+                    if (query.containsKey("uploads")) {
+                        String uploadId = "upload-" + uploadIds.incrementAndGet();
+                        uploads.put(uploadId, new ConcurrentHashMap<>());
+                        uploadTypes.put(uploadId, exchange.getRequestHeaders().getFirst("Content-Type"));
+                        respond(exchange, 200, "<InitiateMultipartUploadResult><Bucket>" + BUCKET + "</Bucket><Key>" + key
+                                + "</Key><UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>");
+                    } else {
+                        String uploadId = query.get("uploadId");
+                        Map<Integer, byte[]> parts = uploads.remove(uploadId);
+                        ByteArrayOutputStream assembled = new ByteArrayOutputStream();
+                        Matcher matcher = PART_NUMBER.matcher(new String(body, StandardCharsets.UTF_8));
+                        while (matcher.find()) {
+                            assembled.write(parts.get(Integer.parseInt(matcher.group(1))));
+                        }
+                        objects.put(key, new StoredObject(assembled.toByteArray(), uploadTypes.remove(uploadId)));
+                        respond(exchange, 200, "<CompleteMultipartUploadResult><Key>" + key + "</Key></CompleteMultipartUploadResult>");
+                    }
+                }
+                case "DELETE" -> {
+                    if (query.containsKey("uploadId")) {
+                        uploads.remove(query.get("uploadId"));
+                    } else {
+                        objects.remove(key);
+                    }
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                default -> respond(exchange, 405, "");
+            }
+        }
+    }
+
+    private boolean signatureValid(HttpExchange exchange, String method, String rawPath, String rawQuery, Map<String, String> query) {
+        if (query.containsKey("X-Amz-Signature")) {
+            Instant signedAt = TIMESTAMP.parse(query.get("X-Amz-Date"), Instant::from);
+            if (Instant.now().isAfter(signedAt.plusSeconds(Long.parseLong(query.get("X-Amz-Expires"))))) {
+                return false;
+            }
+            String unsigned = Arrays.stream(rawQuery.split("&"))
+                    .filter(param -> !param.startsWith("X-Amz-Signature="))
+                    .reduce((a, b) -> a + "&" + b).orElse("");
+            SortedMap<String, String> headers = new TreeMap<>(Map.of("host", exchange.getRequestHeaders().getFirst("Host")));
+            String canonical = SigV4.canonicalRequest(method, rawPath, SigV4.canonicalQuery(unsigned), headers, SigV4.UNSIGNED_PAYLOAD);
+            return signer.signature(canonical, signedAt).equals(query.get("X-Amz-Signature"));
+        }
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null) return false;
+        Matcher matcher = AUTHORIZATION.matcher(authorization);
+        if (!matcher.find()) return false;
+        SortedMap<String, String> headers = new TreeMap<>();
+        for (String name : matcher.group(1).split(";")) {
+            String value = exchange.getRequestHeaders().getFirst(name);
+            if (value == null) return false;
+            headers.put(name, value);
+        }
+        Instant signedAt = TIMESTAMP.parse(exchange.getRequestHeaders().getFirst("x-amz-date"), Instant::from);
+        String canonical = SigV4.canonicalRequest(method, rawPath, SigV4.canonicalQuery(rawQuery), headers,
+                exchange.getRequestHeaders().getFirst("x-amz-content-sha256"));
+        return signer.signature(canonical, signedAt).equals(matcher.group(2));
+    }
+
+    private static Map<String, String> parse(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        for (String param : rawQuery.split("&")) {
+            if (param.isEmpty()) continue;
+            int eq = param.indexOf('=');
+            String name = eq < 0 ? param : param.substring(0, eq);
+            String value = eq < 0 ? "" : URLDecoder.decode(param.substring(eq + 1), StandardCharsets.UTF_8);
+            params.put(name, value);
+        }
+        return params;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.catalog.services.storage;
+
+import com.example.catalog.repositories.StoredFileRepository;
+import com.example.catalog.services.FileService;
+import com.example.catalog.services.ThumbnailService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+// Dos instancias de FileService sobre la misma base de datos y el mismo bucket, sin cerrojos en
+// memoria compartidos: el recolector de una y una subida del mismo contenido en la otra.
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class S3FileServiceTest {
+
+    private static final long PART_SIZE = 5L * 1024 * 1024;
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 0x0D};
+
+    @TempDir
+    private Path tempDir;
+    @Autowired
+    private StoredFileRepository storedFileRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    private FakeS3Server s3;
+    private S3BlobStore store;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        s3 = new FakeS3Server();
+        store = new S3BlobStore(s3.endpoint(), FakeS3Server.BUCKET, FakeS3Server.REGION, FakeS3Server.ACCESS_KEY,
+                FakeS3Server.SECRET_KEY, "blobs/", tempDir.toString(), PART_SIZE, 3600, 2000, 10000);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        storedFileRepository.deleteAll();
+        s3.close();
+    }
+
+    @Test
+    public void uploadDuringGarbageCollectionOnAnotherInstanceKeepsTheBlob() throws Exception {
+        CountDownLatch deleting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // el recolector de A se detiene justo antes de borrar el objeto del bucket
+        BlobStore pausedStore = new S3BlobStore(s3.endpoint(), FakeS3Server.BUCKET, FakeS3Server.REGION, FakeS3Server.ACCESS_KEY,
+                FakeS3Server.SECRET_KEY, "blobs/", tempDir.toString(), PART_SIZE, 3600, 2000, 10000) {
+            @Override
+            public void delete(String key) throws IOException {
+                deleting.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.delete(key);
+            }
+        };
+        FileService instanceA = fileService(pausedStore);
+        FileService instanceB = fileService(store);
+        String ruta = instanceA.guardarFichero(png("avatar"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> collected = executor.submit(() -> instanceA.borrarSiHuerfano(ruta, Instant.now().plusSeconds(60)));
+            assertTrue(deleting.await(5, TimeUnit.SECONDS));
+
+            Future<String> upload = executor.submit(() -> instanceB.guardarFichero(png("avatar")));
+            // la subida espera al cerrojo de la fila que tiene el recolector
+            assertThrows(TimeoutException.class, () -> upload.get(300, TimeUnit.MILLISECONDS));
+            release.countDown();
+
+            assertTrue(collected.get(5, TimeUnit.SECONDS));
+            assertEquals(ruta, upload.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+
+        assertTrue(store.exists(ruta));
+        assertTrue(storedFileRepository.existsById(ruta));
+    }
+
+    private FileService fileService(BlobStore blobStore) {
+        return new FileService(storedFileRepository, mock(ThumbnailService.class), blobStore, transactionManager,
+                new SimpleMeterRegistry(), 1024, 4);
+    }
+
+    private static ByteArrayInputStream png(String content) {
+        byte[] bytes = new byte[PNG_SIGNATURE.length + content.length()];
+        System.arraycopy(PNG_SIGNATURE, 0, bytes, 0, PNG_SIGNATURE.length);
+        System.arraycopy(content.getBytes(StandardCharsets.US_ASCII), 0, bytes, PNG_SIGNATURE.length, content.length());
+        return new ByteArrayInputStream(bytes);
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.catalog.services.stream;
+
+import com.example.catalog.domain.dto.ActivityEventDTO;
+import com.example.catalog.domain.dto.NotificationResponseDTO;
+import com.example.catalog.domain.entities.Notification;
+import com.example.catalog.repositories.NotificationRepository;
+import com.example.catalog.services.NotificationService;
+import com.example.catalog.web.controllers.NotificationController;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+public class NotificationStreamHubTest {
+
+    private static final String ANA = "ana@example.com";
+
+    private final NotificationRepository repository = mock(NotificationRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private NotificationStreamHub hub;
+
+    @AfterEach
+    public void tearDown() {
+        hub.shutdown();
+    }
+
+    @Test
+    public void stream_deliversNotificationsAndActivityOnlyToTheirUser() throws Exception {
+        hub = hub(8, 100);
+        MockHttpServletResponse ana = open(ANA, null);
+        MockHttpServletResponse bob = open("bob@example.com", null);
+
+        hub.notificationCreated(notification(7L, ANA));
+        hub.activity(ANA, new ActivityEventDTO("task", "created", 3L, "memo"));
+
+        awaitContent(ana, "event:task");
+        String body = ana.getContentAsString();
+        assertTrue(body.contains("id:7\nevent:notification\n"));
+        assertTrue(body.indexOf("event:notification") < body.indexOf("event:task"));
+        assertTrue(body.contains("\"action\":\"created\""));
+        assertEquals("", bob.getContentAsString());
+        assertEquals(2, hub.connectionCount());
+    }
+
+    @Test
+    public void stream_replaysMissedNotificationsFromLastEventIdWithoutDuplicates() throws Exception {
+        hub = hub(8, 100);
+        when(repository.findByUserEmailAndIdGreaterThanOrderByIdAsc(eq(ANA), eq(4L), any(Pageable.class)))
+                .thenReturn(List.of(entity(5L), entity(6L)));
+
+        MockHttpServletResponse ana = open(ANA, "4");
+        awaitContent(ana, "id:6\n");
+        // la 6 ya se reenvió desde la base de datos: su publicación en directo no se repite
+        hub.notificationCreated(notification(6L, ANA));
+        hub.notificationCreated(notification(7L, ANA));
+        awaitContent(ana, "id:7\n");
+
+        String body = ana.getContentAsString();
+        assertTrue(body.indexOf("id:5\n") < body.indexOf("id:6\n"));
+        assertEquals(body.indexOf("id:6\n"), body.lastIndexOf("id:6\n"));
+    }
+
+    @Test
+    public void stream_replaysInCommitOrderIncludingLowerIdsCommittedLater() throws Exception {
+        hub = hub(8, 100);
+        // la 6 se confirmó después de que el cliente recibiera la 7
+        when(repository.findStreamSeq(ANA, 7L)).thenReturn(Optional.of(3L));
+        when(repository.findByUserEmailAndStreamSeqGreaterThanOrderByStreamSeqAsc(eq(ANA), eq(3L), any(Pageable.class)))
+                .thenReturn(List.of(entity(6L), entity(8L)));
+
+        MockHttpServletResponse ana = open(ANA, "7");
+
+        awaitContent(ana, "id:8\n");
+        assertTrue(ana.getContentAsString().indexOf("id:6\n") < ana.getContentAsString().indexOf("id:8\n"));
+        verify(repository, never()).findByUserEmailAndIdGreaterThanOrderByIdAsc(any(), any(), any());
+    }
+
+    @Test
+    public void stream_asksForResyncWhenTooManyNotificationsWereMissed() throws Exception {
+        hub = hub(8, 2);
+        when(repository.findByUserEmailAndIdGreaterThanOrderByIdAsc(eq(ANA), eq(1L), any(Pageable.class)))
+                .thenReturn(List.of(entity(2L), entity(3L), entity(4L)));
+
+        MockHttpServletResponse ana = open(ANA, "1");
+
+        awaitContent(ana, "event:resync");
+        assertFalse(ana.getContentAsString().contains("id:2"));
+    }
+
+    @Test
+    public void stream_closesConnectionsThatCannotKeepUp() throws Exception {
+        hub = hub(2, 100);
+        CountDownLatch replayStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // el reenvío bloqueado simula un cliente lento: los eventos se acumulan en su buffer
+        when(repository.findByUserEmailAndIdGreaterThanOrderByIdAsc(eq(ANA), eq(1L), any(Pageable.class))).thenAnswer(invocation -> {
+            replayStarted.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        open(ANA, "1");
+        assertTrue(replayStarted.await(5, TimeUnit.SECONDS));
+
+        hub.notificationCreated(notification(2L, ANA));
+        hub.notificationCreated(notification(3L, ANA));
+        hub.notificationCreated(notification(4L, ANA));
+        release.countDown();
+
+        assertEquals(0, hub.connectionCount());
+        assertEquals(1.0, meterRegistry.get("notifications.stream.overflows").counter().count());
+    }
+
+    @Test
+    public void subscribe_closesTheOldestStreamAboveThePerUserLimit() throws Exception {
+        hub = new NotificationStreamHub(repository, meterRegistry, 60000, 8, 100, 1, 100);
+        open(ANA, null);
+        MockHttpServletResponse newest = open(ANA, null);
+
+        hub.notificationCreated(notification(9L, ANA));
+
+        awaitContent(newest, "id:9\n");
+        assertEquals(1, hub.connectionCount());
+    }
+
+    private NotificationStreamHub hub(int bufferSize, int replayLimit) {
+        return new NotificationStreamHub(repository, meterRegistry, 60000, bufferSize, replayLimit, 5, 100);
+    }
+
+    private MockHttpServletResponse open(String email, String lastEventId) throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new NotificationController(mock(NotificationService.class), hub)).build();
+        // principal como el de httpBasic (UserDetails de CustomUserDetailsService, no UserPrincipal)
+        User user = new User(email, "hash", AuthorityUtils.createAuthorityList("ROLE_USUARIO"));
+        var builder = get("/api/v1/notifications/stream").principal(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        if (lastEventId != null) builder.header("Last-Event-ID", lastEventId);
+        return mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+    }
+
+    private static void awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        await(() -> {
+            try {
+                return response.getContentAsString().contains(expected);
+            } catch (Exception e) {
+                return false;
+            }
+        });
+        assertTrue(response.getContentAsString().contains(expected), response.getContentAsString());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static NotificationResponseDTO notification(Long id, String email) {
+        return new NotificationResponseDTO(id, "aviso " + id, "mensaje", new Date(0), email, false);
+    }
+
+    private static Notification entity(Long id) {
+        return Notification.builder().id(id).title("aviso " + id).message("mensaje").createdAt(new Date(0)).userEmail(ANA).build();
+    }
+}
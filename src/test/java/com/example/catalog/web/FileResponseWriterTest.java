@@ -0,0 +1,189 @@
+package com.example.catalog.web;
+
+import com.example.catalog.domain.dto.GroupResponseDTO;
+import com.example.catalog.domain.dto.UserResponseDTO;
+import com.example.catalog.domain.entities.StoredFile;
+import com.example.catalog.domain.enums.Rol;
+import com.example.catalog.services.storage.BlobStore;
+import com.example.catalog.services.storage.LocalBlobStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class FileResponseWriterTest {
+
+    private static final String SHA = "ab".repeat(32);
+
+    @TempDir
+    private Path tempDir;
+    private FileResponseWriter writer;
+    private StoredFile file;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Path path = Files.writeString(tempDir.resolve("avatar.png"), "0123456789", StandardCharsets.US_ASCII);
+        file = new StoredFile(path.toString(), SHA, "image/png", 10, Instant.parse("2025-01-01T00:00:00Z"), null, null, null);
+        writer = new FileResponseWriter(new LocalBlobStore(tempDir.resolve("blobs").toString()), 31536000);
+    }
+
+    @Test
+    public void write_sendsBodyWithValidatorsAndStoredContentType() throws Exception {
+        MockHttpServletResponse response = get(new MockHttpServletRequest("GET", "/avatar"));
+
+        assertEquals(200, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+        assertEquals("image/png", response.getContentType());
+        assertEquals("\"" + SHA + "\"", response.getHeader("ETag"));
+        assertNotNull(response.getHeader("Last-Modified"));
+        assertEquals("private, no-cache", response.getHeader("Cache-Control"));
+    }
+
+    @Test
+    public void write_answersNotModifiedForMatchingEtagOrDate() throws Exception {
+        MockHttpServletRequest byEtag = new MockHttpServletRequest("GET", "/avatar");
+        byEtag.addHeader("If-None-Match", "\"" + SHA + "\"");
+        MockHttpServletRequest byDate = new MockHttpServletRequest("GET", "/avatar");
+        byDate.addHeader("If-Modified-Since", "Wed, 01 Jan 2025 00:00:00 GMT");
+
+        MockHttpServletResponse first = get(byEtag);
+        MockHttpServletResponse second = get(byDate);
+
+        assertEquals(304, first.getStatus());
+        assertEquals(0, first.getContentAsByteArray().length);
+        assertEquals(304, second.getStatus());
+    }
+
+    @Test
+    public void write_marksVersionedUrlsImmutable() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/avatar");
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        writer.write(file, SHA, request, response);
+
+        assertEquals("private, max-age=31536000, immutable", response.getHeader("Cache-Control"));
+    }
+
+    @Test
+    public void write_neverMarksTheOriginalImmutableWhenAThumbnailWasRequested() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        writer.write(file, null, 64, SHA, new MockHttpServletRequest("GET", "/avatar"), response);
+
+        assertEquals("0123456789", response.getContentAsString());
+        assertEquals("private, no-cache", response.getHeader("Cache-Control"));
+    }
+
+    @Test
+    public void write_versionsThumbnailsWithTheHashOfTheirOriginal() throws Exception {
+        String original = new LocalBlobStore(tempDir.resolve("blobs").toString()).key(SHA);
+        Path path = Files.writeString(tempDir.resolve("avatar.png.64px"), "thumb", StandardCharsets.US_ASCII);
+        StoredFile thumbnail = new StoredFile(path.toString(), "cd".repeat(32), "image/png", 5, Instant.parse("2025-01-01T00:00:00Z"), null, original, null);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        writer.write(thumbnail, null, 64, SHA, new MockHttpServletRequest("GET", "/avatar"), response);
+        MockHttpServletResponse byOwnHash = new MockHttpServletResponse();
+        writer.write(thumbnail, null, 64, thumbnail.getSha256(), new MockHttpServletRequest("GET", "/avatar"), byOwnHash);
+
+        assertEquals("thumb", response.getContentAsString());
+        assertEquals("private, max-age=31536000, immutable", response.getHeader("Cache-Control"));
+        assertEquals("private, no-cache", byOwnHash.getHeader("Cache-Control"));
+    }
+
+    @Test
+    public void write_servesSingleRangesAndRejectsUnsatisfiableOnes() throws Exception {
+        MockHttpServletRequest partial = new MockHttpServletRequest("GET", "/avatar");
+        partial.addHeader("Range", "bytes=2-5");
+        MockHttpServletRequest outside = new MockHttpServletRequest("GET", "/avatar");
+        outside.addHeader("Range", "bytes=20-");
+        MockHttpServletRequest staleIfRange = new MockHttpServletRequest("GET", "/avatar");
+        staleIfRange.addHeader("Range", "bytes=2-5");
+        staleIfRange.addHeader("If-Range", "\"otro\"");
+
+        MockHttpServletResponse response = get(partial);
+        assertEquals(206, response.getStatus());
+        assertEquals("2345", response.getContentAsString());
+        assertEquals("bytes 2-5/10", response.getHeader("Content-Range"));
+
+        assertEquals(416, get(outside).getStatus());
+        assertEquals("0123456789", get(staleIfRange).getContentAsString());
+    }
+
+    @Test
+    public void write_handsTheFileToTomcatSendfileWhenSupported() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/avatar");
+        request.setAttribute(FileResponseWriter.SENDFILE_SUPPORT, Boolean.TRUE);
+        request.addHeader("Range", "bytes=4-");
+
+        MockHttpServletResponse response = get(request);
+
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(6, response.getContentLengthLong());
+        assertEquals(Path.of(file.getPath()).toAbsolutePath().toString(), request.getAttribute(FileResponseWriter.SENDFILE_FILENAME));
+        assertEquals(4L, request.getAttribute(FileResponseWriter.SENDFILE_START));
+        assertEquals(10L, request.getAttribute(FileResponseWriter.SENDFILE_END));
+    }
+
+    @Test
+    public void write_servesCachedBodyWithoutReadingTheFile() throws Exception {
+        Files.delete(Path.of(file.getPath()));
+        ByteBuffer body = ByteBuffer.allocateDirect(10).put("0123456789".getBytes(StandardCharsets.US_ASCII)).flip();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/avatar");
+        request.addHeader("Range", "bytes=2-5");
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        writer.write(file, body, null, request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("2345", response.getContentAsString());
+        assertEquals(0, body.position());
+    }
+
+    @Test
+    public void write_redirectsToTheStoreDownloadUrlWhenItHasOne() throws Exception {
+        BlobStore store = mock(BlobStore.class);
+        when(store.downloadUrl(file.getPath())).thenReturn(Optional.of(URI.create("https://s3.example.com/avatars/blob?X-Amz-Signature=abc")));
+        FileResponseWriter remote = new FileResponseWriter(store, 31536000);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        remote.write(file, SHA, new MockHttpServletRequest("GET", "/avatar"), response);
+
+        assertEquals(302, response.getStatus());
+        assertEquals("https://s3.example.com/avatars/blob?X-Amz-Signature=abc", response.getHeader("Location"));
+        assertEquals("private, no-cache", response.getHeader("Cache-Control"));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void responseDtos_linkTheVersionThatIsServedAsImmutable() throws Exception {
+        String key = new LocalBlobStore(tempDir.resolve("blobs").toString()).key(SHA);
+        String url = new UserResponseDTO(7L, "Ana", null, "ana", null, "ana@example.com", List.of(), Rol.USUARIO, key, List.of()).getAvatarUrl();
+        assertEquals("/api/v1/users/7/avatar?v=" + SHA, url);
+        assertEquals("/api/v1/groups/3/avatar", new GroupResponseDTO(3L, "G", null, null, List.of(), "uploads/antiguo.png").getImageUrl());
+
+        String version = UriComponentsBuilder.fromUriString(url).build().getQueryParams().getFirst("v");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        writer.write(file, version, new MockHttpServletRequest("GET", url), response);
+
+        assertEquals("private, max-age=31536000, immutable", response.getHeader("Cache-Control"));
+    }
+
+    private MockHttpServletResponse get(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        writer.write(file, null, request, response);
+        return response;
+    }
+}
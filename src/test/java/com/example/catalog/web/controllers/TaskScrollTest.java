@@ -0,0 +1,147 @@
+package com.example.catalog.web.controllers;
+
+import com.example.catalog.domain.entities.Task;
+import com.example.catalog.domain.entities.User;
+import com.example.catalog.domain.enums.Rol;
+import com.example.catalog.mappers.CursorMapper;
+import com.example.catalog.repositories.TaskRepository;
+import com.example.catalog.repositories.UserRepository;
+import com.example.catalog.segurity.user.PrincipalCache;
+import com.example.catalog.services.*;
+import com.example.catalog.services.email.EmailOutboxService;
+import com.example.catalog.services.search.SearchIndexer;
+import com.example.catalog.services.stream.NotificationStreamHub;
+import com.example.catalog.web.FileResponseWriter;
+import com.example.catalog.web.exceptions.GlobalExceptionHandler;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// GET /api/v1/tasks/scroll y /myTasks/{email}/scroll recorridos página a página siguiendo nextCursor
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+@Import(TaskService.class)
+public class TaskScrollTest {
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @MockBean
+    private FileService fileService;
+    @MockBean
+    private AvatarCache avatarCache;
+    @MockBean
+    private EmailOutboxService emailOutbox;
+    @MockBean
+    private TaskLabelService taskLabelService;
+    @MockBean
+    private SearchIndexer searchIndexer;
+    @MockBean
+    private NotificationStreamHub streamHub;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private MockMvc mockMvc;
+    private List<Task> tasks;
+
+    @BeforeEach
+    public void setUp() {
+        User ana = userRepository.save(User.builder().name("Ana").surnames("s").username("ana").phoneNumber("600")
+                .email("ana@example.com").password("x").rol(Rol.USUARIO).build());
+        User luis = userRepository.save(User.builder().name("Luis").surnames("s").username("luis").phoneNumber("601")
+                .email("luis@example.com").password("x").rol(Rol.USUARIO).build());
+        tasks = new ArrayList<>();
+        // empates en (date, time): el id decide el orden y la frontera entre páginas
+        for (int i = 0; i < 5; i++) {
+            tasks.add(task("empate " + i, i % 2 == 0 ? ana : luis, LocalDate.of(2025, 3, 3), LocalTime.of(9, 0)));
+        }
+        tasks.add(task("antes", ana, LocalDate.of(2025, 3, 3), LocalTime.of(8, 0)));
+        tasks.add(task("después", ana, LocalDate.of(2025, 3, 4), LocalTime.of(8, 0)));
+        tasks.add(task("sin hora", luis, LocalDate.of(2025, 3, 2), LocalTime.of(23, 59)));
+        entityManager.flush();
+        entityManager.clear();
+
+        TaskController controller = new TaskController(taskService, mock(TaskBulkService.class), mock(TaskExportService.class),
+                mock(TaskImportService.class), mock(TaskCalendarService.class), mock(FileResponseWriter.class), mock(PrincipalCache.class));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).setControllerAdvice(new GlobalExceptionHandler()).build();
+    }
+
+    @Test
+    public void scroll_visitsEveryTaskOnceInKeyOrderAcrossTies() throws Exception {
+        List<Long> expected = tasks.stream()
+                .sorted(Comparator.comparing(Task::getDate).thenComparing(Task::getTime).thenComparing(Task::getId))
+                .map(Task::getId)
+                .toList();
+
+        assertEquals(expected, scrollAll("/api/v1/tasks/scroll", 2));
+    }
+
+    @Test
+    public void scroll_byUserEmailOnlyVisitsThatUsersTasks() throws Exception {
+        List<Long> expected = tasks.stream()
+                .filter(task -> task.getAssigmentFor().getEmail().equals("ana@example.com"))
+                .sorted(Comparator.comparing(Task::getDate).thenComparing(Task::getTime).thenComparing(Task::getId))
+                .map(Task::getId)
+                .toList();
+
+        assertEquals(expected, scrollAll("/api/v1/tasks/myTasks/ana@example.com/scroll", 2));
+    }
+
+    @Test
+    public void scroll_rejectsInvalidCursorsWithBadRequest() throws Exception {
+        for (String cursor : List.of("no*es*base64", CursorMapper.encode("2025-03-03", 1L),
+                CursorMapper.encode("ayer", "09:00", 1L), CursorMapper.encode("2025-03-03", "09:00", "uno"))) {
+            mockMvc.perform(get("/api/v1/tasks/scroll").param("cursor", cursor))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value("Cursor inválido"));
+        }
+    }
+
+    private List<Long> scrollAll(String url, int size) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            var request = get(url).param("size", String.valueOf(size));
+            if (cursor != null) request.param("cursor", cursor);
+            JsonNode page = objectMapper.readTree(mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            page.get("content").forEach(task -> ids.add(task.get("id").asLong()));
+            cursor = page.get("hasNext").asBoolean() ? page.get("nextCursor").asText() : null;
+            assertTrue(++pages <= tasks.size(), "scroll does not terminate");
+        } while (cursor != null);
+        return ids;
+    }
+
+    private Task task(String title, User user, LocalDate date, LocalTime time) {
+        return taskRepository.save(Task.builder().title(title).description("d").date(date).time(time)
+                .assigmentFor(user).status(false).build());
+    }
+}